@@ -0,0 +1,56 @@
+package com.tensor.pay.callback;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 回调原始报文过滤器
+ *
+ * 表单回调（application/x-www-form-urlencoded）的请求体一旦被 {@code getParameter} 解析，
+ * Spring 的 {@code @RequestBody byte[]} 只能按参数表重新拼出报文，字段顺序和编码都可能与渠道签名的原文不同。
+ * 本过滤器排在所有过滤器之前，在参数解析前把请求体原样读出并放入请求属性，供回调接口通过 {@link #getBody} 取得。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class CallbackBodyFilter extends OncePerRequestFilter {
+
+    /**
+     * 需要保留原始报文的回调地址
+     */
+    public static final String[] URL_PATTERNS = {
+        "/api/payment/wechat/notify/*",
+        "/api/payment/alipay/notify/*",
+        "/api/payment/bank/notify/*"
+    };
+
+    private static final String BODY_ATTRIBUTE = CallbackBodyFilter.class.getName() + ".body";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if ("POST".equals(request.getMethod())) {
+            request.setAttribute(BODY_ATTRIBUTE, request.getInputStream().readAllBytes());
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * 取得回调的原始报文
+     *
+     * 过滤器未注册时直接读取请求体，此时调用方必须保证请求参数尚未被解析。
+     *
+     * @param request 回调请求
+     * @return 原始报文
+     * @throws IOException 读取请求体失败
+     */
+    public static byte[] getBody(HttpServletRequest request) throws IOException {
+        Object body = request.getAttribute(BODY_ATTRIBUTE);
+        return body instanceof byte[] bytes ? bytes : request.getInputStream().readAllBytes();
+    }
+}
@@ -0,0 +1,135 @@
+package com.tensor.pay.callback;
+
+import com.tensor.pay.config.CallbackProperties;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.UnifiedPaymentService;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 支付回调调度器
+ *
+ * 回调在独立的有界线程池中处理，渠道故障恢复后集中重发的大量回调只占用这个线程池，
+ * 不会挤占处理下单请求的Servlet线程。线程和队列都已占满时立即拒绝，
+ * 排队超过最长时间的回调也不再处理，二者都以 {@link #BUSY} 失败，由调用方返回可重试的失败应答。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class CallbackDispatcher {
+
+    /**
+     * 回调处理繁忙的错误码
+     */
+    public static final String BUSY = "CALLBACK_BUSY";
+
+    private final UnifiedPaymentService unifiedPaymentService;
+    private final long maxQueueNanos;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public CallbackDispatcher(UnifiedPaymentService unifiedPaymentService, CallbackProperties properties) {
+        this.unifiedPaymentService = unifiedPaymentService;
+        this.maxQueueNanos = properties.getMaxQueueTime().toNanos();
+        int threads = Math.max(1, properties.getThreads());
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("tensor-pay-callback-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), threadFactory,
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交回调处理
+     *
+     * @param paymentType 支付类型
+     * @param merchantId 子商户号，为空时使用默认商户
+     * @param body 原始回调报文
+     * @return 处理结果；繁忙时以错误码为 {@link #BUSY} 的 {@link PaymentException} 失败
+     */
+    public CompletableFuture<PaymentResponse> dispatch(PaymentType paymentType, String merchantId, byte[] body) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<PaymentResponse> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (System.nanoTime() - enqueuedAt > maxQueueNanos) {
+                    expired.increment();
+                    future.completeExceptionally(PaymentException.businessError(BUSY, "回调排队超时"));
+                    return;
+                }
+                try {
+                    future.complete(unifiedPaymentService.handleCallback(paymentType, merchantId, body));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    processed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(PaymentException.businessError(BUSY, "回调处理繁忙", e));
+        }
+        return future;
+    }
+
+    /**
+     * 判断异常是否为繁忙拒绝
+     */
+    public static boolean isBusy(Throwable e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof PaymentException paymentException && BUSY.equals(paymentException.getErrorCode())) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 已处理的回调数量
+     */
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * 因线程池和队列已满被拒绝的回调数量
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 因排队超时被放弃的回调数量
+     */
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * 当前排队的回调数量
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 停止接收新的回调
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
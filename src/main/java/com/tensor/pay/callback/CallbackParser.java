@@ -0,0 +1,150 @@
+package com.tensor.pay.callback;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.util.Fnv;
+import com.tensor.pay.exception.PaymentException;
+
+import java.nio.charset.Charset;
+
+/**
+ * 回调报文解析器
+ *
+ * 对原始请求字节只扫描一次：表单报文记录字段位置、不做解码；
+ * JSON报文通过fastjson2的 {@link JSONReader} 按字段名哈希匹配，只读取需要的字段，其余直接跳过。
+ * 解析过程不创建中间Map或String。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class CallbackParser {
+
+    private static final int INITIAL_FIELDS = 16;
+
+    private CallbackParser() {
+    }
+
+    /**
+     * 按报文内容自动识别格式并解析，以 '{' 开头的视为JSON
+     *
+     * @param body 原始报文
+     * @param charset 报文编码
+     * @param jsonFields JSON报文需要读取的字段，表单报文忽略
+     * @return 报文视图
+     */
+    public static CallbackView parse(byte[] body, Charset charset, String... jsonFields) {
+        for (byte b : body) {
+            if (b == '{') {
+                return parseJson(body, charset, jsonFields);
+            }
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                break;
+            }
+        }
+        return parseForm(body, charset);
+    }
+
+    /**
+     * 解析 application/x-www-form-urlencoded 报文
+     *
+     * @param body 原始报文
+     * @param charset 报文编码
+     * @return 报文视图
+     */
+    public static CallbackView parseForm(byte[] body, Charset charset) {
+        CallbackView view = new CallbackView(body, charset, CallbackView.Format.FORM, INITIAL_FIELDS);
+        int length = body.length;
+        int fieldStart = 0;
+        int separator = -1;
+        boolean escaped = false;
+        for (int i = 0; i <= length; i++) {
+            byte b = i < length ? body[i] : (byte) '&';
+            if (b == '&') {
+                if (i > fieldStart) {
+                    if (separator < 0) {
+                        view.addFormField(fieldStart, i, i, i, false);
+                    } else if (separator > fieldStart) {
+                        view.addFormField(fieldStart, separator, separator + 1, trimEnd(body, separator + 1, i),
+                            escaped);
+                    }
+                }
+                fieldStart = i + 1;
+                separator = -1;
+                escaped = false;
+            } else if (b == '=' && separator < 0) {
+                separator = i;
+            } else if ((b == '%' || b == '+') && separator >= 0) {
+                escaped = true;
+            }
+        }
+        return view;
+    }
+
+    /**
+     * 解析JSON报文的顶层字段，只读取指定的字段
+     *
+     * @param body 原始报文
+     * @param charset 报文编码
+     * @param fields 需要读取的字段名
+     * @return 报文视图，非字符串的字段值以JSON文本保存
+     */
+    public static CallbackView parseJson(byte[] body, Charset charset, String... fields) {
+        CallbackView view = new CallbackView(body, charset, CallbackView.Format.JSON, fields.length);
+        long[] hashes = new long[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            hashes[i] = Fnv.hashCode64(fields[i]);
+        }
+
+        try (JSONReader reader = JSONReader.of(body, 0, body.length, charset)) {
+            if (!reader.nextIfObjectStart()) {
+                throw PaymentException.businessError("INVALID_CALLBACK", "回调报文不是JSON对象");
+            }
+            int remaining = fields.length;
+            while (!reader.nextIfObjectEnd()) {
+                long hash = reader.readFieldNameHashCode();
+                int field = remaining == 0 ? -1 : indexOf(hashes, hash);
+                if (field < 0) {
+                    reader.skipValue();
+                    continue;
+                }
+                view.addJsonField(fields[field], readValue(reader));
+                // 重复字段以第一次出现的为准
+                hashes[field] = 0;
+                remaining--;
+            }
+        } catch (PaymentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw PaymentException.businessError("INVALID_CALLBACK", "回调报文解析失败", e);
+        }
+        return view;
+    }
+
+    private static String readValue(JSONReader reader) {
+        if (reader.nextIfNull()) {
+            return null;
+        }
+        if (reader.isString()) {
+            return reader.readString();
+        }
+        Object value = reader.readAny();
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+            ? String.valueOf(value) : JSON.toJSONString(value);
+    }
+
+    private static int indexOf(long[] hashes, long hash) {
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] == hash) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimEnd(byte[] body, int start, int end) {
+        while (end > start && (body[end - 1] == '\r' || body[end - 1] == '\n')) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,376 @@
+package com.tensor.pay.callback;
+
+import com.tensor.pay.enums.ChannelStatusCodec;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.model.Money;
+import com.tensor.pay.model.PaymentResponse;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * 回调报文视图
+ *
+ * 由 {@link CallbackParser} 对原始请求字节做一次扫描后得到，只记录各字段名和值在报文中的起止位置，
+ * 字段值在第一次被读取时才做URL解码并缓存；状态和金额可以直接在原始字节上解析，不创建String。
+ * JSON报文只保存解析时指定的字段，签名按渠道约定直接使用原始报文。
+ * 视图不是线程安全的，只应在处理单次回调的线程内使用。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class CallbackView {
+
+    /**
+     * 报文格式
+     */
+    public enum Format {
+        /**
+         * application/x-www-form-urlencoded
+         */
+        FORM,
+        /**
+         * application/json
+         */
+        JSON
+    }
+
+    private final byte[] body;
+    private final Charset charset;
+    private final Format format;
+
+    /**
+     * 表单字段的位置，每个字段4个int：名称起止、值起止
+     */
+    private int[] spans;
+
+    /**
+     * 表单字段值是否包含需要解码的 % 或 +
+     */
+    private boolean[] escaped;
+
+    /**
+     * JSON字段名，表单报文为null
+     */
+    private String[] names;
+
+    /**
+     * 已解码的字段值
+     */
+    private String[] values;
+    private int size;
+
+    CallbackView(byte[] body, Charset charset, Format format, int capacity) {
+        this.body = body;
+        this.charset = charset;
+        this.format = format;
+        if (format == Format.FORM) {
+            this.spans = new int[capacity * 4];
+            this.escaped = new boolean[capacity];
+        } else {
+            this.names = new String[capacity];
+        }
+        this.values = new String[capacity];
+    }
+
+    void addFormField(int nameStart, int nameEnd, int valueStart, int valueEnd, boolean valueEscaped) {
+        if (size == escaped.length) {
+            grow();
+        }
+        int base = size * 4;
+        spans[base] = nameStart;
+        spans[base + 1] = nameEnd;
+        spans[base + 2] = valueStart;
+        spans[base + 3] = valueEnd;
+        escaped[size] = valueEscaped;
+        size++;
+    }
+
+    void addJsonField(String name, String value) {
+        names[size] = name;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * 字段数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 查找字段，名称按ASCII比较
+     *
+     * @param name 字段名
+     * @return 字段下标，不存在时返回-1
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < size; i++) {
+            if (nameEquals(i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * 字段名是否等于给定名称
+     */
+    public boolean nameEquals(int index, String name) {
+        if (names != null) {
+            return names[index].equals(name);
+        }
+        int start = spans[index * 4];
+        int length = spans[index * 4 + 1] - start;
+        if (length != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (body[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字段名
+     */
+    public String name(int index) {
+        if (names != null) {
+            return names[index];
+        }
+        int start = spans[index * 4];
+        return new String(body, start, spans[index * 4 + 1] - start, charset);
+    }
+
+    /**
+     * 按名称读取解码后的字段值
+     *
+     * @param name 字段名
+     * @return 字段值，不存在时返回null
+     */
+    public String get(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : value(index);
+    }
+
+    /**
+     * 解码后的字段值，第一次读取时解码并缓存
+     */
+    public String value(int index) {
+        String value = values[index];
+        if (value == null && names == null) {
+            value = decode(index);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * 字段值是否为空
+     */
+    public boolean isEmptyValue(int index) {
+        if (names != null) {
+            return values[index] == null || values[index].isEmpty();
+        }
+        return spans[index * 4 + 2] == spans[index * 4 + 3];
+    }
+
+    /**
+     * 直接在原始字节上把渠道状态映射为内部状态
+     *
+     * @param name 状态字段名
+     * @param codec 渠道状态编解码器
+     * @return 内部状态，字段不存在时返回编解码器的默认状态
+     */
+    public PaymentStatus status(String name, ChannelStatusCodec codec) {
+        int index = indexOf(name);
+        if (index < 0) {
+            return codec.decode((String) null);
+        }
+        if (names != null || escaped[index]) {
+            return codec.decode(value(index));
+        }
+        int start = spans[index * 4 + 2];
+        return codec.decode(body, start, spans[index * 4 + 3] - start);
+    }
+
+    /**
+     * 直接在原始字节上把元为单位的金额解析为最小单位
+     *
+     * @param name 金额字段名
+     * @param digits 小数位数
+     * @return 金额（最小单位），字段不存在或为空时返回 {@link PaymentResponse#NO_AMOUNT}
+     */
+    public long amountMinor(String name, int digits) {
+        int index = indexOf(name);
+        if (index < 0 || isEmptyValue(index)) {
+            return PaymentResponse.NO_AMOUNT;
+        }
+        if (names != null || escaped[index]) {
+            return Money.parseMinor(value(index), digits);
+        }
+        int start = spans[index * 4 + 2];
+        return Money.parseMinor(body, start, spans[index * 4 + 3] - start, digits);
+    }
+
+    /**
+     * 参与签名的字段下标，按字段名升序排列，跳过空值和排除的字段
+     *
+     * @param excluded 不参与签名的字段名
+     * @return 字段下标
+     */
+    public int[] signFieldOrder(String... excluded) {
+        int[] order = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (isEmptyValue(i) || isExcluded(i, excluded)) {
+                continue;
+            }
+            // 字段数量很少，插入排序即可
+            int j = count++;
+            while (j > 0 && compareNames(order[j - 1], i) > 0) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        return count == size ? order : Arrays.copyOf(order, count);
+    }
+
+    /**
+     * 拼接待签名字符串 k1=v1&amp;k2=v2，按字段名升序，跳过空值和排除的字段
+     *
+     * @param excluded 不参与签名的字段名
+     * @return 待签名字符串
+     */
+    public String signContent(String... excluded) {
+        StringBuilder content = new StringBuilder(body.length);
+        for (int index : signFieldOrder(excluded)) {
+            if (content.length() > 0) {
+                content.append('&');
+            }
+            content.append(name(index)).append('=').append(value(index));
+        }
+        return content.toString();
+    }
+
+    /**
+     * 把字段名写入摘要
+     */
+    public void digestName(int index, MessageDigest digest) {
+        if (names != null) {
+            digest.update(names[index].getBytes(charset));
+            return;
+        }
+        int start = spans[index * 4];
+        digest.update(body, start, spans[index * 4 + 1] - start);
+    }
+
+    /**
+     * 把解码后的字段值写入摘要，未转义的片段直接使用原始字节
+     */
+    public void digestValue(int index, MessageDigest digest) {
+        if (names != null) {
+            digest.update(values[index].getBytes(charset));
+            return;
+        }
+        int start = spans[index * 4 + 2];
+        int end = spans[index * 4 + 3];
+        if (!escaped[index]) {
+            digest.update(body, start, end - start);
+            return;
+        }
+        int run = start;
+        for (int i = start; i < end; i++) {
+            byte b = body[i];
+            if (b == '+') {
+                digest.update(body, run, i - run);
+                digest.update((byte) ' ');
+                run = i + 1;
+            } else if (b == '%' && i + 2 < end && isHex(body[i + 1]) && isHex(body[i + 2])) {
+                digest.update(body, run, i - run);
+                digest.update((byte) ((hex(body[i + 1]) << 4) | hex(body[i + 2])));
+                i += 2;
+                run = i + 1;
+            }
+        }
+        digest.update(body, run, end - run);
+    }
+
+    /**
+     * 原始报文，不可修改
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    private boolean isExcluded(int index, String[] excluded) {
+        for (String name : excluded) {
+            if (nameEquals(index, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int compareNames(int a, int b) {
+        if (names != null) {
+            return names[a].compareTo(names[b]);
+        }
+        int aStart = spans[a * 4];
+        int bStart = spans[b * 4];
+        return Arrays.compareUnsigned(body, aStart, spans[a * 4 + 1], body, bStart, spans[b * 4 + 1]);
+    }
+
+    private String decode(int index) {
+        int start = spans[index * 4 + 2];
+        int end = spans[index * 4 + 3];
+        if (!escaped[index]) {
+            return new String(body, start, end - start, charset);
+        }
+        byte[] decoded = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = body[i];
+            if (b == '+') {
+                b = ' ';
+            } else if (b == '%' && i + 2 < end && isHex(body[i + 1]) && isHex(body[i + 2])) {
+                b = (byte) ((hex(body[i + 1]) << 4) | hex(body[i + 2]));
+                i += 2;
+            }
+            decoded[length++] = b;
+        }
+        return new String(decoded, 0, length, charset);
+    }
+
+    private void grow() {
+        int capacity = Math.max(8, escaped.length << 1);
+        spans = Arrays.copyOf(spans, capacity * 4);
+        escaped = Arrays.copyOf(escaped, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    private static boolean isHex(byte b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'f') || (b >= 'A' && b <= 'F');
+    }
+
+    private static int hex(byte b) {
+        return b <= '9' ? b - '0' : (b | 0x20) - 'a' + 10;
+    }
+}
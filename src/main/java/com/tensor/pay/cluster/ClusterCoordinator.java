@@ -0,0 +1,154 @@
+package com.tensor.pay.cluster;
+
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiPredicate;
+
+/**
+ * 集群工作归属
+ *
+ * 按商户订单号在成员间做一致性哈希，补偿查询、超时关闭等后台任务集中到归属节点执行。
+ * 非归属节点创建的订单通过 {@link OrderHandoff} 交给归属节点，只有归属节点确认登记后本节点才不再跟踪；
+ * 未配置移交、移交失败或成员列表为空时订单留在创建它的节点处理，宁可重复执行也不遗漏。
+ * 成员列表来自 {@link MemberDiscovery}，变化时重建哈希环并原子替换，判断归属只读取当前的环，不加锁。
+ * 订单交出后由归属节点在内存中跟踪，归属节点下线时与单机重启一样丢失这些订单的后台任务。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ClusterCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private final String localMemberId;
+    private final MemberDiscovery discovery;
+    private final int virtualNodes;
+    private final OrderHandoff handoff;
+    private final List<BiPredicate<PaymentRequest, PaymentResponse>> receivers = new CopyOnWriteArrayList<>();
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * @param localMemberId 本节点的成员ID
+     * @param discovery 成员发现
+     * @param virtualNodes 每个成员的虚拟节点数
+     */
+    public ClusterCoordinator(String localMemberId, MemberDiscovery discovery, int virtualNodes) {
+        this(localMemberId, discovery, virtualNodes, null);
+    }
+
+    /**
+     * @param localMemberId 本节点的成员ID
+     * @param discovery 成员发现
+     * @param virtualNodes 每个成员的虚拟节点数
+     * @param handoff 订单移交，为null时订单都由创建它的节点处理
+     */
+    public ClusterCoordinator(String localMemberId, MemberDiscovery discovery, int virtualNodes,
+                              OrderHandoff handoff) {
+        if (localMemberId == null || localMemberId.isEmpty()) {
+            throw new IllegalArgumentException("tensor.pay.cluster.member-id must not be empty");
+        }
+        this.localMemberId = localMemberId;
+        this.discovery = discovery;
+        this.virtualNodes = virtualNodes;
+        this.handoff = handoff;
+        this.ring = new ConsistentHashRing(List.of(), virtualNodes);
+        refresh();
+        discovery.addListener(this::refresh);
+    }
+
+    /**
+     * 重新读取成员列表并重建哈希环，读取失败时保留当前的环
+     */
+    public void refresh() {
+        List<ClusterMember> members;
+        try {
+            members = discovery.getMembers();
+        } catch (Exception e) {
+            logger.warn("Failed to refresh cluster members, keeping {}", ring.getMembers(), e);
+            return;
+        }
+        ConsistentHashRing rebuilt = new ConsistentHashRing(members, virtualNodes);
+        if (!rebuilt.getMembers().equals(ring.getMembers())) {
+            logger.info("Cluster members changed: {}", rebuilt.getMembers());
+        }
+        ring = rebuilt;
+    }
+
+    /**
+     * 订单是否归属本节点
+     *
+     * @param outTradeNo 商户订单号
+     * @return 归属本节点或成员列表为空时返回true
+     */
+    public boolean isOwner(String outTradeNo) {
+        ClusterMember owner = ring.ownerOf(outTradeNo);
+        return owner == null || owner.getId().equals(localMemberId);
+    }
+
+    /**
+     * 订单归属的成员
+     *
+     * @param outTradeNo 商户订单号
+     * @return 归属成员，成员列表为空时返回null
+     */
+    public ClusterMember ownerOf(String outTradeNo) {
+        return ring.ownerOf(outTradeNo);
+    }
+
+    /**
+     * 注册订单登记方，归属节点收到移交的订单时依次调用
+     *
+     * @param receiver 登记订单，无法登记（如本地容量已满）时返回false
+     */
+    public void addReceiver(BiPredicate<PaymentRequest, PaymentResponse> receiver) {
+        receivers.add(receiver);
+    }
+
+    /**
+     * 把本节点创建的订单交给归属节点
+     *
+     * @param request 支付请求
+     * @param response 下单响应
+     * @return 归属节点已登记订单时返回true；本节点就是归属节点、未配置移交或移交失败时返回false，由本节点处理
+     */
+    public boolean handOff(PaymentRequest request, PaymentResponse response) {
+        ClusterMember owner = ring.ownerOf(response.getOutTradeNo());
+        if (handoff == null || owner == null || owner.getId().equals(localMemberId)) {
+            return false;
+        }
+        try {
+            return handoff.handOff(owner, request, response);
+        } catch (Exception e) {
+            logger.warn("Failed to hand off order {} to {}, handling it locally", response.getOutTradeNo(), owner, e);
+            return false;
+        }
+    }
+
+    /**
+     * 登记其他节点移交来的订单，不再判断归属，避免成员列表短暂不一致时来回移交
+     *
+     * @param request 支付请求
+     * @param response 下单响应
+     * @return 全部登记方都登记成功时返回true
+     */
+    public boolean receive(PaymentRequest request, PaymentResponse response) {
+        boolean accepted = !receivers.isEmpty();
+        for (BiPredicate<PaymentRequest, PaymentResponse> receiver : receivers) {
+            accepted &= receiver.test(request, response);
+        }
+        return accepted;
+    }
+
+    public List<ClusterMember> getMembers() {
+        return ring.getMembers();
+    }
+
+    public String getLocalMemberId() {
+        return localMemberId;
+    }
+}
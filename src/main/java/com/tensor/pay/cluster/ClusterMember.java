@@ -0,0 +1,56 @@
+package com.tensor.pay.cluster;
+
+import java.util.Objects;
+
+/**
+ * 集群成员
+ *
+ * 成员以ID区分，地址只用于展示和运维，不参与一致性哈希。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class ClusterMember {
+
+    private final String id;
+    private final String address;
+
+    /**
+     * @param id 成员ID，集群内唯一且在重启后保持不变
+     * @param address 成员地址，可以为空
+     */
+    public ClusterMember(String id, String address) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.address = address;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClusterMember)) {
+            return false;
+        }
+        ClusterMember that = (ClusterMember) o;
+        return id.equals(that.id) && Objects.equals(address, that.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return address == null ? id : id + "@" + address;
+    }
+}
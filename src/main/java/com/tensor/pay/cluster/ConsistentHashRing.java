@@ -0,0 +1,114 @@
+package com.tensor.pay.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希环
+ *
+ * 每个成员在环上放置若干虚拟节点，订单号按哈希值顺时针找到的第一个虚拟节点归属对应成员。
+ * 成员增减时只有相邻区间的订单改变归属，新增第N个成员大约接管 1/N 的订单。
+ * 环构建后不可变，成员按ID排序后放置，相同的成员列表在每个节点上得到相同的环。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final ClusterMember[] owners;
+    private final List<ClusterMember> members;
+
+    /**
+     * @param members 成员列表，ID重复时保留后出现的成员
+     * @param virtualNodes 每个成员的虚拟节点数
+     */
+    public ConsistentHashRing(Collection<ClusterMember> members, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        Map<String, ClusterMember> byId = new TreeMap<>();
+        for (ClusterMember member : members) {
+            byId.put(member.getId(), member);
+        }
+        this.members = List.copyOf(byId.values());
+
+        List<Point> ring = new ArrayList<>(this.members.size() * virtualNodes);
+        for (ClusterMember member : this.members) {
+            long base = hash(member.getId());
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.add(new Point(mix(base + i * 0x9e3779b97f4a7c15L), member));
+            }
+        }
+        // 排序稳定，哈希值相同时按成员ID的顺序，每个节点结果一致
+        ring.sort(Comparator.comparingLong(point -> point.hash));
+        this.points = new long[ring.size()];
+        this.owners = new ClusterMember[ring.size()];
+        for (int i = 0; i < ring.size(); i++) {
+            points[i] = ring.get(i).hash;
+            owners[i] = ring.get(i).member;
+        }
+    }
+
+    /**
+     * 订单归属的成员
+     *
+     * @param key 商户订单号
+     * @return 归属成员，环为空时返回null
+     */
+    public ClusterMember ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<ClusterMember> getMembers() {
+        return members;
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * FNV-1a 后做一次 64 位混合，订单号前缀相同时也能分散
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, len = key.length(); i < len; i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Point {
+
+        private final long hash;
+        private final ClusterMember member;
+
+        private Point(long hash, ClusterMember member) {
+            this.hash = hash;
+            this.member = member;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.tensor.pay.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程内维护的成员列表，用于测试或由其他组件（如消息队列的心跳）维护成员
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class InMemoryMemberDiscovery implements MemberDiscovery {
+
+    private final Map<String, ClusterMember> members = new ConcurrentHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 加入成员，ID已存在时更新地址
+     */
+    public void join(ClusterMember member) {
+        if (!member.equals(members.put(member.getId(), member))) {
+            notifyListeners();
+        }
+    }
+
+    /**
+     * 移除成员
+     */
+    public void leave(String memberId) {
+        if (members.remove(memberId) != null) {
+            notifyListeners();
+        }
+    }
+
+    @Override
+    public List<ClusterMember> getMembers() {
+        return new ArrayList<>(members.values());
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tensor.pay.cluster;
+
+import java.util.List;
+
+/**
+ * 集群成员发现
+ *
+ * 由注册中心、Kubernetes Endpoints 等提供当前存活的成员列表；成员变化时通知监听器，
+ * {@link ClusterCoordinator} 收到通知后重新读取成员列表并重建哈希环。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public interface MemberDiscovery {
+
+    /**
+     * 当前的成员列表
+     *
+     * @return 成员列表，包括本节点
+     */
+    List<ClusterMember> getMembers();
+
+    /**
+     * 注册成员变化监听器，成员列表不会变化的实现可以忽略
+     *
+     * @param listener 成员变化时调用
+     */
+    default void addListener(Runnable listener) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.tensor.pay.cluster;
+
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+
+/**
+ * 订单移交
+ *
+ * 由应用基于RPC或消息队列实现，把本节点创建、但归属其他节点的订单交给归属节点；
+ * 归属节点收到后调用其 {@link ClusterCoordinator#receive(PaymentRequest, PaymentResponse)} 登记订单。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public interface OrderHandoff {
+
+    /**
+     * 把订单交给归属节点
+     *
+     * @param owner 归属节点
+     * @param request 支付请求
+     * @param response 下单响应
+     * @return 归属节点的 {@code receive} 返回true后才能返回true，否则订单留在本节点处理
+     * @throws Exception 移交失败，订单留在本节点处理
+     */
+    boolean handOff(ClusterMember owner, PaymentRequest request, PaymentResponse response) throws Exception;
+}
@@ -0,0 +1,23 @@
+package com.tensor.pay.cluster;
+
+import java.util.List;
+
+/**
+ * 固定成员列表，来自配置文件
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class StaticMemberDiscovery implements MemberDiscovery {
+
+    private final List<ClusterMember> members;
+
+    public StaticMemberDiscovery(List<ClusterMember> members) {
+        this.members = List.copyOf(members);
+    }
+
+    @Override
+    public List<ClusterMember> getMembers() {
+        return members;
+    }
+}
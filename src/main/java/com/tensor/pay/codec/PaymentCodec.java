@@ -0,0 +1,312 @@
+package com.tensor.pay.codec;
+
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEvent;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.Money;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.function.Function;
+
+import static com.tensor.pay.codec.WireFormat.*;
+
+/**
+ * 支付请求、支付响应和支付事件的二进制编码
+ *
+ * 用于事件日志和服务间传输，比JSON紧凑：整数变长编码，枚举按序号编码，
+ * 金额按币种最小单位的整数编码，时间按毫秒时间戳编码，字段按固定顺序直接读写，不使用反射。
+ * 每条报文以类型、版本号和报文体长度开头：新版本只在报文体末尾追加字段，
+ * 旧版本读取新版本报文时跳过不认识的部分，新版本按报文中的版本号决定读取哪些字段。
+ * 枚举常量只能在末尾追加，不能调整顺序或删除。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class PaymentCodec {
+
+    /**
+     * 报文格式错误的错误码
+     */
+    public static final String INVALID_MESSAGE = "INVALID_MESSAGE";
+
+    /**
+     * 当前写入的版本号
+     */
+    public static final int VERSION = 1;
+
+    private static final byte KIND_REQUEST = 1;
+    private static final byte KIND_RESPONSE = 2;
+    private static final byte KIND_EVENT = 3;
+
+    /**
+     * 类型、版本号各一个字节，报文体长度四个字节
+     */
+    private static final int HEADER_SIZE = 6;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final PaymentStatus[] PAYMENT_STATUSES = PaymentStatus.values();
+    private static final PaymentEvent.Type[] EVENT_TYPES = PaymentEvent.Type.values();
+
+    private PaymentCodec() {
+    }
+
+    /**
+     * 编码支付请求
+     *
+     * @param request 支付请求，金额超出币种精度时抛出 INVALID_AMOUNT
+     * @param out 输出缓冲区，空间不足时抛出 {@link BufferOverflowException}
+     */
+    public static void write(PaymentRequest request, ByteBuffer out) {
+        int start = beginMessage(out, KIND_REQUEST);
+        writeRequestBody(request, out);
+        endMessage(out, start);
+    }
+
+    /**
+     * 编码支付响应
+     *
+     * @param response 支付响应
+     * @param out 输出缓冲区，空间不足时抛出 {@link BufferOverflowException}
+     */
+    public static void write(PaymentResponse response, ByteBuffer out) {
+        int start = beginMessage(out, KIND_RESPONSE);
+        writeResponseBody(response, out);
+        endMessage(out, start);
+    }
+
+    /**
+     * 编码支付事件，请求和响应作为带各自版本号的子报文嵌入
+     *
+     * @param event 支付事件
+     * @param out 输出缓冲区，空间不足时抛出 {@link BufferOverflowException}
+     */
+    public static void write(PaymentEvent event, ByteBuffer out) {
+        int start = beginMessage(out, KIND_EVENT);
+        writeEnum(out, event.getType());
+        writeSignedLong(out, event.getOccurredAt());
+        out.put((byte) (event.getRequest() == null ? 0 : 1));
+        if (event.getRequest() != null) {
+            write(event.getRequest(), out);
+        }
+        out.put((byte) (event.getResponse() == null ? 0 : 1));
+        if (event.getResponse() != null) {
+            write(event.getResponse(), out);
+        }
+        endMessage(out, start);
+    }
+
+    public static byte[] encode(PaymentRequest request) {
+        return encode(request, PaymentCodec::write);
+    }
+
+    public static byte[] encode(PaymentResponse response) {
+        return encode(response, PaymentCodec::write);
+    }
+
+    public static byte[] encode(PaymentEvent event) {
+        return encode(event, PaymentCodec::write);
+    }
+
+    /**
+     * 读取支付请求，读取后缓冲区位置移到报文末尾
+     *
+     * @param in 输入缓冲区
+     * @return 支付请求
+     */
+    public static PaymentRequest readRequest(ByteBuffer in) {
+        return read(in, KIND_REQUEST, PaymentCodec::readRequestBody);
+    }
+
+    /**
+     * 读取支付响应，读取后缓冲区位置移到报文末尾
+     *
+     * @param in 输入缓冲区
+     * @return 支付响应
+     */
+    public static PaymentResponse readResponse(ByteBuffer in) {
+        return read(in, KIND_RESPONSE, PaymentCodec::readResponseBody);
+    }
+
+    /**
+     * 读取支付事件，读取后缓冲区位置移到报文末尾
+     *
+     * @param in 输入缓冲区
+     * @return 支付事件
+     */
+    public static PaymentEvent readEvent(ByteBuffer in) {
+        return read(in, KIND_EVENT, body -> {
+            PaymentEvent.Type type = readEnum(body, EVENT_TYPES);
+            long occurredAt = readSignedLong(body);
+            PaymentRequest request = readPresent(body) ? readRequest(body) : null;
+            PaymentResponse response = readPresent(body) ? readResponse(body) : null;
+            return new PaymentEvent(type, occurredAt, request, response);
+        });
+    }
+
+    private static void writeRequestBody(PaymentRequest request, ByteBuffer out) {
+        writeString(out, request.getOutTradeNo());
+        writeEnum(out, request.getPaymentType());
+        writeString(out, request.getCurrency());
+        BigDecimal amount = request.getAmount();
+        writeOptionalLong(out, amount != null,
+            amount == null ? 0 : Money.toMinor(amount, Money.digits(Money.currency(request.getCurrency()))));
+        writeString(out, request.getSubject());
+        writeString(out, request.getBody());
+        writeDateTime(out, request.getExpireTime());
+        writeString(out, request.getNotifyUrl());
+        writeString(out, request.getReturnUrl());
+        writeString(out, request.getUserId());
+        writeString(out, request.getClientIp());
+        writeString(out, request.getMerchantId());
+        Long timeoutMillis = request.getTimeoutMillis();
+        writeOptionalLong(out, timeoutMillis != null, timeoutMillis == null ? 0 : timeoutMillis);
+        writeMap(out, request.getExtraParams());
+    }
+
+    private static PaymentRequest readRequestBody(ByteBuffer in) {
+        PaymentRequest request = new PaymentRequest();
+        request.setOutTradeNo(readString(in));
+        request.setPaymentType(readEnum(in, PAYMENT_TYPES));
+        request.setCurrency(readString(in));
+        if (readPresent(in)) {
+            request.setAmount(BigDecimal.valueOf(readSignedLong(in), readCurrencyDigits(request.getCurrency())));
+        }
+        request.setSubject(readString(in));
+        request.setBody(readString(in));
+        request.setExpireTime(readDateTime(in));
+        request.setNotifyUrl(readString(in));
+        request.setReturnUrl(readString(in));
+        request.setUserId(readString(in));
+        request.setClientIp(readString(in));
+        request.setMerchantId(readString(in));
+        if (readPresent(in)) {
+            request.setTimeoutMillis(readSignedLong(in));
+        }
+        request.setExtraParams(readMap(in));
+        return request;
+    }
+
+    /**
+     * 报文中币种的小数位数，未知币种视为格式错误
+     */
+    private static int readCurrencyDigits(String currencyCode) {
+        Currency currency = Money.findCurrency(currencyCode);
+        if (currency == null) {
+            throw invalid("unknown currency " + currencyCode);
+        }
+        return Money.digits(currency);
+    }
+
+    private static void writeResponseBody(PaymentResponse response, ByteBuffer out) {
+        out.put((byte) (response.isSuccess() ? 1 : 0));
+        writeString(out, response.getErrorCode());
+        writeString(out, response.getErrorMessage());
+        writeString(out, response.getOutTradeNo());
+        writeString(out, response.getTradeNo());
+        writeEnum(out, response.getPaymentType());
+        writeEnum(out, response.getStatus());
+        writeString(out, response.getCurrency());
+        long amount = response.getAmountMinor();
+        writeOptionalLong(out, amount != PaymentResponse.NO_AMOUNT, amount);
+        long paidAmount = response.getPaidAmountMinor();
+        writeOptionalLong(out, paidAmount != PaymentResponse.NO_AMOUNT, paidAmount);
+        writeDateTime(out, response.getPayTime());
+        writeString(out, response.getPayUrl());
+        writeString(out, response.getPayParams());
+        writeMap(out, response.getExtraData());
+    }
+
+    private static PaymentResponse readResponseBody(ByteBuffer in) {
+        PaymentResponse response = new PaymentResponse();
+        response.setSuccess(readPresent(in));
+        response.setErrorCode(readString(in));
+        response.setErrorMessage(readString(in));
+        response.setOutTradeNo(readString(in));
+        response.setTradeNo(readString(in));
+        response.setPaymentType(readEnum(in, PAYMENT_TYPES));
+        response.setStatus(readEnum(in, PAYMENT_STATUSES));
+        // 先设置币种，金额已是最小单位，不再换算
+        String currency = readString(in);
+        readCurrencyDigits(currency);
+        response.setCurrency(currency);
+        response.setAmountMinor(readPresent(in) ? readSignedLong(in) : PaymentResponse.NO_AMOUNT);
+        response.setPaidAmountMinor(readPresent(in) ? readSignedLong(in) : PaymentResponse.NO_AMOUNT);
+        response.setPayTime(readDateTime(in));
+        response.setPayUrl(readString(in));
+        response.setPayParams(readString(in));
+        response.setExtraData(readMap(in));
+        return response;
+    }
+
+    private static int beginMessage(ByteBuffer out, byte kind) {
+        out.put(kind);
+        out.put((byte) VERSION);
+        int start = out.position();
+        out.putInt(0);
+        return start;
+    }
+
+    private static void endMessage(ByteBuffer out, int start) {
+        putFixedInt(out, start, out.position() - start - Integer.BYTES);
+    }
+
+    /**
+     * 读取一条报文，读取后缓冲区位置移到报文末尾
+     *
+     * 较新版本在报文体末尾追加的字段直接跳过；不高于当前版本的报文体必须恰好读完。
+     */
+    private static <T> T read(ByteBuffer in, byte kind, Function<ByteBuffer, T> reader) {
+        if (in.remaining() < HEADER_SIZE) {
+            throw invalid("truncated header");
+        }
+        byte actualKind = in.get();
+        if (actualKind != kind) {
+            throw invalid("expected message kind " + kind + " but was " + actualKind);
+        }
+        int version = in.get() & 0xFF;
+        if (version < 1) {
+            throw invalid("unsupported version " + version);
+        }
+        int length = readFixedInt(in);
+        if (length < 0 || length > in.remaining()) {
+            throw invalid("body length " + length + " exceeds remaining " + in.remaining());
+        }
+        ByteBuffer body = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        T value = reader.apply(body);
+        if (version <= VERSION && body.hasRemaining()) {
+            throw invalid(body.remaining() + " trailing bytes");
+        }
+        return value;
+    }
+
+    private static <T> byte[] encode(T value, Writer<T> writer) {
+        int capacity = INITIAL_CAPACITY;
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate(capacity);
+            try {
+                writer.write(value, buffer);
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            } catch (BufferOverflowException | IndexOutOfBoundsException e) {
+                if (capacity > Integer.MAX_VALUE >> 1) {
+                    throw new PaymentException(INVALID_MESSAGE, "报文过大", e);
+                }
+                capacity <<= 1;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer<T> {
+
+        void write(T value, ByteBuffer out);
+    }
+}
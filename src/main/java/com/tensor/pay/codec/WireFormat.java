@@ -0,0 +1,346 @@
+package com.tensor.pay.codec;
+
+import com.tensor.pay.exception.PaymentException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制编码的基本类型读写
+ *
+ * 整数使用变长编码，有符号数先做ZigZag变换；可为空的值用前缀区分，0表示null。
+ * 读取越界或格式错误时抛出 {@link PaymentCodec#INVALID_MESSAGE}。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+final class WireFormat {
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_INT = 2;
+    private static final int TAG_LONG = 3;
+    private static final int TAG_FALSE = 4;
+    private static final int TAG_TRUE = 5;
+    private static final int TAG_DECIMAL = 6;
+    private static final int TAG_DOUBLE = 7;
+    private static final int TAG_MAP = 8;
+    private static final int TAG_LIST = 9;
+
+    private static final int MAX_DEPTH = 16;
+
+    private WireFormat() {
+    }
+
+    static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw invalid("varint too long");
+    }
+
+    static void writeVarInt(ByteBuffer out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int readVarInt(ByteBuffer in) {
+        long value = readVarLong(in);
+        if (value >>> 32 != 0) {
+            throw invalid("varint out of int range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * 定长整数固定按大端序读写，与缓冲区设置的字节序无关
+     */
+    static void putFixedInt(ByteBuffer out, int index, int value) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            out.put(index + i, (byte) (value >>> (24 - 8 * i)));
+        }
+    }
+
+    static int readFixedInt(ByteBuffer in) {
+        if (in.remaining() < Integer.BYTES) {
+            throw invalid("truncated int");
+        }
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (in.get() & 0xFF);
+        }
+        return value;
+    }
+
+    static void writeFixedLong(ByteBuffer out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.put((byte) (value >>> shift));
+        }
+    }
+
+    static long readFixedLong(ByteBuffer in) {
+        if (in.remaining() < Long.BYTES) {
+            throw invalid("truncated long");
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (in.get() & 0xFF);
+        }
+        return value;
+    }
+
+    static void writeSignedLong(ByteBuffer out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedLong(ByteBuffer in) {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.put((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.put(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw invalid("string length " + length + " exceeds remaining " + in.remaining());
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /**
+     * 枚举按序号+1编码，0表示null
+     */
+    static void writeEnum(ByteBuffer out, Enum<?> value) {
+        writeVarInt(out, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] values) {
+        int ordinal = readVarInt(in) - 1;
+        if (ordinal < 0) {
+            return null;
+        }
+        if (ordinal >= values.length) {
+            throw invalid("unknown " + values.getClass().getComponentType().getSimpleName() + " ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * 可为空的有符号整数，null编码为一个0字节
+     */
+    static void writeOptionalLong(ByteBuffer out, boolean present, long value) {
+        out.put((byte) (present ? 1 : 0));
+        if (present) {
+            writeSignedLong(out, value);
+        }
+    }
+
+    static boolean readPresent(ByteBuffer in) {
+        byte flag = readByte(in);
+        if (flag != 0 && flag != 1) {
+            throw invalid("bad presence flag " + flag);
+        }
+        return flag == 1;
+    }
+
+    /**
+     * 本地时间按UTC换算为毫秒时间戳，只用于无损保留日期时间字段，毫秒以下的精度被截断
+     */
+    static void writeDateTime(ByteBuffer out, LocalDateTime value) {
+        writeOptionalLong(out, value != null, value == null ? 0 : value.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    static LocalDateTime readDateTime(ByteBuffer in) {
+        if (!readPresent(in)) {
+            return null;
+        }
+        long millis = readSignedLong(in);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+            (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * 扩展数据，值支持字符串、整数、布尔、小数、嵌套的Map和List，其他类型按字符串编码
+     */
+    static void writeMap(ByteBuffer out, Map<String, Object> map) {
+        writeMap(out, map, 0);
+    }
+
+    static Map<String, Object> readMap(ByteBuffer in) {
+        return readMap(in, 0);
+    }
+
+    private static void writeMap(ByteBuffer out, Map<?, ?> map, int depth) {
+        if (map == null) {
+            out.put((byte) 0);
+            return;
+        }
+        writeVarInt(out, map.size() + 1);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeString(out, String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue(), depth + 1);
+        }
+    }
+
+    private static Map<String, Object> readMap(ByteBuffer in, int depth) {
+        int size = readVarInt(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        checkSize(in, size);
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(4, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readValue(in, depth + 1));
+        }
+        return map;
+    }
+
+    private static void writeValue(ByteBuffer out, Object value, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw PaymentException.businessError(PaymentCodec.INVALID_MESSAGE, "扩展数据嵌套层数过多");
+        }
+        if (value == null) {
+            out.put((byte) TAG_NULL);
+        } else if (value instanceof String string) {
+            out.put((byte) TAG_STRING);
+            writeString(out, string);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.put((byte) TAG_INT);
+            writeSignedLong(out, ((Number) value).longValue());
+        } else if (value instanceof Long number) {
+            out.put((byte) TAG_LONG);
+            writeSignedLong(out, number);
+        } else if (value instanceof Boolean bool) {
+            out.put((byte) (bool ? TAG_TRUE : TAG_FALSE));
+        } else if (value instanceof BigDecimal decimal && decimal.unscaledValue().bitLength() < 64) {
+            out.put((byte) TAG_DECIMAL);
+            writeSignedLong(out, decimal.scale());
+            writeSignedLong(out, decimal.unscaledValue().longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.put((byte) TAG_DOUBLE);
+            writeFixedLong(out, Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Map<?, ?> map) {
+            out.put((byte) TAG_MAP);
+            writeMap(out, map, depth);
+        } else if (value instanceof List<?> list) {
+            out.put((byte) TAG_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element, depth + 1);
+            }
+        } else {
+            out.put((byte) TAG_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw invalid("nesting too deep");
+        }
+        int tag = readByte(in);
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_INT:
+                return readInt(in);
+            case TAG_LONG:
+                return readSignedLong(in);
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_DECIMAL:
+                int scale = readInt(in);
+                return new BigDecimal(BigInteger.valueOf(readSignedLong(in)), scale);
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(readFixedLong(in));
+            case TAG_MAP:
+                return readMap(in, depth);
+            case TAG_LIST:
+                int size = readVarInt(in);
+                checkSize(in, size);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, depth + 1));
+                }
+                return list;
+            default:
+                throw invalid("unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * 每个元素至少占一个字节，元素数超过剩余字节数时报文一定不完整，避免按伪造的长度分配内存
+     */
+    private static void checkSize(ByteBuffer in, int size) {
+        if (size > in.remaining()) {
+            throw invalid("collection size " + size + " exceeds remaining " + in.remaining());
+        }
+    }
+
+    static byte readByte(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            throw invalid("truncated message");
+        }
+        return in.get();
+    }
+
+    /**
+     * 读取有符号int，超出范围时视为格式错误
+     */
+    static int readInt(ByteBuffer in) {
+        long value = readSignedLong(in);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw invalid("int out of range " + value);
+        }
+        return (int) value;
+    }
+
+    static PaymentException invalid(String detail) {
+        return PaymentException.businessError(PaymentCodec.INVALID_MESSAGE, "二进制报文格式错误: " + detail);
+    }
+}
@@ -0,0 +1,55 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 支付回调处理配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.callback")
+public class CallbackProperties {
+    
+    /**
+     * 处理回调的线程数，与处理下单请求的Servlet线程池隔离
+     */
+    private int threads = 8;
+    
+    /**
+     * 等待处理的回调数量上限，超出时直接返回失败，由渠道稍后重发
+     */
+    private int queueCapacity = 200;
+    
+    /**
+     * 回调排队的最长时间，超过后不再处理，渠道此时通常已经判定超时并准备重发
+     */
+    private Duration maxQueueTime = Duration.ofSeconds(3);
+    
+    // Getters and Setters
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    public Duration getMaxQueueTime() {
+        return maxQueueTime;
+    }
+    
+    public void setMaxQueueTime(Duration maxQueueTime) {
+        this.maxQueueTime = maxQueueTime;
+    }
+}
@@ -0,0 +1,43 @@
+package com.tensor.pay.config;
+
+import com.tensor.pay.cluster.ClusterCoordinator;
+import com.tensor.pay.cluster.ClusterMember;
+import com.tensor.pay.cluster.MemberDiscovery;
+import com.tensor.pay.cluster.OrderHandoff;
+import com.tensor.pay.cluster.StaticMemberDiscovery;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 集群工作归属配置
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "tensor.pay.cluster", name = "enabled", havingValue = "true")
+public class ClusterConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MemberDiscovery memberDiscovery(ClusterProperties properties) {
+        List<ClusterMember> members = properties.getMembers().entrySet().stream()
+            .map(entry -> new ClusterMember(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
+        return new StaticMemberDiscovery(members);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ClusterCoordinator clusterCoordinator(MemberDiscovery memberDiscovery, ClusterProperties properties,
+                                                 ObjectProvider<OrderHandoff> orderHandoff) {
+        return new ClusterCoordinator(properties.getMemberId(), memberDiscovery, properties.getVirtualNodes(),
+            orderHandoff.getIfAvailable());
+    }
+}
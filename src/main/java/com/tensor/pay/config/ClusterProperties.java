@@ -0,0 +1,73 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 集群工作归属配置属性
+ * 
+ * 启用后非归属节点创建的订单通过 {@link com.tensor.pay.cluster.OrderHandoff} Bean 交给归属节点补偿查询和超时关闭；
+ * 未提供该Bean时订单仍由创建它的节点处理。回调由收到它的节点处理，状态事件不会自动转发给归属节点，
+ * 归属节点在下一次补偿查询时得到最终状态后停止跟踪。
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.cluster")
+public class ClusterProperties {
+    
+    /**
+     * 是否启用集群工作归属
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 本节点的成员ID，集群内唯一且在重启后保持不变
+     */
+    private String memberId;
+    
+    /**
+     * 每个成员在哈希环上的虚拟节点数，越大负载越均匀
+     */
+    private int virtualNodes = 160;
+    
+    /**
+     * 固定成员列表，成员ID到地址，未提供 MemberDiscovery Bean 时使用
+     */
+    private Map<String, String> members = new LinkedHashMap<>();
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getMemberId() {
+        return memberId;
+    }
+    
+    public void setMemberId(String memberId) {
+        this.memberId = memberId;
+    }
+    
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+    
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+    
+    public Map<String, String> getMembers() {
+        return members;
+    }
+    
+    public void setMembers(Map<String, String> members) {
+        this.members = members;
+    }
+}
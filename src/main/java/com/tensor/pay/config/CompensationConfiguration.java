@@ -0,0 +1,34 @@
+package com.tensor.pay.config;
+
+import com.tensor.pay.cluster.ClusterCoordinator;
+import com.tensor.pay.order.OrderCompensationScheduler;
+import com.tensor.pay.order.OrderStateStore;
+import com.tensor.pay.service.UnifiedPaymentService;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 漏单补偿查询配置
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "tensor.pay", name = {"order.enabled", "compensation.enabled"}, havingValue = "true")
+public class CompensationConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public OrderCompensationScheduler orderCompensationScheduler(OrderStateStore orderStateStore,
+                                                                 HierarchicalTimingWheel hierarchicalTimingWheel,
+                                                                 UnifiedPaymentService unifiedPaymentService,
+                                                                 CompensationProperties properties,
+                                                                 ObjectProvider<ClusterCoordinator> clusterCoordinator) {
+        return new OrderCompensationScheduler(orderStateStore, hierarchicalTimingWheel,
+            unifiedPaymentService, properties, clusterCoordinator.getIfAvailable());
+    }
+}
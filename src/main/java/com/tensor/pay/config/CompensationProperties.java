@@ -0,0 +1,111 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 漏单补偿查询配置属性
+ * 依赖订单状态跟踪（tensor.pay.order.enabled）
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.compensation")
+public class CompensationProperties {
+    
+    /**
+     * 是否启用补偿查询
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 补偿查询阶梯，表示订单创建后多久仍未完结时发起查询
+     */
+    private List<Duration> backoff = new ArrayList<>(List.of(
+        Duration.ofSeconds(15), Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(30)));
+    
+    /**
+     * 每次查询时间的随机抖动比例，避免同一批订单同时查询
+     */
+    private double jitterRatio = 0.1;
+    
+    /**
+     * 每个支付渠道每秒最多发起的补偿查询数
+     */
+    private double maxQueriesPerSecond = 20;
+    
+    /**
+     * 每个支付渠道最多排队等待查询的订单数，队列满时订单顺延到下一个查询阶梯
+     */
+    private int maxQueued = 10000;
+    
+    /**
+     * 执行补偿查询的线程数
+     */
+    private int queryThreads = 4;
+    
+    /**
+     * 单次补偿查询的超时时间，超时的查询按失败处理并进入下一次查询
+     */
+    private Duration queryTimeout = Duration.ofSeconds(10);
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public List<Duration> getBackoff() {
+        return backoff;
+    }
+    
+    public void setBackoff(List<Duration> backoff) {
+        this.backoff = backoff;
+    }
+    
+    public double getJitterRatio() {
+        return jitterRatio;
+    }
+    
+    public void setJitterRatio(double jitterRatio) {
+        this.jitterRatio = jitterRatio;
+    }
+    
+    public double getMaxQueriesPerSecond() {
+        return maxQueriesPerSecond;
+    }
+    
+    public void setMaxQueriesPerSecond(double maxQueriesPerSecond) {
+        this.maxQueriesPerSecond = maxQueriesPerSecond;
+    }
+    
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+    
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+    
+    public int getQueryThreads() {
+        return queryThreads;
+    }
+    
+    public void setQueryThreads(int queryThreads) {
+        this.queryThreads = queryThreads;
+    }
+    
+    public Duration getQueryTimeout() {
+        return queryTimeout;
+    }
+    
+    public void setQueryTimeout(Duration queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+}
@@ -0,0 +1,81 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 查询对冲配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.hedge")
+public class HedgeProperties {
+    
+    /**
+     * 是否对查询订单、查询退款启用对冲请求
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 第一次调用超过该分位的延迟仍未返回时发出对冲请求
+     */
+    private double percentile = 0.95;
+    
+    /**
+     * 发出对冲请求前至少等待的时间
+     */
+    private Duration minDelay = Duration.ofMillis(20);
+    
+    /**
+     * 对冲请求占查询总数的比例上限
+     */
+    private double budgetRatio = 0.05;
+    
+    /**
+     * 执行查询的线程数
+     */
+    private int threads = 16;
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public double getPercentile() {
+        return percentile;
+    }
+    
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+    
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+    
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+    
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+    
+    public void setBudgetRatio(double budgetRatio) {
+        this.budgetRatio = budgetRatio;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
@@ -0,0 +1,133 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 网关HTTP连接配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.http")
+public class HttpClientProperties {
+    
+    /**
+     * 连接池最大连接数
+     */
+    private int maxTotal = 200;
+    
+    /**
+     * 每个网关主机的最大连接数
+     */
+    private int maxPerRoute = 50;
+    
+    /**
+     * 建立连接超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    
+    /**
+     * 等待响应超时时间
+     */
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    
+    /**
+     * 空闲连接保留时间，超过后关闭
+     */
+    private Duration idleTimeout = Duration.ofMinutes(2);
+    
+    /**
+     * 域名解析结果的缓存时间
+     */
+    private Duration dnsTtl = Duration.ofSeconds(60);
+    
+    /**
+     * 是否在应用就绪前预热网关连接
+     */
+    private boolean warmupEnabled = true;
+    
+    /**
+     * 预热时为每个网关主机建立的长连接数
+     */
+    private int warmupConnections = 4;
+    
+    /**
+     * 预热的最长时间，超时后不再等待，应用照常启动
+     */
+    private Duration warmupTimeout = Duration.ofSeconds(10);
+    
+    // Getters and Setters
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+    
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+    
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+    
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+    
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+    
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+    
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+    
+    public void setResponseTimeout(Duration responseTimeout) {
+        this.responseTimeout = responseTimeout;
+    }
+    
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+    
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+    
+    public Duration getDnsTtl() {
+        return dnsTtl;
+    }
+    
+    public void setDnsTtl(Duration dnsTtl) {
+        this.dnsTtl = dnsTtl;
+    }
+    
+    public boolean isWarmupEnabled() {
+        return warmupEnabled;
+    }
+    
+    public void setWarmupEnabled(boolean warmupEnabled) {
+        this.warmupEnabled = warmupEnabled;
+    }
+    
+    public int getWarmupConnections() {
+        return warmupConnections;
+    }
+    
+    public void setWarmupConnections(int warmupConnections) {
+        this.warmupConnections = warmupConnections;
+    }
+    
+    public Duration getWarmupTimeout() {
+        return warmupTimeout;
+    }
+    
+    public void setWarmupTimeout(Duration warmupTimeout) {
+        this.warmupTimeout = warmupTimeout;
+    }
+}
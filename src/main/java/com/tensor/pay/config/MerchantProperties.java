@@ -0,0 +1,106 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 子商户配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.merchant")
+public class MerchantProperties {
+    
+    /**
+     * 全部渠道合计最多缓存的子商户客户端数量
+     */
+    private int maxClients = 256;
+    
+    /**
+     * 子商户客户端空闲多久后淘汰
+     */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    
+    /**
+     * 子商户客户端淘汰后至少延迟多久才关闭，应大于渠道调用的超时时间
+     */
+    private Duration closeDelay = Duration.ofMinutes(1);
+    
+    /**
+     * 子商户配置，键为商户号；商户较多时建议实现 MerchantConfigProvider 按需加载
+     */
+    private Map<String, Merchant> merchants = new HashMap<>();
+    
+    // Getters and Setters
+    public int getMaxClients() {
+        return maxClients;
+    }
+    
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+    
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+    
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+    
+    public Duration getCloseDelay() {
+        return closeDelay;
+    }
+    
+    public void setCloseDelay(Duration closeDelay) {
+        this.closeDelay = closeDelay;
+    }
+    
+    public Map<String, Merchant> getMerchants() {
+        return merchants;
+    }
+    
+    public void setMerchants(Map<String, Merchant> merchants) {
+        this.merchants = merchants;
+    }
+    
+    /**
+     * 单个子商户在各渠道的配置，未开通的渠道留空
+     */
+    public static class Merchant {
+        
+        private WechatPayProperties wechat;
+        
+        private AlipayProperties alipay;
+        
+        private BankPayProperties bank;
+        
+        public WechatPayProperties getWechat() {
+            return wechat;
+        }
+        
+        public void setWechat(WechatPayProperties wechat) {
+            this.wechat = wechat;
+        }
+        
+        public AlipayProperties getAlipay() {
+            return alipay;
+        }
+        
+        public void setAlipay(AlipayProperties alipay) {
+            this.alipay = alipay;
+        }
+        
+        public BankPayProperties getBank() {
+            return bank;
+        }
+        
+        public void setBank(BankPayProperties bank) {
+            this.bank = bank;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.tensor.pay.config;
+
+import com.tensor.pay.order.InMemoryOrderRepository;
+import com.tensor.pay.order.JdbcOrderRepository;
+import com.tensor.pay.order.OrderRecorder;
+import com.tensor.pay.order.OrderRepository;
+import com.tensor.pay.order.WriteBehindOrderRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 订单记录存储配置
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "tensor.pay.order-repository", name = "enabled", havingValue = "true")
+public class OrderRepositoryConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public OrderRepository orderRepository(ObjectProvider<DataSource> dataSource,
+                                           OrderRepositoryProperties properties) {
+        DataSource resolved = dataSource.getIfAvailable();
+        if (resolved == null) {
+            return new InMemoryOrderRepository();
+        }
+        JdbcOrderRepository repository = new JdbcOrderRepository(resolved, properties.getTable());
+        if (properties.isInitializeSchema()) {
+            repository.createTableIfNotExists();
+        }
+        return new WriteBehindOrderRepository(repository, properties.getBatchSize(),
+            properties.getFlushInterval(), properties.getMaxPending());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public OrderRecorder orderRecorder(OrderRepository orderRepository) {
+        return new OrderRecorder(orderRepository);
+    }
+}
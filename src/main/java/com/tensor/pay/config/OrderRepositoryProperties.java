@@ -0,0 +1,94 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 订单记录存储配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.order-repository")
+public class OrderRepositoryProperties {
+    
+    /**
+     * 是否保存订单记录，有 DataSource 时写入数据库，否则保存在内存中
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 订单表名
+     */
+    private String table = "tensor_pay_order";
+    
+    /**
+     * 启动时是否建表，DDL适用于H2和MySQL
+     */
+    private boolean initializeSchema = false;
+    
+    /**
+     * 写入数据库的间隔
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+    
+    /**
+     * 每批写入的记录数，积压达到一批时立即写入
+     */
+    private int batchSize = 500;
+    
+    /**
+     * 积压上限，达到后新订单由保存线程同步写入，数据库写入失败时拒绝新订单的记录
+     */
+    private int maxPending = 100000;
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getTable() {
+        return table;
+    }
+    
+    public void setTable(String table) {
+        this.table = table;
+    }
+    
+    public boolean isInitializeSchema() {
+        return initializeSchema;
+    }
+    
+    public void setInitializeSchema(boolean initializeSchema) {
+        this.initializeSchema = initializeSchema;
+    }
+    
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+    
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public int getMaxPending() {
+        return maxPending;
+    }
+    
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+}
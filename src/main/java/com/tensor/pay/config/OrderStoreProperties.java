@@ -0,0 +1,120 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 订单状态存储与超时关闭配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.order")
+public class OrderStoreProperties {
+    
+    /**
+     * 是否启用进程内订单状态跟踪
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 最多跟踪的未完结订单数量
+     */
+    private int maxOrders = 1_000_000;
+    
+    /**
+     * 未指定过期时间的订单默认过期时长
+     */
+    private Duration defaultExpireTime = Duration.ofHours(2);
+    
+    /**
+     * 订单过期后是否调用关闭接口
+     */
+    private boolean closeOnExpire = true;
+    
+    /**
+     * 时间轮tick时长
+     */
+    private Duration tickDuration = Duration.ofMillis(100);
+    
+    /**
+     * 时间轮每层槽位数
+     */
+    private int wheelSize = 512;
+    
+    /**
+     * 时间轮层数
+     */
+    private int wheelLevels = 4;
+    
+    /**
+     * 执行到期关闭任务的线程数
+     */
+    private int expireThreads = 4;
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getMaxOrders() {
+        return maxOrders;
+    }
+    
+    public void setMaxOrders(int maxOrders) {
+        this.maxOrders = maxOrders;
+    }
+    
+    public Duration getDefaultExpireTime() {
+        return defaultExpireTime;
+    }
+    
+    public void setDefaultExpireTime(Duration defaultExpireTime) {
+        this.defaultExpireTime = defaultExpireTime;
+    }
+    
+    public boolean isCloseOnExpire() {
+        return closeOnExpire;
+    }
+    
+    public void setCloseOnExpire(boolean closeOnExpire) {
+        this.closeOnExpire = closeOnExpire;
+    }
+    
+    public Duration getTickDuration() {
+        return tickDuration;
+    }
+    
+    public void setTickDuration(Duration tickDuration) {
+        this.tickDuration = tickDuration;
+    }
+    
+    public int getWheelSize() {
+        return wheelSize;
+    }
+    
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+    
+    public int getWheelLevels() {
+        return wheelLevels;
+    }
+    
+    public void setWheelLevels(int wheelLevels) {
+        this.wheelLevels = wheelLevels;
+    }
+    
+    public int getExpireThreads() {
+        return expireThreads;
+    }
+    
+    public void setExpireThreads(int expireThreads) {
+        this.expireThreads = expireThreads;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tensor.pay.config;
+
+import com.tensor.pay.cluster.ClusterCoordinator;
+import com.tensor.pay.event.PaymentEventPublisher;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.order.OrderExpiryManager;
+import com.tensor.pay.order.OrderStateStore;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 订单状态跟踪与超时关闭配置
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "tensor.pay.order", name = "enabled", havingValue = "true")
+public class OrderTrackingConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public OrderStateStore orderStateStore(OrderStoreProperties properties) {
+        return new OrderStateStore(properties.getMaxOrders());
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tensorPayTimerExecutor(OrderStoreProperties properties) {
+        return Executors.newFixedThreadPool(properties.getExpireThreads(),
+            new CustomizableThreadFactory("tensor-pay-timer-"));
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public HierarchicalTimingWheel hierarchicalTimingWheel(OrderStoreProperties properties,
+            @Qualifier("tensorPayTimerExecutor") ExecutorService tensorPayTimerExecutor) {
+        return new HierarchicalTimingWheel(properties.getTickDuration().toMillis(),
+            properties.getWheelSize(), properties.getWheelLevels(), tensorPayTimerExecutor);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public OrderExpiryManager orderExpiryManager(OrderStateStore orderStateStore,
+                                                 HierarchicalTimingWheel hierarchicalTimingWheel,
+                                                 PaymentServiceFactory paymentServiceFactory,
+                                                 PaymentEventPublisher paymentEventPublisher,
+                                                 OrderStoreProperties properties,
+                                                 ObjectProvider<ClusterCoordinator> clusterCoordinator) {
+        return new OrderExpiryManager(orderStateStore, hierarchicalTimingWheel,
+            paymentServiceFactory, paymentEventPublisher, properties, clusterCoordinator.getIfAvailable());
+    }
+}
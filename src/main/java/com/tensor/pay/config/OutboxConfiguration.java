@@ -0,0 +1,45 @@
+package com.tensor.pay.config;
+
+import com.tensor.pay.outbox.JdbcOutboxStore;
+import com.tensor.pay.outbox.OutboxListener;
+import com.tensor.pay.outbox.OutboxRelay;
+import com.tensor.pay.outbox.OutboxStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 发件箱配置
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "tensor.pay.outbox", name = "enabled", havingValue = "true")
+public class OutboxConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxStore outboxStore(ObjectProvider<DataSource> dataSource, OutboxProperties properties) {
+        DataSource resolved = dataSource.getIfAvailable();
+        if (resolved == null) {
+            throw new IllegalStateException("tensor.pay.outbox requires a DataSource or an OutboxStore bean");
+        }
+        JdbcOutboxStore store = new JdbcOutboxStore(resolved, properties.getTable());
+        if (properties.isInitializeSchema()) {
+            store.createTableIfNotExists();
+        }
+        return store;
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public OutboxRelay outboxRelay(OutboxStore outboxStore, ObjectProvider<OutboxListener> listeners,
+                                   OutboxProperties properties) {
+        return new OutboxRelay(outboxStore, () -> listeners.orderedStream().toList(), properties);
+    }
+}
@@ -0,0 +1,146 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 发件箱配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.outbox")
+public class OutboxProperties {
+    
+    /**
+     * 是否启用发件箱投递，启用时需要提供 DataSource 或自定义 OutboxStore
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 发件箱表名
+     */
+    private String table = "tensor_pay_outbox";
+    
+    /**
+     * 启动时是否建表，DDL适用于H2和MySQL
+     */
+    private boolean initializeSchema = false;
+    
+    /**
+     * 每批取出的事件数量
+     */
+    private int batchSize = 100;
+    
+    /**
+     * 并行投递的通道数
+     */
+    private int parallelism = 4;
+    
+    /**
+     * 没有积压时的轮询间隔
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+    
+    /**
+     * 取出事件的租约时长，一批事件应在租约内投递完成，否则可能被重复投递
+     */
+    private Duration lease = Duration.ofSeconds(30);
+    
+    /**
+     * 首次投递失败后的重试间隔，之后每次翻倍
+     */
+    private Duration retryDelay = Duration.ofSeconds(1);
+    
+    /**
+     * 重试间隔上限
+     */
+    private Duration maxRetryDelay = Duration.ofMinutes(5);
+    
+    /**
+     * 最多投递次数，仍失败的事件转入死信，不再投递也不再阻塞同一订单后续的事件
+     */
+    private int maxAttempts = 10;
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getTable() {
+        return table;
+    }
+    
+    public void setTable(String table) {
+        this.table = table;
+    }
+    
+    public boolean isInitializeSchema() {
+        return initializeSchema;
+    }
+    
+    public void setInitializeSchema(boolean initializeSchema) {
+        this.initializeSchema = initializeSchema;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+    
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+    
+    public Duration getLease() {
+        return lease;
+    }
+    
+    public void setLease(Duration lease) {
+        this.lease = lease;
+    }
+    
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+    
+    public void setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+    
+    public Duration getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+    
+    public void setMaxRetryDelay(Duration maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+    
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
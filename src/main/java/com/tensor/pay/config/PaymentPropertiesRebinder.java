@@ -0,0 +1,80 @@
+package com.tensor.pay.config;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 渠道配置重新绑定
+ *
+ * {@code @ConfigurationProperties} 只在启动时绑定一次，配置中心更新 {@link Environment} 中的属性源后，
+ * 配置对象本身不会变化。每次检查配置前按当前 Environment 把全部配置重新绑定为一组新的快照对象，
+ * 绑定完成后一次性替换引用发布，删除的配置项恢复为默认值。
+ * 原有配置对象和已发布的快照都不会被修改，请求线程不会读到新旧配置混合的中间状态，
+ * 渠道服务随后通过 {@link #current} 取得最新快照，按配置指纹发现变化后基于同一快照重建客户端。
+ * 子商户配置来自自定义的 {@link com.tensor.pay.merchant.MerchantConfigProvider} 时，由其自行负责更新。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentPropertiesRebinder {
+
+    private final Environment environment;
+    private volatile Map<Class<?>, Object> snapshots;
+
+    /**
+     * @param environment 配置来源
+     * @param targets 启动时绑定的配置对象，作为第一份快照，类上必须有 {@link ConfigurationProperties} 注解
+     */
+    public PaymentPropertiesRebinder(Environment environment, List<Object> targets) {
+        this.environment = environment;
+        Map<Class<?>, Object> initial = new HashMap<>();
+        for (Object target : targets) {
+            prefix(target.getClass());
+            initial.put(target.getClass(), target);
+        }
+        this.snapshots = Map.copyOf(initial);
+    }
+
+    /**
+     * 按当前 Environment 重新绑定全部配置，绑定完成后一起发布
+     */
+    public void rebind() {
+        Binder binder = Binder.get(environment);
+        Map<Class<?>, Object> fresh = new HashMap<>();
+        for (Class<?> type : snapshots.keySet()) {
+            fresh.put(type, bind(binder, type));
+        }
+        snapshots = Map.copyOf(fresh);
+    }
+
+    /**
+     * 与指定配置对象同类型的最新快照，发布后不再修改
+     *
+     * @param target 配置对象
+     * @return 最新快照，未登记的类型返回配置对象本身
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T current(T target) {
+        Object snapshot = snapshots.get(target.getClass());
+        return snapshot != null ? (T) snapshot : target;
+    }
+
+    private static <T> T bind(Binder binder, Class<T> type) {
+        return binder.bind(prefix(type), Bindable.of(type)).orElseGet(() -> BeanUtils.instantiateClass(type));
+    }
+
+    private static String prefix(Class<?> type) {
+        ConfigurationProperties annotation = type.getAnnotation(ConfigurationProperties.class);
+        if (annotation == null) {
+            throw new IllegalArgumentException(type.getName() + " is not annotated with @ConfigurationProperties");
+        }
+        return annotation.prefix();
+    }
+}
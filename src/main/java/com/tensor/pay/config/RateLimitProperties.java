@@ -0,0 +1,130 @@
+package com.tensor.pay.config;
+
+import com.tensor.pay.enums.PaymentOperation;
+import com.tensor.pay.enums.PaymentType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 渠道限流配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.rate-limit")
+public class RateLimitProperties {
+    
+    /**
+     * 限流规则，一次调用匹配最具体的一条规则，没有匹配的规则时不限流
+     */
+    private List<Rule> rules = new ArrayList<>();
+    
+    /**
+     * 最多保留的令牌桶数量，超出后新出现的商户共用一个令牌桶
+     */
+    private int maxBuckets = 10000;
+    
+    // Getters and Setters
+    public List<Rule> getRules() {
+        return rules;
+    }
+    
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+    
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+    
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+    
+    /**
+     * 单条限流规则
+     */
+    public static class Rule {
+        
+        /**
+         * 支付渠道
+         */
+        private PaymentType paymentType;
+        
+        /**
+         * 商户号，为空时对每个商户（含默认商户）分别限流
+         */
+        private String merchantId;
+        
+        /**
+         * 操作类型，为空时该商户的全部操作共用一个配额
+         */
+        private PaymentOperation operation;
+        
+        /**
+         * 每秒允许的调用次数
+         */
+        private double permitsPerSecond = 100;
+        
+        /**
+         * 允许的突发调用次数
+         */
+        private int burst = 1;
+        
+        /**
+         * 配额不足时最多排队等待的时间，为0时立即拒绝
+         */
+        private Duration maxWait = Duration.ZERO;
+        
+        public PaymentType getPaymentType() {
+            return paymentType;
+        }
+        
+        public void setPaymentType(PaymentType paymentType) {
+            this.paymentType = paymentType;
+        }
+        
+        public String getMerchantId() {
+            return merchantId;
+        }
+        
+        public void setMerchantId(String merchantId) {
+            this.merchantId = merchantId;
+        }
+        
+        public PaymentOperation getOperation() {
+            return operation;
+        }
+        
+        public void setOperation(PaymentOperation operation) {
+            this.operation = operation;
+        }
+        
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+        
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+        
+        public int getBurst() {
+            return burst;
+        }
+        
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+        
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+        
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.tensor.pay.config;
+
+import com.tensor.pay.reconcile.LocalStatementSource;
+import com.tensor.pay.reconcile.ReconciliationEngine;
+import com.tensor.pay.reconcile.ReconciliationService;
+import com.tensor.pay.reconcile.StatementSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 对账配置
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "tensor.pay.reconcile", name = "enabled", havingValue = "true")
+public class ReconciliationConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ReconciliationEngine reconciliationEngine(ReconciliationProperties properties,
+                                                     ForkJoinPool reconciliationPool) {
+        if (properties.getParallelism() <= 1) {
+            return new ReconciliationEngine(properties.getBufferSize());
+        }
+        return new ReconciliationEngine(properties.getBufferSize(),
+            reconciliationPool, properties.getMinShardSize());
+    }
+    
+    /**
+     * 分片比对线程池，线程按需创建，顺序比对时不会启动线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool reconciliationPool(ReconciliationProperties properties) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory defaultFactory = ForkJoinPool.defaultForkJoinWorkerThreadFactory;
+        return new ForkJoinPool(Math.max(1, properties.getParallelism()), pool -> {
+            ForkJoinWorkerThread thread = defaultFactory.newThread(pool);
+            thread.setName("tensor-pay-reconcile-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public StatementSource statementSource(ReconciliationProperties properties) {
+        return new LocalStatementSource(Paths.get(properties.getStatementDir()));
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ReconciliationService reconciliationService(ReconciliationEngine reconciliationEngine,
+                                                       StatementSource statementSource) {
+        return new ReconciliationService(reconciliationEngine, statementSource);
+    }
+}
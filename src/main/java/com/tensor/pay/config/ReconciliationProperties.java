@@ -0,0 +1,79 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 对账配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.reconcile")
+public class ReconciliationProperties {
+    
+    /**
+     * 是否启用对账
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 对账单所在目录
+     */
+    private String statementDir = "statements";
+    
+    /**
+     * 读缓冲区大小（字节）
+     */
+    private int bufferSize = 1024 * 1024;
+    
+    /**
+     * 并行比对的线程数，1表示顺序比对
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * 每个分片的最小字节数
+     */
+    private long minShardSize = 16L * 1024 * 1024;
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getStatementDir() {
+        return statementDir;
+    }
+    
+    public void setStatementDir(String statementDir) {
+        this.statementDir = statementDir;
+    }
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    public long getMinShardSize() {
+        return minShardSize;
+    }
+    
+    public void setMinShardSize(long minShardSize) {
+        this.minShardSize = minShardSize;
+    }
+}
\ No newline at end of file
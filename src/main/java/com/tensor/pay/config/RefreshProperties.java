@@ -0,0 +1,55 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 渠道配置热更新属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.refresh")
+public class RefreshProperties {
+    
+    /**
+     * 是否定期检查渠道配置，配置变化时在后台重建客户端并替换，无需重启
+     */
+    private boolean enabled = true;
+    
+    /**
+     * 检查间隔
+     */
+    private Duration interval = Duration.ofSeconds(30);
+    
+    /**
+     * 重建客户端的线程数
+     */
+    private int threads = 2;
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public Duration getInterval() {
+        return interval;
+    }
+    
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
@@ -1,14 +1,36 @@
 package com.tensor.pay.config;
 
+import com.tensor.pay.callback.CallbackBodyFilter;
+import com.tensor.pay.callback.CallbackDispatcher;
+import com.tensor.pay.event.PaymentEventListener;
+import com.tensor.pay.event.PaymentEventPublisher;
 import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.hedge.RequestHedger;
+import com.tensor.pay.json.PaymentJsonHttpMessageConverter;
+import com.tensor.pay.merchant.MerchantConfigProvider;
+import com.tensor.pay.merchant.MerchantRegistry;
+import com.tensor.pay.merchant.PropertiesMerchantConfigProvider;
+import com.tensor.pay.ratelimit.PaymentRateLimiter;
+import com.tensor.pay.service.ChannelConfigRefresher;
+import com.tensor.pay.service.ChannelWarmUp;
+import com.tensor.pay.service.ConnectionWarmUp;
 import com.tensor.pay.service.UnifiedPaymentService;
 import com.tensor.pay.utils.HttpUtils;
 import com.tensor.pay.utils.SignatureUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
 
 /**
  * Tensor Pay 自动配置类
@@ -20,15 +42,36 @@ import org.springframework.context.annotation.ComponentScan;
 @EnableConfigurationProperties({
     WechatPayProperties.class,
     AlipayProperties.class,
-    BankPayProperties.class
+    BankPayProperties.class,
+    OrderStoreProperties.class,
+    CompensationProperties.class,
+    ReconciliationProperties.class,
+    WarmUpProperties.class,
+    RefreshProperties.class,
+    RateLimitProperties.class,
+    HedgeProperties.class,
+    HttpClientProperties.class,
+    CallbackProperties.class,
+    ClusterProperties.class,
+    OutboxProperties.class,
+    OrderRepositoryProperties.class,
+    MerchantProperties.class
 })
 @ComponentScan(basePackages = "com.tensor.pay")
+@Import({
+    ClusterConfiguration.class,
+    OrderTrackingConfiguration.class,
+    CompensationConfiguration.class,
+    ReconciliationConfiguration.class,
+    OutboxConfiguration.class,
+    OrderRepositoryConfiguration.class
+})
 public class TensorPayAutoConfiguration {
     
     @Bean
     @ConditionalOnMissingBean
-    public HttpUtils httpUtils() {
-        return new HttpUtils();
+    public HttpUtils httpUtils(HttpClientProperties properties) {
+        return new HttpUtils(properties);
     }
     
     @Bean
@@ -37,6 +80,57 @@ public class TensorPayAutoConfiguration {
         return new SignatureUtils();
     }
     
+    /**
+     * 在请求参数解析前读出回调的原始报文，保证验签使用渠道签名的原文
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<CallbackBodyFilter> callbackBodyFilter() {
+        FilterRegistrationBean<CallbackBodyFilter> registration = new FilterRegistrationBean<>(new CallbackBodyFilter());
+        registration.addUrlPatterns(CallbackBodyFilter.URL_PATTERNS);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+    
+    /**
+     * 支付请求和响应改用fastjson2编解码，Spring Boot会把该转换器排在Jackson之前
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "tensor.pay.json", name = "fastjson-enabled", havingValue = "true")
+    public PaymentJsonHttpMessageConverter paymentJsonHttpMessageConverter() {
+        return new PaymentJsonHttpMessageConverter();
+    }
+    
+    /**
+     * 配置热更新时重新绑定的渠道配置，未开启热更新时始终返回启动时绑定的配置
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public PaymentPropertiesRebinder paymentPropertiesRebinder(Environment environment,
+                                                               WechatPayProperties wechatPayProperties,
+                                                               AlipayProperties alipayProperties,
+                                                               BankPayProperties bankPayProperties,
+                                                               MerchantProperties merchantProperties) {
+        return new PaymentPropertiesRebinder(environment,
+            List.of(wechatPayProperties, alipayProperties, bankPayProperties, merchantProperties));
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MerchantConfigProvider merchantConfigProvider(MerchantProperties properties,
+                                                         PaymentPropertiesRebinder rebinder) {
+        return new PropertiesMerchantConfigProvider(() -> rebinder.current(properties));
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public MerchantRegistry merchantRegistry(MerchantConfigProvider merchantConfigProvider,
+                                             MerchantProperties properties) {
+        return new MerchantRegistry(merchantConfigProvider, properties.getMaxClients(), properties.getIdleTimeout(),
+            properties.getCloseDelay());
+    }
+    
     @Bean
     @ConditionalOnMissingBean
     public PaymentServiceFactory paymentServiceFactory(java.util.List<com.tensor.pay.service.PaymentService> services) {
@@ -45,7 +139,63 @@ public class TensorPayAutoConfiguration {
     
     @Bean
     @ConditionalOnMissingBean
-    public UnifiedPaymentService unifiedPaymentService(PaymentServiceFactory paymentServiceFactory) {
-        return new UnifiedPaymentService(paymentServiceFactory);
+    public PaymentEventPublisher paymentEventPublisher(ObjectProvider<PaymentEventListener> listeners) {
+        return new PaymentEventPublisher(listeners);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public PaymentRateLimiter paymentRateLimiter(RateLimitProperties properties) {
+        return new PaymentRateLimiter(properties);
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public RequestHedger requestHedger(HedgeProperties properties, PaymentRateLimiter paymentRateLimiter) {
+        return new RequestHedger(properties, paymentRateLimiter);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public UnifiedPaymentService unifiedPaymentService(PaymentServiceFactory paymentServiceFactory,
+                                                       PaymentEventPublisher paymentEventPublisher,
+                                                       PaymentRateLimiter paymentRateLimiter,
+                                                       RequestHedger requestHedger) {
+        return new UnifiedPaymentService(paymentServiceFactory, paymentEventPublisher, paymentRateLimiter,
+            requestHedger);
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public CallbackDispatcher callbackDispatcher(UnifiedPaymentService unifiedPaymentService,
+                                                 CallbackProperties properties) {
+        return new CallbackDispatcher(unifiedPaymentService, properties);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "tensor.pay.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public ChannelWarmUp channelWarmUp(PaymentServiceFactory paymentServiceFactory, WarmUpProperties properties) {
+        return new ChannelWarmUp(paymentServiceFactory, properties.getThreads());
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "tensor.pay.refresh", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public ChannelConfigRefresher channelConfigRefresher(PaymentServiceFactory paymentServiceFactory,
+                                                         RefreshProperties properties,
+                                                         PaymentPropertiesRebinder rebinder) {
+        return new ChannelConfigRefresher(paymentServiceFactory, rebinder, properties.getInterval(),
+            properties.getThreads());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "tensor.pay.http", name = "warmup-enabled", havingValue = "true",
+        matchIfMissing = true)
+    public ConnectionWarmUp connectionWarmUp(PaymentServiceFactory paymentServiceFactory, HttpUtils httpUtils,
+                                             HttpClientProperties properties) {
+        return new ConnectionWarmUp(paymentServiceFactory, httpUtils, properties.getWarmupConnections(),
+            properties.getWarmupTimeout());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.tensor.pay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 渠道预热配置属性
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "tensor.pay.warmup")
+public class WarmUpProperties {
+    
+    /**
+     * 是否在应用启动完成后后台预热渠道客户端，关闭时渠道客户端在第一次使用时创建
+     */
+    private boolean enabled = true;
+    
+    /**
+     * 预热线程数，各渠道并行预热，预热完成后线程退出
+     */
+    private int threads = 4;
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
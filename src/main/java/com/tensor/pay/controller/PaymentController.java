@@ -1,16 +1,29 @@
 package com.tensor.pay.controller;
 
+import com.tensor.pay.callback.CallbackBodyFilter;
+import com.tensor.pay.callback.CallbackDispatcher;
+import com.tensor.pay.enums.ChannelState;
 import com.tensor.pay.enums.PaymentType;
 import com.tensor.pay.model.PaymentRequest;
 import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.ratelimit.RateLimitStats;
 import com.tensor.pay.service.UnifiedPaymentService;
+import com.tensor.pay.utils.ConnectionPoolStats;
+import com.tensor.pay.utils.HttpUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 支付控制器示例
@@ -22,11 +35,18 @@ import java.util.Set;
 @RequestMapping("/api/payment")
 public class PaymentController {
     
+    private static final String RETRY_AFTER_SECONDS = "5";
+    
     private final UnifiedPaymentService unifiedPaymentService;
+    private final HttpUtils httpUtils;
+    private final CallbackDispatcher callbackDispatcher;
     
     @Autowired
-    public PaymentController(UnifiedPaymentService unifiedPaymentService) {
+    public PaymentController(UnifiedPaymentService unifiedPaymentService, HttpUtils httpUtils,
+                             CallbackDispatcher callbackDispatcher) {
         this.unifiedPaymentService = unifiedPaymentService;
+        this.httpUtils = httpUtils;
+        this.callbackDispatcher = callbackDispatcher;
     }
     
     /**
@@ -44,8 +64,9 @@ public class PaymentController {
     @GetMapping("/query")
     public ResponseEntity<PaymentResponse> queryPayment(
             @RequestParam PaymentType paymentType,
-            @RequestParam String outTradeNo) {
-        PaymentResponse response = unifiedPaymentService.queryPayment(paymentType, outTradeNo);
+            @RequestParam String outTradeNo,
+            @RequestParam(required = false) String merchantId) {
+        PaymentResponse response = unifiedPaymentService.queryPayment(paymentType, merchantId, outTradeNo);
         return ResponseEntity.ok(response);
     }
     
@@ -55,8 +76,9 @@ public class PaymentController {
     @PostMapping("/cancel")
     public ResponseEntity<PaymentResponse> cancelPayment(
             @RequestParam PaymentType paymentType,
-            @RequestParam String outTradeNo) {
-        PaymentResponse response = unifiedPaymentService.cancelPayment(paymentType, outTradeNo);
+            @RequestParam String outTradeNo,
+            @RequestParam(required = false) String merchantId) {
+        PaymentResponse response = unifiedPaymentService.cancelPayment(paymentType, merchantId, outTradeNo);
         return ResponseEntity.ok(response);
     }
     
@@ -68,9 +90,10 @@ public class PaymentController {
             @RequestParam PaymentType paymentType,
             @RequestParam String outTradeNo,
             @RequestParam BigDecimal refundAmount,
-            @RequestParam(required = false) String refundReason) {
+            @RequestParam(required = false) String refundReason,
+            @RequestParam(required = false) String merchantId) {
         PaymentResponse response = unifiedPaymentService.refund(
-            paymentType, outTradeNo, refundAmount, refundReason);
+            paymentType, merchantId, outTradeNo, refundAmount, refundReason);
         return ResponseEntity.ok(response);
     }
     
@@ -81,9 +104,10 @@ public class PaymentController {
     public ResponseEntity<PaymentResponse> queryRefund(
             @RequestParam PaymentType paymentType,
             @RequestParam String outTradeNo,
-            @RequestParam String outRefundNo) {
+            @RequestParam String outRefundNo,
+            @RequestParam(required = false) String merchantId) {
         PaymentResponse response = unifiedPaymentService.queryRefund(
-            paymentType, outTradeNo, outRefundNo);
+            paymentType, merchantId, outTradeNo, outRefundNo);
         return ResponseEntity.ok(response);
     }
     
@@ -97,51 +121,73 @@ public class PaymentController {
     }
     
     /**
-     * 微信支付回调
+     * 获取各渠道的就绪状态
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<PaymentType, ChannelState>> getChannelStates() {
+        return ResponseEntity.ok(unifiedPaymentService.getChannelStates());
+    }
+    
+    /**
+     * 获取各限流令牌桶的状态
+     */
+    @GetMapping("/rate-limits")
+    public ResponseEntity<List<RateLimitStats>> getRateLimitStats() {
+        return ResponseEntity.ok(unifiedPaymentService.getRateLimitStats());
+    }
+    
+    /**
+     * 获取各网关主机的连接池状态
      */
-    @PostMapping("/wechat/notify")
-    public ResponseEntity<String> wechatNotify(@RequestBody String callbackData) {
-        try {
-            PaymentResponse response = unifiedPaymentService.handleCallback(PaymentType.WECHAT, callbackData);
-            return ResponseEntity.ok(response.isSuccess() ? "SUCCESS" : "FAIL");
-        } catch (Exception e) {
-            return ResponseEntity.ok("FAIL");
-        }
+    @GetMapping("/connections")
+    public ResponseEntity<List<ConnectionPoolStats>> getConnectionStats() {
+        return ResponseEntity.ok(httpUtils.getConnectionStats());
+    }
+    
+    /**
+     * 微信支付回调，子商户的回调地址带上商户号
+     */
+    @PostMapping({"/wechat/notify", "/wechat/notify/{merchantId}"})
+    public CompletableFuture<ResponseEntity<String>> wechatNotify(@PathVariable(required = false) String merchantId,
+                                                                  HttpServletRequest request) throws IOException {
+        return notify(PaymentType.WECHAT, merchantId, CallbackBodyFilter.getBody(request), "SUCCESS", "FAIL");
     }
     
     /**
      * 支付宝支付回调
      */
-    @PostMapping("/alipay/notify")
-    public ResponseEntity<String> alipayNotify(@RequestParam java.util.Map<String, String> params) {
-        try {
-            // 将参数转换为字符串格式
-            StringBuilder callbackData = new StringBuilder();
-            for (java.util.Map.Entry<String, String> entry : params.entrySet()) {
-                if (callbackData.length() > 0) {
-                    callbackData.append("&");
-                }
-                callbackData.append(entry.getKey()).append("=").append(entry.getValue());
-            }
-            
-            PaymentResponse response = unifiedPaymentService.handleCallback(
-                PaymentType.ALIPAY, callbackData.toString());
-            return ResponseEntity.ok(response.isSuccess() ? "success" : "fail");
-        } catch (Exception e) {
-            return ResponseEntity.ok("fail");
-        }
+    @PostMapping({"/alipay/notify", "/alipay/notify/{merchantId}"})
+    public CompletableFuture<ResponseEntity<String>> alipayNotify(@PathVariable(required = false) String merchantId,
+                                                                  HttpServletRequest request) throws IOException {
+        // 使用过滤器在参数解析前读出的原始表单报文，验签与解码由回调解析器完成
+        return notify(PaymentType.ALIPAY, merchantId, CallbackBodyFilter.getBody(request), "success", "fail");
     }
     
     /**
      * 银行支付回调
      */
-    @PostMapping("/bank/notify")
-    public ResponseEntity<String> bankNotify(@RequestBody String callbackData) {
-        try {
-            PaymentResponse response = unifiedPaymentService.handleCallback(PaymentType.BANK, callbackData);
-            return ResponseEntity.ok(response.isSuccess() ? "SUCCESS" : "FAIL");
-        } catch (Exception e) {
-            return ResponseEntity.ok("FAIL");
-        }
+    @PostMapping({"/bank/notify", "/bank/notify/{merchantId}"})
+    public CompletableFuture<ResponseEntity<String>> bankNotify(@PathVariable(required = false) String merchantId,
+                                                                HttpServletRequest request) throws IOException {
+        return notify(PaymentType.BANK, merchantId, CallbackBodyFilter.getBody(request), "SUCCESS", "FAIL");
+    }
+    
+    /**
+     * 在回调线程池中处理回调，Servlet线程不等待处理结果；
+     * 回调线程池繁忙时立即返回503和失败应答，渠道稍后按重试策略重发
+     */
+    private CompletableFuture<ResponseEntity<String>> notify(PaymentType paymentType, String merchantId,
+                                                             byte[] body, String success, String fail) {
+        return callbackDispatcher.dispatch(paymentType, merchantId, body).handle((response, e) -> {
+            if (e == null) {
+                return ResponseEntity.ok(response.isSuccess() ? success : fail);
+            }
+            if (CallbackDispatcher.isBusy(e)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(fail);
+            }
+            return ResponseEntity.ok(fail);
+        });
     }
-}
\ No newline at end of file
+}
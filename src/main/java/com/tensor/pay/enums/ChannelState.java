@@ -0,0 +1,46 @@
+package com.tensor.pay.enums;
+
+/**
+ * 支付渠道就绪状态
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public enum ChannelState {
+    
+    /**
+     * 尚未初始化
+     */
+    NOT_STARTED("not_started", "尚未初始化"),
+    
+    /**
+     * 初始化中
+     */
+    INITIALIZING("initializing", "初始化中"),
+    
+    /**
+     * 已就绪
+     */
+    READY("ready", "已就绪"),
+    
+    /**
+     * 初始化失败，下次使用时重试
+     */
+    FAILED("failed", "初始化失败");
+    
+    private final String code;
+    private final String description;
+    
+    ChannelState(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,240 @@
+package com.tensor.pay.enums;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 渠道状态编解码器
+ *
+ * 把渠道返回的交易状态（字符串或原始报文中的字节片段）映射为 {@link PaymentStatus}。
+ * 构建时为全部状态码寻找一个无冲突的哈希种子（完美哈希），查找时只计算一次哈希、
+ * 比较一个槽位，按ASCII忽略大小写匹配，不做 toUpperCase 也不分配对象。
+ * 实例构建后只读，可被多线程共享。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class ChannelStatusCodec {
+
+    /**
+     * 微信支付交易状态
+     */
+    public static final ChannelStatusCodec WECHAT = builder(PaymentStatus.PENDING)
+        .map(PaymentStatus.SUCCESS, "SUCCESS")
+        .map(PaymentStatus.REFUNDED, "REFUND")
+        .map(PaymentStatus.PENDING, "NOTPAY")
+        .map(PaymentStatus.PROCESSING, "USERPAYING")
+        .map(PaymentStatus.CANCELLED, "CLOSED", "REVOKED")
+        .map(PaymentStatus.FAILED, "PAYERROR")
+        .build();
+
+    /**
+     * 支付宝交易状态
+     */
+    public static final ChannelStatusCodec ALIPAY = builder(PaymentStatus.FAILED)
+        .map(PaymentStatus.PENDING, "WAIT_BUYER_PAY")
+        .map(PaymentStatus.SUCCESS, "TRADE_SUCCESS", "TRADE_FINISHED")
+        .map(PaymentStatus.CANCELLED, "TRADE_CLOSED")
+        .build();
+
+    /**
+     * 银行交易状态
+     */
+    public static final ChannelStatusCodec BANK = builder(PaymentStatus.PENDING)
+        .map(PaymentStatus.SUCCESS, "SUCCESS", "PAID")
+        .map(PaymentStatus.FAILED, "FAILED", "ERROR")
+        .map(PaymentStatus.CANCELLED, "CANCELLED", "CLOSED")
+        .map(PaymentStatus.REFUNDED, "REFUNDED")
+        .build();
+
+    private static final int MAX_SEEDS = 1024;
+    private static final int MAX_TABLE_SIZE = 1 << 16;
+
+    private final int seed;
+    private final int mask;
+    private final byte[][] keys;
+    private final PaymentStatus[] values;
+    private final PaymentStatus defaultStatus;
+
+    private ChannelStatusCodec(Map<String, PaymentStatus> mapping, PaymentStatus defaultStatus) {
+        this.defaultStatus = defaultStatus;
+        // 按大写折叠后去重，只差大小写的状态码以后出现的为准
+        Map<String, PaymentStatus> folded = new LinkedHashMap<>();
+        for (Map.Entry<String, PaymentStatus> entry : mapping.entrySet()) {
+            String code = entry.getKey();
+            for (int i = 0; i < code.length(); i++) {
+                if (code.charAt(i) > 0x7F) {
+                    throw new IllegalArgumentException("Channel status code must be ASCII: " + code);
+                }
+            }
+            folded.put(code.toUpperCase(Locale.ROOT), entry.getValue());
+        }
+        int n = folded.size();
+        byte[][] codes = new byte[n][];
+        PaymentStatus[] statuses = new PaymentStatus[n];
+        int index = 0;
+        for (Map.Entry<String, PaymentStatus> entry : folded.entrySet()) {
+            codes[index] = entry.getKey().getBytes(StandardCharsets.US_ASCII);
+            statuses[index] = entry.getValue();
+            index++;
+        }
+
+        // 从不小于2倍状态数的2的幂开始，为每个表大小尝试若干种子，直到没有冲突
+        for (int size = Integer.highestOneBit(Math.max(1, n * 2 - 1)) << 1; size <= MAX_TABLE_SIZE; size <<= 1) {
+            for (int s = 1; s <= MAX_SEEDS; s++) {
+                byte[][] table = new byte[size][];
+                if (place(codes, s, size - 1, table)) {
+                    this.seed = s;
+                    this.mask = size - 1;
+                    this.keys = table;
+                    this.values = new PaymentStatus[size];
+                    for (int i = 0; i < n; i++) {
+                        values[hash(codes[i], 0, codes[i].length, s) & mask] = statuses[i];
+                    }
+                    return;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unable to build perfect hash for " + n + " status codes");
+    }
+
+    /**
+     * 创建构建器
+     *
+     * @param defaultStatus 未知状态码或空值对应的状态，可以为null
+     * @return 构建器
+     */
+    public static Builder builder(PaymentStatus defaultStatus) {
+        return new Builder(defaultStatus);
+    }
+
+    /**
+     * 由映射表创建编解码器
+     *
+     * @param mapping 渠道状态码到内部状态的映射，状态码只能包含ASCII字符
+     * @param defaultStatus 未知状态码或空值对应的状态，可以为null
+     * @return 编解码器
+     */
+    public static ChannelStatusCodec of(Map<String, PaymentStatus> mapping, PaymentStatus defaultStatus) {
+        return new ChannelStatusCodec(new LinkedHashMap<>(mapping), defaultStatus);
+    }
+
+    /**
+     * 解码渠道状态
+     *
+     * @param code 渠道状态码
+     * @return 内部状态，未知时返回默认状态
+     */
+    public PaymentStatus decode(CharSequence code) {
+        if (code == null) {
+            return defaultStatus;
+        }
+        int length = code.length();
+        int h = seed;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c > 0x7F) {
+                return defaultStatus;
+            }
+            h = (h ^ fold((byte) c)) * 0x01000193;
+        }
+        int slot = mix(h) & mask;
+        byte[] key = keys[slot];
+        if (key == null || key.length != length) {
+            return defaultStatus;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != fold((byte) code.charAt(i))) {
+                return defaultStatus;
+            }
+        }
+        return values[slot];
+    }
+
+    /**
+     * 直接从原始报文的字节片段解码渠道状态
+     *
+     * @param buffer 缓冲区
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 内部状态，未知时返回默认状态
+     */
+    public PaymentStatus decode(byte[] buffer, int offset, int length) {
+        int slot = hash(buffer, offset, length, seed) & mask;
+        byte[] key = keys[slot];
+        if (key == null || key.length != length) {
+            return defaultStatus;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != fold(buffer[offset + i])) {
+                return defaultStatus;
+            }
+        }
+        return values[slot];
+    }
+
+    public PaymentStatus getDefaultStatus() {
+        return defaultStatus;
+    }
+
+    private static boolean place(byte[][] codes, int seed, int mask, byte[][] table) {
+        for (byte[] code : codes) {
+            int slot = hash(code, 0, code.length, seed) & mask;
+            if (table[slot] != null) {
+                return false;
+            }
+            table[slot] = code;
+        }
+        return true;
+    }
+
+    private static int hash(byte[] buffer, int offset, int length, int seed) {
+        int h = seed;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = (h ^ fold(buffer[i])) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    /**
+     * ASCII小写字母转大写，其余字节不变
+     */
+    private static byte fold(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - 32) : b;
+    }
+
+    /**
+     * 编解码器构建器
+     */
+    public static final class Builder {
+
+        private final Map<String, PaymentStatus> mapping = new LinkedHashMap<>();
+        private final PaymentStatus defaultStatus;
+
+        private Builder(PaymentStatus defaultStatus) {
+            this.defaultStatus = defaultStatus;
+        }
+
+        /**
+         * 把一个或多个渠道状态码映射为内部状态
+         */
+        public Builder map(PaymentStatus status, String... codes) {
+            for (String code : codes) {
+                mapping.put(code, status);
+            }
+            return this;
+        }
+
+        public ChannelStatusCodec build() {
+            return new ChannelStatusCodec(mapping, defaultStatus);
+        }
+    }
+}
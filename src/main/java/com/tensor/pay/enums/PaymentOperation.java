@@ -0,0 +1,51 @@
+package com.tensor.pay.enums;
+
+/**
+ * 调用渠道网关的操作类型
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public enum PaymentOperation {
+    
+    /**
+     * 创建支付订单
+     */
+    CREATE("create", "创建订单"),
+    
+    /**
+     * 查询支付状态
+     */
+    QUERY("query", "查询订单"),
+    
+    /**
+     * 取消支付
+     */
+    CANCEL("cancel", "取消订单"),
+    
+    /**
+     * 申请退款
+     */
+    REFUND("refund", "申请退款"),
+    
+    /**
+     * 查询退款状态
+     */
+    QUERY_REFUND("query_refund", "查询退款");
+    
+    private final String code;
+    private final String description;
+    
+    PaymentOperation(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
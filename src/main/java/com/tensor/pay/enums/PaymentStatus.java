@@ -1,5 +1,8 @@
 package com.tensor.pay.enums;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 支付状态枚举
  * 
@@ -43,6 +46,14 @@ public enum PaymentStatus {
      */
     PARTIAL_REFUNDED("partial_refunded", "部分退款");
     
+    private static final Map<String, PaymentStatus> BY_CODE = new HashMap<>();
+    
+    static {
+        for (PaymentStatus status : values()) {
+            BY_CODE.put(status.code, status);
+        }
+    }
+    
     private final String code;
     private final String description;
     
@@ -60,11 +71,17 @@ public enum PaymentStatus {
     }
     
     public static PaymentStatus fromCode(String code) {
-        for (PaymentStatus status : values()) {
-            if (status.code.equals(code)) {
-                return status;
-            }
+        PaymentStatus status = fromCodeOrNull(code);
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown payment status code: " + code);
         }
-        throw new IllegalArgumentException("Unknown payment status code: " + code);
+        return status;
+    }
+    
+    /**
+     * 按编码查找，未知编码返回null
+     */
+    public static PaymentStatus fromCodeOrNull(String code) {
+        return code == null ? null : BY_CODE.get(code);
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.tensor.pay.enums;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 支付类型枚举
  * 
@@ -28,6 +31,14 @@ public enum PaymentType {
      */
     UNIONPAY("unionpay", "云闪付");
     
+    private static final Map<String, PaymentType> BY_CODE = new HashMap<>();
+    
+    static {
+        for (PaymentType type : values()) {
+            BY_CODE.put(type.code, type);
+        }
+    }
+    
     private final String code;
     private final String description;
     
@@ -45,11 +56,17 @@ public enum PaymentType {
     }
     
     public static PaymentType fromCode(String code) {
-        for (PaymentType type : values()) {
-            if (type.code.equals(code)) {
-                return type;
-            }
+        PaymentType type = fromCodeOrNull(code);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown payment type code: " + code);
         }
-        throw new IllegalArgumentException("Unknown payment type code: " + code);
+        return type;
+    }
+    
+    /**
+     * 按编码查找，未知编码返回null
+     */
+    public static PaymentType fromCodeOrNull(String code) {
+        return code == null ? null : BY_CODE.get(code);
     }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.tensor.pay.event;
+
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+
+/**
+ * 支付事件，用于把 {@link PaymentEventListener} 收到的事件写入日志或转发给其他服务
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentEvent {
+
+    /**
+     * 事件类型，新增类型只能追加在末尾，二进制编码按序号传输
+     */
+    public enum Type {
+
+        /**
+         * 订单创建成功
+         */
+        CREATED,
+
+        /**
+         * 获得订单的最新状态（回调、查询或关闭）
+         */
+        STATUS_UPDATED
+    }
+
+    private final Type type;
+    private final long occurredAt;
+    private final PaymentRequest request;
+    private final PaymentResponse response;
+
+    /**
+     * @param type 事件类型
+     * @param occurredAt 事件时间（毫秒时间戳）
+     * @param request 支付请求，只有订单创建事件带有
+     * @param response 支付响应
+     */
+    public PaymentEvent(Type type, long occurredAt, PaymentRequest request, PaymentResponse response) {
+        this.type = type;
+        this.occurredAt = occurredAt;
+        this.request = request;
+        this.response = response;
+    }
+
+    public static PaymentEvent created(PaymentRequest request, PaymentResponse response) {
+        return new PaymentEvent(Type.CREATED, System.currentTimeMillis(), request, response);
+    }
+
+    public static PaymentEvent statusUpdated(PaymentResponse response) {
+        return new PaymentEvent(Type.STATUS_UPDATED, System.currentTimeMillis(), null, response);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+
+    public PaymentRequest getRequest() {
+        return request;
+    }
+
+    public PaymentResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentEvent{" +
+                "type=" + type +
+                ", occurredAt=" + occurredAt +
+                ", request=" + request +
+                ", response=" + response +
+                '}';
+    }
+}
@@ -0,0 +1,31 @@
+package com.tensor.pay.event;
+
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+
+/**
+ * 支付事件监听器
+ * 订单创建成功、或从网关获得权威状态（回调、查询、关闭）后被调用
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public interface PaymentEventListener {
+    
+    /**
+     * 支付订单创建成功
+     * 
+     * @param request 支付请求
+     * @param response 支付响应
+     */
+    default void onPaymentCreated(PaymentRequest request, PaymentResponse response) {
+    }
+    
+    /**
+     * 获得订单的最新状态（已验签的回调、主动查询或关闭结果）
+     * 
+     * @param response 支付响应
+     */
+    default void onStatusUpdated(PaymentResponse response) {
+    }
+}
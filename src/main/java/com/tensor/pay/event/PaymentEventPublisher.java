@@ -0,0 +1,87 @@
+package com.tensor.pay.event;
+
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+/**
+ * 支付事件发布器
+ * 监听器在首次发布时才解析，避免监听器反向依赖支付服务时产生循环依赖
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentEventPublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PaymentEventPublisher.class);
+    
+    private final ObjectProvider<PaymentEventListener> listenerProvider;
+    private volatile List<PaymentEventListener> listeners;
+    
+    public PaymentEventPublisher(ObjectProvider<PaymentEventListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+    
+    /**
+     * 发布订单创建事件
+     * 
+     * @param request 支付请求
+     * @param response 支付响应
+     */
+    public void publishCreated(PaymentRequest request, PaymentResponse response) {
+        if (response == null || !response.isSuccess()) {
+            return;
+        }
+        for (PaymentEventListener listener : getListeners()) {
+            try {
+                listener.onPaymentCreated(request, response);
+            } catch (Exception e) {
+                logFailure("created", listener, e);
+            }
+        }
+    }
+    
+    /**
+     * 发布订单状态事件，只发布渠道确认的状态（见 {@link PaymentResponse#isAuthoritative()}）
+     * 
+     * @param response 支付响应
+     */
+    public void publishStatusUpdated(PaymentResponse response) {
+        if (response == null || !response.isAuthoritative() || response.getStatus() == null
+                || response.getOutTradeNo() == null) {
+            return;
+        }
+        for (PaymentEventListener listener : getListeners()) {
+            try {
+                listener.onStatusUpdated(response);
+            } catch (Exception e) {
+                logFailure("status", listener, e);
+            }
+        }
+    }
+    
+    /**
+     * 监听器抛出的业务错误（如订单记录积压已满）由监听器自行汇总记录，这里不再逐条记录堆栈
+     */
+    private void logFailure(String event, PaymentEventListener listener, Exception e) {
+        if (e instanceof PaymentException && ((PaymentException) e).isBusinessError()) {
+            logger.debug("Payment listener rejected {} event: {}, {}", event, listener, e.getMessage());
+        } else {
+            logger.error("Payment listener failed on {} event: {}", event, listener, e);
+        }
+    }
+    
+    private List<PaymentEventListener> getListeners() {
+        List<PaymentEventListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = listenerProvider.orderedStream().toList();
+            listeners = resolved;
+        }
+        return resolved;
+    }
+}
@@ -3,6 +3,9 @@ package com.tensor.pay.exception;
 /**
  * 支付异常类
  * 
+ * 参数错误、限流、商户不存在等可预期的业务错误使用 {@link #businessError(String, String)} 创建，
+ * 不采集堆栈，调用方只关心错误码和错误信息；渠道调用失败等意外错误仍使用构造方法创建并保留堆栈。
+ * 
  * @author Tensor Pay
  * @since 1.0.0
  */
@@ -10,27 +13,75 @@ public class PaymentException extends RuntimeException {
     
     private final String errorCode;
     
+    private final boolean businessError;
+    
     public PaymentException(String message) {
         super(message);
         this.errorCode = "PAYMENT_ERROR";
+        this.businessError = false;
     }
     
     public PaymentException(String errorCode, String message) {
         super(message);
         this.errorCode = errorCode;
+        this.businessError = false;
     }
     
     public PaymentException(String message, Throwable cause) {
         super(message, cause);
         this.errorCode = "PAYMENT_ERROR";
+        this.businessError = false;
     }
     
     public PaymentException(String errorCode, String message, Throwable cause) {
         super(message, cause);
         this.errorCode = errorCode;
+        this.businessError = false;
+    }
+    
+    /**
+     * @param errorCode 错误码
+     * @param message 错误信息
+     * @param cause 原因
+     * @param businessError 是否为可预期的业务错误，业务错误不采集堆栈
+     */
+    protected PaymentException(String errorCode, String message, Throwable cause, boolean businessError) {
+        super(message, cause, true, !businessError);
+        this.errorCode = errorCode;
+        this.businessError = businessError;
+    }
+    
+    /**
+     * 创建不带堆栈的业务错误
+     * 
+     * @param errorCode 错误码
+     * @param message 错误信息
+     * @return 业务错误
+     */
+    public static PaymentException businessError(String errorCode, String message) {
+        return new PaymentException(errorCode, message, null, true);
+    }
+    
+    /**
+     * 创建不带堆栈的业务错误，保留原因以便排查
+     * 
+     * @param errorCode 错误码
+     * @param message 错误信息
+     * @param cause 原因
+     * @return 业务错误
+     */
+    public static PaymentException businessError(String errorCode, String message, Throwable cause) {
+        return new PaymentException(errorCode, message, cause, true);
     }
     
     public String getErrorCode() {
         return errorCode;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 是否为可预期的业务错误，业务错误只需按错误码处理，不需要记录堆栈
+     */
+    public boolean isBusinessError() {
+        return businessError;
+    }
+}
@@ -42,12 +42,21 @@ public class PaymentServiceFactory {
     public PaymentService getPaymentService(PaymentType paymentType) {
         PaymentService service = paymentServices.get(paymentType);
         if (service == null) {
-            throw new PaymentException("UNSUPPORTED_PAYMENT_TYPE", 
+            throw PaymentException.businessError("UNSUPPORTED_PAYMENT_TYPE", 
                 "不支持的支付类型: " + paymentType);
         }
         return service;
     }
     
+    /**
+     * 获取所有已注册的支付服务
+     * 
+     * @return 支付类型到支付服务的只读映射
+     */
+    public Map<PaymentType, PaymentService> getPaymentServices() {
+        return java.util.Collections.unmodifiableMap(paymentServices);
+    }
+    
     /**
      * 获取所有支持的支付类型
      * 
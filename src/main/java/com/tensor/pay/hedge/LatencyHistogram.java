@@ -0,0 +1,90 @@
+package com.tensor.pay.hedge;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁延迟直方图
+ *
+ * 以微秒为单位按对数分桶，每次翻倍分4个桶，相对误差不超过25%，记录只是一次数组原子自增。
+ * 样本数达到阈值时全部计数减半，旧样本的权重逐步衰减，分位数能跟上网关延迟的变化。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicBoolean decaying = new AtomicBoolean();
+    private final int minSamples;
+    private final int decayThreshold;
+
+    /**
+     * @param minSamples 样本数少于该值时不给出分位数
+     * @param decayThreshold 样本数达到该值时计数减半
+     */
+    LatencyHistogram(int minSamples, int decayThreshold) {
+        this.minSamples = minSamples;
+        this.decayThreshold = decayThreshold;
+    }
+
+    void record(long nanos) {
+        counts.incrementAndGet(index(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        if (total.incrementAndGet() >= decayThreshold && decaying.compareAndSet(false, true)) {
+            try {
+                long sum = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    sum += counts.updateAndGet(i, count -> count >> 1);
+                }
+                total.set(sum);
+            } finally {
+                decaying.set(false);
+            }
+        }
+    }
+
+    /**
+     * 估算分位数，取所在桶的上界
+     *
+     * @param percentile 分位，如0.95
+     * @return 延迟（纳秒），样本不足时返回-1
+     */
+    long percentileNanos(double percentile) {
+        long samples = total.get();
+        if (samples < minSamples) {
+            return -1;
+        }
+        long target = (long) Math.ceil(samples * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return TimeUnit.MICROSECONDS.toNanos(upperBoundMicros(i));
+            }
+        }
+        return TimeUnit.MICROSECONDS.toNanos(upperBoundMicros(BUCKETS - 1));
+    }
+
+    static int index(long micros) {
+        if (micros < 1) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = exponent < 2 ? 0 : (int) (micros >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, exponent * SUB_BUCKETS + sub);
+    }
+
+    static long upperBoundMicros(int index) {
+        int exponent = index / SUB_BUCKETS;
+        if (exponent < 2) {
+            return 1L << (exponent + 1);
+        }
+        return (long) (SUB_BUCKETS + 1 + index % SUB_BUCKETS) << (exponent - 2);
+    }
+}
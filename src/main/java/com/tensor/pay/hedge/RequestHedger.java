@@ -0,0 +1,265 @@
+package com.tensor.pay.hedge;
+
+import com.tensor.pay.config.HedgeProperties;
+import com.tensor.pay.enums.PaymentOperation;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.ratelimit.PaymentRateLimiter;
+import com.tensor.pay.utils.Deadline;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 查询对冲
+ *
+ * 只用于查询订单、查询退款这类幂等操作：第一次调用超过该渠道该操作最近的P95延迟仍未返回时，
+ * 再发出一次相同的调用，两次调用各自占用一个连接，先返回成功结果的一次生效。
+ * 对冲请求受预算限制，按查询总数的固定比例累积额度，额度用完时只等待第一次调用，
+ * 网关整体变慢时不会把查询量翻倍；对冲请求同样受渠道限流约束。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class RequestHedger {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int DECAY_THRESHOLD = 10_000;
+    private static final long CREDIT_UNIT = 1_000;
+    private static final long MAX_CREDITS = 10 * CREDIT_UNIT;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long creditPerCall;
+    private final PaymentRateLimiter rateLimiter;
+    private final LatencyHistogram[][] histograms;
+    private final AtomicLong credits = new AtomicLong(MAX_CREDITS);
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    public RequestHedger(HedgeProperties properties, PaymentRateLimiter rateLimiter) {
+        this.enabled = properties.isEnabled();
+        this.percentile = properties.getPercentile();
+        this.minDelayNanos = properties.getMinDelay().toNanos();
+        this.creditPerCall = Math.round(properties.getBudgetRatio() * CREDIT_UNIT);
+        this.rateLimiter = rateLimiter;
+        this.histograms = new LatencyHistogram[PaymentType.values().length][PaymentOperation.values().length];
+        for (LatencyHistogram[] row : histograms) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LatencyHistogram(MIN_SAMPLES, DECAY_THRESHOLD);
+            }
+        }
+        if (enabled) {
+            int threads = Math.max(2, properties.getThreads());
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("tensor-pay-hedge-");
+            threadFactory.setDaemon(true);
+            this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 16), threadFactory);
+            this.executor.allowCoreThreadTimeOut(true);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * 执行幂等查询，慢于P95时发出对冲请求
+     *
+     * 未启用、样本不足或线程池已满时直接在调用线程执行。
+     *
+     * @param paymentType 支付渠道
+     * @param operation 操作类型，应为幂等的查询操作
+     * @param action 查询逻辑
+     * @return 先返回的成功结果，都失败时返回后完成的一次
+     */
+    public PaymentResponse call(PaymentType paymentType, PaymentOperation operation,
+                                Supplier<PaymentResponse> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        LatencyHistogram histogram = histograms[paymentType.ordinal()][operation.ordinal()];
+        deposit(creditPerCall);
+        long delayNanos = histogram.percentileNanos(percentile);
+        if (delayNanos < 0) {
+            return timed(histogram, action).get();
+        }
+
+        Supplier<PaymentResponse> task = timed(histogram, bindContext(action));
+        CompletableFuture<PaymentResponse> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return task.get();
+        }
+        try {
+            return primary.get(Math.max(minDelayNanos, delayNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 超过P95仍未返回，尝试对冲
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentException("INTERRUPTED", "等待查询结果时被中断", e);
+        }
+
+        if (!withdrawCredit()) {
+            budgetExhausted.increment();
+            return join(primary);
+        }
+        if (rateLimiter != null && !rateLimiter.tryAcquire(paymentType, MerchantContext.current(), operation)) {
+            refundCredit();
+            return join(primary);
+        }
+        CompletableFuture<PaymentResponse> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            refundCredit();
+            return join(primary);
+        }
+        hedged.increment();
+
+        CompletableFuture<PaymentResponse> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        primary.whenComplete(firstSuccess(result, pending, null));
+        hedge.whenComplete(firstSuccess(result, pending, hedgeWins));
+        return join(result);
+    }
+
+    /**
+     * 当前的对冲延迟，即该渠道该操作的延迟分位数
+     *
+     * @return 延迟（毫秒），样本不足时返回-1
+     */
+    public long getHedgeDelayMillis(PaymentType paymentType, PaymentOperation operation) {
+        long nanos = histograms[paymentType.ordinal()][operation.ordinal()].percentileNanos(percentile);
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(Math.max(minDelayNanos, nanos));
+    }
+
+    /**
+     * 累计发出的对冲请求数
+     */
+    public long getHedgedCount() {
+        return hedged.sum();
+    }
+
+    /**
+     * 对冲请求先于第一次调用返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * 因预算用完而没有对冲的次数
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhausted.sum();
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private boolean withdrawCredit() {
+        while (true) {
+            long current = credits.get();
+            if (current < CREDIT_UNIT) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - CREDIT_UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 退还没有用于对冲的额度，与存入额度一样不超过上限
+     */
+    private void refundCredit() {
+        deposit(CREDIT_UNIT);
+    }
+
+    private void deposit(long amount) {
+        credits.getAndUpdate(current -> Math.min(MAX_CREDITS, current + amount));
+    }
+
+    /**
+     * 让查询在线程池中执行时沿用调用线程的商户和截止时间
+     */
+    private static Supplier<PaymentResponse> bindContext(Supplier<PaymentResponse> action) {
+        String merchantId = MerchantContext.current();
+        Deadline deadline = Deadline.current();
+        return () -> MerchantContext.call(merchantId, () -> Deadline.call(deadline, action));
+    }
+
+    private static Supplier<PaymentResponse> timed(LatencyHistogram histogram, Supplier<PaymentResponse> action) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return action.get();
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static BiConsumer<PaymentResponse, Throwable> firstSuccess(CompletableFuture<PaymentResponse> result,
+                                                                      AtomicInteger pending, LongAdder wins) {
+        return (response, error) -> {
+            // 带错误码的查询结果不算胜出，等待另一路请求
+            if (error == null && response != null && response.isAuthoritative()) {
+                // 先记下胜出方再唤醒调用方，调用方返回时统计已经更新
+                if (pending.getAndSet(-1) > 0) {
+                    if (wins != null) {
+                        wins.increment();
+                    }
+                    result.complete(response);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            }
+        };
+    }
+
+    private static PaymentResponse join(CompletableFuture<PaymentResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new PaymentException("QUERY_ERROR", "查询失败", cause);
+    }
+}
@@ -0,0 +1,372 @@
+package com.tensor.pay.json;
+
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.util.Fnv;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 支付请求和支付响应的JSON编解码
+ *
+ * 按字段逐个调用fastjson2的 {@link JSONWriter}/{@link JSONReader}，不经过反射或运行时生成的序列化器。
+ * 输出与Spring Boot默认的Jackson配置一致：字段顺序相同，null字段照常输出，
+ * 金额按 {@link BigDecimal#toString()} 输出为数字，时间按ISO-8601本地时间输出为字符串，枚举按名称输出；
+ * 读取时忽略未知字段，扩展数据中的小数读取为 {@link Double}。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class PaymentJsonCodec {
+
+    private static final long SUCCESS = Fnv.hashCode64("success");
+    private static final long ERROR_CODE = Fnv.hashCode64("errorCode");
+    private static final long ERROR_MESSAGE = Fnv.hashCode64("errorMessage");
+    private static final long OUT_TRADE_NO = Fnv.hashCode64("outTradeNo");
+    private static final long TRADE_NO = Fnv.hashCode64("tradeNo");
+    private static final long PAYMENT_TYPE = Fnv.hashCode64("paymentType");
+    private static final long STATUS = Fnv.hashCode64("status");
+    private static final long CURRENCY = Fnv.hashCode64("currency");
+    private static final long PAY_TIME = Fnv.hashCode64("payTime");
+    private static final long PAY_URL = Fnv.hashCode64("payUrl");
+    private static final long PAY_PARAMS = Fnv.hashCode64("payParams");
+    private static final long EXTRA_DATA = Fnv.hashCode64("extraData");
+    private static final long AMOUNT = Fnv.hashCode64("amount");
+    private static final long PAID_AMOUNT = Fnv.hashCode64("paidAmount");
+    private static final long SUBJECT = Fnv.hashCode64("subject");
+    private static final long BODY = Fnv.hashCode64("body");
+    private static final long EXPIRE_TIME = Fnv.hashCode64("expireTime");
+    private static final long NOTIFY_URL = Fnv.hashCode64("notifyUrl");
+    private static final long RETURN_URL = Fnv.hashCode64("returnUrl");
+    private static final long USER_ID = Fnv.hashCode64("userId");
+    private static final long CLIENT_IP = Fnv.hashCode64("clientIp");
+    private static final long MERCHANT_ID = Fnv.hashCode64("merchantId");
+    private static final long TIMEOUT_MILLIS = Fnv.hashCode64("timeoutMillis");
+    private static final long EXTRA_PARAMS = Fnv.hashCode64("extraParams");
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final PaymentStatus[] PAYMENT_STATUSES = PaymentStatus.values();
+
+    private PaymentJsonCodec() {
+    }
+
+    public static void write(JSONWriter writer, PaymentRequest request) {
+        writer.startObject();
+        writeString(writer, "outTradeNo", request.getOutTradeNo());
+        writeEnum(writer, "paymentType", request.getPaymentType());
+        writeDecimal(writer, "amount", request.getAmount());
+        writeString(writer, "currency", request.getCurrency());
+        writeString(writer, "subject", request.getSubject());
+        writeString(writer, "body", request.getBody());
+        writeDateTime(writer, "expireTime", request.getExpireTime());
+        writeString(writer, "notifyUrl", request.getNotifyUrl());
+        writeString(writer, "returnUrl", request.getReturnUrl());
+        writeString(writer, "userId", request.getUserId());
+        writeString(writer, "clientIp", request.getClientIp());
+        writeString(writer, "merchantId", request.getMerchantId());
+        writer.writeName("timeoutMillis");
+        writer.writeColon();
+        writer.writeInt64(request.getTimeoutMillis());
+        writer.writeName("extraParams");
+        writer.writeColon();
+        writeValue(writer, request.getExtraParams());
+        writer.endObject();
+    }
+
+    public static void write(JSONWriter writer, PaymentResponse response) {
+        writer.startObject();
+        writer.writeName("success");
+        writer.writeColon();
+        writer.writeBool(response.isSuccess());
+        writeString(writer, "errorCode", response.getErrorCode());
+        writeString(writer, "errorMessage", response.getErrorMessage());
+        writeString(writer, "outTradeNo", response.getOutTradeNo());
+        writeString(writer, "tradeNo", response.getTradeNo());
+        writeEnum(writer, "paymentType", response.getPaymentType());
+        writeEnum(writer, "status", response.getStatus());
+        writeString(writer, "currency", response.getCurrency());
+        writeDateTime(writer, "payTime", response.getPayTime());
+        writeString(writer, "payUrl", response.getPayUrl());
+        writeString(writer, "payParams", response.getPayParams());
+        writer.writeName("extraData");
+        writer.writeColon();
+        writeValue(writer, response.getExtraData());
+        writeDecimal(writer, "amount", response.getAmount());
+        writeDecimal(writer, "paidAmount", response.getPaidAmount());
+        writer.endObject();
+    }
+
+    /**
+     * 读取支付请求，字段按报文中的顺序设置
+     *
+     * @param reader JSON读取器
+     * @return 支付请求，报文为null时返回null
+     * @throws JSONException 报文格式错误或字段值无法转换
+     */
+    public static PaymentRequest readRequest(JSONReader reader) {
+        if (reader.nextIfNull()) {
+            return null;
+        }
+        if (!reader.nextIfObjectStart()) {
+            throw new JSONException("PaymentRequest must be a JSON object");
+        }
+        PaymentRequest request = new PaymentRequest();
+        while (!reader.nextIfObjectEnd()) {
+            long hash = reader.readFieldNameHashCode();
+            if (hash == OUT_TRADE_NO) {
+                request.setOutTradeNo(reader.readString());
+            } else if (hash == PAYMENT_TYPE) {
+                request.setPaymentType(readEnum(reader, PAYMENT_TYPES));
+            } else if (hash == AMOUNT) {
+                request.setAmount(reader.readBigDecimal());
+            } else if (hash == CURRENCY) {
+                request.setCurrency(reader.readString());
+            } else if (hash == SUBJECT) {
+                request.setSubject(reader.readString());
+            } else if (hash == BODY) {
+                request.setBody(reader.readString());
+            } else if (hash == EXPIRE_TIME) {
+                request.setExpireTime(readDateTime(reader));
+            } else if (hash == NOTIFY_URL) {
+                request.setNotifyUrl(reader.readString());
+            } else if (hash == RETURN_URL) {
+                request.setReturnUrl(reader.readString());
+            } else if (hash == USER_ID) {
+                request.setUserId(reader.readString());
+            } else if (hash == CLIENT_IP) {
+                request.setClientIp(reader.readString());
+            } else if (hash == MERCHANT_ID) {
+                request.setMerchantId(reader.readString());
+            } else if (hash == TIMEOUT_MILLIS) {
+                request.setTimeoutMillis(reader.readInt64());
+            } else if (hash == EXTRA_PARAMS) {
+                request.setExtraParams(readMap(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        return request;
+    }
+
+    /**
+     * 读取支付响应，字段按报文中的顺序设置
+     *
+     * @param reader JSON读取器
+     * @return 支付响应，报文为null时返回null
+     * @throws JSONException 报文格式错误或字段值无法转换
+     */
+    public static PaymentResponse readResponse(JSONReader reader) {
+        if (reader.nextIfNull()) {
+            return null;
+        }
+        if (!reader.nextIfObjectStart()) {
+            throw new JSONException("PaymentResponse must be a JSON object");
+        }
+        PaymentResponse response = new PaymentResponse();
+        while (!reader.nextIfObjectEnd()) {
+            long hash = reader.readFieldNameHashCode();
+            if (hash == SUCCESS) {
+                response.setSuccess(!reader.nextIfNull() && reader.readBoolValue());
+            } else if (hash == ERROR_CODE) {
+                response.setErrorCode(reader.readString());
+            } else if (hash == ERROR_MESSAGE) {
+                response.setErrorMessage(reader.readString());
+            } else if (hash == OUT_TRADE_NO) {
+                response.setOutTradeNo(reader.readString());
+            } else if (hash == TRADE_NO) {
+                response.setTradeNo(reader.readString());
+            } else if (hash == PAYMENT_TYPE) {
+                response.setPaymentType(readEnum(reader, PAYMENT_TYPES));
+            } else if (hash == STATUS) {
+                response.setStatus(readEnum(reader, PAYMENT_STATUSES));
+            } else if (hash == CURRENCY) {
+                response.setCurrency(reader.readString());
+            } else if (hash == PAY_TIME) {
+                response.setPayTime(readDateTime(reader));
+            } else if (hash == PAY_URL) {
+                response.setPayUrl(reader.readString());
+            } else if (hash == PAY_PARAMS) {
+                response.setPayParams(reader.readString());
+            } else if (hash == EXTRA_DATA) {
+                response.setExtraData(readMap(reader));
+            } else if (hash == AMOUNT) {
+                response.setAmount(reader.readBigDecimal());
+            } else if (hash == PAID_AMOUNT) {
+                response.setPaidAmount(reader.readBigDecimal());
+            } else {
+                reader.skipValue();
+            }
+        }
+        return response;
+    }
+
+    private static void writeString(JSONWriter writer, String name, String value) {
+        writer.writeName(name);
+        writer.writeColon();
+        writer.writeString(value);
+    }
+
+    private static void writeEnum(JSONWriter writer, String name, Enum<?> value) {
+        writer.writeName(name);
+        writer.writeColon();
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            writer.writeString(value.name());
+        }
+    }
+
+    private static void writeDecimal(JSONWriter writer, String name, BigDecimal value) {
+        writer.writeName(name);
+        writer.writeColon();
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            writer.writeDecimal(value);
+        }
+    }
+
+    private static void writeDateTime(JSONWriter writer, String name, LocalDateTime value) {
+        writer.writeName(name);
+        writer.writeColon();
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            writer.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+        }
+    }
+
+    /**
+     * 扩展数据中的值，常见类型按Jackson的格式输出，其他类型交给fastjson2
+     */
+    private static void writeValue(JSONWriter writer, Object value) {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value instanceof String string) {
+            writer.writeString(string);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            writer.writeInt64(((Number) value).longValue());
+        } else if (value instanceof BigDecimal decimal) {
+            writer.writeDecimal(decimal);
+        } else if (value instanceof BigInteger integer) {
+            writer.writeBigInt(integer);
+        } else if (value instanceof Double number) {
+            writer.writeDouble(number);
+        } else if (value instanceof Float number) {
+            writer.writeFloat(number);
+        } else if (value instanceof Boolean bool) {
+            writer.writeBool(bool);
+        } else if (value instanceof LocalDateTime dateTime) {
+            writer.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime));
+        } else if (value instanceof Enum<?> constant) {
+            writer.writeString(constant.name());
+        } else if (value instanceof Map<?, ?> map) {
+            writer.startObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writer.writeName(String.valueOf(entry.getKey()));
+                writer.writeColon();
+                writeValue(writer, entry.getValue());
+            }
+            writer.endObject();
+        } else if (value instanceof Collection<?> collection) {
+            writer.startArray();
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    writer.writeComma();
+                }
+                first = false;
+                writeValue(writer, element);
+            }
+            writer.endArray();
+        } else {
+            writer.writeAny(value);
+        }
+    }
+
+    /**
+     * 枚举按名称读取，也接受序号，与Jackson的默认行为一致
+     */
+    private static <E extends Enum<E>> E readEnum(JSONReader reader, E[] values) {
+        if (reader.nextIfNull()) {
+            return null;
+        }
+        if (reader.isNumber()) {
+            int ordinal = reader.readInt32Value();
+            if (ordinal < 0 || ordinal >= values.length) {
+                throw new JSONException("Unknown ordinal " + ordinal + " for "
+                    + values.getClass().getComponentType().getSimpleName());
+            }
+            return values[ordinal];
+        }
+        String name = reader.readString();
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        for (E value : values) {
+            if (value.name().equals(name)) {
+                return value;
+            }
+        }
+        throw new JSONException("Unknown value '" + name + "' for "
+            + values.getClass().getComponentType().getSimpleName());
+    }
+
+    private static LocalDateTime readDateTime(JSONReader reader) {
+        String text = reader.readString();
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            throw new JSONException("Invalid ISO-8601 date time: " + text, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readMap(JSONReader reader) {
+        if (reader.nextIfNull()) {
+            return null;
+        }
+        if (!reader.isObject()) {
+            throw new JSONException("Expected a JSON object");
+        }
+        return (Map<String, Object>) normalize(reader.readObject());
+    }
+
+    /**
+     * 转换为与Jackson读取无类型数据时相同的结果：小数为 {@link Double}，对象为 {@link LinkedHashMap}，数组为 {@link ArrayList}
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.doubleValue();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>(Math.max(4, map.size() * 4 / 3 + 1));
+            map.forEach((key, element) -> copy.put(String.valueOf(key), normalize(element)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(element -> copy.add(normalize(element)));
+            return copy;
+        }
+        return value;
+    }
+}
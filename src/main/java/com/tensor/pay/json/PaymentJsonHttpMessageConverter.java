@@ -0,0 +1,73 @@
+package com.tensor.pay.json;
+
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于 {@link PaymentJsonCodec} 的HTTP消息转换器
+ *
+ * 只处理 {@link PaymentRequest} 和 {@link PaymentResponse}，其他类型仍由Jackson转换。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public PaymentJsonHttpMessageConverter() {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // 共享失败响应是PaymentResponse的私有子类
+        return clazz == PaymentRequest.class || PaymentResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] body = inputMessage.getBody().readAllBytes();
+        Charset charset = charset(inputMessage.getHeaders().getContentType());
+        try (JSONReader reader = JSONReader.of(body, 0, body.length, charset)) {
+            return clazz == PaymentRequest.class
+                ? PaymentJsonCodec.readRequest(reader) : PaymentJsonCodec.readResponse(reader);
+        } catch (JSONException | IllegalArgumentException | PaymentException e) {
+            // 金额精度超出币种范围等取值错误同样属于请求体错误
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            if (value instanceof PaymentRequest request) {
+                PaymentJsonCodec.write(writer, request);
+            } else {
+                PaymentJsonCodec.write(writer, (PaymentResponse) value);
+            }
+            Charset charset = charset(outputMessage.getHeaders().getContentType());
+            if (StandardCharsets.UTF_8.equals(charset)) {
+                writer.flushTo(outputMessage.getBody());
+            } else {
+                writer.flushTo(outputMessage.getBody(), charset);
+            }
+        }
+    }
+
+    private Charset charset(MediaType contentType) {
+        return contentType != null && contentType.getCharset() != null
+            ? contentType.getCharset() : StandardCharsets.UTF_8;
+    }
+}
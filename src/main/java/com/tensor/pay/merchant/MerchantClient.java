@@ -0,0 +1,64 @@
+package com.tensor.pay.merchant;
+
+import com.tensor.pay.service.LazyProvider;
+
+/**
+ * 单个商户的渠道配置和延迟创建的SDK客户端
+ *
+ * 由 {@link MerchantRegistry} 缓存，淘汰时调用 {@link #close()} 释放该商户的密钥等资源。
+ * 创建时记录配置指纹，商户配置变化后由注册表替换为按新配置创建的实例。
+ *
+ * @param <P> 渠道配置类型
+ * @param <C> 客户端类型
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class MerchantClient<P, C> implements AutoCloseable {
+
+    private final P properties;
+    private final Object fingerprint;
+    private final LazyProvider<C> provider;
+    private final Runnable onClose;
+
+    /**
+     * @param properties 渠道配置
+     * @param fingerprint 创建时的配置指纹
+     * @param provider 延迟创建的客户端
+     * @param onClose 淘汰时执行的清理操作，可以为null
+     */
+    public MerchantClient(P properties, Object fingerprint, LazyProvider<C> provider, Runnable onClose) {
+        this.properties = properties;
+        this.fingerprint = fingerprint;
+        this.provider = provider;
+        this.onClose = onClose;
+    }
+
+    public P getProperties() {
+        return properties;
+    }
+
+    /**
+     * 获取客户端，第一次调用时创建
+     */
+    public C getClient() {
+        return provider.get();
+    }
+
+    /**
+     * 创建时的配置指纹
+     */
+    public Object getFingerprint() {
+        return fingerprint;
+    }
+
+    public LazyProvider<C> getProvider() {
+        return provider;
+    }
+
+    @Override
+    public void close() {
+        if (onClose != null) {
+            onClose.run();
+        }
+    }
+}
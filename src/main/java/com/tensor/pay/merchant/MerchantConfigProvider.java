@@ -0,0 +1,58 @@
+package com.tensor.pay.merchant;
+
+import com.tensor.pay.config.AlipayProperties;
+import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.config.WechatPayProperties;
+import com.tensor.pay.exception.PaymentException;
+
+/**
+ * 子商户配置来源
+ *
+ * 子商户的客户端在第一次使用时才按商户号查询配置创建，
+ * 商户较多时可以实现该接口从数据库或配置中心按需加载，不必把全部商户配置常驻内存。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public interface MerchantConfigProvider {
+
+    /**
+     * 获取子商户的微信支付配置
+     *
+     * @param merchantId 商户号
+     * @return 配置，商户不存在或未开通时返回null
+     */
+    default WechatPayProperties getWechatConfig(String merchantId) {
+        return null;
+    }
+
+    /**
+     * 获取子商户的支付宝配置
+     *
+     * @param merchantId 商户号
+     * @return 配置，商户不存在或未开通时返回null
+     */
+    default AlipayProperties getAlipayConfig(String merchantId) {
+        return null;
+    }
+
+    /**
+     * 获取子商户的银行支付配置
+     *
+     * @param merchantId 商户号
+     * @return 配置，商户不存在或未开通时返回null
+     */
+    default BankPayProperties getBankConfig(String merchantId) {
+        return null;
+    }
+
+    /**
+     * 检查子商户配置是否存在，不存在时抛出 UNKNOWN_MERCHANT
+     */
+    static <P> P require(P config, String merchantId) {
+        if (config == null) {
+            throw PaymentException.businessError("UNKNOWN_MERCHANT", "未配置的商户: " + merchantId);
+        }
+        return config;
+    }
+}
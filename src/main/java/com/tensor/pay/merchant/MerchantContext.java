@@ -0,0 +1,54 @@
+package com.tensor.pay.merchant;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前请求所属的商户
+ *
+ * 查询、退款、回调等接口没有请求体可以携带商户号，由调用方在调用前绑定到当前线程；
+ * 未绑定时使用配置文件中的默认商户。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class MerchantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private MerchantContext() {
+    }
+
+    /**
+     * 当前线程绑定的商户号
+     *
+     * @return 商户号，未绑定时返回null，表示默认商户
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 以指定商户的身份执行操作，执行完成后恢复原来的商户
+     *
+     * @param merchantId 商户号，为空时表示默认商户
+     * @param action 操作
+     * @return 操作结果
+     */
+    public static <T> T call(String merchantId, Supplier<T> action) {
+        String previous = CURRENT.get();
+        if (merchantId == null || merchantId.isEmpty()) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(merchantId);
+        }
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.tensor.pay.merchant;
+
+import com.tensor.pay.enums.PaymentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 子商户客户端注册表
+ *
+ * 按渠道和商户号缓存子商户的客户端，第一次使用时才查询配置并创建。
+ * 全部渠道共用一个容量上限，超出上限时一次淘汰最久未使用的一批客户端，空闲超过指定时间的客户端也会被淘汰，
+ * 再次使用时重新创建。因此内存占用只与活跃商户数有关，与配置的商户总数无关。
+ * 淘汰或因配置变化被替换的客户端如果实现了 {@link AutoCloseable}，至少延迟指定时间后才关闭，
+ * 淘汰前刚取得客户端的请求可以正常完成。
+ * 读取路径只有一次 {@link ConcurrentHashMap#get} 和一次时间戳写入，淘汰只在新建客户端或定期清理时执行；
+ * 后台线程也会定期清理，不再使用的商户的客户端和连接池不依赖后续请求也能按时关闭。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class MerchantRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MerchantRegistry.class);
+
+    private static final long MIN_SWEEP_INTERVAL_MILLIS = 1_000;
+
+    private final MerchantConfigProvider configProvider;
+    private final int maxClients;
+    private final long idleTimeoutNanos;
+    private final long closeDelayNanos;
+    private final Map<PaymentType, ConcurrentHashMap<String, Entry>> clients = new EnumMap<>(PaymentType.class);
+    private final Queue<Retired> retired = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object evictionLock = new Object();
+    private final ScheduledExecutorService sweeper;
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * @param configProvider 子商户配置来源
+     * @param maxClients 缓存的客户端数量上限
+     * @param idleTimeout 客户端空闲多久后淘汰
+     */
+    public MerchantRegistry(MerchantConfigProvider configProvider, int maxClients, Duration idleTimeout) {
+        this(configProvider, maxClients, idleTimeout, Duration.ofMinutes(1));
+    }
+
+    /**
+     * @param configProvider 子商户配置来源
+     * @param maxClients 缓存的客户端数量上限
+     * @param idleTimeout 客户端空闲多久后淘汰
+     * @param closeDelay 客户端淘汰后至少延迟多久才关闭，应大于渠道调用的超时时间
+     */
+    public MerchantRegistry(MerchantConfigProvider configProvider, int maxClients, Duration idleTimeout,
+                            Duration closeDelay) {
+        this.configProvider = configProvider;
+        this.maxClients = Math.max(1, maxClients);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.closeDelayNanos = closeDelay.toNanos();
+        for (PaymentType type : PaymentType.values()) {
+            clients.put(type, new ConcurrentHashMap<>());
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("tensor-pay-merchant-sweep-");
+        threadFactory.setDaemon(true);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = Math.max(MIN_SWEEP_INTERVAL_MILLIS,
+            Math.min(idleTimeout.toMillis() / 2, closeDelay.toMillis()));
+        sweeper.scheduleWithFixedDelay(this::sweepQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取子商户的客户端，不存在时调用工厂创建
+     *
+     * 工厂在注册表的锁内执行，应只创建轻量的包装对象，耗时的SDK初始化应延迟到第一次使用时。
+     *
+     * @param type 支付渠道
+     * @param merchantId 商户号
+     * @param factory 客户端工厂，参数为商户号
+     * @return 客户端
+     */
+    @SuppressWarnings("unchecked")
+    public <C> C getClient(PaymentType type, String merchantId, Function<String, C> factory) {
+        ConcurrentHashMap<String, Entry> channelClients = clients.get(type);
+        long now = System.nanoTime();
+        Entry entry = channelClients.get(merchantId);
+        if (entry == null) {
+            entry = channelClients.computeIfAbsent(merchantId, id -> {
+                Entry created = new Entry(factory.apply(id), now);
+                size.incrementAndGet();
+                return created;
+            });
+            if (size.get() > maxClients) {
+                evict(now);
+            }
+        } else {
+            entry.lastAccess = now;
+        }
+        if (now - lastSweep > idleTimeoutNanos >> 1) {
+            evict(now);
+        }
+        return (C) entry.client;
+    }
+
+    /**
+     * 在后台重新检查渠道下已缓存的客户端，配置变化的按新配置重建后原子替换
+     *
+     * 替换前已经取得旧客户端的请求继续在旧客户端上完成，旧客户端与淘汰的客户端一样延迟关闭，
+     * 本次刷新结束时关闭已超过延迟的客户端。
+     *
+     * @param type 支付渠道
+     * @param rebuild 重建逻辑，参数为商户号和当前客户端；配置未变化时返回当前客户端，商户已删除时返回null
+     * @param executor 执行重建的线程池
+     * @return 替换或淘汰的客户端数量
+     */
+    @SuppressWarnings("unchecked")
+    public <C> CompletableFuture<Integer> refresh(PaymentType type, BiFunction<String, C, C> rebuild,
+                                                 Executor executor) {
+        ConcurrentHashMap<String, Entry> channelClients = clients.get(type);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        channelClients.forEach((id, entry) -> futures.add(CompletableFuture.supplyAsync(() -> {
+            C fresh = rebuild.apply(id, (C) entry.client);
+            if (fresh == entry.client) {
+                return false;
+            }
+            if (fresh == null) {
+                remove(type, id, entry);
+                return true;
+            }
+            if (!channelClients.replace(id, entry, new Entry(fresh, entry.lastAccess))) {
+                return false;
+            }
+            retire(type, id, entry);
+            return true;
+        }, executor).exceptionally(e -> {
+            logger.warn("Failed to refresh {} client of merchant {}, keeping the current one", type, id, e);
+            return false;
+        })));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> {
+                closeRetired();
+                return (int) futures.stream().filter(CompletableFuture::join).count();
+            });
+    }
+
+    /**
+     * 淘汰子商户的客户端，下次使用时重新创建，用于商户配置变更后立即生效
+     */
+    public void invalidate(PaymentType type, String merchantId) {
+        Entry entry = clients.get(type).get(merchantId);
+        if (entry != null) {
+            remove(type, merchantId, entry);
+        }
+        closeRetired();
+    }
+
+    /**
+     * 淘汰全部客户端
+     */
+    public void invalidateAll() {
+        clients.forEach((type, channelClients) -> channelClients.forEach((id, entry) -> remove(type, id, entry)));
+        closeRetired();
+    }
+
+    /**
+     * 当前缓存的客户端数量
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public MerchantConfigProvider getConfigProvider() {
+        return configProvider;
+    }
+
+    /**
+     * 停止后台清理，并关闭全部客户端
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+        clients.forEach((type, channelClients) -> channelClients.forEach((id, entry) -> remove(type, id, entry)));
+        Retired next;
+        while ((next = retired.poll()) != null) {
+            close(next);
+        }
+    }
+
+    /**
+     * 淘汰空闲超时的客户端，仍超出上限时按最近使用时间从旧到新淘汰到上限的7/8，
+     * 之后的一批新建客户端不需要再排序
+     */
+    private void evict(long now) {
+        synchronized (evictionLock) {
+            boolean sweep = now - lastSweep > idleTimeoutNanos >> 1;
+            if (!sweep && size.get() <= maxClients) {
+                // 其他线程已经淘汰过
+                return;
+            }
+            lastSweep = now;
+            List<Candidate> candidates = new ArrayList<>();
+            clients.forEach((type, channelClients) -> channelClients.forEach((id, entry) -> {
+                if (now - entry.lastAccess > idleTimeoutNanos) {
+                    remove(type, id, entry);
+                } else {
+                    candidates.add(new Candidate(type, id, entry));
+                }
+            }));
+            if (size.get() > maxClients) {
+                int excess = size.get() - (maxClients - maxClients / 8);
+                candidates.sort(Comparator.comparingLong(candidate -> candidate.entry.lastAccess));
+                for (int i = 0; i < excess && i < candidates.size(); i++) {
+                    Candidate candidate = candidates.get(i);
+                    remove(candidate.type, candidate.merchantId, candidate.entry);
+                }
+            }
+            closeRetired();
+        }
+    }
+
+    private void remove(PaymentType type, String merchantId, Entry entry) {
+        if (!clients.get(type).remove(merchantId, entry)) {
+            return;
+        }
+        size.decrementAndGet();
+        retire(type, merchantId, entry);
+    }
+
+    private void retire(PaymentType type, String merchantId, Entry entry) {
+        if (entry.client instanceof AutoCloseable) {
+            retired.add(new Retired(type, merchantId, entry.client, System.nanoTime()));
+        }
+    }
+
+    /**
+     * 后台定期淘汰空闲客户端并关闭已超过延迟的客户端
+     */
+    private void sweepQuietly() {
+        try {
+            evict(System.nanoTime());
+            closeRetired();
+        } catch (RuntimeException e) {
+            logger.warn("Merchant client sweep failed", e);
+        }
+    }
+
+    /**
+     * 关闭淘汰时间已超过延迟的客户端，淘汰前取得客户端的请求此时已经结束
+     */
+    private void closeRetired() {
+        long now = System.nanoTime();
+        Retired next;
+        while ((next = retired.peek()) != null && now - next.retiredAt >= closeDelayNanos) {
+            if (retired.remove(next)) {
+                close(next);
+            }
+        }
+    }
+
+    private static void close(Retired retired) {
+        try {
+            ((AutoCloseable) retired.client).close();
+        } catch (Exception e) {
+            logger.warn("Failed to close {} client of merchant {}", retired.type, retired.merchantId, e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object client;
+        private volatile long lastAccess;
+
+        private Entry(Object client, long lastAccess) {
+            this.client = client;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static final class Retired {
+
+        private final PaymentType type;
+        private final String merchantId;
+        private final Object client;
+        private final long retiredAt;
+
+        private Retired(PaymentType type, String merchantId, Object client, long retiredAt) {
+            this.type = type;
+            this.merchantId = merchantId;
+            this.client = client;
+            this.retiredAt = retiredAt;
+        }
+    }
+
+    private static final class Candidate {
+
+        private final PaymentType type;
+        private final String merchantId;
+        private final Entry entry;
+
+        private Candidate(PaymentType type, String merchantId, Entry entry) {
+            this.type = type;
+            this.merchantId = merchantId;
+            this.entry = entry;
+        }
+    }
+}
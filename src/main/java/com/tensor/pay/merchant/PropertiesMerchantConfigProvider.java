@@ -0,0 +1,50 @@
+package com.tensor.pay.merchant;
+
+import com.tensor.pay.config.AlipayProperties;
+import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.config.MerchantProperties;
+import com.tensor.pay.config.WechatPayProperties;
+
+import java.util.function.Supplier;
+
+/**
+ * 从配置文件 tensor.pay.merchant.merchants 读取子商户配置
+ *
+ * 每次查询都从最新发布的配置快照读取，配置热更新后无需重建。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PropertiesMerchantConfigProvider implements MerchantConfigProvider {
+
+    private final Supplier<MerchantProperties> properties;
+
+    public PropertiesMerchantConfigProvider(MerchantProperties properties) {
+        this(() -> properties);
+    }
+
+    /**
+     * @param properties 最新的子商户配置
+     */
+    public PropertiesMerchantConfigProvider(Supplier<MerchantProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public WechatPayProperties getWechatConfig(String merchantId) {
+        MerchantProperties.Merchant merchant = properties.get().getMerchants().get(merchantId);
+        return merchant == null ? null : merchant.getWechat();
+    }
+
+    @Override
+    public AlipayProperties getAlipayConfig(String merchantId) {
+        MerchantProperties.Merchant merchant = properties.get().getMerchants().get(merchantId);
+        return merchant == null ? null : merchant.getAlipay();
+    }
+
+    @Override
+    public BankPayProperties getBankConfig(String merchantId) {
+        MerchantProperties.Merchant merchant = properties.get().getMerchants().get(merchantId);
+        return merchant == null ? null : merchant.getBank();
+    }
+}
@@ -0,0 +1,372 @@
+package com.tensor.pay.model;
+
+import com.tensor.pay.exception.PaymentException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 金额
+ *
+ * 以币种最小单位（人民币为分）的long值保存，比较、累加都不需要分配对象；
+ * 与元为单位的 {@link BigDecimal} 或字符串之间的转换都是精确的，
+ * 超出币种精度的小数会被拒绝而不是截断。
+ * 热点路径可以直接使用 {@link #toMinor}、{@link #parseMinor}、{@link #format} 等静态方法处理原始long值。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class Money implements Comparable<Money> {
+
+    /**
+     * 人民币
+     */
+    public static final Currency CNY = Currency.getInstance("CNY");
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+
+    /**
+     * 解析金额字符串时整数和小数合计的最大位数，18位十进制数不会溢出long
+     */
+    private static final int MAX_PARSED_DIGITS = 18;
+
+    /**
+     * 可用币种，按代码索引，校验请求时不需要通过异常判断代码是否有效
+     */
+    private static final Map<String, Currency> CURRENCIES = new HashMap<>();
+
+    static {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            CURRENCIES.put(currency.getCurrencyCode(), currency);
+        }
+    }
+
+    private final long minor;
+    private final Currency currency;
+
+    private Money(long minor, Currency currency) {
+        this.minor = minor;
+        this.currency = currency;
+    }
+
+    /**
+     * 按最小单位创建金额
+     *
+     * @param minor 金额（最小单位）
+     * @param currency 币种
+     * @return 金额
+     */
+    public static Money ofMinor(long minor, Currency currency) {
+        return new Money(minor, currency);
+    }
+
+    /**
+     * 按元为单位的金额创建
+     *
+     * @param amount 金额（单位：元）
+     * @param currency 币种
+     * @return 金额
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(toMinor(amount, digits(currency)), currency);
+    }
+
+    /**
+     * 解析元为单位的金额字符串
+     *
+     * @param amount 金额字符串，如 "12.30"
+     * @param currency 币种
+     * @return 金额
+     */
+    public static Money parse(CharSequence amount, Currency currency) {
+        return new Money(parseMinor(amount, digits(currency)), currency);
+    }
+
+    /**
+     * 获取币种，代码无效时抛出 INVALID_CURRENCY
+     *
+     * @param currencyCode ISO 4217币种代码，为空时使用人民币
+     * @return 币种
+     */
+    public static Currency currency(String currencyCode) {
+        Currency currency = findCurrency(currencyCode);
+        if (currency == null) {
+            throw PaymentException.businessError("INVALID_CURRENCY", "不支持的币种: " + currencyCode);
+        }
+        return currency;
+    }
+
+    /**
+     * 查找币种，代码无效时返回null
+     *
+     * @param currencyCode ISO 4217币种代码，为空时使用人民币
+     * @return 币种，代码无效时为null
+     */
+    public static Currency findCurrency(String currencyCode) {
+        if (currencyCode == null || currencyCode.isEmpty() || "CNY".equals(currencyCode)) {
+            return CNY;
+        }
+        return CURRENCIES.get(currencyCode);
+    }
+
+    /**
+     * 币种是否有可用的小数位数，不支持时 {@link #digits(Currency)} 会抛出 INVALID_CURRENCY
+     */
+    public static boolean isSupported(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        return digits >= 0 && digits < POWERS_OF_TEN.length;
+    }
+
+    /**
+     * 币种的小数位数
+     */
+    public static int digits(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        if (!isSupported(currency)) {
+            throw PaymentException.businessError("INVALID_CURRENCY", "不支持的币种: " + currency.getCurrencyCode());
+        }
+        return digits;
+    }
+
+    /**
+     * 元为单位的金额能否精确转换为最小单位，不抛出异常，供请求校验使用
+     *
+     * @param amount 金额（单位：元）
+     * @param digits 小数位数
+     * @return 与 {@link #toMinor(BigDecimal, int)} 不抛出异常的情况一致
+     */
+    public static boolean isExact(BigDecimal amount, int digits) {
+        if (amount.signum() == 0) {
+            return true;
+        }
+        // 整数部分超过19位必然溢出long，先行拒绝，避免对1e2000000这类指数很大的金额做移位和去零
+        if (amount.precision() - amount.scale() > 19) {
+            return false;
+        }
+        BigDecimal minor = amount.movePointRight(digits);
+        return minor.stripTrailingZeros().scale() <= 0 && minor.toBigInteger().bitLength() < Long.SIZE;
+    }
+
+    /**
+     * 元为单位的金额精确转换为最小单位，超出精度或溢出时抛出 INVALID_AMOUNT
+     *
+     * @param amount 金额（单位：元）
+     * @param digits 小数位数
+     * @return 金额（最小单位）
+     */
+    public static long toMinor(BigDecimal amount, int digits) {
+        try {
+            return amount.movePointRight(digits).longValueExact();
+        } catch (ArithmeticException e) {
+            throw PaymentException.businessError("INVALID_AMOUNT", "金额精度超出范围: " + amount.toPlainString());
+        }
+    }
+
+    /**
+     * 精确解析元为单位的金额字符串，不创建中间对象
+     *
+     * @param amount 金额字符串，允许负号，小数位数超出精度时多出的部分必须为0，
+     *               整数部分最多 18 - digits 位，解析结果不会溢出
+     * @param digits 小数位数
+     * @return 金额（最小单位）
+     */
+    public static long parseMinor(CharSequence amount, int digits) {
+        int length = amount == null ? 0 : amount.length();
+        int i = length > 0 && amount.charAt(0) == '-' ? 1 : 0;
+        boolean negative = i == 1;
+        if (i == length) {
+            throw invalid(amount);
+        }
+
+        long value = 0;
+        int integerDigits = 0;
+        for (; i < length && amount.charAt(i) != '.'; i++) {
+            int d = amount.charAt(i) - '0';
+            if (d < 0 || d > 9 || ++integerDigits > MAX_PARSED_DIGITS - digits) {
+                throw invalid(amount);
+            }
+            value = value * 10 + d;
+        }
+        int scale = 0;
+        if (i < length) {
+            if (i + 1 == length) {
+                throw invalid(amount);
+            }
+            for (i++; i < length; i++) {
+                int d = amount.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    throw invalid(amount);
+                }
+                if (scale < digits) {
+                    value = value * 10 + d;
+                    scale++;
+                } else if (d != 0) {
+                    throw invalid(amount);
+                }
+            }
+        }
+        value *= POWERS_OF_TEN[digits - scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * 精确解析原始报文中按ASCII编码的金额片段，规则与 {@link #parseMinor(CharSequence, int)} 相同
+     *
+     * @param buffer 缓冲区
+     * @param offset 起始位置
+     * @param length 长度
+     * @param digits 小数位数
+     * @return 金额（最小单位）
+     */
+    public static long parseMinor(byte[] buffer, int offset, int length, int digits) {
+        int end = offset + length;
+        int i = length > 0 && buffer[offset] == '-' ? offset + 1 : offset;
+        boolean negative = i > offset;
+        if (i == end) {
+            throw invalid(buffer, offset, length);
+        }
+
+        long value = 0;
+        int integerDigits = 0;
+        for (; i < end && buffer[i] != '.'; i++) {
+            int d = buffer[i] - '0';
+            if (d < 0 || d > 9 || ++integerDigits > MAX_PARSED_DIGITS - digits) {
+                throw invalid(buffer, offset, length);
+            }
+            value = value * 10 + d;
+        }
+        int scale = 0;
+        if (i < end) {
+            if (i + 1 == end) {
+                throw invalid(buffer, offset, length);
+            }
+            for (i++; i < end; i++) {
+                int d = buffer[i] - '0';
+                if (d < 0 || d > 9) {
+                    throw invalid(buffer, offset, length);
+                }
+                if (scale < digits) {
+                    value = value * 10 + d;
+                    scale++;
+                } else if (d != 0) {
+                    throw invalid(buffer, offset, length);
+                }
+            }
+        }
+        value *= POWERS_OF_TEN[digits - scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * 最小单位的金额格式化为元为单位的字符串，如 1230 格式化为 "12.30"
+     *
+     * @param minor 金额（最小单位）
+     * @param digits 小数位数
+     * @return 金额字符串
+     */
+    public static String format(long minor, int digits) {
+        if (digits == 0) {
+            return Long.toString(minor);
+        }
+        long unit = POWERS_OF_TEN[digits];
+        long integer = Math.abs(minor / unit);
+        long fraction = Math.abs(minor % unit);
+        StringBuilder sb = new StringBuilder(24);
+        if (minor < 0) {
+            sb.append('-');
+        }
+        sb.append(integer).append('.');
+        for (long p = unit / 10; p > fraction && p > 1; p /= 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+
+    private static PaymentException invalid(CharSequence amount) {
+        return PaymentException.businessError("INVALID_AMOUNT", "金额格式不正确: " + amount);
+    }
+
+    private static PaymentException invalid(byte[] buffer, int offset, int length) {
+        return invalid(new String(buffer, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 相加，币种必须一致
+     */
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(minor, other.minor), currency);
+    }
+
+    /**
+     * 相减，币种必须一致
+     */
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(minor, other.minor), currency);
+    }
+
+    public boolean isPositive() {
+        return minor > 0;
+    }
+
+    /**
+     * 转换为元为单位的金额
+     */
+    public BigDecimal toDecimal() {
+        return BigDecimal.valueOf(minor, digits(currency));
+    }
+
+    /**
+     * 元为单位的字符串，固定保留币种精度的小数位，如 "0.01"
+     */
+    public String toPlainString() {
+        return format(minor, digits(currency));
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new PaymentException("CURRENCY_MISMATCH",
+                "币种不一致: " + currency.getCurrencyCode() + ", " + other.currency.getCurrencyCode());
+        }
+    }
+
+    // Getters
+    public long getMinor() {
+        return minor;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money other)) {
+            return false;
+        }
+        return minor == other.minor && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor) * 31 + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency.getCurrencyCode();
+    }
+}
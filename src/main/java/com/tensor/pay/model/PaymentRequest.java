@@ -1,11 +1,14 @@
 package com.tensor.pay.model;
 
 import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.utils.Deadline;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -36,6 +39,11 @@ public class PaymentRequest {
     @Positive(message = "支付金额必须大于0")
     private BigDecimal amount;
     
+    /**
+     * 币种（ISO 4217），默认人民币
+     */
+    private String currency = "CNY";
+    
     /**
      * 商品描述
      */
@@ -72,6 +80,17 @@ public class PaymentRequest {
      */
     private String clientIp;
     
+    /**
+     * 子商户号，为空时使用配置文件中的默认商户
+     */
+    private String merchantId;
+    
+    /**
+     * 请求超时时间（毫秒），为空时不限时；超时后不再向网关发起调用
+     */
+    @Positive(message = "超时时间必须大于0")
+    private Long timeoutMillis;
+    
     /**
      * 扩展参数
      */
@@ -112,6 +131,26 @@ public class PaymentRequest {
         this.amount = amount;
     }
     
+    public String getCurrency() {
+        return currency;
+    }
+    
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+    
+    /**
+     * 精确转换为以最小单位表示的金额，超出币种精度时抛出 INVALID_AMOUNT
+     *
+     * @return 金额
+     */
+    public Money toMoney() {
+        if (amount == null) {
+            throw PaymentException.businessError("INVALID_AMOUNT", "支付金额不能为空");
+        }
+        return Money.of(amount, Money.currency(currency));
+    }
+    
     public String getSubject() {
         return subject;
     }
@@ -168,6 +207,44 @@ public class PaymentRequest {
         this.clientIp = clientIp;
     }
     
+    public String getMerchantId() {
+        return merchantId;
+    }
+    
+    public void setMerchantId(String merchantId) {
+        this.merchantId = merchantId;
+    }
+    
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    /**
+     * 请求的截止时间，从调用本方法时开始计时
+     * 
+     * @return 截止时间，未设置超时时间时返回null
+     */
+    public Deadline deadline() {
+        return timeoutMillis == null ? null : Deadline.after(Duration.ofMillis(timeoutMillis));
+    }
+    
+    /**
+     * 请求所属的子商户号，依次取 merchantId 字段和扩展参数中的 merchantId
+     * 
+     * @return 子商户号，都为空时返回null
+     */
+    public String resolveMerchantId() {
+        if (merchantId != null && !merchantId.isEmpty()) {
+            return merchantId;
+        }
+        Object value = extraParams == null ? null : extraParams.get("merchantId");
+        return value == null || value.toString().isEmpty() ? null : value.toString();
+    }
+    
     public Map<String, Object> getExtraParams() {
         return extraParams;
     }
@@ -182,6 +259,7 @@ public class PaymentRequest {
                 "outTradeNo='" + outTradeNo + '\'' +
                 ", paymentType=" + paymentType +
                 ", amount=" + amount +
+                ", currency='" + currency + '\'' +
                 ", subject='" + subject + '\'' +
                 ", body='" + body + '\'' +
                 ", expireTime=" + expireTime +
@@ -189,6 +267,8 @@ public class PaymentRequest {
                 ", returnUrl='" + returnUrl + '\'' +
                 ", userId='" + userId + '\'' +
                 ", clientIp='" + clientIp + '\'' +
+                ", merchantId='" + merchantId + '\'' +
+                ", timeoutMillis=" + timeoutMillis +
                 ", extraParams=" + extraParams +
                 '}';
     }
@@ -1,20 +1,83 @@
 package com.tensor.pay.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.tensor.pay.enums.PaymentStatus;
 import com.tensor.pay.enums.PaymentType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 统一支付响应模型
  * 
+ * 通过 {@link #builder()} 创建的响应不可修改，调用任何setter都会抛出 {@link UnsupportedOperationException}，
+ * 扩展数据也只能读取，需要修改时用 {@link #toBuilder()} 复制一份。
+ * 冻结的响应字段不是final的，跨线程共享时必须安全发布（经由volatile字段、并发容器或final字段传递），
+ * 与其他普通对象相同。
+ * 常见失败（不支持的支付类型、金额不合法、限流等）使用 {@link #sharedFailure(String, String)} 返回的共享实例，
+ * 这些实例的状态全部保存在final字段中，任何线程取得引用后都能看到完整的状态，
+ * 相同错误码和错误信息不再重复创建响应对象。
+ * 
  * @author Tensor Pay
  * @since 1.0.0
  */
 public class PaymentResponse {
     
+    /**
+     * 金额未知
+     */
+    public static final long NO_AMOUNT = Long.MIN_VALUE;
+    
+    /**
+     * 共享失败响应的错误码数量上限，超出后不再缓存新的错误码
+     */
+    private static final int MAX_SHARED_CODES = 256;
+    
+    /**
+     * 每个错误码缓存的错误信息数量上限，错误信息中带订单号等可变内容时不会无限增长
+     */
+    private static final int MAX_SHARED_MESSAGES = 64;
+    
+    /**
+     * 共享失败响应，按错误码、错误信息两级索引，查找时不拼接键
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, PaymentResponse>> SHARED_FAILURES =
+        new ConcurrentHashMap<>();
+    
+    private static final Map<PaymentType, PaymentResponse> UNSUPPORTED_PAYMENT_TYPES = new EnumMap<>(PaymentType.class);
+    
+    static {
+        for (PaymentType type : PaymentType.values()) {
+            UNSUPPORTED_PAYMENT_TYPES.put(type, sharedFailure("UNSUPPORTED_PAYMENT_TYPE", "不支持的支付类型: " + type));
+        }
+    }
+    
+    /**
+     * 请求为空
+     */
+    public static final PaymentResponse INVALID_REQUEST = sharedFailure("INVALID_REQUEST", "支付请求不能为空");
+    
+    /**
+     * 支付金额不大于0
+     */
+    public static final PaymentResponse INVALID_AMOUNT = sharedFailure("INVALID_AMOUNT", "支付金额必须大于0");
+    
+    /**
+     * 超出渠道调用频率限制
+     */
+    public static final PaymentResponse RATE_LIMITED = sharedFailure("RATE_LIMITED", "超出渠道调用频率限制");
+    
+    /**
+     * 请求已超过截止时间
+     */
+    public static final PaymentResponse DEADLINE_EXCEEDED = sharedFailure("DEADLINE_EXCEEDED", "请求已超过截止时间");
+    
     /**
      * 是否成功
      */
@@ -51,14 +114,19 @@ public class PaymentResponse {
     private PaymentStatus status;
     
     /**
-     * 支付金额
+     * 支付金额（最小单位），{@link #NO_AMOUNT} 表示未知
      */
-    private BigDecimal amount;
+    private long amountMinor = NO_AMOUNT;
     
     /**
-     * 实际支付金额
+     * 实际支付金额（最小单位），{@link #NO_AMOUNT} 表示未知
      */
-    private BigDecimal paidAmount;
+    private long paidAmountMinor = NO_AMOUNT;
+    
+    /**
+     * 币种（ISO 4217）
+     */
+    private String currency = "CNY";
     
     /**
      * 支付时间
@@ -80,9 +148,43 @@ public class PaymentResponse {
      */
     private Map<String, Object> extraData;
     
+    /**
+     * 是否已冻结为不可变
+     */
+    private boolean immutable;
+    
     // Constructors
     public PaymentResponse() {}
     
+    private PaymentResponse(PaymentResponse source) {
+        this.success = source.isSuccess();
+        this.errorCode = source.getErrorCode();
+        this.errorMessage = source.getErrorMessage();
+        this.outTradeNo = source.getOutTradeNo();
+        this.tradeNo = source.getTradeNo();
+        this.paymentType = source.getPaymentType();
+        this.status = source.getStatus();
+        this.amountMinor = source.getAmountMinor();
+        this.paidAmountMinor = source.getPaidAmountMinor();
+        this.currency = source.getCurrency();
+        this.payTime = source.getPayTime();
+        this.payUrl = source.getPayUrl();
+        this.payParams = source.getPayParams();
+        Map<String, Object> sourceExtraData = source.getExtraData();
+        this.extraData = sourceExtraData == null ? null : new LinkedHashMap<>(sourceExtraData);
+    }
+    
+    public static Builder builder() {
+        return new Builder(new PaymentResponse());
+    }
+    
+    /**
+     * 复制当前响应的全部字段，生成新的构建器，不影响当前响应
+     */
+    public Builder toBuilder() {
+        return new Builder(new PaymentResponse(this));
+    }
+    
     public static PaymentResponse success() {
         PaymentResponse response = new PaymentResponse();
         response.setSuccess(true);
@@ -97,12 +199,85 @@ public class PaymentResponse {
         return response;
     }
     
+    /**
+     * 获取共享的不可变失败响应
+     * 
+     * 相同错误码和错误信息返回同一实例；缓存数量达到上限或参数为null时返回新建的不可变实例。
+     * 返回的实例只有final字段，不依赖安全发布即可在线程间共享。
+     * 只用于错误信息固定的失败，带订单号、商户号、金额等可变内容的错误信息使用 {@link #failure(String, String)}。
+     * 
+     * @param errorCode 错误码
+     * @param errorMessage 错误信息
+     * @return 不可变的失败响应
+     */
+    public static PaymentResponse sharedFailure(String errorCode, String errorMessage) {
+        if (errorCode == null || errorMessage == null) {
+            return newFailure(errorCode, errorMessage);
+        }
+        ConcurrentMap<String, PaymentResponse> byMessage = SHARED_FAILURES.get(errorCode);
+        if (byMessage == null) {
+            if (SHARED_FAILURES.size() >= MAX_SHARED_CODES) {
+                return newFailure(errorCode, errorMessage);
+            }
+            byMessage = SHARED_FAILURES.computeIfAbsent(errorCode, code -> new ConcurrentHashMap<>());
+        }
+        PaymentResponse shared = byMessage.get(errorMessage);
+        if (shared != null) {
+            return shared;
+        }
+        PaymentResponse created = newFailure(errorCode, errorMessage);
+        if (byMessage.size() >= MAX_SHARED_MESSAGES) {
+            return created;
+        }
+        shared = byMessage.putIfAbsent(errorMessage, created);
+        return shared == null ? created : shared;
+    }
+    
+    /**
+     * 不支持的支付类型对应的共享失败响应
+     */
+    public static PaymentResponse unsupportedPaymentType(PaymentType paymentType) {
+        return paymentType == null
+            ? sharedFailure("UNSUPPORTED_PAYMENT_TYPE", "不支持的支付类型: null")
+            : UNSUPPORTED_PAYMENT_TYPES.get(paymentType);
+    }
+    
+    private static PaymentResponse newFailure(String errorCode, String errorMessage) {
+        return new SharedFailure(errorCode, errorMessage);
+    }
+    
+    /**
+     * 是否为渠道确认的结果：调用成功且没有错误码
+     * 
+     * 部分渠道把查询失败（如订单不存在、系统繁忙）映射为 success=true 并带上错误码，
+     * 这类响应中的状态不可信，不能作为订单状态发布，也不能结束补偿查询。
+     */
+    @JsonIgnore
+    public boolean isAuthoritative() {
+        return isSuccess() && getErrorCode() == null;
+    }
+    
+    /**
+     * 是否不可变，不可变的响应可以在线程间共享
+     */
+    @JsonIgnore
+    public boolean isImmutable() {
+        return immutable;
+    }
+    
+    private void checkMutable() {
+        if (isImmutable()) {
+            throw new UnsupportedOperationException("PaymentResponse is immutable, use toBuilder() to modify a copy");
+        }
+    }
+    
     // Getters and Setters
     public boolean isSuccess() {
         return success;
     }
     
     public void setSuccess(boolean success) {
+        checkMutable();
         this.success = success;
     }
     
@@ -111,6 +286,7 @@ public class PaymentResponse {
     }
     
     public void setErrorCode(String errorCode) {
+        checkMutable();
         this.errorCode = errorCode;
     }
     
@@ -119,6 +295,7 @@ public class PaymentResponse {
     }
     
     public void setErrorMessage(String errorMessage) {
+        checkMutable();
         this.errorMessage = errorMessage;
     }
     
@@ -127,6 +304,7 @@ public class PaymentResponse {
     }
     
     public void setOutTradeNo(String outTradeNo) {
+        checkMutable();
         this.outTradeNo = outTradeNo;
     }
     
@@ -135,6 +313,7 @@ public class PaymentResponse {
     }
     
     public void setTradeNo(String tradeNo) {
+        checkMutable();
         this.tradeNo = tradeNo;
     }
     
@@ -143,6 +322,7 @@ public class PaymentResponse {
     }
     
     public void setPaymentType(PaymentType paymentType) {
+        checkMutable();
         this.paymentType = paymentType;
     }
     
@@ -151,23 +331,89 @@ public class PaymentResponse {
     }
     
     public void setStatus(PaymentStatus status) {
+        checkMutable();
         this.status = status;
     }
     
+    /**
+     * 支付金额（单位：元），仅用于对外展示和序列化，内部比较和累加请使用 {@link #getAmountMinor()}
+     */
     public BigDecimal getAmount() {
-        return amount;
+        return toDecimal(amountMinor);
     }
     
     public void setAmount(BigDecimal amount) {
-        this.amount = amount;
+        checkMutable();
+        this.amountMinor = toMinor(amount);
     }
     
+    /**
+     * 实际支付金额（单位：元）
+     */
     public BigDecimal getPaidAmount() {
-        return paidAmount;
+        return toDecimal(paidAmountMinor);
     }
     
     public void setPaidAmount(BigDecimal paidAmount) {
-        this.paidAmount = paidAmount;
+        checkMutable();
+        this.paidAmountMinor = toMinor(paidAmount);
+    }
+    
+    @JsonIgnore
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+    
+    public void setAmountMinor(long amountMinor) {
+        checkMutable();
+        this.amountMinor = amountMinor;
+    }
+    
+    @JsonIgnore
+    public long getPaidAmountMinor() {
+        return paidAmountMinor;
+    }
+    
+    public void setPaidAmountMinor(long paidAmountMinor) {
+        checkMutable();
+        this.paidAmountMinor = paidAmountMinor;
+    }
+    
+    public String getCurrency() {
+        return currency;
+    }
+    
+    /**
+     * 设置币种，已设置的金额按新币种的精度换算
+     */
+    public void setCurrency(String currency) {
+        checkMutable();
+        int from = Money.digits(Money.currency(this.currency));
+        int to = Money.digits(Money.currency(currency));
+        if (from != to) {
+            BigDecimal amount = getAmount();
+            BigDecimal paidAmount = getPaidAmount();
+            this.currency = currency;
+            setAmount(amount);
+            setPaidAmount(paidAmount);
+        } else {
+            this.currency = currency;
+        }
+    }
+    
+    /**
+     * 以最小单位表示的支付金额，金额未知时返回null
+     */
+    public Money toMoney() {
+        return amountMinor == NO_AMOUNT ? null : Money.ofMinor(amountMinor, Money.currency(currency));
+    }
+    
+    private BigDecimal toDecimal(long minor) {
+        return minor == NO_AMOUNT ? null : BigDecimal.valueOf(minor, Money.digits(Money.currency(currency)));
+    }
+    
+    private long toMinor(BigDecimal amount) {
+        return amount == null ? NO_AMOUNT : Money.toMinor(amount, Money.digits(Money.currency(currency)));
     }
     
     public LocalDateTime getPayTime() {
@@ -175,6 +421,7 @@ public class PaymentResponse {
     }
     
     public void setPayTime(LocalDateTime payTime) {
+        checkMutable();
         this.payTime = payTime;
     }
     
@@ -183,6 +430,7 @@ public class PaymentResponse {
     }
     
     public void setPayUrl(String payUrl) {
+        checkMutable();
         this.payUrl = payUrl;
     }
     
@@ -191,6 +439,7 @@ public class PaymentResponse {
     }
     
     public void setPayParams(String payParams) {
+        checkMutable();
         this.payParams = payParams;
     }
     
@@ -199,9 +448,21 @@ public class PaymentResponse {
     }
     
     public void setExtraData(Map<String, Object> extraData) {
+        checkMutable();
         this.extraData = extraData;
     }
     
+    /**
+     * 添加一项扩展数据，第一次添加时才创建扩展数据表
+     */
+    public void putExtraData(String key, Object value) {
+        checkMutable();
+        if (extraData == null) {
+            extraData = new LinkedHashMap<>();
+        }
+        extraData.put(key, value);
+    }
+    
     @Override
     public String toString() {
         return "PaymentResponse{" +
@@ -212,12 +473,214 @@ public class PaymentResponse {
                 ", tradeNo='" + tradeNo + '\'' +
                 ", paymentType=" + paymentType +
                 ", status=" + status +
-                ", amount=" + amount +
-                ", paidAmount=" + paidAmount +
+                ", amount=" + getAmount() +
+                ", paidAmount=" + getPaidAmount() +
+                ", currency='" + currency + '\'' +
                 ", payTime=" + payTime +
                 ", payUrl='" + payUrl + '\'' +
                 ", payParams='" + payParams + '\'' +
                 ", extraData=" + extraData +
                 '}';
     }
+    
+    /**
+     * 共享的失败响应
+     * 
+     * 全部状态保存在final字段中并覆盖对应的读取方法，其余字段保持默认值，
+     * 经由数据竞争取得引用的线程也能看到完整的状态，setter一律抛出 {@link UnsupportedOperationException}。
+     */
+    private static final class SharedFailure extends PaymentResponse {
+        
+        private final String sharedErrorCode;
+        private final String sharedErrorMessage;
+        
+        private SharedFailure(String errorCode, String errorMessage) {
+            this.sharedErrorCode = errorCode;
+            this.sharedErrorMessage = errorMessage;
+        }
+        
+        @Override
+        public boolean isImmutable() {
+            return true;
+        }
+        
+        @Override
+        public boolean isSuccess() {
+            return false;
+        }
+        
+        @Override
+        public String getErrorCode() {
+            return sharedErrorCode;
+        }
+        
+        @Override
+        public String getErrorMessage() {
+            return sharedErrorMessage;
+        }
+        
+        @Override
+        public BigDecimal getAmount() {
+            return null;
+        }
+        
+        @Override
+        public BigDecimal getPaidAmount() {
+            return null;
+        }
+        
+        @Override
+        public long getAmountMinor() {
+            return NO_AMOUNT;
+        }
+        
+        @Override
+        public long getPaidAmountMinor() {
+            return NO_AMOUNT;
+        }
+        
+        @Override
+        public String getCurrency() {
+            return "CNY";
+        }
+        
+        @Override
+        public Money toMoney() {
+            return null;
+        }
+        
+        @Override
+        public Map<String, Object> getExtraData() {
+            return null;
+        }
+        
+        @Override
+        public String toString() {
+            return "PaymentResponse{success=false, errorCode='" + sharedErrorCode + "', errorMessage='"
+                + sharedErrorMessage + "'}";
+        }
+    }
+    
+    /**
+     * 不可变响应的构建器，只能调用一次 {@link #build()}
+     */
+    public static final class Builder {
+        
+        private PaymentResponse response;
+        
+        private Builder(PaymentResponse response) {
+            this.response = response;
+        }
+        
+        public Builder success(boolean success) {
+            target().setSuccess(success);
+            return this;
+        }
+        
+        public Builder errorCode(String errorCode) {
+            target().setErrorCode(errorCode);
+            return this;
+        }
+        
+        public Builder errorMessage(String errorMessage) {
+            target().setErrorMessage(errorMessage);
+            return this;
+        }
+        
+        public Builder outTradeNo(String outTradeNo) {
+            target().setOutTradeNo(outTradeNo);
+            return this;
+        }
+        
+        public Builder tradeNo(String tradeNo) {
+            target().setTradeNo(tradeNo);
+            return this;
+        }
+        
+        public Builder paymentType(PaymentType paymentType) {
+            target().setPaymentType(paymentType);
+            return this;
+        }
+        
+        public Builder status(PaymentStatus status) {
+            target().setStatus(status);
+            return this;
+        }
+        
+        public Builder amount(BigDecimal amount) {
+            target().setAmount(amount);
+            return this;
+        }
+        
+        public Builder paidAmount(BigDecimal paidAmount) {
+            target().setPaidAmount(paidAmount);
+            return this;
+        }
+        
+        public Builder amountMinor(long amountMinor) {
+            target().setAmountMinor(amountMinor);
+            return this;
+        }
+        
+        public Builder paidAmountMinor(long paidAmountMinor) {
+            target().setPaidAmountMinor(paidAmountMinor);
+            return this;
+        }
+        
+        /**
+         * 设置币种，已设置的金额按新币种的精度换算，与 {@link PaymentResponse#setCurrency(String)} 一致
+         */
+        public Builder currency(String currency) {
+            target().setCurrency(currency);
+            return this;
+        }
+        
+        public Builder payTime(LocalDateTime payTime) {
+            target().setPayTime(payTime);
+            return this;
+        }
+        
+        public Builder payUrl(String payUrl) {
+            target().setPayUrl(payUrl);
+            return this;
+        }
+        
+        public Builder payParams(String payParams) {
+            target().setPayParams(payParams);
+            return this;
+        }
+        
+        public Builder extra(String key, Object value) {
+            target().putExtraData(key, value);
+            return this;
+        }
+        
+        /**
+         * 设置扩展数据，复制传入的表，之后对原表的修改不影响构建结果
+         */
+        public Builder extraData(Map<String, Object> extraData) {
+            target().setExtraData(extraData == null ? null : new LinkedHashMap<>(extraData));
+            return this;
+        }
+        
+        /**
+         * 冻结并返回响应，构建器随后失效
+         */
+        public PaymentResponse build() {
+            PaymentResponse built = target();
+            response = null;
+            if (built.extraData != null) {
+                built.extraData = Collections.unmodifiableMap(built.extraData);
+            }
+            built.immutable = true;
+            return built;
+        }
+        
+        private PaymentResponse target() {
+            if (response == null) {
+                throw new IllegalStateException("Builder has already been used");
+            }
+            return response;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.tensor.pay.order;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内订单记录存储，进程退出后丢失，用于测试或没有数据库的场景
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+
+    private final ConcurrentHashMap<String, OrderRecord> records = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(OrderRecord record) {
+        records.merge(record.getOutTradeNo(), record, OrderRecord::merge);
+    }
+
+    @Override
+    public OrderRecord findByOutTradeNo(String outTradeNo) {
+        return records.get(outTradeNo);
+    }
+
+    /**
+     * 保存的订单数量
+     */
+    public int size() {
+        return records.size();
+    }
+}
@@ -0,0 +1,238 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.PaymentResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 基于JDBC的订单记录存储
+ *
+ * 一批记录在一个事务中先按订单号批量更新，未命中的再批量插入；更新时只覆盖已知字段，
+ * 已完结的状态不会被待支付、支付中覆盖。其他节点并发插入同一订单导致主键冲突时，整批重试一次。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class JdbcOrderRepository implements OrderRepository {
+
+    /**
+     * 默认表名
+     */
+    public static final String DEFAULT_TABLE = "tensor_pay_order";
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+
+    private static final String COLUMNS = "out_trade_no, trade_no, payment_type, merchant_id, status, "
+        + "amount_minor, paid_amount_minor, currency, created_at, updated_at";
+
+    private static final String NON_FINAL_STATUSES =
+        "'" + PaymentStatus.PENDING.name() + "', '" + PaymentStatus.PROCESSING.name() + "'";
+
+    private final DataSource dataSource;
+    private final String table;
+    private final String updateSql;
+    private final String insertSql;
+    private final String selectSql;
+
+    public JdbcOrderRepository(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE);
+    }
+
+    /**
+     * @param dataSource 数据源
+     * @param table 表名，可以带schema前缀
+     */
+    public JdbcOrderRepository(DataSource dataSource, String table) {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid order table name: " + table);
+        }
+        this.dataSource = dataSource;
+        this.table = table;
+        this.updateSql = "UPDATE " + table + " SET "
+            + "trade_no = COALESCE(?, trade_no), "
+            + "payment_type = COALESCE(?, payment_type), "
+            + "merchant_id = COALESCE(?, merchant_id), "
+            // 与 OrderRecord.merge 一致：完结状态只允许转为退款状态，不会被中间状态或其他完结状态覆盖
+            + "status = CASE WHEN ? IS NULL THEN status "
+            + "WHEN status IS NULL OR status IN (" + NON_FINAL_STATUSES + ") THEN ? "
+            + "WHEN status = '" + PaymentStatus.SUCCESS.name() + "' AND ? IN ('"
+            + PaymentStatus.PARTIAL_REFUNDED.name() + "', '" + PaymentStatus.REFUNDED.name() + "') THEN ? "
+            + "WHEN status = '" + PaymentStatus.PARTIAL_REFUNDED.name() + "' AND ? = '"
+            + PaymentStatus.REFUNDED.name() + "' THEN ? "
+            + "ELSE status END, "
+            + "amount_minor = COALESCE(?, amount_minor), "
+            + "paid_amount_minor = COALESCE(?, paid_amount_minor), "
+            + "currency = COALESCE(?, currency), "
+            + "created_at = COALESCE(created_at, ?), "
+            + "updated_at = ? "
+            + "WHERE out_trade_no = ?";
+        this.insertSql = "INSERT INTO " + table + " (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        this.selectSql = "SELECT " + COLUMNS + " FROM " + table + " WHERE out_trade_no = ?";
+    }
+
+    /**
+     * 建表，DDL适用于H2和MySQL，其他数据库请参照字段手工建表
+     */
+    public void createTableIfNotExists() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "out_trade_no VARCHAR(64) PRIMARY KEY, "
+                + "trade_no VARCHAR(64), "
+                + "payment_type VARCHAR(16), "
+                + "merchant_id VARCHAR(64), "
+                + "status VARCHAR(32), "
+                + "amount_minor BIGINT, "
+                + "paid_amount_minor BIGINT, "
+                + "currency VARCHAR(3), "
+                + "created_at BIGINT, "
+                + "updated_at BIGINT NOT NULL)");
+        } catch (SQLException e) {
+            throw new PaymentException("ORDER_REPOSITORY_ERROR", "创建订单表失败: " + table, e);
+        }
+    }
+
+    @Override
+    public void save(OrderRecord record) {
+        saveAll(List.of(record));
+    }
+
+    @Override
+    public void saveAll(Collection<OrderRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<OrderRecord> batch = records instanceof List ? (List<OrderRecord>) records : new ArrayList<>(records);
+        try {
+            upsert(batch);
+        } catch (SQLException first) {
+            if (first.getSQLState() == null || !first.getSQLState().startsWith("23")) {
+                throw new PaymentException("ORDER_REPOSITORY_ERROR", "保存订单记录失败", first);
+            }
+            // 其他节点刚插入了同一订单，重试时这些记录会走更新
+            try {
+                upsert(batch);
+            } catch (SQLException e) {
+                e.addSuppressed(first);
+                throw new PaymentException("ORDER_REPOSITORY_ERROR", "保存订单记录失败", e);
+            }
+        }
+    }
+
+    @Override
+    public OrderRecord findByOutTradeNo(String outTradeNo) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(selectSql)) {
+            statement.setString(1, outTradeNo);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                String paymentType = rs.getString(3);
+                String status = rs.getString(5);
+                return new OrderRecord(rs.getString(1), rs.getString(2),
+                    paymentType == null ? null : PaymentType.valueOf(paymentType),
+                    rs.getString(4),
+                    status == null ? null : PaymentStatus.valueOf(status),
+                    getMinor(rs, 6), getMinor(rs, 7), rs.getString(8),
+                    rs.getLong(9), rs.getLong(10));
+            }
+        } catch (SQLException e) {
+            throw new PaymentException("ORDER_REPOSITORY_ERROR", "查询订单记录失败: " + outTradeNo, e);
+        }
+    }
+
+    private void upsert(List<OrderRecord> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int[] updated;
+                try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+                    for (OrderRecord record : batch) {
+                        String status = record.getStatus() == null ? null : record.getStatus().name();
+                        update.setString(1, record.getTradeNo());
+                        update.setString(2, record.getPaymentType() == null ? null : record.getPaymentType().name());
+                        update.setString(3, record.getMerchantId());
+                        for (int i = 4; i <= 9; i++) {
+                            update.setString(i, status);
+                        }
+                        setMinor(update, 10, record.getAmountMinor());
+                        setMinor(update, 11, record.getPaidAmountMinor());
+                        update.setString(12, record.getCurrency());
+                        setTime(update, 13, record.getCreatedAt());
+                        update.setLong(14, record.getUpdatedAt());
+                        update.setString(15, record.getOutTradeNo());
+                        update.addBatch();
+                    }
+                    updated = update.executeBatch();
+                }
+                boolean inserting = false;
+                try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        // 驱动不返回行数（SUCCESS_NO_INFO）时按已更新处理
+                        if (updated[i] != 0) {
+                            continue;
+                        }
+                        OrderRecord record = batch.get(i);
+                        insert.setString(1, record.getOutTradeNo());
+                        insert.setString(2, record.getTradeNo());
+                        insert.setString(3, record.getPaymentType() == null ? null : record.getPaymentType().name());
+                        insert.setString(4, record.getMerchantId());
+                        insert.setString(5, record.getStatus() == null ? null : record.getStatus().name());
+                        setMinor(insert, 6, record.getAmountMinor());
+                        setMinor(insert, 7, record.getPaidAmountMinor());
+                        insert.setString(8, record.getCurrency());
+                        setTime(insert, 9, record.getCreatedAt());
+                        insert.setLong(10, record.getUpdatedAt());
+                        insert.addBatch();
+                        inserting = true;
+                    }
+                    if (inserting) {
+                        insert.executeBatch();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static void setMinor(PreparedStatement statement, int index, long minor) throws SQLException {
+        if (minor == PaymentResponse.NO_AMOUNT) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, minor);
+        }
+    }
+
+    private static void setTime(PreparedStatement statement, int index, long millis) throws SQLException {
+        if (millis == 0) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, millis);
+        }
+    }
+
+    private static long getMinor(ResultSet rs, int index) throws SQLException {
+        long minor = rs.getLong(index);
+        return rs.wasNull() ? PaymentResponse.NO_AMOUNT : minor;
+    }
+}
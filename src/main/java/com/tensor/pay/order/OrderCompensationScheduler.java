@@ -0,0 +1,249 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.cluster.ClusterCoordinator;
+import com.tensor.pay.config.CompensationProperties;
+import com.tensor.pay.config.RateLimitProperties;
+import com.tensor.pay.enums.PaymentOperation;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEventListener;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.ratelimit.PaymentRateLimiter;
+import com.tensor.pay.service.UnifiedPaymentService;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import com.tensor.pay.timer.TimerTask;
+import com.tensor.pay.utils.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 漏单补偿查询调度器
+ *
+ * 订单创建后按查询阶梯（如15秒、1分钟、5分钟、30分钟）在时间轮上调度检查，
+ * 到点仍处于待支付/支付中的订单进入所属渠道的有界队列，队列满时顺延到下一阶梯；按渠道限速后调用
+ * {@link UnifiedPaymentService#queryPayment} 主动查询，查询结果与已验签的回调走同一条事件发布路径。
+ * 查询以下单时的子商户身份执行，子商户的订单用各自的商户配置查询。
+ * 集群部署时非归属节点创建的订单由 {@link OrderExpiryManager} 交给归属节点，本节点不再跟踪其状态，
+ * 到点检查时直接跳过，由归属节点查询；移交未成功的订单仍由本节点查询。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderCompensationScheduler implements PaymentEventListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCompensationScheduler.class);
+
+    private static final long DISPATCH_INTERVAL_MILLIS = 100;
+
+    private final OrderStateStore orderStateStore;
+    private final HierarchicalTimingWheel timingWheel;
+    private final UnifiedPaymentService unifiedPaymentService;
+    private final long[] backoffMillis;
+    private final double jitterRatio;
+    private final PaymentRateLimiter rateLimiter;
+    private final Duration queryTimeout;
+
+    private final Map<PaymentType, Queue<CompensationTask>> queues = new EnumMap<>(PaymentType.class);
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService queryExecutor;
+
+    public OrderCompensationScheduler(OrderStateStore orderStateStore,
+                                      HierarchicalTimingWheel timingWheel,
+                                      UnifiedPaymentService unifiedPaymentService,
+                                      CompensationProperties properties) {
+        this(orderStateStore, timingWheel, unifiedPaymentService, properties, null);
+    }
+
+    /**
+     * @param clusterCoordinator 集群工作归属，为null时按单机处理全部订单
+     */
+    public OrderCompensationScheduler(OrderStateStore orderStateStore,
+                                      HierarchicalTimingWheel timingWheel,
+                                      UnifiedPaymentService unifiedPaymentService,
+                                      CompensationProperties properties,
+                                      ClusterCoordinator clusterCoordinator) {
+        this.orderStateStore = orderStateStore;
+        this.timingWheel = timingWheel;
+        this.unifiedPaymentService = unifiedPaymentService;
+
+        List<Duration> backoff = properties.getBackoff();
+        if (backoff == null || backoff.isEmpty()) {
+            throw new IllegalArgumentException("tensor.pay.compensation.backoff must not be empty");
+        }
+        this.backoffMillis = backoff.stream().mapToLong(Duration::toMillis).sorted().toArray();
+        this.jitterRatio = properties.getJitterRatio();
+        this.rateLimiter = new PaymentRateLimiter(queryLimits(properties.getMaxQueriesPerSecond()));
+        this.queryTimeout = properties.getQueryTimeout();
+
+        for (PaymentType type : PaymentType.values()) {
+            queues.put(type, new LinkedBlockingQueue<>(properties.getMaxQueued()));
+        }
+
+        this.queryExecutor = Executors.newFixedThreadPool(properties.getQueryThreads(),
+            new CustomizableThreadFactory("tensor-pay-compensation-"));
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("tensor-pay-compensation-dispatcher-"));
+        this.dispatcher.scheduleWithFixedDelay(this::dispatch,
+            DISPATCH_INTERVAL_MILLIS, DISPATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (clusterCoordinator != null) {
+            clusterCoordinator.addReceiver(this::schedule);
+        }
+    }
+
+    @Override
+    public void onPaymentCreated(PaymentRequest request, PaymentResponse response) {
+        if (response.getOutTradeNo() == null || response.getPaymentType() == null) {
+            return;
+        }
+        schedule(request, response);
+    }
+
+    private boolean schedule(PaymentRequest request, PaymentResponse response) {
+        CompensationTask task = new CompensationTask(response.getOutTradeNo(), response.getPaymentType(),
+            request.resolveMerchantId(), System.currentTimeMillis());
+        timingWheel.schedule(task, jitter(backoffMillis[0]));
+        return true;
+    }
+
+    /**
+     * 等待补偿查询的订单数量
+     *
+     * @param paymentType 支付类型
+     * @return 订单数量
+     */
+    public int getQueuedCount(PaymentType paymentType) {
+        return queues.get(paymentType).size();
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        queryExecutor.shutdownNow();
+    }
+
+    /**
+     * 检查到点的订单，仍未完结的进入渠道队列
+     */
+    private void onDue(CompensationTask task) {
+        PaymentStatus status = orderStateStore.getStatus(task.outTradeNo);
+        if (status != PaymentStatus.PENDING && status != PaymentStatus.PROCESSING) {
+            return;
+        }
+        if (!queues.get(task.paymentType).offer(task)) {
+            logger.debug("Compensation queue for {} is full, order {} deferred", task.paymentType, task.outTradeNo);
+            scheduleNext(task);
+        }
+    }
+
+    /**
+     * 按渠道限速取出排队的订单，每个渠道最多累积一秒的配额
+     */
+    private void dispatch() {
+        for (Map.Entry<PaymentType, Queue<CompensationTask>> entry : queues.entrySet()) {
+            Queue<CompensationTask> queue = entry.getValue();
+            while (!queue.isEmpty() && rateLimiter.tryAcquire(entry.getKey(), null, PaymentOperation.QUERY)) {
+                CompensationTask task = queue.poll();
+                try {
+                    queryExecutor.execute(() -> query(task));
+                } catch (RejectedExecutionException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static RateLimitProperties queryLimits(double maxQueriesPerSecond) {
+        RateLimitProperties limits = new RateLimitProperties();
+        for (PaymentType type : PaymentType.values()) {
+            RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+            rule.setPaymentType(type);
+            rule.setOperation(PaymentOperation.QUERY);
+            rule.setPermitsPerSecond(maxQueriesPerSecond);
+            rule.setBurst((int) Math.max(1, maxQueriesPerSecond));
+            limits.getRules().add(rule);
+        }
+        return limits;
+    }
+
+    private void query(CompensationTask task) {
+        PaymentResponse response = null;
+        try {
+            response = MerchantContext.call(task.merchantId, () -> Deadline.call(Deadline.after(queryTimeout),
+                () -> unifiedPaymentService.queryPayment(task.paymentType, task.outTradeNo)));
+        } catch (Exception e) {
+            logger.warn("Compensation query failed: {}, attempt {}", task.outTradeNo, task.attempt + 1, e);
+        }
+
+        if (response != null && response.isAuthoritative() && response.getStatus() != null
+                && response.getStatus() != PaymentStatus.PENDING
+                && response.getStatus() != PaymentStatus.PROCESSING) {
+            return;
+        }
+
+        scheduleNext(task);
+    }
+
+    private void scheduleNext(CompensationTask task) {
+        int next = task.attempt + 1;
+        if (next >= backoffMillis.length) {
+            logger.warn("Order {} is still unresolved after {} compensation queries", task.outTradeNo, next);
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - task.createdAt;
+        timingWheel.schedule(new CompensationTask(task, next), jitter(backoffMillis[next] - elapsed));
+    }
+
+    private long jitter(long delayMillis) {
+        long bound = (long) (delayMillis * jitterRatio);
+        if (bound <= 0) {
+            return Math.max(0, delayMillis);
+        }
+        return delayMillis + ThreadLocalRandom.current().nextLong(bound);
+    }
+
+    private final class CompensationTask extends TimerTask {
+
+        private final String outTradeNo;
+        private final PaymentType paymentType;
+        private final String merchantId;
+        private final long createdAt;
+        private final int attempt;
+
+        CompensationTask(String outTradeNo, PaymentType paymentType, String merchantId, long createdAt) {
+            this.outTradeNo = outTradeNo;
+            this.paymentType = paymentType;
+            this.merchantId = merchantId;
+            this.createdAt = createdAt;
+            this.attempt = 0;
+        }
+
+        CompensationTask(CompensationTask previous, int attempt) {
+            this.outTradeNo = previous.outTradeNo;
+            this.paymentType = previous.paymentType;
+            this.merchantId = previous.merchantId;
+            this.createdAt = previous.createdAt;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            onDue(this);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.cluster.ClusterCoordinator;
+import com.tensor.pay.config.OrderStoreProperties;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEventListener;
+import com.tensor.pay.event.PaymentEventPublisher;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.PaymentService;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import com.tensor.pay.timer.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZoneId;
+
+/**
+ * 订单超时关闭管理器
+ * 
+ * 订单创建成功后登记到 {@link OrderStateStore} 并在时间轮上调度过期任务；
+ * 到期时若订单仍未完结，则以下单时的子商户身份调用关闭接口并做最后一次查询，以查询结果为准发布订单状态。
+ * 集群部署时非归属节点创建的订单交给归属节点登记和关闭，移交未成功的订单仍由本节点关闭。
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderExpiryManager implements PaymentEventListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryManager.class);
+    
+    private final OrderStateStore orderStateStore;
+    private final HierarchicalTimingWheel timingWheel;
+    private final PaymentServiceFactory paymentServiceFactory;
+    private final PaymentEventPublisher eventPublisher;
+    private final OrderStoreProperties properties;
+    private final ClusterCoordinator clusterCoordinator;
+    
+    public OrderExpiryManager(OrderStateStore orderStateStore,
+                              HierarchicalTimingWheel timingWheel,
+                              PaymentServiceFactory paymentServiceFactory,
+                              PaymentEventPublisher eventPublisher,
+                              OrderStoreProperties properties) {
+        this(orderStateStore, timingWheel, paymentServiceFactory, eventPublisher, properties, null);
+    }
+    
+    /**
+     * @param clusterCoordinator 集群工作归属，为null时按单机处理全部订单
+     */
+    public OrderExpiryManager(OrderStateStore orderStateStore,
+                              HierarchicalTimingWheel timingWheel,
+                              PaymentServiceFactory paymentServiceFactory,
+                              PaymentEventPublisher eventPublisher,
+                              OrderStoreProperties properties,
+                              ClusterCoordinator clusterCoordinator) {
+        this.orderStateStore = orderStateStore;
+        this.timingWheel = timingWheel;
+        this.paymentServiceFactory = paymentServiceFactory;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.clusterCoordinator = clusterCoordinator;
+        if (clusterCoordinator != null) {
+            clusterCoordinator.addReceiver(this::track);
+        }
+    }
+    
+    @Override
+    public void onPaymentCreated(PaymentRequest request, PaymentResponse response) {
+        if (response.getOutTradeNo() == null || response.getPaymentType() == null) {
+            return;
+        }
+        if (clusterCoordinator != null && clusterCoordinator.handOff(request, response)) {
+            return;
+        }
+        track(request, response);
+    }
+    
+    /**
+     * 登记订单并调度过期任务
+     * 
+     * @return 登记成功时返回true，状态存储已满时返回false
+     */
+    private boolean track(PaymentRequest request, PaymentResponse response) {
+        String outTradeNo = response.getOutTradeNo();
+        PaymentType paymentType = response.getPaymentType();
+        
+        long now = System.currentTimeMillis();
+        long expireAt = request.getExpireTime() != null
+            ? request.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : now + properties.getDefaultExpireTime().toMillis();
+        PaymentStatus status = response.getStatus() != null ? response.getStatus() : PaymentStatus.PENDING;
+        
+        ExpiryTask task = new ExpiryTask(outTradeNo, request.resolveMerchantId());
+        TimerTask previous = orderStateStore.getExpiryTask(outTradeNo);
+        if (!orderStateStore.track(outTradeNo, paymentType, status, expireAt, task)) {
+            logger.warn("Order state store is full ({}), order {} will not be expired locally",
+                orderStateStore.getMaxOrders(), outTradeNo);
+            return false;
+        }
+        if (previous != null) {
+            timingWheel.cancel(previous);
+        }
+        timingWheel.schedule(task, expireAt - now);
+        return true;
+    }
+    
+    @Override
+    public void onStatusUpdated(PaymentResponse response) {
+        if (response.getOutTradeNo() == null) {
+            return;
+        }
+        if (isFinal(response.getStatus())) {
+            // 取消过期任务，时间轮中的任务数随未完结订单数而不是下单速率增长
+            TimerTask task = orderStateStore.getExpiryTask(response.getOutTradeNo());
+            if (task != null) {
+                timingWheel.cancel(task);
+            }
+            orderStateStore.remove(response.getOutTradeNo());
+        } else if (response.getStatus() != null) {
+            orderStateStore.updateStatus(response.getOutTradeNo(), response.getStatus());
+        }
+    }
+    
+    /**
+     * 获取订单在本地跟踪的状态
+     * 
+     * @param outTradeNo 商户订单号
+     * @return 支付状态，未跟踪或已完结时返回null
+     */
+    public PaymentStatus getTrackedStatus(String outTradeNo) {
+        return orderStateStore.getStatus(outTradeNo);
+    }
+    
+    /**
+     * 关闭已过期的订单
+     */
+    void expire(String outTradeNo, String merchantId) {
+        PaymentStatus status = orderStateStore.getStatus(outTradeNo);
+        PaymentType paymentType = orderStateStore.getPaymentType(outTradeNo);
+        if (status == null || paymentType == null || isFinal(status)) {
+            return;
+        }
+        try {
+            MerchantContext.call(merchantId, () -> {
+                closeAndPublish(paymentType, outTradeNo);
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("Failed to close expired order: {}", outTradeNo, e);
+        } finally {
+            orderStateStore.remove(outTradeNo);
+        }
+    }
+    
+    private void closeAndPublish(PaymentType paymentType, String outTradeNo) {
+        PaymentService paymentService = paymentServiceFactory.getPaymentService(paymentType);
+        PaymentResponse closed = null;
+        if (properties.isCloseOnExpire()) {
+            closed = paymentService.cancelPayment(outTradeNo);
+        }
+        
+        // 关闭前用户可能刚好完成支付，以最后一次查询结果为准
+        PaymentResponse queried = paymentService.queryPayment(outTradeNo);
+        PaymentResponse result = queried;
+        if ((queried == null || !queried.isAuthoritative() || !isFinal(queried.getStatus()))
+                && closed != null && closed.isAuthoritative()) {
+            result = closed;
+        }
+        
+        if (result != null && result.isAuthoritative()) {
+            if (result.getOutTradeNo() == null) {
+                result = result.toBuilder().outTradeNo(outTradeNo).build();
+            }
+            eventPublisher.publishStatusUpdated(result);
+        } else {
+            logger.warn("Failed to close expired order: {}, response: {}", outTradeNo, result);
+        }
+    }
+    
+    private static boolean isFinal(PaymentStatus status) {
+        return status != null && status != PaymentStatus.PENDING && status != PaymentStatus.PROCESSING;
+    }
+    
+    private final class ExpiryTask extends TimerTask {
+        
+        private final String outTradeNo;
+        private final String merchantId;
+        
+        ExpiryTask(String outTradeNo, String merchantId) {
+            this.outTradeNo = outTradeNo;
+            this.merchantId = merchantId;
+        }
+        
+        @Override
+        public void run() {
+            // 同一订单重复登记时旧任务已被替换
+            if (orderStateStore.getExpiryTask(outTradeNo) == this) {
+                expire(outTradeNo, merchantId);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+
+/**
+ * 本地保存的订单记录
+ *
+ * 下单和状态事件各自只带有部分字段，未知的字段为null或 {@link PaymentResponse#NO_AMOUNT}，
+ * 通过 {@link #merge(OrderRecord)} 合并为完整的记录；记录不可变，可以在线程间共享。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class OrderRecord {
+
+    private final String outTradeNo;
+    private final String tradeNo;
+    private final PaymentType paymentType;
+    private final String merchantId;
+    private final PaymentStatus status;
+    private final long amountMinor;
+    private final long paidAmountMinor;
+    private final String currency;
+    private final long createdAt;
+    private final long updatedAt;
+
+    /**
+     * @param outTradeNo 商户订单号
+     * @param tradeNo 第三方交易号
+     * @param paymentType 支付类型
+     * @param merchantId 子商户号，默认商户为null
+     * @param status 支付状态
+     * @param amountMinor 订单金额（最小单位），未知为 {@link PaymentResponse#NO_AMOUNT}
+     * @param paidAmountMinor 实付金额（最小单位），未知为 {@link PaymentResponse#NO_AMOUNT}
+     * @param currency 币种
+     * @param createdAt 创建时间（epoch毫秒），未知为0
+     * @param updatedAt 更新时间（epoch毫秒）
+     */
+    public OrderRecord(String outTradeNo, String tradeNo, PaymentType paymentType, String merchantId,
+                       PaymentStatus status, long amountMinor, long paidAmountMinor, String currency,
+                       long createdAt, long updatedAt) {
+        this.outTradeNo = outTradeNo;
+        this.tradeNo = tradeNo;
+        this.paymentType = paymentType;
+        this.merchantId = merchantId;
+        this.status = status;
+        this.amountMinor = amountMinor;
+        this.paidAmountMinor = paidAmountMinor;
+        this.currency = currency;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * 订单创建成功时的记录
+     */
+    public static OrderRecord created(PaymentRequest request, PaymentResponse response, String merchantId) {
+        long now = System.currentTimeMillis();
+        long amount = response.getAmountMinor() != PaymentResponse.NO_AMOUNT
+            ? response.getAmountMinor() : request.toMoney().getMinor();
+        return new OrderRecord(
+            response.getOutTradeNo() != null ? response.getOutTradeNo() : request.getOutTradeNo(),
+            response.getTradeNo(),
+            response.getPaymentType() != null ? response.getPaymentType() : request.getPaymentType(),
+            merchantId, response.getStatus() != null ? response.getStatus() : PaymentStatus.PENDING,
+            amount, response.getPaidAmountMinor(), request.getCurrency(), now, now);
+    }
+
+    /**
+     * 获得订单最新状态时的记录
+     */
+    public static OrderRecord statusUpdated(PaymentResponse response, String merchantId) {
+        return new OrderRecord(response.getOutTradeNo(), response.getTradeNo(), response.getPaymentType(),
+            merchantId, response.getStatus(), response.getAmountMinor(), response.getPaidAmountMinor(),
+            response.getCurrency(), 0, System.currentTimeMillis());
+    }
+
+    /**
+     * 用较新的记录覆盖本记录中的已知字段
+     *
+     * 已完结的状态不会被较新记录中的待支付、支付中覆盖，晚到的中间状态不会让订单回退；
+     * 也不会被另一个完结状态覆盖，只允许支付成功后转为部分退款、已退款，部分退款后转为已退款。
+     *
+     * @param newer 较新的记录，可以为null
+     * @return 合并后的记录
+     */
+    public OrderRecord merge(OrderRecord newer) {
+        if (newer == null) {
+            return this;
+        }
+        PaymentStatus mergedStatus = mergeStatus(status, newer.status);
+        return new OrderRecord(outTradeNo,
+            newer.tradeNo != null ? newer.tradeNo : tradeNo,
+            newer.paymentType != null ? newer.paymentType : paymentType,
+            newer.merchantId != null ? newer.merchantId : merchantId,
+            mergedStatus,
+            newer.amountMinor != PaymentResponse.NO_AMOUNT ? newer.amountMinor : amountMinor,
+            newer.paidAmountMinor != PaymentResponse.NO_AMOUNT ? newer.paidAmountMinor : paidAmountMinor,
+            newer.currency != null ? newer.currency : currency,
+            createdAt != 0 ? createdAt : newer.createdAt,
+            Math.max(updatedAt, newer.updatedAt));
+    }
+
+    /**
+     * 合并订单状态，规则与 {@link JdbcOrderRepository} 写入时一致
+     */
+    static PaymentStatus mergeStatus(PaymentStatus current, PaymentStatus newer) {
+        if (newer == null) {
+            return current;
+        }
+        if (!isFinal(current) || isRefund(current, newer)) {
+            return newer;
+        }
+        return current;
+    }
+
+    private static boolean isRefund(PaymentStatus current, PaymentStatus newer) {
+        return current == PaymentStatus.SUCCESS
+            && (newer == PaymentStatus.PARTIAL_REFUNDED || newer == PaymentStatus.REFUNDED)
+            || current == PaymentStatus.PARTIAL_REFUNDED && newer == PaymentStatus.REFUNDED;
+    }
+
+    static boolean isFinal(PaymentStatus status) {
+        return status != null && status != PaymentStatus.PENDING && status != PaymentStatus.PROCESSING;
+    }
+
+    public String getOutTradeNo() {
+        return outTradeNo;
+    }
+
+    public String getTradeNo() {
+        return tradeNo;
+    }
+
+    public PaymentType getPaymentType() {
+        return paymentType;
+    }
+
+    public String getMerchantId() {
+        return merchantId;
+    }
+
+    public PaymentStatus getStatus() {
+        return status;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public long getPaidAmountMinor() {
+        return paidAmountMinor;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRecord{" +
+                "outTradeNo='" + outTradeNo + '\'' +
+                ", tradeNo='" + tradeNo + '\'' +
+                ", paymentType=" + paymentType +
+                ", merchantId='" + merchantId + '\'' +
+                ", status=" + status +
+                ", amountMinor=" + amountMinor +
+                ", paidAmountMinor=" + paidAmountMinor +
+                ", currency='" + currency + '\'' +
+                ", createdAt=" + createdAt +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
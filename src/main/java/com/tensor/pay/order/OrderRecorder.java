@@ -0,0 +1,43 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.event.PaymentEventListener;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+
+/**
+ * 把订单创建和状态事件保存到 {@link OrderRepository}
+ *
+ * 配合 {@link WriteBehindOrderRepository} 使用时，请求线程只把记录合并到内存缓冲区，不等待数据库写入。
+ * 子商户号在创建时取自请求；状态事件取当前线程绑定的商户，回调、补偿查询和超时关闭都以订单所属商户发布事件。
+ * 未绑定商户时记录中的子商户号为null，合并和写入时保留已保存的子商户号，不会覆盖为默认商户。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderRecorder implements PaymentEventListener {
+
+    private final OrderRepository orderRepository;
+
+    public OrderRecorder(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public void onPaymentCreated(PaymentRequest request, PaymentResponse response) {
+        if (response.getOutTradeNo() == null && request.getOutTradeNo() == null) {
+            return;
+        }
+        String merchantId = request.resolveMerchantId();
+        orderRepository.save(OrderRecord.created(request, response,
+            merchantId != null ? merchantId : MerchantContext.current()));
+    }
+
+    @Override
+    public void onStatusUpdated(PaymentResponse response) {
+        if (response.getOutTradeNo() == null) {
+            return;
+        }
+        orderRepository.save(OrderRecord.statusUpdated(response, MerchantContext.current()));
+    }
+}
@@ -0,0 +1,40 @@
+package com.tensor.pay.order;
+
+import java.util.Collection;
+
+/**
+ * 订单记录存储
+ *
+ * 保存记录时与已有记录合并，只覆盖新记录中的已知字段，见 {@link OrderRecord#merge(OrderRecord)}。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public interface OrderRepository {
+
+    /**
+     * 保存订单记录，已存在时合并
+     *
+     * @param record 订单记录
+     */
+    void save(OrderRecord record);
+
+    /**
+     * 批量保存订单记录，同一订单在一批中最多出现一次
+     *
+     * @param records 订单记录
+     */
+    default void saveAll(Collection<OrderRecord> records) {
+        for (OrderRecord record : records) {
+            save(record);
+        }
+    }
+
+    /**
+     * 按商户订单号查找
+     *
+     * @param outTradeNo 商户订单号
+     * @return 订单记录，不存在时返回null
+     */
+    OrderRecord findByOutTradeNo(String outTradeNo);
+}
@@ -0,0 +1,328 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.timer.TimerTask;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内订单状态存储
+ *
+ * 以订单号的64位哈希为主键，按分段的开放寻址哈希表存放，状态、支付类型和过期时间
+ * 都保存在基本类型数组中，每个订单只额外持有订单号和过期任务。
+ * 总容量有上限，所有分段共享同一个计数，达到上限后拒绝登记新订单，内存占用不会无限增长。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderStateStore {
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+    private static final PaymentType[] TYPES = PaymentType.values();
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final int maxOrders;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param maxOrders 最多登记的订单数量
+     */
+    public OrderStateStore(int maxOrders) {
+        if (maxOrders <= 0) {
+            throw new IllegalArgumentException("maxOrders must be positive");
+        }
+        this.maxOrders = maxOrders;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * 登记订单，已存在时覆盖其状态和过期时间
+     *
+     * @param outTradeNo 商户订单号
+     * @param paymentType 支付类型
+     * @param status 支付状态
+     * @param expireAtMillis 过期时间（epoch毫秒），0表示不过期
+     * @return 是否登记成功，容量已满时返回false
+     */
+    public boolean track(String outTradeNo, PaymentType paymentType, PaymentStatus status, long expireAtMillis) {
+        return track(outTradeNo, paymentType, status, expireAtMillis, null);
+    }
+
+    /**
+     * 登记订单及其过期任务，已存在时覆盖其状态、过期时间和过期任务
+     *
+     * @param outTradeNo 商户订单号
+     * @param paymentType 支付类型
+     * @param status 支付状态
+     * @param expireAtMillis 过期时间（epoch毫秒），0表示不过期
+     * @param expiryTask 过期任务，订单完结时由调用方取出并取消，可以为null
+     * @return 是否登记成功，容量已满时返回false
+     */
+    public boolean track(String outTradeNo, PaymentType paymentType, PaymentStatus status, long expireAtMillis,
+                         TimerTask expiryTask) {
+        long hash = hash(outTradeNo);
+        return segmentFor(hash).put(hash, outTradeNo, (byte) paymentType.ordinal(),
+            (byte) status.ordinal(), expireAtMillis, expiryTask);
+    }
+
+    /**
+     * 更新订单状态
+     *
+     * @param outTradeNo 商户订单号
+     * @param status 支付状态
+     * @return 订单是否存在
+     */
+    public boolean updateStatus(String outTradeNo, PaymentStatus status) {
+        long hash = hash(outTradeNo);
+        return segmentFor(hash).updateStatus(hash, outTradeNo, (byte) status.ordinal());
+    }
+
+    /**
+     * 获取订单状态
+     *
+     * @param outTradeNo 商户订单号
+     * @return 支付状态，订单不存在时返回null
+     */
+    public PaymentStatus getStatus(String outTradeNo) {
+        long hash = hash(outTradeNo);
+        int ordinal = segmentFor(hash).getStatus(hash, outTradeNo);
+        return ordinal < 0 ? null : STATUSES[ordinal];
+    }
+
+    /**
+     * 获取订单支付类型
+     *
+     * @param outTradeNo 商户订单号
+     * @return 支付类型，订单不存在时返回null
+     */
+    public PaymentType getPaymentType(String outTradeNo) {
+        long hash = hash(outTradeNo);
+        int ordinal = segmentFor(hash).getType(hash, outTradeNo);
+        return ordinal < 0 ? null : TYPES[ordinal];
+    }
+
+    /**
+     * 获取订单过期时间
+     *
+     * @param outTradeNo 商户订单号
+     * @return 过期时间（epoch毫秒），订单不存在时返回-1
+     */
+    public long getExpireAt(String outTradeNo) {
+        long hash = hash(outTradeNo);
+        return segmentFor(hash).getExpireAt(hash, outTradeNo);
+    }
+
+    /**
+     * 获取订单的过期任务
+     *
+     * @param outTradeNo 商户订单号
+     * @return 过期任务，订单不存在或未登记任务时返回null
+     */
+    public TimerTask getExpiryTask(String outTradeNo) {
+        long hash = hash(outTradeNo);
+        return segmentFor(hash).getExpiryTask(hash, outTradeNo);
+    }
+
+    /**
+     * 移除订单
+     *
+     * @param outTradeNo 商户订单号
+     * @return 订单是否存在
+     */
+    public boolean remove(String outTradeNo) {
+        long hash = hash(outTradeNo);
+        return segmentFor(hash).remove(hash, outTradeNo);
+    }
+
+    /**
+     * 当前登记的订单数量
+     *
+     * @return 订单数量
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public int getMaxOrders() {
+        return maxOrders;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * 订单号的64位哈希，0保留为空槽标记
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, len = key.length(); i < len; i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 线性探测的开放寻址分段，删除时向后移位，不留墓碑
+     */
+    private final class Segment {
+
+        private long[] hashes;
+        private String[] keys;
+        private byte[] types;
+        private byte[] statuses;
+        private long[] expireAts;
+        private TimerTask[] expiryTasks;
+        private int count;
+
+        Segment() {
+            allocate(INITIAL_SEGMENT_CAPACITY);
+        }
+
+        synchronized boolean put(long hash, String key, byte type, byte status, long expireAt,
+                                 TimerTask expiryTask) {
+            int index = indexOf(hash, key);
+            if (index < 0) {
+                if (size.incrementAndGet() > maxOrders) {
+                    size.decrementAndGet();
+                    return false;
+                }
+                if ((count + 1) * 4 > hashes.length * 3) {
+                    resize(hashes.length << 1);
+                }
+                index = insertionIndex(hash);
+                hashes[index] = hash;
+                keys[index] = key;
+                count++;
+            }
+            types[index] = type;
+            statuses[index] = status;
+            expireAts[index] = expireAt;
+            expiryTasks[index] = expiryTask;
+            return true;
+        }
+
+        synchronized boolean updateStatus(long hash, String key, byte status) {
+            int index = indexOf(hash, key);
+            if (index < 0) {
+                return false;
+            }
+            statuses[index] = status;
+            return true;
+        }
+
+        synchronized int getStatus(long hash, String key) {
+            int index = indexOf(hash, key);
+            return index < 0 ? -1 : statuses[index];
+        }
+
+        synchronized int getType(long hash, String key) {
+            int index = indexOf(hash, key);
+            return index < 0 ? -1 : types[index];
+        }
+
+        synchronized long getExpireAt(long hash, String key) {
+            int index = indexOf(hash, key);
+            return index < 0 ? -1 : expireAts[index];
+        }
+
+        synchronized TimerTask getExpiryTask(long hash, String key) {
+            int index = indexOf(hash, key);
+            return index < 0 ? null : expiryTasks[index];
+        }
+
+        synchronized boolean remove(long hash, String key) {
+            int index = indexOf(hash, key);
+            if (index < 0) {
+                return false;
+            }
+            int mask = hashes.length - 1;
+            int hole = index;
+            int next = (hole + 1) & mask;
+            while (hashes[next] != 0) {
+                int home = (int) hashes[next] & mask;
+                // 仅当元素的理想位置不在 (hole, next] 区间内时才能前移
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    move(next, hole);
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            hashes[hole] = 0;
+            keys[hole] = null;
+            expiryTasks[hole] = null;
+            count--;
+            size.decrementAndGet();
+            return true;
+        }
+
+        private int indexOf(long hash, String key) {
+            int mask = hashes.length - 1;
+            int index = (int) hash & mask;
+            while (hashes[index] != 0) {
+                if (hashes[index] == hash && keys[index].equals(key)) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int insertionIndex(long hash) {
+            int mask = hashes.length - 1;
+            int index = (int) hash & mask;
+            while (hashes[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void move(int from, int to) {
+            hashes[to] = hashes[from];
+            keys[to] = keys[from];
+            types[to] = types[from];
+            statuses[to] = statuses[from];
+            expireAts[to] = expireAts[from];
+            expiryTasks[to] = expiryTasks[from];
+        }
+
+        private void allocate(int capacity) {
+            hashes = new long[capacity];
+            keys = new String[capacity];
+            types = new byte[capacity];
+            statuses = new byte[capacity];
+            expireAts = new long[capacity];
+            expiryTasks = new TimerTask[capacity];
+        }
+
+        private void resize(int capacity) {
+            long[] oldHashes = hashes;
+            String[] oldKeys = keys;
+            byte[] oldTypes = types;
+            byte[] oldStatuses = statuses;
+            long[] oldExpireAts = expireAts;
+            TimerTask[] oldExpiryTasks = expiryTasks;
+            allocate(capacity);
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    int index = insertionIndex(oldHashes[i]);
+                    hashes[index] = oldHashes[i];
+                    keys[index] = oldKeys[i];
+                    types[index] = oldTypes[i];
+                    statuses[index] = oldStatuses[i];
+                    expireAts[index] = oldExpireAts[i];
+                    expiryTasks[index] = oldExpiryTasks[i];
+                }
+            }
+        }
+    }
+}
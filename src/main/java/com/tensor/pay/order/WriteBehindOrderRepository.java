@@ -0,0 +1,256 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.exception.PaymentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 延迟批量写入的订单记录存储
+ *
+ * 保存时只把记录合并到内存中的待写队列，同一订单在两次写入之间的多次变更合并为一次写入；
+ * 后台线程按固定间隔或在积压达到一批时调用被包装存储的 {@link OrderRepository#saveAll}。
+ * 积压达到上限时新订单由保存线程同步写入腾出空间；最近一次写入失败或同步写入后仍然没有空间时拒绝新订单，
+ * 数据库不可用期间内存不超过上限。已在积压中的订单的后续变更只做合并，不占用新的空间，不会被拒绝。
+ * 上限用信号量计数，记录从进入待写队列起占用一个名额，写入成功或与待写记录合并后归还，并发保存也不会超出上限。
+ * 查询会合并尚未写入的记录，写入前也能读到最新状态；进程异常退出时尚未写入的记录会丢失。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class WriteBehindOrderRepository implements OrderRepository, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindOrderRepository.class);
+
+    private static final long REJECTION_LOG_INTERVAL_MILLIS = 10_000;
+
+    private final OrderRepository delegate;
+    private final int batchSize;
+    private final int maxPending;
+    private final Semaphore slots;
+    private final ConcurrentHashMap<String, OrderRecord> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, OrderRecord> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean lastFlushFailed;
+    private final ScheduledExecutorService flusher;
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong lastRejectionLogAt = new AtomicLong();
+
+    /**
+     * @param delegate 实际写入的存储
+     * @param batchSize 每批写入的记录数，积压达到一批时立即写入
+     * @param flushInterval 写入间隔
+     * @param maxPending 积压上限，达到后新订单由保存线程同步写入，写入失败时拒绝
+     */
+    public WriteBehindOrderRepository(OrderRepository delegate, int batchSize, Duration flushInterval,
+                                      int maxPending) {
+        if (batchSize <= 0 || maxPending < batchSize) {
+            throw new IllegalArgumentException("batchSize must be positive and not greater than maxPending");
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.slots = new Semaphore(maxPending);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("tensor-pay-order-flusher-"));
+        long interval = flushInterval.toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PaymentException 积压已达上限且数据库写入失败，错误码 ORDER_REPOSITORY_FULL
+     */
+    @Override
+    public void save(OrderRecord record) {
+        if (!tryMerge(record)) {
+            // 写入刚失败时不在保存线程上重试，由后台线程继续重试，避免请求线程排队等待数据库超时
+            if (!lastFlushFailed) {
+                flush();
+            }
+            if (!tryMerge(record)) {
+                rejected();
+                throw PaymentException.businessError("ORDER_REPOSITORY_FULL",
+                    "订单记录积压已达上限 " + maxPending + "，数据库写入失败");
+            }
+        }
+        if (pending.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException e) {
+                // 已关闭，由 close 做最后一次写入
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    @Override
+    public OrderRecord findByOutTradeNo(String outTradeNo) {
+        // 与记录的流向（待写、写入中、已写入）相同的顺序读取，读取期间记录被写入也不会漏读
+        OrderRecord unwritten = pending.get(outTradeNo);
+        OrderRecord writing = inFlight.get(outTradeNo);
+        OrderRecord stored = delegate.findByOutTradeNo(outTradeNo);
+        return merge(merge(stored, writing), unwritten);
+    }
+
+    /**
+     * 写入全部积压的记录，写入失败的记录放回待写队列等待下次写入
+     *
+     * @return 写入成功的记录数
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            int total = 0;
+            while (!pending.isEmpty()) {
+                List<OrderRecord> batch = drain();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    delegate.saveAll(batch);
+                } catch (RuntimeException e) {
+                    for (OrderRecord record : batch) {
+                        // 失败期间的新变更比这批记录新，合并时以新变更为准；合并后两条记录只占一个名额
+                        pending.compute(record.getOutTradeNo(), (key, newer) -> {
+                            if (newer == null) {
+                                return record;
+                            }
+                            slots.release();
+                            return record.merge(newer);
+                        });
+                    }
+                    lastFlushFailed = true;
+                    logger.warn("Failed to write {} order records, will retry: {}", batch.size(), e.getMessage());
+                    return total;
+                } finally {
+                    for (OrderRecord record : batch) {
+                        inFlight.remove(record.getOutTradeNo(), record);
+                    }
+                }
+                lastFlushFailed = false;
+                slots.release(batch.size());
+                total += batch.size();
+                flushed.add(batch.size());
+            }
+            return total;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 待写入的订单数量
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * 因积压已满被拒绝的记录数量
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 已写入的记录数量
+     */
+    public long getFlushed() {
+        return flushed.sum();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private List<OrderRecord> drain() {
+        List<OrderRecord> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        for (Map.Entry<String, OrderRecord> entry : pending.entrySet()) {
+            OrderRecord record = entry.getValue();
+            // 先放入写入中再移出待写，查询在任何时刻都能读到这条记录
+            inFlight.put(entry.getKey(), record);
+            if (pending.remove(entry.getKey(), record)) {
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    break;
+                }
+            } else {
+                inFlight.remove(entry.getKey(), record);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * 合并到待写队列，新订单需要占用一个名额
+     *
+     * @return 没有名额时返回false
+     */
+    private boolean tryMerge(OrderRecord record) {
+        boolean[] accepted = {true};
+        pending.compute(record.getOutTradeNo(), (key, existing) -> {
+            if (existing != null) {
+                return existing.merge(record);
+            }
+            if (slots.tryAcquire()) {
+                return record;
+            }
+            accepted[0] = false;
+            return null;
+        });
+        return accepted[0];
+    }
+
+    /**
+     * 拒绝期间每次都记录日志会淹没日志，按间隔汇总输出一次
+     */
+    private void rejected() {
+        rejected.increment();
+        long now = System.currentTimeMillis();
+        long last = lastRejectionLogAt.get();
+        if (now - last >= REJECTION_LOG_INTERVAL_MILLIS && lastRejectionLogAt.compareAndSet(last, now)) {
+            logger.warn("Order record backlog is full ({}) and writes are failing, {} records rejected so far",
+                maxPending, rejected.sum());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("Failed to flush order records", e);
+        }
+    }
+
+    private static OrderRecord merge(OrderRecord older, OrderRecord newer) {
+        return older == null ? newer : older.merge(newer);
+    }
+}
@@ -0,0 +1,110 @@
+package com.tensor.pay.outbox;
+
+import com.tensor.pay.codec.PaymentCodec;
+import com.tensor.pay.event.PaymentEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 进程内发件箱，进程退出后未投递的事件丢失，用于测试或不要求持久化的场景
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class InMemoryOutboxStore implements OutboxStore {
+
+    private final Map<Long, Entry> entries = new TreeMap<>();
+    private long nextId = 1;
+
+    @Override
+    public synchronized void append(PaymentEvent event) {
+        String outTradeNo = event.getResponse() == null ? null : event.getResponse().getOutTradeNo();
+        entries.put(nextId, new Entry(new OutboxMessage(nextId, outTradeNo, PaymentCodec.encode(event), 0), 0));
+        nextId++;
+    }
+
+    @Override
+    public synchronized List<OutboxMessage> claim(int limit, Duration lease) {
+        long now = System.currentTimeMillis();
+        List<OutboxMessage> claimed = new ArrayList<>();
+        Set<String> blocked = new HashSet<>();
+        for (Entry entry : entries.values()) {
+            if (claimed.size() >= limit) {
+                break;
+            }
+            if (entry.deadLetter) {
+                continue;
+            }
+            // 订单更早的事件尚未投递时跳过
+            String outTradeNo = entry.message.getOutTradeNo();
+            if (outTradeNo != null && !blocked.add(outTradeNo)) {
+                continue;
+            }
+            if (entry.nextAttemptAt <= now) {
+                entry.nextAttemptAt = now + lease.toMillis();
+                claimed.add(entry.message);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public synchronized void delivered(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            entries.remove(message.getId());
+        }
+    }
+
+    @Override
+    public synchronized void retryLater(List<OutboxMessage> messages, long nextAttemptAtMillis) {
+        for (OutboxMessage message : messages) {
+            failed(message, nextAttemptAtMillis, false);
+        }
+    }
+
+    @Override
+    public synchronized void deadLetter(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            failed(message, Long.MAX_VALUE, true);
+        }
+    }
+
+    @Override
+    public synchronized long countPending() {
+        return entries.values().stream().filter(entry -> !entry.deadLetter).count();
+    }
+
+    @Override
+    public synchronized long countDeadLetters() {
+        return entries.values().stream().filter(entry -> entry.deadLetter).count();
+    }
+
+    private void failed(OutboxMessage message, long nextAttemptAtMillis, boolean deadLetter) {
+        Entry entry = entries.get(message.getId());
+        if (entry != null) {
+            OutboxMessage previous = entry.message;
+            Entry updated = new Entry(new OutboxMessage(previous.getId(), previous.getOutTradeNo(),
+                previous.getPayload(), previous.getAttempts() + 1), nextAttemptAtMillis);
+            updated.deadLetter = deadLetter;
+            entries.put(previous.getId(), updated);
+        }
+    }
+
+    private static final class Entry {
+
+        private final OutboxMessage message;
+        private long nextAttemptAt;
+        private boolean deadLetter;
+
+        private Entry(OutboxMessage message, long nextAttemptAt) {
+            this.message = message;
+            this.nextAttemptAt = nextAttemptAt;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.tensor.pay.outbox;
+
+import com.tensor.pay.codec.PaymentCodec;
+import com.tensor.pay.event.PaymentEvent;
+import com.tensor.pay.exception.PaymentException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 基于JDBC的发件箱
+ *
+ * 业务代码在自己的事务中调用 {@link #append(Connection, PaymentEvent)}，事件与业务数据一起提交或回滚；
+ * 使用Spring事务时可通过 {@code DataSourceUtils.getConnection(dataSource)} 取得当前事务的连接。
+ * 取出事件时先查询到期的记录，再以 next_attempt_at 做条件更新加租约，多个节点同时取出时每条记录只有一个节点成功。
+ * 查询只返回每个订单最早的一条非死信记录，更早的记录还在等待重试或在其他节点的租约中时，同一订单后面的记录不会被取出。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class JdbcOutboxStore implements OutboxStore {
+
+    /**
+     * 默认表名
+     */
+    public static final String DEFAULT_TABLE = "tensor_pay_outbox";
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+
+    private final DataSource dataSource;
+    private final String table;
+    private final String insertSql;
+    private final String selectDueSql;
+    private final String leaseSql;
+    private final String deleteSql;
+    private final String retrySql;
+    private final String deadLetterSql;
+    private final String countSql;
+    private final String countDeadLettersSql;
+
+    public JdbcOutboxStore(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE);
+    }
+
+    /**
+     * @param dataSource 数据源
+     * @param table 表名，可以带schema前缀
+     */
+    public JdbcOutboxStore(DataSource dataSource, String table) {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid outbox table name: " + table);
+        }
+        this.dataSource = dataSource;
+        this.table = table;
+        this.insertSql = "INSERT INTO " + table
+            + " (out_trade_no, event_type, payload, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, 0, ?, ?)";
+        this.selectDueSql = "SELECT o.id, o.out_trade_no, o.payload, o.attempts, o.next_attempt_at FROM " + table
+            + " o WHERE o.next_attempt_at <= ? AND o.dead_letter = FALSE AND NOT EXISTS (SELECT 1 FROM " + table
+            + " p WHERE p.out_trade_no = o.out_trade_no AND p.id < o.id AND p.dead_letter = FALSE) ORDER BY o.id";
+        this.leaseSql = "UPDATE " + table + " SET next_attempt_at = ? WHERE id = ? AND next_attempt_at = ?";
+        this.deleteSql = "DELETE FROM " + table + " WHERE id = ?";
+        this.retrySql = "UPDATE " + table + " SET attempts = attempts + 1, next_attempt_at = ? WHERE id = ?";
+        this.deadLetterSql = "UPDATE " + table + " SET attempts = attempts + 1, dead_letter = TRUE WHERE id = ?";
+        this.countSql = "SELECT COUNT(*) FROM " + table + " WHERE dead_letter = FALSE";
+        this.countDeadLettersSql = "SELECT COUNT(*) FROM " + table + " WHERE dead_letter = TRUE";
+    }
+
+    /**
+     * 建表，DDL适用于H2和MySQL，其他数据库请参照字段手工建表
+     */
+    public void createTableIfNotExists() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "out_trade_no VARCHAR(64), "
+                + "event_type VARCHAR(32) NOT NULL, "
+                + "payload BLOB NOT NULL, "
+                + "attempts INT NOT NULL, "
+                + "next_attempt_at BIGINT NOT NULL, "
+                + "dead_letter BOOLEAN DEFAULT FALSE NOT NULL, "
+                + "created_at BIGINT NOT NULL)");
+            String index = "idx_" + table.replace('.', '_');
+            statement.execute("CREATE INDEX IF NOT EXISTS " + index + "_due ON " + table + " (next_attempt_at)");
+            statement.execute("CREATE INDEX IF NOT EXISTS " + index + "_order ON " + table + " (out_trade_no, id)");
+        } catch (SQLException e) {
+            throw new PaymentException("OUTBOX_ERROR", "创建发件箱表失败: " + table, e);
+        }
+    }
+
+    /**
+     * 在调用方的事务中写入事件，由调用方提交或回滚
+     *
+     * @param connection 业务事务使用的连接
+     * @param event 支付事件
+     * @throws SQLException 写入失败，调用方应回滚事务
+     */
+    public void append(Connection connection, PaymentEvent event) throws SQLException {
+        long now = System.currentTimeMillis();
+        try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+            statement.setString(1, event.getResponse() == null ? null : event.getResponse().getOutTradeNo());
+            statement.setString(2, event.getType().name());
+            statement.setBytes(3, PaymentCodec.encode(event));
+            statement.setLong(4, now);
+            statement.setLong(5, now);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void append(PaymentEvent event) {
+        try (Connection connection = dataSource.getConnection()) {
+            append(connection, event);
+            commit(connection);
+        } catch (SQLException e) {
+            throw new PaymentException("OUTBOX_ERROR", "写入发件箱失败", e);
+        }
+    }
+
+    @Override
+    public List<OutboxMessage> claim(int limit, Duration lease) {
+        long now = System.currentTimeMillis();
+        List<OutboxMessage> due = new ArrayList<>(limit);
+        List<Long> dueAt = new ArrayList<>(limit);
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement select = connection.prepareStatement(selectDueSql)) {
+                select.setMaxRows(limit);
+                select.setLong(1, now);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        due.add(new OutboxMessage(rs.getLong(1), rs.getString(2), rs.getBytes(3), rs.getInt(4)));
+                        dueAt.add(rs.getLong(5));
+                    }
+                }
+            }
+            if (due.isEmpty()) {
+                return due;
+            }
+            int[] updated;
+            try (PreparedStatement update = connection.prepareStatement(leaseSql)) {
+                long leaseUntil = now + lease.toMillis();
+                for (int i = 0; i < due.size(); i++) {
+                    update.setLong(1, leaseUntil);
+                    update.setLong(2, due.get(i).getId());
+                    update.setLong(3, dueAt.get(i));
+                    update.addBatch();
+                }
+                updated = update.executeBatch();
+            }
+            commit(connection);
+            List<OutboxMessage> claimed = new ArrayList<>(due.size());
+            for (int i = 0; i < due.size(); i++) {
+                // 其他节点先取走的记录更新行数为0
+                if (updated[i] != 0) {
+                    claimed.add(due.get(i));
+                }
+            }
+            return claimed;
+        } catch (SQLException e) {
+            throw new PaymentException("OUTBOX_ERROR", "读取发件箱失败", e);
+        }
+    }
+
+    @Override
+    public void delivered(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+            for (OutboxMessage message : messages) {
+                statement.setLong(1, message.getId());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            commit(connection);
+        } catch (SQLException e) {
+            throw new PaymentException("OUTBOX_ERROR", "确认发件箱事件失败", e);
+        }
+    }
+
+    @Override
+    public void retryLater(List<OutboxMessage> messages, long nextAttemptAtMillis) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(retrySql)) {
+            for (OutboxMessage message : messages) {
+                statement.setLong(1, nextAttemptAtMillis);
+                statement.setLong(2, message.getId());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            commit(connection);
+        } catch (SQLException e) {
+            throw new PaymentException("OUTBOX_ERROR", "更新发件箱事件失败", e);
+        }
+    }
+
+    @Override
+    public void deadLetter(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(deadLetterSql)) {
+            for (OutboxMessage message : messages) {
+                statement.setLong(1, message.getId());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            commit(connection);
+        } catch (SQLException e) {
+            throw new PaymentException("OUTBOX_ERROR", "发件箱事件转入死信失败", e);
+        }
+    }
+
+    @Override
+    public long countPending() {
+        return count(countSql);
+    }
+
+    @Override
+    public long countDeadLetters() {
+        return count(countDeadLettersSql);
+    }
+
+    private long count(String sql) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new PaymentException("OUTBOX_ERROR", "统计发件箱事件失败", e);
+        }
+    }
+
+    /**
+     * 数据源默认关闭自动提交时，存储自己取得的连接需要显式提交
+     */
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+}
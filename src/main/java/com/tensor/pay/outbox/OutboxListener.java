@@ -0,0 +1,26 @@
+package com.tensor.pay.outbox;
+
+import com.tensor.pay.event.PaymentEvent;
+
+import java.util.List;
+
+/**
+ * 发件箱事件监听器，如转发到消息队列、通知下游系统
+ *
+ * 一批中每个订单最多一条事件，同一订单的事件按写入顺序逐批投递；抛出异常时整批稍后重新投递给全部监听器，
+ * 多次失败后转入死信。事件至少投递一次，可能重复，实现需要幂等。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface OutboxListener {
+
+    /**
+     * 批量处理事件
+     *
+     * @param events 支付事件
+     * @throws Exception 处理失败，整批稍后重新投递
+     */
+    void onEvents(List<PaymentEvent> events) throws Exception;
+}
@@ -0,0 +1,66 @@
+package com.tensor.pay.outbox;
+
+import com.tensor.pay.codec.PaymentCodec;
+import com.tensor.pay.event.PaymentEvent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 发件箱中待投递的一条事件
+ *
+ * 事件以 {@link PaymentCodec} 的二进制格式保存，投递时才解码，单条数据损坏只影响这一条。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class OutboxMessage {
+
+    private final long id;
+    private final String outTradeNo;
+    private final byte[] payload;
+    private final int attempts;
+
+    /**
+     * @param id 存储分配的序号
+     * @param outTradeNo 商户订单号
+     * @param payload 编码后的事件
+     * @param attempts 已失败的投递次数
+     */
+    public OutboxMessage(long id, String outTradeNo, byte[] payload, int attempts) {
+        this.id = id;
+        this.outTradeNo = outTradeNo;
+        this.payload = payload;
+        this.attempts = attempts;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getOutTradeNo() {
+        return outTradeNo;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * 解码事件
+     *
+     * @return 支付事件
+     * @throws com.tensor.pay.exception.PaymentException 数据损坏
+     */
+    public PaymentEvent getEvent() {
+        return PaymentCodec.readEvent(ByteBuffer.wrap(payload));
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{id=" + id + ", outTradeNo='" + outTradeNo + "', attempts=" + attempts + '}';
+    }
+}
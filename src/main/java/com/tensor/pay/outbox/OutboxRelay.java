@@ -0,0 +1,223 @@
+package com.tensor.pay.outbox;
+
+import com.tensor.pay.config.OutboxProperties;
+import com.tensor.pay.event.PaymentEvent;
+import com.tensor.pay.exception.PaymentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 发件箱投递器
+ *
+ * 后台线程按固定间隔从 {@link OutboxStore} 批量取出事件，取满一批时立即取下一批直到积压清空。
+ * 存储每次只取出每个订单最早的一条未投递事件，前一条确认后才会取出下一条，重试和多节点投递都不会打乱同一订单的事件顺序。
+ * 一批事件按商户订单号分到若干通道并行投递；通道投递成功后确认删除，失败时整个通道按指数退避重新投递，不影响其他通道。
+ * 投递次数达到上限的事件转入死信，同一订单后续的事件继续投递；无法解码的事件直接转入死信。
+ * 投递在后台线程进行，不占用下单和回调的请求线程。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxStore store;
+    private final Supplier<List<OutboxListener>> listenerSupplier;
+    private final int batchSize;
+    private final int parallelism;
+    private final Duration lease;
+    private final long retryDelayMillis;
+    private final long maxRetryDelayMillis;
+    private final int maxAttempts;
+    private final ScheduledExecutorService poller;
+    private final ExecutorService workers;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private volatile List<OutboxListener> listeners;
+
+    /**
+     * @param store 发件箱存储
+     * @param listeners 监听器，首次投递时才解析，避免监听器反向依赖支付服务时产生循环依赖
+     * @param properties 投递配置
+     */
+    public OutboxRelay(OutboxStore store, Supplier<List<OutboxListener>> listeners, OutboxProperties properties) {
+        if (properties.getBatchSize() <= 0 || properties.getParallelism() <= 0 || properties.getMaxAttempts() <= 0) {
+            throw new IllegalArgumentException(
+                "tensor.pay.outbox.batch-size, parallelism and max-attempts must be positive");
+        }
+        this.store = store;
+        this.listenerSupplier = listeners;
+        this.batchSize = properties.getBatchSize();
+        this.parallelism = properties.getParallelism();
+        this.lease = properties.getLease();
+        this.retryDelayMillis = properties.getRetryDelay().toMillis();
+        this.maxRetryDelayMillis = properties.getMaxRetryDelay().toMillis();
+        this.maxAttempts = properties.getMaxAttempts();
+        this.workers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("tensor-pay-outbox-"));
+        this.poller = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("tensor-pay-outbox-poller-"));
+        long interval = properties.getPollInterval().toMillis();
+        this.poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 已投递的事件数量
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    /**
+     * 投递失败等待重试的次数
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * 转入死信的事件数量
+     */
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    /**
+     * 尚未投递的事件数量
+     */
+    public long getPending() {
+        return store.countPending();
+    }
+
+    public void shutdown() {
+        poller.shutdown();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(lease.toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void poll() {
+        try {
+            while (relayOnce() == batchSize && !poller.isShutdown()) {
+                // 取满一批说明仍有积压，继续取下一批
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to relay outbox events", e);
+        }
+    }
+
+    /**
+     * 取出一批事件并投递，等待全部通道完成
+     *
+     * @return 取出的事件数量
+     */
+    int relayOnce() {
+        List<OutboxMessage> batch = store.claim(batchSize, lease);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<List<OutboxMessage>> lanes = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (OutboxMessage message : batch) {
+            String key = message.getOutTradeNo();
+            int lane = key == null ? (int) (message.getId() % parallelism) : Math.floorMod(key.hashCode(), parallelism);
+            lanes.get(lane).add(message);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(parallelism);
+        for (List<OutboxMessage> lane : lanes) {
+            if (!lane.isEmpty()) {
+                futures.add(CompletableFuture.runAsync(() -> deliver(lane), workers));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        return batch.size();
+    }
+
+    private void deliver(List<OutboxMessage> lane) {
+        List<OutboxMessage> decoded = new ArrayList<>(lane.size());
+        List<PaymentEvent> events = new ArrayList<>(lane.size());
+        for (OutboxMessage message : lane) {
+            try {
+                events.add(message.getEvent());
+                decoded.add(message);
+            } catch (PaymentException e) {
+                // 数据损坏重试也无法恢复
+                logger.error("Corrupted outbox event moved to dead letters: {}", message, e);
+                deadLetter(List.of(message));
+            }
+        }
+        if (decoded.isEmpty()) {
+            return;
+        }
+        try {
+            for (OutboxListener listener : getListeners()) {
+                listener.onEvents(events);
+            }
+        } catch (Exception e) {
+            retryOrDeadLetter(decoded, e);
+            return;
+        }
+        store.delivered(decoded);
+        delivered.add(decoded.size());
+    }
+
+    private void retryOrDeadLetter(List<OutboxMessage> lane, Exception cause) {
+        List<OutboxMessage> retry = new ArrayList<>(lane.size());
+        List<OutboxMessage> exhausted = new ArrayList<>();
+        int attempts = 0;
+        for (OutboxMessage message : lane) {
+            if (message.getAttempts() + 1 >= maxAttempts) {
+                exhausted.add(message);
+            } else {
+                retry.add(message);
+                attempts = Math.max(attempts, message.getAttempts());
+            }
+        }
+        failed.add(lane.size());
+        if (!exhausted.isEmpty()) {
+            logger.error("Outbox events failed {} times, moved to dead letters: {}", maxAttempts, exhausted, cause);
+            deadLetter(exhausted);
+        }
+        if (!retry.isEmpty()) {
+            long delay = Math.min(maxRetryDelayMillis, retryDelayMillis << Math.min(attempts, 20));
+            logger.warn("Failed to deliver {} outbox events, retrying in {} ms, first: {}",
+                retry.size(), delay, retry.get(0), cause);
+            store.retryLater(retry, System.currentTimeMillis() + delay);
+        }
+    }
+
+    private void deadLetter(List<OutboxMessage> messages) {
+        store.deadLetter(messages);
+        deadLettered.add(messages.size());
+    }
+
+    private List<OutboxListener> getListeners() {
+        List<OutboxListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = listenerSupplier.get();
+            listeners = resolved;
+        }
+        return resolved;
+    }
+}
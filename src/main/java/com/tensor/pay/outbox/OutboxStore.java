@@ -0,0 +1,67 @@
+package com.tensor.pay.outbox;
+
+import com.tensor.pay.event.PaymentEvent;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 发件箱存储
+ *
+ * 业务代码把状态变化与业务数据写在同一个事务里，{@link OutboxRelay} 在后台批量取出投递，
+ * 投递成功后删除，失败时按退避时间重新投递，多次失败后转入死信。多个节点可以共用一个存储，取出时加租约避免重复投递。
+ * 同一订单的事件严格按写入顺序投递：订单还有更早的未投递事件（无论是否到期、是否在租约中）时，后面的事件不会被取出。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public interface OutboxStore {
+
+    /**
+     * 写入一条事件，在存储自己的事务中提交
+     *
+     * @param event 支付事件
+     */
+    void append(PaymentEvent event);
+
+    /**
+     * 取出到期的事件并加租约，租约期内其他投递者取不到这些事件
+     *
+     * 每个订单只取出最早的一条未投递事件，且该事件已到期；没有订单号的事件不受此限制。
+     *
+     * @param limit 最多取出的数量
+     * @param lease 租约时长，投递者在租约到期前没有确认的事件会被重新投递
+     * @return 按写入顺序排列的事件
+     */
+    List<OutboxMessage> claim(int limit, Duration lease);
+
+    /**
+     * 确认事件已投递，从存储中删除
+     */
+    void delivered(List<OutboxMessage> messages);
+
+    /**
+     * 投递失败，失败次数加一并在指定时间后重新投递
+     *
+     * @param messages 投递失败的事件
+     * @param nextAttemptAtMillis 下次投递时间（epoch毫秒）
+     */
+    void retryLater(List<OutboxMessage> messages, long nextAttemptAtMillis);
+
+    /**
+     * 投递失败次数达到上限，失败次数加一并转入死信，保留在存储中等待人工处理
+     *
+     * @param messages 转入死信的事件
+     */
+    void deadLetter(List<OutboxMessage> messages);
+
+    /**
+     * 尚未投递的事件数量，包括租约中的事件，不包括死信
+     */
+    long countPending();
+
+    /**
+     * 死信数量
+     */
+    long countDeadLetters();
+}
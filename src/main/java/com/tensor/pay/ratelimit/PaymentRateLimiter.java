@@ -0,0 +1,209 @@
+package com.tensor.pay.ratelimit;
+
+import com.tensor.pay.config.RateLimitProperties;
+import com.tensor.pay.enums.PaymentOperation;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.utils.Deadline;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 渠道限流器
+ *
+ * 按渠道、商户和操作类型限制调用网关的速率，让调用量保持在网关配额以内，
+ * 而不是等网关返回限流错误后再重试。每次调用匹配最具体的一条规则（指定商户优先于指定操作），
+ * 没有匹配的规则时不限流。规则未指定商户时每个商户各自使用一个令牌桶，与网关按应用计算配额的方式一致。
+ * 商户号来自调用方，令牌桶数量有上限：达到上限时先清理已补满的令牌桶，仍然没有空间时新出现的商户共用一个令牌桶。
+ * 清理掉的令牌桶的放行、拒绝和等待计数累加到所属规则的汇总项中，监控数据不会因清理而回退。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentRateLimiter {
+
+    private static final String DEFAULT_MERCHANT = "-";
+    private static final String ANY_OPERATION = "*";
+    private static final String OVERFLOW_MERCHANT = "~overflow";
+    private static final String SWEPT_MERCHANT = "~swept";
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<PaymentType, List<RateLimitProperties.Rule>> rules = new EnumMap<>(PaymentType.class);
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SweptTotals> swept = new ConcurrentHashMap<>();
+    private final int maxBuckets;
+    private volatile long lastSweep = System.nanoTime() - SWEEP_INTERVAL_NANOS;
+
+    public PaymentRateLimiter(RateLimitProperties properties) {
+        this.maxBuckets = Math.max(1, properties.getMaxBuckets());
+        for (PaymentType type : PaymentType.values()) {
+            rules.put(type, new ArrayList<>());
+        }
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            if (rule.getPaymentType() == null) {
+                throw new IllegalArgumentException("Rate limit rule requires paymentType");
+            }
+            rules.get(rule.getPaymentType()).add(rule);
+        }
+        Comparator<RateLimitProperties.Rule> specificity = Comparator.comparingInt(PaymentRateLimiter::specificity);
+        rules.values().forEach(list -> list.sort(specificity.reversed()));
+    }
+
+    /**
+     * 取得一次调用配额，配额不足且等待超时时抛出异常
+     *
+     * 排队等待不会超过当前请求的截止时间，等不到配额的请求立即拒绝。
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户号，为空表示默认商户
+     * @param operation 操作类型
+     * @throws PaymentException 超出限流配额
+     */
+    public void acquire(PaymentType paymentType, String merchantId, PaymentOperation operation) {
+        if (!await(paymentType, merchantId, operation)) {
+            throw PaymentException.businessError("RATE_LIMITED",
+                "超出渠道调用频率限制: " + paymentType + "/" + operation.getCode());
+        }
+    }
+
+    /**
+     * 取得一次调用配额，配额不足时排队等待，等待不超过规则的最长等待时间和当前请求的截止时间
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户号，为空表示默认商户
+     * @param operation 操作类型
+     * @return 是否取得配额，没有匹配的规则时返回true
+     */
+    public boolean await(PaymentType paymentType, String merchantId, PaymentOperation operation) {
+        TokenBucket bucket = bucketFor(paymentType, merchantId, operation);
+        if (bucket == null) {
+            return true;
+        }
+        Deadline deadline = Deadline.current();
+        return deadline == null ? bucket.tryAcquire() : bucket.tryAcquire(deadline.remainingNanos());
+    }
+
+    /**
+     * 不等待地尝试取得一次调用配额，用于可以放弃的附加调用
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户号，为空表示默认商户
+     * @param operation 操作类型
+     * @return 是否取得配额，没有匹配的规则时返回true
+     */
+    public boolean tryAcquire(PaymentType paymentType, String merchantId, PaymentOperation operation) {
+        TokenBucket bucket = bucketFor(paymentType, merchantId, operation);
+        return bucket == null || bucket.tryAcquire(0);
+    }
+
+    /**
+     * 导出各令牌桶的状态，用于监控
+     *
+     * 商户号为 {@code ~swept} 的项是该规则下已清理的令牌桶的累计计数。
+     *
+     * @return 令牌桶状态列表
+     */
+    public List<RateLimitStats> getStats() {
+        List<RateLimitStats> stats = new ArrayList<>(buckets.size() + swept.size());
+        buckets.forEach((key, bucket) -> stats.add(new RateLimitStats(key, bucket)));
+        swept.forEach((key, totals) -> stats.add(new RateLimitStats(key, totals.permitsPerSecond, totals.burst,
+            totals.acquired.sum(), totals.rejected.sum(), totals.waitedNanos.sum())));
+        stats.sort(Comparator.comparing(RateLimitStats::getKey));
+        return stats;
+    }
+
+    private TokenBucket bucketFor(PaymentType paymentType, String merchantId, PaymentOperation operation) {
+        List<RateLimitProperties.Rule> candidates = rules.get(paymentType);
+        for (int i = 0; i < candidates.size(); i++) {
+            RateLimitProperties.Rule rule = candidates.get(i);
+            if (rule.getMerchantId() != null && !rule.getMerchantId().equals(merchantId)) {
+                continue;
+            }
+            if (rule.getOperation() != null && rule.getOperation() != operation) {
+                continue;
+            }
+            String key = bucketKey(paymentType, merchantId == null ? DEFAULT_MERCHANT : merchantId, rule, i);
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxBuckets && !sweep()) {
+                    key = bucketKey(paymentType, OVERFLOW_MERCHANT, rule, i);
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(rule.getPermitsPerSecond(),
+                    rule.getBurst(), rule.getMaxWait().toNanos()));
+            }
+            return bucket;
+        }
+        return null;
+    }
+
+    private static String bucketKey(PaymentType paymentType, String merchantId, RateLimitProperties.Rule rule,
+                                    int index) {
+        return paymentType.name() + ':' + merchantId + ':'
+            + (rule.getOperation() == null ? ANY_OPERATION : rule.getOperation().getCode()) + '#' + index;
+    }
+
+    /**
+     * 清理已补满的令牌桶，最多每秒执行一次
+     *
+     * @return 清理后是否有空间创建新的令牌桶
+     */
+    private boolean sweep() {
+        long now = System.nanoTime();
+        long last = lastSweep;
+        if (now - last >= SWEEP_INTERVAL_NANOS) {
+            synchronized (buckets) {
+                if (lastSweep == last) {
+                    lastSweep = now;
+                    buckets.entrySet().removeIf(entry -> {
+                        if (!entry.getValue().isFull(now)) {
+                            return false;
+                        }
+                        fold(entry.getKey(), entry.getValue());
+                        return true;
+                    });
+                }
+            }
+        }
+        return buckets.size() < maxBuckets;
+    }
+
+    /**
+     * 把清理的令牌桶的计数累加到所属规则的汇总项，桶标识中渠道在第一个冒号前，操作和规则序号在最后一个冒号后
+     */
+    private void fold(String key, TokenBucket bucket) {
+        String sweptKey = key.substring(0, key.indexOf(':') + 1) + SWEPT_MERCHANT + key.substring(key.lastIndexOf(':'));
+        SweptTotals totals = swept.computeIfAbsent(sweptKey,
+            k -> new SweptTotals(bucket.getPermitsPerSecond(), bucket.getBurst()));
+        totals.acquired.add(bucket.getAcquired());
+        totals.rejected.add(bucket.getRejected());
+        totals.waitedNanos.add(bucket.getWaitedNanos());
+    }
+
+    private static int specificity(RateLimitProperties.Rule rule) {
+        return (rule.getMerchantId() != null ? 2 : 0) + (rule.getOperation() != null ? 1 : 0);
+    }
+
+    /**
+     * 一条规则下已清理的令牌桶的累计计数
+     */
+    private static final class SweptTotals {
+
+        private final double permitsPerSecond;
+        private final int burst;
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder waitedNanos = new LongAdder();
+
+        private SweptTotals(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tensor.pay.ratelimit;
+
+/**
+ * 令牌桶状态快照
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class RateLimitStats {
+
+    private final String key;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int available;
+    private final long acquired;
+    private final long rejected;
+    private final long waitedMillis;
+
+    RateLimitStats(String key, TokenBucket bucket) {
+        this.key = key;
+        this.permitsPerSecond = bucket.getPermitsPerSecond();
+        this.burst = bucket.getBurst();
+        this.available = bucket.available();
+        this.acquired = bucket.getAcquired();
+        this.rejected = bucket.getRejected();
+        this.waitedMillis = bucket.getWaitedNanos() / 1_000_000;
+    }
+
+    /**
+     * 已清理的令牌桶的汇总项，没有可取用的令牌
+     */
+    RateLimitStats(String key, double permitsPerSecond, int burst, long acquired, long rejected, long waitedNanos) {
+        this.key = key;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.available = 0;
+        this.acquired = acquired;
+        this.rejected = rejected;
+        this.waitedMillis = waitedNanos / 1_000_000;
+    }
+
+    /**
+     * 令牌桶标识：渠道:商户号:操作#规则序号，商户号为 {@code ~swept} 时是已清理令牌桶的汇总
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * 当前可立即取用的令牌数
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * 累计放行次数
+     */
+    public long getAcquired() {
+        return acquired;
+    }
+
+    /**
+     * 累计拒绝次数
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * 累计排队等待时间（毫秒）
+     */
+    public long getWaitedMillis() {
+        return waitedMillis;
+    }
+}
@@ -0,0 +1,155 @@
+package com.tensor.pay.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁令牌桶
+ *
+ * 按GCRA（虚拟调度）算法实现：只保存下一个令牌的理论发放时间，取令牌就是对这个时间做一次CAS推进，
+ * 不需要后台补充线程，也不持有锁。效果与容量为 burst、速率为 permitsPerSecond 的令牌桶相同。
+ * 配额不足时可以预约后续的令牌并在调用线程中等待，预约按CAS成功的先后排队，
+ * 需要等待的时间超过 maxWait 时立即拒绝，不占用配额。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class TokenBucket {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final long maxWaitNanos;
+    private final AtomicLong nextFreeNanos;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+
+    /**
+     * @param permitsPerSecond 每秒发放的令牌数
+     * @param burst 桶容量，即允许的突发调用次数
+     * @param maxWaitNanos 配额不足时最多等待的纳秒数，为0时立即拒绝
+     */
+    public TokenBucket(double permitsPerSecond, int burst, long maxWaitNanos) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (this.burst - 1);
+        this.maxWaitNanos = Math.max(0, maxWaitNanos);
+        this.nextFreeNanos = new AtomicLong(System.nanoTime() - toleranceNanos);
+    }
+
+    /**
+     * 取一个令牌，配额不足时最多等待 maxWait
+     *
+     * @return 是否取到令牌
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(maxWaitNanos);
+    }
+
+    /**
+     * 取一个令牌，配额不足时最多等待 maxWait 与指定时间中较短的一个
+     *
+     * @param waitLimitNanos 调用方能接受的最长等待时间，通常是请求的剩余时间
+     * @return 是否取到令牌
+     */
+    public boolean tryAcquire(long waitLimitNanos) {
+        long waitNanos = reserve(System.nanoTime(), Math.min(maxWaitNanos, waitLimitNanos));
+        if (waitNanos < 0) {
+            rejected.increment();
+            return false;
+        }
+        acquired.increment();
+        if (waitNanos > 0) {
+            waitedNanos.add(waitNanos);
+            sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * 预约一个令牌
+     *
+     * @param now 当前时间
+     * @return 需要等待的纳秒数，超过最长等待时间时返回-1
+     */
+    long reserve(long now) {
+        return reserve(now, maxWaitNanos);
+    }
+
+    private long reserve(long now, long waitLimitNanos) {
+        while (true) {
+            long next = nextFreeNanos.get();
+            long start = Math.max(next, now - toleranceNanos);
+            long waitNanos = start - now;
+            if (waitNanos > waitLimitNanos) {
+                return -1;
+            }
+            if (nextFreeNanos.compareAndSet(next, start + intervalNanos)) {
+                return Math.max(0, waitNanos);
+            }
+        }
+    }
+
+    /**
+     * 令牌是否已经补满，补满的令牌桶与新建的令牌桶等价
+     *
+     * @param now 当前时间
+     */
+    boolean isFull(long now) {
+        return nextFreeNanos.get() <= now - toleranceNanos;
+    }
+
+    /**
+     * 当前可以立即取用的令牌数
+     */
+    public int available() {
+        long now = System.nanoTime();
+        long start = Math.max(nextFreeNanos.get(), now - toleranceNanos);
+        if (start > now) {
+            return 0;
+        }
+        return (int) Math.min(burst, (now - start) / intervalNanos + 1);
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getWaitedNanos() {
+        return waitedNanos.sum();
+    }
+
+    private static void sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
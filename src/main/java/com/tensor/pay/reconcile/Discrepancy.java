@@ -0,0 +1,100 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.PaymentStatus;
+
+/**
+ * 对账差异
+ * 只有出现差异的记录才会创建该对象
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class Discrepancy {
+    
+    /**
+     * 差异类型
+     */
+    private final DiscrepancyType type;
+    
+    /**
+     * 商户订单号
+     */
+    private final String outTradeNo;
+    
+    /**
+     * 本地金额（单位：分），本地不存在时为-1
+     */
+    private final long localAmount;
+    
+    /**
+     * 对账单金额（单位：分），对账单中不存在时为-1
+     */
+    private final long statementAmount;
+    
+    /**
+     * 本地状态
+     */
+    private final PaymentStatus localStatus;
+    
+    /**
+     * 对账单状态
+     */
+    private final PaymentStatus statementStatus;
+    
+    /**
+     * 对账单中该行的起始字节位置，对账单中不存在时为-1
+     */
+    private final long position;
+    
+    public Discrepancy(DiscrepancyType type, String outTradeNo, long localAmount, long statementAmount,
+                       PaymentStatus localStatus, PaymentStatus statementStatus, long position) {
+        this.type = type;
+        this.outTradeNo = outTradeNo;
+        this.localAmount = localAmount;
+        this.statementAmount = statementAmount;
+        this.localStatus = localStatus;
+        this.statementStatus = statementStatus;
+        this.position = position;
+    }
+    
+    public DiscrepancyType getType() {
+        return type;
+    }
+    
+    public String getOutTradeNo() {
+        return outTradeNo;
+    }
+    
+    public long getLocalAmount() {
+        return localAmount;
+    }
+    
+    public long getStatementAmount() {
+        return statementAmount;
+    }
+    
+    public PaymentStatus getLocalStatus() {
+        return localStatus;
+    }
+    
+    public PaymentStatus getStatementStatus() {
+        return statementStatus;
+    }
+    
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public String toString() {
+        return "Discrepancy{" +
+                "type=" + type +
+                ", outTradeNo='" + outTradeNo + '\'' +
+                ", localAmount=" + localAmount +
+                ", statementAmount=" + statementAmount +
+                ", localStatus=" + localStatus +
+                ", statementStatus=" + statementStatus +
+                ", position=" + position +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package com.tensor.pay.reconcile;
+
+/**
+ * 对账差异监听器，差异在扫描过程中逐条回调
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface DiscrepancyListener {
+    
+    /**
+     * 发现一条对账差异
+     * 
+     * @param discrepancy 对账差异
+     */
+    void onDiscrepancy(Discrepancy discrepancy);
+}
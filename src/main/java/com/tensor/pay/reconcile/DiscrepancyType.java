@@ -0,0 +1,30 @@
+package com.tensor.pay.reconcile;
+
+/**
+ * 对账差异类型
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public enum DiscrepancyType {
+    
+    /**
+     * 对账单中存在，本地订单中不存在
+     */
+    MISSING_LOCAL,
+    
+    /**
+     * 本地订单中存在，对账单中不存在
+     */
+    MISSING_IN_STATEMENT,
+    
+    /**
+     * 金额不一致
+     */
+    AMOUNT_MISMATCH,
+    
+    /**
+     * 状态不一致
+     */
+    STATUS_MISMATCH
+}
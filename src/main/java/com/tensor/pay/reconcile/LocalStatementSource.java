@@ -0,0 +1,36 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 本地目录对账单来源
+ * 按 {支付类型}_{yyyyMMdd}.csv 命名读取已下载好的对账单
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class LocalStatementSource implements StatementSource {
+    
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    private final Path directory;
+    
+    public LocalStatementSource(Path directory) {
+        this.directory = directory;
+    }
+    
+    @Override
+    public Path fetch(PaymentType paymentType, LocalDate billDate) {
+        Path file = directory.resolve(paymentType.getCode() + "_" + billDate.format(DATE_FORMATTER) + ".csv");
+        if (!Files.isReadable(file)) {
+            throw new PaymentException("STATEMENT_NOT_FOUND", "对账单不存在: " + file);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,188 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.model.PaymentResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 对账用的本地订单索引
+ *
+ * 订单号以UTF-8字节连续存放在一个字节池中，配合64位哈希做开放寻址，
+ * 可以直接用对账单缓冲区中的字节片段查找，不需要为每行创建String。
+ * 索引构建完成后只读，可被多个对账线程共享。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderIndex {
+
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private long[] hashes;
+    private int[] slots;
+    private int size;
+
+    private byte[] keyPool;
+    private int keyPoolSize;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private long[] amounts;
+    private byte[] statuses;
+
+    /**
+     * @param expectedOrders 预计订单数量
+     */
+    public OrderIndex(int expectedOrders) {
+        int entries = Math.max(16, expectedOrders);
+        int capacity = Integer.highestOneBit(Math.max(2, entries * 2 - 1)) << 1;
+        this.hashes = new long[capacity];
+        this.slots = new int[capacity];
+        this.keyPool = new byte[entries * 24];
+        this.keyOffsets = new int[entries];
+        this.keyLengths = new int[entries];
+        this.amounts = new long[entries];
+        this.statuses = new byte[entries];
+    }
+
+    /**
+     * 添加支付响应记录，优先使用实付金额
+     *
+     * @param response 支付响应
+     */
+    public void add(PaymentResponse response) {
+        long amount = response.getPaidAmountMinor() != PaymentResponse.NO_AMOUNT
+            ? response.getPaidAmountMinor() : response.getAmountMinor();
+        add(response.getOutTradeNo(), amount == PaymentResponse.NO_AMOUNT ? 0 : amount,
+            response.getStatus() != null ? response.getStatus() : PaymentStatus.PENDING);
+    }
+
+    /**
+     * 添加订单，订单号重复时覆盖
+     *
+     * @param outTradeNo 商户订单号
+     * @param amount 金额（单位：分）
+     * @param status 支付状态
+     */
+    public void add(String outTradeNo, long amount, PaymentStatus status) {
+        byte[] key = outTradeNo.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key, 0, key.length);
+        int existing = find(hash, key, 0, key.length);
+        if (existing >= 0) {
+            amounts[existing] = amount;
+            statuses[existing] = (byte) status.ordinal();
+            return;
+        }
+
+        if ((size + 1) * 2 > hashes.length) {
+            rehash(hashes.length << 1);
+        }
+        if (size == amounts.length) {
+            int grown = size + (size >> 1) + 1;
+            keyOffsets = Arrays.copyOf(keyOffsets, grown);
+            keyLengths = Arrays.copyOf(keyLengths, grown);
+            amounts = Arrays.copyOf(amounts, grown);
+            statuses = Arrays.copyOf(statuses, grown);
+        }
+        if (keyPoolSize + key.length > keyPool.length) {
+            keyPool = Arrays.copyOf(keyPool, Math.max(keyPool.length << 1, keyPoolSize + key.length));
+        }
+
+        int slot = size++;
+        System.arraycopy(key, 0, keyPool, keyPoolSize, key.length);
+        keyOffsets[slot] = keyPoolSize;
+        keyLengths[slot] = key.length;
+        keyPoolSize += key.length;
+        amounts[slot] = amount;
+        statuses[slot] = (byte) status.ordinal();
+        insert(hash, slot);
+    }
+
+    /**
+     * 按字节片段查找订单
+     *
+     * @param buffer 缓冲区
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 订单槽位，不存在时返回-1
+     */
+    public int find(byte[] buffer, int offset, int length) {
+        return find(hash(buffer, offset, length), buffer, offset, length);
+    }
+
+    /**
+     * 订单数量，槽位取值范围为 [0, size)
+     *
+     * @return 订单数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public long amountAt(int slot) {
+        return amounts[slot];
+    }
+
+    public PaymentStatus statusAt(int slot) {
+        return STATUSES[statuses[slot]];
+    }
+
+    public String outTradeNoAt(int slot) {
+        return new String(keyPool, keyOffsets[slot], keyLengths[slot], StandardCharsets.UTF_8);
+    }
+
+    private int find(long hash, byte[] buffer, int offset, int length) {
+        int mask = hashes.length - 1;
+        int index = (int) hash & mask;
+        while (hashes[index] != 0) {
+            if (hashes[index] == hash) {
+                int slot = slots[index];
+                if (keyLengths[slot] == length
+                        && Arrays.equals(keyPool, keyOffsets[slot], keyOffsets[slot] + length,
+                            buffer, offset, offset + length)) {
+                    return slot;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long hash, int slot) {
+        int mask = hashes.length - 1;
+        int index = (int) hash & mask;
+        while (hashes[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        hashes[index] = hash;
+        slots[index] = slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldHashes = hashes;
+        int[] oldSlots = slots;
+        hashes = new long[capacity];
+        slots = new int[capacity];
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                insert(oldHashes[i], oldSlots[i]);
+            }
+        }
+    }
+
+    /**
+     * 字节片段的64位哈希，0保留为空槽标记
+     */
+    static long hash(byte[] buffer, int offset, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h ^= buffer[i];
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
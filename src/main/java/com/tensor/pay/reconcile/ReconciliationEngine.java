@@ -0,0 +1,227 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.exception.PaymentException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 对账引擎
+ * 以固定大小的缓冲区流式读取对账单，内存占用与文件大小无关，差异通过监听器逐条输出。
+ *
+ * 配置了 {@link ForkJoinPool} 时，大文件按行边界切分为多个字节区间并行比对，
+ * 每个分片持有自己的读缓冲区、命中位图和统计结果，全部完成后再合并；
+ * 此时差异监听器会被多个线程同时调用，需要自行保证线程安全。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ReconciliationEngine {
+
+    /**
+     * 查找页脚时从文件末尾回读的字节数
+     */
+    private static final int FOOTER_SEARCH_BYTES = 64 * 1024;
+
+    private final int bufferSize;
+    private final ForkJoinPool pool;
+    private final long minShardSize;
+
+    /**
+     * @param bufferSize 读缓冲区大小（字节），需大于对账单最长的一行
+     */
+    public ReconciliationEngine(int bufferSize) {
+        this(bufferSize, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param bufferSize 每个分片的读缓冲区大小（字节），需大于对账单最长的一行
+     * @param pool 并行比对使用的线程池，为null时顺序比对
+     * @param minShardSize 每个分片的最小字节数，小于两个分片大小的文件顺序比对
+     */
+    public ReconciliationEngine(int bufferSize, ForkJoinPool pool, long minShardSize) {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("bufferSize must be at least 1024 bytes");
+        }
+        this.bufferSize = bufferSize;
+        this.pool = pool;
+        this.minShardSize = Math.max(bufferSize, minShardSize);
+    }
+
+    /**
+     * 对账
+     *
+     * @param statement 对账单文件
+     * @param format 对账单格式
+     * @param orderIndex 本地订单索引
+     * @param listener 差异监听器
+     * @return 对账结果
+     */
+    public ReconciliationResult reconcile(Path statement, StatementFormat format,
+                                          OrderIndex orderIndex, DiscrepancyListener listener) {
+        try (FileChannel channel = FileChannel.open(statement, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int shards = pool == null ? 1 : (int) Math.min(pool.getParallelism(), size / minShardSize);
+
+            StatementScanner scanner;
+            if (shards <= 1) {
+                scanner = new StatementScanner(format, orderIndex, listener, bufferSize);
+                scanner.scan(channel, 0, size, true);
+            } else {
+                scanner = scanShards(channel, split(channel, format, shards), format, orderIndex, listener);
+            }
+            scanner.reportMissingInStatement();
+            return scanner.getResult();
+        } catch (IOException e) {
+            throw new PaymentException("RECONCILE_ERROR", "读取对账单失败: " + statement, e);
+        }
+    }
+
+    private StatementScanner scanShards(FileChannel channel, long[] boundaries, StatementFormat format,
+                                        OrderIndex orderIndex, DiscrepancyListener listener) throws IOException {
+        List<ShardTask> tasks = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            if (boundaries[i] < boundaries[i + 1]) {
+                StatementScanner scanner = new StatementScanner(format, orderIndex, listener, bufferSize);
+                tasks.add(new ShardTask(scanner, channel, boundaries[i], boundaries[i + 1], i == 0));
+            }
+        }
+
+        try {
+            pool.submit(() -> ForkJoinTask.invokeAll(tasks)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reconciliation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Reconciliation shard failed", cause);
+        }
+
+        StatementScanner merged = tasks.get(0).join();
+        for (int i = 1; i < tasks.size(); i++) {
+            merged.merge(tasks.get(i).join());
+        }
+        return merged;
+    }
+
+    /**
+     * 把文件切分为若干区间，每个区间的起点都是行首；有页脚时明细在页脚处截止
+     *
+     * @return 区间边界，长度为分片数+1
+     */
+    private long[] split(FileChannel channel, StatementFormat format, int shards) throws IOException {
+        long end = findFooter(channel, format);
+        long[] boundaries = new long[shards + 1];
+        boundaries[shards] = end;
+        ByteBuffer probe = ByteBuffer.allocate(Math.min(bufferSize, 64 * 1024));
+        for (int i = 1; i < shards; i++) {
+            long candidate = Math.max(boundaries[i - 1], end * i / shards);
+            boundaries[i] = nextLineStart(channel, candidate, end, probe);
+        }
+        return boundaries;
+    }
+
+    /**
+     * 从指定位置向后找到下一行的行首
+     */
+    private long nextLineStart(FileChannel channel, long position, long end, ByteBuffer probe) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        // 从前一个字节开始找，position本身恰好是行首时保持不变
+        long offset = position - 1;
+        while (offset < end) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return Math.min(end, offset + i + 1);
+                }
+            }
+            offset += read;
+        }
+        return end;
+    }
+
+    /**
+     * 在文件末尾查找页脚行的起点，没有页脚时返回文件大小
+     */
+    private long findFooter(FileChannel channel, StatementFormat format) throws IOException {
+        long size = channel.size();
+        byte[] footer = format.footerBytes();
+        if (footer == null) {
+            return size;
+        }
+
+        long start = Math.max(0, size - FOOTER_SEARCH_BYTES);
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - start));
+        // 读满末尾区域，直到文件结束
+        int read;
+        do {
+            read = channel.read(tail, start + tail.position());
+        } while (read > 0 && tail.hasRemaining());
+        byte[] bytes = tail.array();
+        for (int i = 0; i + footer.length <= tail.position(); i++) {
+            if ((i == 0 ? start == 0 : bytes[i - 1] == '\n') && matches(bytes, i, footer)) {
+                return start + i;
+            }
+        }
+        return size;
+    }
+
+    private static boolean matches(byte[] bytes, int offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单个分片的比对任务
+     */
+    private static final class ShardTask extends RecursiveTask<StatementScanner> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final StatementScanner scanner;
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final boolean first;
+
+        ShardTask(StatementScanner scanner, FileChannel channel, long start, long end, boolean first) {
+            this.scanner = scanner;
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.first = first;
+        }
+
+        @Override
+        protected StatementScanner compute() {
+            try {
+                scanner.scan(channel, start, end, first);
+                return scanner;
+            } catch (IOException e) {
+                throw new PaymentException("RECONCILE_ERROR", "读取对账单分片失败: " + start + "-" + end, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.tensor.pay.reconcile;
+
+/**
+ * 对账结果汇总
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ReconciliationResult {
+    
+    /**
+     * 对账单数据行数
+     */
+    private long rows;
+    
+    /**
+     * 完全一致的行数
+     */
+    private long matched;
+    
+    /**
+     * 无法解析的行数
+     */
+    private long malformedRows;
+    
+    /**
+     * 本地缺失数
+     */
+    private long missingLocal;
+    
+    /**
+     * 对账单缺失数
+     */
+    private long missingInStatement;
+    
+    /**
+     * 金额不一致数
+     */
+    private long amountMismatches;
+    
+    /**
+     * 状态不一致数
+     */
+    private long statusMismatches;
+    
+    /**
+     * 对账单金额合计（单位：分）
+     */
+    private long statementTotalAmount;
+    
+    void count(DiscrepancyType type) {
+        switch (type) {
+            case MISSING_LOCAL -> missingLocal++;
+            case MISSING_IN_STATEMENT -> missingInStatement++;
+            case AMOUNT_MISMATCH -> amountMismatches++;
+            case STATUS_MISMATCH -> statusMismatches++;
+        }
+    }
+    
+    void countRow(long amount, boolean consistent) {
+        rows++;
+        statementTotalAmount += amount;
+        if (consistent) {
+            matched++;
+        }
+    }
+    
+    void countMalformed() {
+        malformedRows++;
+    }
+    
+    void merge(ReconciliationResult other) {
+        rows += other.rows;
+        matched += other.matched;
+        malformedRows += other.malformedRows;
+        missingLocal += other.missingLocal;
+        missingInStatement += other.missingInStatement;
+        amountMismatches += other.amountMismatches;
+        statusMismatches += other.statusMismatches;
+        statementTotalAmount += other.statementTotalAmount;
+    }
+    
+    /**
+     * 是否没有任何差异
+     * 
+     * @return 是否一致
+     */
+    public boolean isBalanced() {
+        return missingLocal == 0 && missingInStatement == 0 && amountMismatches == 0 && statusMismatches == 0;
+    }
+    
+    public long getRows() {
+        return rows;
+    }
+    
+    public long getMatched() {
+        return matched;
+    }
+    
+    public long getMalformedRows() {
+        return malformedRows;
+    }
+    
+    public long getMissingLocal() {
+        return missingLocal;
+    }
+    
+    public long getMissingInStatement() {
+        return missingInStatement;
+    }
+    
+    public long getAmountMismatches() {
+        return amountMismatches;
+    }
+    
+    public long getStatusMismatches() {
+        return statusMismatches;
+    }
+    
+    public long getStatementTotalAmount() {
+        return statementTotalAmount;
+    }
+    
+    @Override
+    public String toString() {
+        return "ReconciliationResult{" +
+                "rows=" + rows +
+                ", matched=" + matched +
+                ", malformedRows=" + malformedRows +
+                ", missingLocal=" + missingLocal +
+                ", missingInStatement=" + missingInStatement +
+                ", amountMismatches=" + amountMismatches +
+                ", statusMismatches=" + statusMismatches +
+                ", statementTotalAmount=" + statementTotalAmount +
+                '}';
+    }
+}
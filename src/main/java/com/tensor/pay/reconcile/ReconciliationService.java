@@ -0,0 +1,69 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 对账服务
+ * 获取指定渠道、日期的对账单，按渠道格式与本地订单比对
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ReconciliationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+    
+    private final ReconciliationEngine engine;
+    private final StatementSource statementSource;
+    private final Map<PaymentType, StatementFormat> formats = new EnumMap<>(PaymentType.class);
+    
+    public ReconciliationService(ReconciliationEngine engine, StatementSource statementSource) {
+        this.engine = engine;
+        this.statementSource = statementSource;
+        formats.put(PaymentType.WECHAT, StatementFormat.wechat());
+        formats.put(PaymentType.ALIPAY, StatementFormat.alipay());
+        formats.put(PaymentType.BANK, StatementFormat.bank());
+    }
+    
+    /**
+     * 注册或替换渠道的对账单格式
+     * 
+     * @param paymentType 支付类型
+     * @param format 对账单格式
+     */
+    public void registerFormat(PaymentType paymentType, StatementFormat format) {
+        formats.put(paymentType, format);
+    }
+    
+    /**
+     * 对账
+     * 
+     * @param paymentType 支付类型
+     * @param billDate 账单日期
+     * @param orderIndex 本地订单索引
+     * @param listener 差异监听器
+     * @return 对账结果
+     */
+    public ReconciliationResult reconcile(PaymentType paymentType, LocalDate billDate,
+                                          OrderIndex orderIndex, DiscrepancyListener listener) {
+        StatementFormat format = formats.get(paymentType);
+        if (format == null) {
+            throw new PaymentException("UNSUPPORTED_PAYMENT_TYPE", "不支持的对账渠道: " + paymentType);
+        }
+        
+        Path statement = statementSource.fetch(paymentType, billDate);
+        long start = System.currentTimeMillis();
+        ReconciliationResult result = engine.reconcile(statement, format, orderIndex, listener);
+        logger.info("Reconciliation finished: {} {}, cost {} ms, {}", paymentType, billDate,
+            System.currentTimeMillis() - start, result);
+        return result;
+    }
+}
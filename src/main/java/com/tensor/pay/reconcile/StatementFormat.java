@@ -0,0 +1,233 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.ChannelStatusCodec;
+import com.tensor.pay.enums.PaymentStatus;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对账单文件格式
+ * 描述分隔符、需要跳过的行、各字段所在的列以及渠道状态到内部状态的映射
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class StatementFormat {
+
+    /**
+     * 文件编码，仅用于匹配页脚前缀；订单号、金额和状态按ASCII解析
+     */
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * 字段分隔符
+     */
+    private char delimiter = ',';
+
+    /**
+     * 需要从字段两端剥离的引用字符（如微信账单的反引号），0表示没有
+     */
+    private char quote = 0;
+
+    /**
+     * 注释行前缀，0表示没有
+     */
+    private char commentPrefix = 0;
+
+    /**
+     * 文件开头需要跳过的行数（表头）
+     */
+    private int headerLines = 1;
+
+    /**
+     * 以该前缀开头的行表示明细结束（如微信账单的汇总行），为空表示读到文件末尾
+     */
+    private String footerPrefix;
+
+    /**
+     * 商户订单号所在列（从0开始）
+     */
+    private int outTradeNoColumn;
+
+    /**
+     * 金额所在列（单位：元）
+     */
+    private int amountColumn;
+
+    /**
+     * 交易状态所在列，-1表示对账单不含状态
+     */
+    private int statusColumn = -1;
+
+    /**
+     * 对账单不含状态时使用的默认状态
+     */
+    private PaymentStatus defaultStatus = PaymentStatus.SUCCESS;
+
+    /**
+     * 渠道状态到内部状态的映射（忽略大小写）
+     */
+    private Map<String, PaymentStatus> statusMapping = new LinkedHashMap<>();
+
+    /**
+     * 微信支付交易账单
+     */
+    public static StatementFormat wechat() {
+        StatementFormat format = new StatementFormat();
+        format.setQuote('`');
+        format.setFooterPrefix("总交易单数");
+        format.setOutTradeNoColumn(6);
+        format.setStatusColumn(9);
+        format.setAmountColumn(12);
+        format.getStatusMapping().put("SUCCESS", PaymentStatus.SUCCESS);
+        format.getStatusMapping().put("REFUND", PaymentStatus.REFUNDED);
+        format.getStatusMapping().put("NOTPAY", PaymentStatus.PENDING);
+        format.getStatusMapping().put("USERPAYING", PaymentStatus.PROCESSING);
+        format.getStatusMapping().put("CLOSED", PaymentStatus.CANCELLED);
+        format.getStatusMapping().put("REVOKED", PaymentStatus.CANCELLED);
+        format.getStatusMapping().put("PAYERROR", PaymentStatus.FAILED);
+        return format;
+    }
+
+    /**
+     * 支付宝业务明细账单，明细中均为成功交易
+     */
+    public static StatementFormat alipay() {
+        StatementFormat format = new StatementFormat();
+        format.setCharset(Charset.forName("GBK"));
+        format.setCommentPrefix('#');
+        format.setOutTradeNoColumn(1);
+        format.setAmountColumn(11);
+        return format;
+    }
+
+    /**
+     * 银行对账单：商户订单号,金额,状态
+     */
+    public static StatementFormat bank() {
+        StatementFormat format = new StatementFormat();
+        format.setOutTradeNoColumn(0);
+        format.setAmountColumn(1);
+        format.setStatusColumn(2);
+        format.getStatusMapping().put("SUCCESS", PaymentStatus.SUCCESS);
+        format.getStatusMapping().put("PAID", PaymentStatus.SUCCESS);
+        format.getStatusMapping().put("FAILED", PaymentStatus.FAILED);
+        format.getStatusMapping().put("CLOSED", PaymentStatus.CANCELLED);
+        format.getStatusMapping().put("CANCELLED", PaymentStatus.CANCELLED);
+        format.getStatusMapping().put("REFUNDED", PaymentStatus.REFUNDED);
+        return format;
+    }
+
+    /**
+     * 需要解析的最大列号
+     */
+    int maxColumn() {
+        return Math.max(outTradeNoColumn, Math.max(amountColumn, statusColumn));
+    }
+
+    /**
+     * 由状态映射构建的编解码器，未知状态解码为null
+     */
+    ChannelStatusCodec statusCodec() {
+        return ChannelStatusCodec.of(statusMapping, null);
+    }
+
+    /**
+     * 页脚前缀的字节形式
+     */
+    byte[] footerBytes() {
+        return footerPrefix == null || footerPrefix.isEmpty() ? null : footerPrefix.getBytes(charset);
+    }
+
+    // Getters and Setters
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public char getQuote() {
+        return quote;
+    }
+
+    public void setQuote(char quote) {
+        this.quote = quote;
+    }
+
+    public char getCommentPrefix() {
+        return commentPrefix;
+    }
+
+    public void setCommentPrefix(char commentPrefix) {
+        this.commentPrefix = commentPrefix;
+    }
+
+    public int getHeaderLines() {
+        return headerLines;
+    }
+
+    public void setHeaderLines(int headerLines) {
+        this.headerLines = headerLines;
+    }
+
+    public String getFooterPrefix() {
+        return footerPrefix;
+    }
+
+    public void setFooterPrefix(String footerPrefix) {
+        this.footerPrefix = footerPrefix;
+    }
+
+    public int getOutTradeNoColumn() {
+        return outTradeNoColumn;
+    }
+
+    public void setOutTradeNoColumn(int outTradeNoColumn) {
+        this.outTradeNoColumn = outTradeNoColumn;
+    }
+
+    public int getAmountColumn() {
+        return amountColumn;
+    }
+
+    public void setAmountColumn(int amountColumn) {
+        this.amountColumn = amountColumn;
+    }
+
+    public int getStatusColumn() {
+        return statusColumn;
+    }
+
+    public void setStatusColumn(int statusColumn) {
+        this.statusColumn = statusColumn;
+    }
+
+    public PaymentStatus getDefaultStatus() {
+        return defaultStatus;
+    }
+
+    public void setDefaultStatus(PaymentStatus defaultStatus) {
+        this.defaultStatus = defaultStatus;
+    }
+
+    public Map<String, PaymentStatus> getStatusMapping() {
+        return statusMapping;
+    }
+
+    public void setStatusMapping(Map<String, PaymentStatus> statusMapping) {
+        this.statusMapping = statusMapping;
+    }
+}
@@ -0,0 +1,329 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.ChannelStatusCodec;
+import com.tensor.pay.enums.PaymentStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 对账单扫描器
+ *
+ * 通过 {@link FileChannel} 的定位读取把文件的一个字节区间流式读入固定大小的缓冲区，
+ * 直接在缓冲区上切分字段、解析金额和状态并与 {@link OrderIndex} 比对，
+ * 每行只记录字段的起止位置，不创建任何String，只有出现差异时才分配对象。
+ * 不支持字段内包含分隔符的CSV转义。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+class StatementScanner {
+
+    private static final long MALFORMED = Long.MIN_VALUE;
+
+    private final StatementFormat format;
+    private final OrderIndex orderIndex;
+    private final DiscrepancyListener listener;
+
+    private final byte[] buffer;
+    private final ByteBuffer byteBuffer;
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+
+    private final byte delimiter;
+    private final byte quote;
+    private final byte commentPrefix;
+    private final byte[] footer;
+    private final ChannelStatusCodec statusCodec;
+
+    /**
+     * 本地订单是否在对账单中出现过，按槽位的位图
+     */
+    private final long[] matched;
+    private final ReconciliationResult result = new ReconciliationResult();
+    private int headerRemaining;
+
+    StatementScanner(StatementFormat format, OrderIndex orderIndex, DiscrepancyListener listener, int bufferSize) {
+        this.format = format;
+        this.orderIndex = orderIndex;
+        this.listener = listener;
+        this.buffer = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+        this.fieldStarts = new int[format.maxColumn() + 1];
+        this.fieldEnds = new int[format.maxColumn() + 1];
+        this.delimiter = (byte) format.getDelimiter();
+        this.quote = (byte) format.getQuote();
+        this.commentPrefix = (byte) format.getCommentPrefix();
+        this.footer = format.footerBytes();
+        this.statusCodec = format.statusCodec();
+        this.matched = new long[(orderIndex.size() + 63) >>> 6];
+    }
+
+    /**
+     * 扫描文件区间 [start, end)，区间两端必须位于行边界
+     *
+     * @param channel 文件通道
+     * @param start 起始位置
+     * @param end 结束位置
+     * @param skipHeader 是否跳过表头（仅文件开头的区间需要）
+     * @return 是否遇到了页脚
+     */
+    boolean scan(FileChannel channel, long start, long end, boolean skipHeader) throws IOException {
+        long filePosition = start;
+        int limit = 0;
+        int position = 0;
+        headerRemaining = skipHeader ? format.getHeaderLines() : 0;
+
+        if (skipHeader && start == 0) {
+            filePosition += fill(channel, 0, end);
+            limit = (int) (filePosition - start);
+            // 跳过UTF-8 BOM
+            if (limit >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+                position = 3;
+            }
+        }
+
+        while (true) {
+            int newline = indexOf((byte) '\n', position, limit);
+            if (newline < 0) {
+                if (filePosition >= end) {
+                    if (position < limit) {
+                        long lineStart = filePosition - (limit - position);
+                        if (handleLine(position, limit, lineStart)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+                if (limit == buffer.length) {
+                    throw new IOException("Statement line exceeds buffer size " + buffer.length
+                        + " at position " + (filePosition - limit));
+                }
+                byteBuffer.clear().position(limit);
+                int read = fill(channel, filePosition, end);
+                filePosition += read;
+                limit += read;
+                continue;
+            }
+
+            long lineStart = filePosition - (limit - position);
+            int lineEnd = newline > position && buffer[newline - 1] == '\r' ? newline - 1 : newline;
+            if (handleLine(position, lineEnd, lineStart)) {
+                return true;
+            }
+            position = newline + 1;
+        }
+    }
+
+    /**
+     * 合并另一个分片的命中位图和统计结果
+     */
+    void merge(StatementScanner other) {
+        for (int i = 0; i < matched.length; i++) {
+            matched[i] |= other.matched[i];
+        }
+        result.merge(other.result);
+    }
+
+    /**
+     * 对账单扫描结束后，报告本地成功但对账单中没有出现的订单
+     */
+    void reportMissingInStatement() {
+        for (int slot = 0; slot < orderIndex.size(); slot++) {
+            if ((matched[slot >>> 6] & (1L << slot)) != 0) {
+                continue;
+            }
+            PaymentStatus status = orderIndex.statusAt(slot);
+            if (status == PaymentStatus.SUCCESS || status == PaymentStatus.REFUNDED
+                    || status == PaymentStatus.PARTIAL_REFUNDED) {
+                emit(new Discrepancy(DiscrepancyType.MISSING_IN_STATEMENT, orderIndex.outTradeNoAt(slot),
+                    orderIndex.amountAt(slot), -1, status, null, -1));
+            }
+        }
+    }
+
+    ReconciliationResult getResult() {
+        return result;
+    }
+
+    /**
+     * 处理一行数据
+     *
+     * @return 是否为页脚
+     */
+    private boolean handleLine(int start, int end, long lineStart) {
+        if (start >= end || (commentPrefix != 0 && buffer[start] == commentPrefix)) {
+            return false;
+        }
+        if (headerRemaining > 0) {
+            headerRemaining--;
+            return false;
+        }
+        if (footer != null && startsWith(start, end, footer)) {
+            return true;
+        }
+        if (!splitFields(start, end)) {
+            result.countMalformed();
+            return false;
+        }
+
+        int keyColumn = format.getOutTradeNoColumn();
+        int keyStart = fieldStarts[keyColumn];
+        int keyLength = fieldEnds[keyColumn] - keyStart;
+        int amountColumn = format.getAmountColumn();
+        long amount = parseAmount(fieldStarts[amountColumn], fieldEnds[amountColumn]);
+        if (keyLength <= 0 || amount == MALFORMED) {
+            result.countMalformed();
+            return false;
+        }
+        PaymentStatus status = format.getStatusColumn() < 0 ? format.getDefaultStatus()
+            : statusCodec.decode(buffer, fieldStarts[format.getStatusColumn()],
+                fieldEnds[format.getStatusColumn()] - fieldStarts[format.getStatusColumn()]);
+
+        int slot = orderIndex.find(buffer, keyStart, keyLength);
+        if (slot < 0) {
+            result.countRow(amount, false);
+            emit(new Discrepancy(DiscrepancyType.MISSING_LOCAL,
+                new String(buffer, keyStart, keyLength, StandardCharsets.UTF_8), -1, amount, null, status, lineStart));
+            return false;
+        }
+
+        matched[slot >>> 6] |= 1L << slot;
+        long localAmount = orderIndex.amountAt(slot);
+        PaymentStatus localStatus = orderIndex.statusAt(slot);
+        boolean consistent = true;
+        if (localAmount != amount) {
+            consistent = false;
+            emit(new Discrepancy(DiscrepancyType.AMOUNT_MISMATCH, orderIndex.outTradeNoAt(slot),
+                localAmount, amount, localStatus, status, lineStart));
+        }
+        if (localStatus != status) {
+            consistent = false;
+            emit(new Discrepancy(DiscrepancyType.STATUS_MISMATCH, orderIndex.outTradeNoAt(slot),
+                localAmount, amount, localStatus, status, lineStart));
+        }
+        result.countRow(amount, consistent);
+        return false;
+    }
+
+    private void emit(Discrepancy discrepancy) {
+        result.count(discrepancy.getType());
+        if (listener != null) {
+            listener.onDiscrepancy(discrepancy);
+        }
+    }
+
+    /**
+     * 切分所需的列，去掉两端的空白和引用字符
+     *
+     * @return 列数是否足够
+     */
+    private boolean splitFields(int start, int end) {
+        int column = 0;
+        int fieldStart = start;
+        int lastColumn = fieldStarts.length - 1;
+        for (int i = start; i <= end && column <= lastColumn; i++) {
+            if (i == end || buffer[i] == delimiter) {
+                int s = fieldStart;
+                int e = i;
+                while (s < e && isTrimmed(buffer[s])) {
+                    s++;
+                }
+                while (e > s && isTrimmed(buffer[e - 1])) {
+                    e--;
+                }
+                fieldStarts[column] = s;
+                fieldEnds[column] = e;
+                column++;
+                fieldStart = i + 1;
+            }
+        }
+        return column > lastColumn;
+    }
+
+    private boolean isTrimmed(byte b) {
+        return b == ' ' || b == '\t' || (quote != 0 && b == quote);
+    }
+
+    /**
+     * 解析以元为单位的金额为分，小数超过两位且不为0时视为格式错误
+     */
+    private long parseAmount(int start, int end) {
+        if (start >= end) {
+            return MALFORMED;
+        }
+        boolean negative = buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        long value = 0;
+        int digits = 0;
+        for (; i < end && buffer[i] != '.'; i++) {
+            int d = buffer[i] - '0';
+            if (d < 0 || d > 9 || ++digits > 16) {
+                return MALFORMED;
+            }
+            value = value * 10 + d;
+        }
+        int scale = 0;
+        if (i < end) {
+            for (i++; i < end; i++) {
+                int d = buffer[i] - '0';
+                if (d < 0 || d > 9) {
+                    return MALFORMED;
+                }
+                if (scale < 2) {
+                    value = value * 10 + d;
+                    scale++;
+                } else if (d != 0) {
+                    return MALFORMED;
+                }
+            }
+        }
+        for (; scale < 2; scale++) {
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+
+    private boolean startsWith(int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 从文件读取数据填满缓冲区剩余空间，不超过区间末尾
+     */
+    private int fill(FileChannel channel, long filePosition, long end) throws IOException {
+        int space = byteBuffer.remaining();
+        byteBuffer.limit(byteBuffer.position() + (int) Math.min(space, end - filePosition));
+        int total = 0;
+        while (byteBuffer.hasRemaining()) {
+            int read = channel.read(byteBuffer, filePosition + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
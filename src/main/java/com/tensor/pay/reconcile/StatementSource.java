@@ -0,0 +1,25 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.PaymentType;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * 对账单来源
+ * 负责把渠道对账单下载到本地文件
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public interface StatementSource {
+    
+    /**
+     * 获取对账单文件
+     * 
+     * @param paymentType 支付类型
+     * @param billDate 账单日期
+     * @return 本地文件路径
+     */
+    Path fetch(PaymentType paymentType, LocalDate billDate);
+}
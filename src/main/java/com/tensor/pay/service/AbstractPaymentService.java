@@ -1,12 +1,30 @@
 package com.tensor.pay.service;
 
+import com.tensor.pay.callback.CallbackParser;
+import com.tensor.pay.callback.CallbackView;
+import com.tensor.pay.config.PaymentPropertiesRebinder;
+import com.tensor.pay.enums.ChannelState;
 import com.tensor.pay.enums.PaymentType;
 import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.merchant.MerchantClient;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.merchant.MerchantRegistry;
+import com.tensor.pay.model.Money;
 import com.tensor.pay.model.PaymentRequest;
 import com.tensor.pay.model.PaymentResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 /**
  * 抽象支付服务基类
  * 
@@ -15,6 +33,24 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class AbstractPaymentService implements PaymentService {
     
+    private static final PaymentResponse MISSING_AMOUNT =
+        PaymentResponse.sharedFailure("INVALID_AMOUNT", "支付金额不能为空");
+    
+    private static final PaymentResponse INVALID_CURRENCY =
+        PaymentResponse.sharedFailure("INVALID_CURRENCY", "不支持的币种");
+    
+    private static final PaymentResponse INEXACT_AMOUNT =
+        PaymentResponse.sharedFailure("INVALID_AMOUNT", "金额精度超出币种最小单位或超出范围");
+    
+    private static final PaymentResponse INVALID_OUT_TRADE_NO =
+        PaymentResponse.sharedFailure("INVALID_OUT_TRADE_NO", "商户订单号不能为空");
+    
+    private static final PaymentResponse INVALID_SUBJECT =
+        PaymentResponse.sharedFailure("INVALID_SUBJECT", "商品描述不能为空");
+    
+    private static final PaymentResponse INVALID_SIGNATURE =
+        PaymentResponse.sharedFailure("INVALID_SIGNATURE", "回调签名验证失败");
+    
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     
     /**
@@ -25,33 +61,252 @@ public abstract class AbstractPaymentService implements PaymentService {
     public abstract PaymentType getSupportedPaymentType();
     
     /**
-     * 验证支付请求参数
+     * 检查支付请求参数，不抛出异常
+     * 
+     * 参数错误是调用方可以预期的结果，直接返回共享的失败响应，避免在恶意或批量错误请求下
+     * 反复创建异常、采集堆栈和记录错误日志。
      * 
      * @param request 支付请求
+     * @return 参数有效时返回null，否则返回不可变的失败响应
      */
-    protected void validatePaymentRequest(PaymentRequest request) {
+    protected PaymentResponse checkPaymentRequest(PaymentRequest request) {
         if (request == null) {
-            throw new PaymentException("INVALID_REQUEST", "支付请求不能为空");
+            return PaymentResponse.INVALID_REQUEST;
         }
         
         if (request.getPaymentType() != getSupportedPaymentType()) {
-            throw new PaymentException("UNSUPPORTED_PAYMENT_TYPE", 
-                "不支持的支付类型: " + request.getPaymentType());
+            return PaymentResponse.unsupportedPaymentType(request.getPaymentType());
         }
         
-        if (request.getAmount() == null || request.getAmount().compareTo(java.math.BigDecimal.ZERO) <= 0) {
-            throw new PaymentException("INVALID_AMOUNT", "支付金额必须大于0");
+        BigDecimal amount = request.getAmount();
+        if (amount == null) {
+            return MISSING_AMOUNT;
+        }
+        Currency currency = Money.findCurrency(request.getCurrency());
+        if (currency == null || !Money.isSupported(currency)) {
+            return INVALID_CURRENCY;
+        }
+        // 金额必须能精确换算为币种最小单位，不允许截断
+        if (!Money.isExact(amount, Money.digits(currency))) {
+            return INEXACT_AMOUNT;
+        }
+        if (amount.signum() <= 0) {
+            return PaymentResponse.INVALID_AMOUNT;
         }
         
         if (request.getOutTradeNo() == null || request.getOutTradeNo().trim().isEmpty()) {
-            throw new PaymentException("INVALID_OUT_TRADE_NO", "商户订单号不能为空");
+            return INVALID_OUT_TRADE_NO;
         }
         
         if (request.getSubject() == null || request.getSubject().trim().isEmpty()) {
-            throw new PaymentException("INVALID_SUBJECT", "商品描述不能为空");
+            return INVALID_SUBJECT;
+        }
+        return null;
+    }
+    
+    /**
+     * 验证支付请求参数
+     * 
+     * @param request 支付请求
+     * @throws PaymentException 参数错误，不带堆栈的业务错误
+     */
+    protected void validatePaymentRequest(PaymentRequest request) {
+        PaymentResponse invalid = checkPaymentRequest(request);
+        if (invalid != null) {
+            throw PaymentException.businessError(invalid.getErrorCode(), invalid.getErrorMessage());
+        }
+    }
+    
+    /**
+     * 请求所属的子商户号，请求中未指定时使用当前线程绑定的商户
+     * 
+     * @param request 支付请求
+     * @return 子商户号，为null时表示默认商户
+     */
+    protected String resolveMerchantId(PaymentRequest request) {
+        String merchantId = request.resolveMerchantId();
+        return merchantId != null ? merchantId : MerchantContext.current();
+    }
+    
+    /**
+     * 选择子商户的客户端，商户号为空时使用默认商户
+     * 
+     * @param merchantId 子商户号
+     * @param defaultMerchant 默认商户的客户端
+     * @param registry 子商户注册表，为null时只支持默认商户
+     * @param factory 子商户客户端工厂，参数为商户号
+     * @return 客户端
+     */
+    protected <T> T selectMerchant(String merchantId, T defaultMerchant, MerchantRegistry registry,
+                                   Function<String, T> factory) {
+        if (merchantId == null) {
+            return defaultMerchant;
+        }
+        if (registry == null) {
+            throw PaymentException.businessError("UNKNOWN_MERCHANT", "未配置的商户: " + merchantId);
+        }
+        return registry.getClient(getSupportedPaymentType(), merchantId, factory);
+    }
+    
+    /**
+     * 刷新默认商户和已缓存子商户的客户端：配置指纹变化的在后台按新配置重建后原子替换
+     * 
+     * 配置和客户端来自同一份配置对象，替换后请求要么全部使用旧配置，要么全部使用新配置。
+     * 
+     * @param defaultMerchant 默认商户
+     * @param latestDefault 默认商户的最新配置
+     * @param publishDefault 发布按新配置重建的默认商户
+     * @param registry 子商户注册表，可以为null
+     * @param configLookup 按商户号查询子商户的最新配置
+     * @param fingerprint 配置指纹
+     * @param factory 按配置创建商户客户端
+     * @param executor 执行重建的线程池
+     * @return 重建的客户端数量
+     */
+    protected <P, C> CompletableFuture<Integer> refreshMerchants(MerchantClient<P, C> defaultMerchant,
+                                                               P latestDefault,
+                                                               Consumer<MerchantClient<P, C>> publishDefault,
+                                                               MerchantRegistry registry,
+                                                               Function<String, P> configLookup,
+                                                               Function<P, Object> fingerprint,
+                                                               Function<P, MerchantClient<P, C>> factory,
+                                                               Executor executor) {
+        CompletableFuture<Integer> reloaded = CompletableFuture.supplyAsync(() -> {
+            MerchantClient<P, C> fresh = rebuildIfChanged(defaultMerchant, latestDefault, fingerprint, factory);
+            if (fresh == defaultMerchant) {
+                return 0;
+            }
+            publishDefault.accept(fresh);
+            return 1;
+        }, executor).exceptionally(e -> {
+            logger.warn("{} client rebuild failed, keeping the current one", getSupportedPaymentType(), e);
+            return 0;
+        });
+        if (registry == null) {
+            return reloaded;
+        }
+        CompletableFuture<Integer> merchants = registry.<MerchantClient<P, C>>refresh(getSupportedPaymentType(),
+            (merchantId, current) -> {
+                P latest = configLookup.apply(merchantId);
+                return latest == null ? null : rebuildIfChanged(current, latest, fingerprint, factory);
+            }, executor);
+        return reloaded.thenCombine(merchants, Integer::sum);
+    }
+    
+    /**
+     * 配置对象的最新快照
+     * 
+     * @param rebinder 提供最新配置快照，为null时返回配置对象本身
+     * @param properties 当前使用的配置对象
+     * @return 最新配置
+     */
+    protected static <P> P latest(PaymentPropertiesRebinder rebinder, P properties) {
+        return rebinder == null ? properties : rebinder.current(properties);
+    }
+    
+    /**
+     * 配置指纹变化时按新配置创建商户客户端，否则返回当前客户端
+     */
+    private static <P, C> MerchantClient<P, C> rebuildIfChanged(MerchantClient<P, C> current, P latest,
+                                                                Function<P, Object> fingerprint,
+                                                                Function<P, MerchantClient<P, C>> factory) {
+        if (Objects.equals(fingerprint.apply(latest), current.getFingerprint())) {
+            return current;
+        }
+        MerchantClient<P, C> fresh = factory.apply(latest);
+        // 已在使用的客户端先按新配置创建好再替换，避免替换后的第一个请求承担创建耗时
+        if (current.getProvider().getState() == ChannelState.READY) {
+            fresh.getClient();
+        }
+        return fresh;
+    }
+    
+    /**
+     * 处理支付回调：解析、验签、映射都基于同一个报文视图，报文只扫描一次
+     * 
+     * @param body 原始回调报文
+     * @return 处理结果
+     */
+    @Override
+    public PaymentResponse handleCallback(byte[] body) {
+        try {
+            CallbackView callback = parseCallback(body);
+            
+            if (!verifyCallback(callback)) {
+                logger.warn("Rejected callback with invalid signature");
+                return INVALID_SIGNATURE;
+            }
+            
+            PaymentResponse response = mapCallback(callback);
+            logPayment("handleCallback", response.getOutTradeNo(), response);
+            return response;
+            
+        } catch (Exception e) {
+            return handlePaymentException("handleCallback", e);
+        }
+    }
+    
+    @Override
+    public PaymentResponse handleCallback(String callbackData) {
+        return handleCallback(callbackData.getBytes(getCallbackCharset()));
+    }
+    
+    @Override
+    public boolean verifyCallback(CallbackView callback) {
+        try {
+            return verifySignature(callback, callback.get("sign"));
+        } catch (Exception e) {
+            logger.error("{} callback signature verification failed", getSupportedPaymentType(), e);
+            return false;
+        }
+    }
+    
+    @Override
+    public boolean verifyCallback(String callbackData, String signature) {
+        try {
+            return verifySignature(parseCallback(callbackData.getBytes(getCallbackCharset())), signature);
+        } catch (Exception e) {
+            logger.error("{} callback signature verification failed", getSupportedPaymentType(), e);
+            return false;
         }
     }
     
+    /**
+     * 回调报文编码
+     * 
+     * @return 编码
+     */
+    protected Charset getCallbackCharset() {
+        return StandardCharsets.UTF_8;
+    }
+    
+    /**
+     * 解析回调报文，默认按表单格式解析
+     * 
+     * @param body 原始回调报文
+     * @return 回调报文视图
+     */
+    protected CallbackView parseCallback(byte[] body) {
+        return CallbackParser.parseForm(body, getCallbackCharset());
+    }
+    
+    /**
+     * 按渠道规则验证回调签名，由 {@link #verifyCallback(CallbackView)} 调用，无法验证时应返回false
+     * 
+     * @param callback 回调报文视图
+     * @param signature 签名
+     * @return 验证结果
+     */
+    protected abstract boolean verifySignature(CallbackView callback, String signature) throws Exception;
+    
+    /**
+     * 把验签通过的回调报文映射为支付响应
+     * 
+     * @param callback 回调报文视图
+     * @return 支付响应
+     */
+    protected abstract PaymentResponse mapCallback(CallbackView callback);
+    
     /**
      * 生成订单号
      * 
@@ -81,13 +336,19 @@ public abstract class AbstractPaymentService implements PaymentService {
      * @return 错误响应
      */
     protected PaymentResponse handlePaymentException(String operation, Exception e) {
-        logger.error("Payment operation failed: {}", operation, e);
-        
         if (e instanceof PaymentException) {
             PaymentException pe = (PaymentException) e;
+            // 可预期的业务错误只记录错误码，不记录堆栈
+            if (pe.isBusinessError()) {
+                logger.debug("Payment operation rejected: {}, {}: {}", operation, pe.getErrorCode(), pe.getMessage());
+            } else {
+                logger.error("Payment operation failed: {}", operation, e);
+            }
+            // 异常信息通常带订单号、商户号等可变内容，不进入共享缓存
             return PaymentResponse.failure(pe.getErrorCode(), pe.getMessage());
         }
         
+        logger.error("Payment operation failed: {}", operation, e);
         return PaymentResponse.failure("PAYMENT_ERROR", "支付处理失败: " + e.getMessage());
     }
 }
\ No newline at end of file
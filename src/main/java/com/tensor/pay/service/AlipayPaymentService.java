@@ -2,30 +2,43 @@ package com.tensor.pay.service;
 
 import com.alipay.api.AlipayApiException;
 import com.alipay.api.AlipayClient;
-import com.alipay.api.DefaultAlipayClient;
 import com.alipay.api.domain.AlipayTradePrecreateModel;
 import com.alipay.api.domain.AlipayTradeQueryModel;
 import com.alipay.api.domain.AlipayTradeRefundModel;
-import com.alipay.api.internal.util.AlipaySignature;
 import com.alipay.api.request.AlipayTradePrecreateRequest;
 import com.alipay.api.request.AlipayTradeQueryRequest;
 import com.alipay.api.request.AlipayTradeRefundRequest;
 import com.alipay.api.response.AlipayTradePrecreateResponse;
 import com.alipay.api.response.AlipayTradeQueryResponse;
 import com.alipay.api.response.AlipayTradeRefundResponse;
+import com.tensor.pay.callback.CallbackView;
 import com.tensor.pay.config.AlipayProperties;
+import com.tensor.pay.config.PaymentPropertiesRebinder;
+import com.tensor.pay.enums.ChannelState;
+import com.tensor.pay.enums.ChannelStatusCodec;
 import com.tensor.pay.enums.PaymentStatus;
 import com.tensor.pay.enums.PaymentType;
 import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.merchant.MerchantClient;
+import com.tensor.pay.merchant.MerchantConfigProvider;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.merchant.MerchantRegistry;
+import com.tensor.pay.model.Money;
 import com.tensor.pay.model.PaymentRequest;
 import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.utils.KeyMaterialCache;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 支付宝支付服务实现
@@ -37,25 +50,80 @@ import java.util.Map;
 @ConditionalOnProperty(prefix = "tensor.pay.alipay", name = "enabled", havingValue = "true")
 public class AlipayPaymentService extends AbstractPaymentService {
     
-    private final AlipayProperties alipayProperties;
-    private final AlipayClient alipayClient;
+    private static final String SANDBOX_SERVER_URL = "https://openapi.alipaydev.com/gateway.do";
     
-    public AlipayPaymentService(AlipayProperties alipayProperties) {
-        this.alipayProperties = alipayProperties;
-        
-        // 初始化支付宝客户端
-        String serverUrl = alipayProperties.isSandbox() ? 
-            "https://openapi.alipaydev.com/gateway.do" : alipayProperties.getServerUrl();
-        
-        this.alipayClient = new DefaultAlipayClient(
-            serverUrl,
-            alipayProperties.getAppId(),
-            alipayProperties.getPrivateKey(),
-            alipayProperties.getFormat(),
-            alipayProperties.getCharset(),
-            alipayProperties.getAlipayPublicKey(),
-            alipayProperties.getSignType()
-        );
+    private final KeyMaterialCache keyMaterialCache;
+    private final MerchantRegistry merchantRegistry;
+    private volatile MerchantClient<AlipayProperties, AlipayClient> defaultMerchant;
+    
+    public AlipayPaymentService(AlipayProperties alipayProperties, KeyMaterialCache keyMaterialCache,
+                                MerchantRegistry merchantRegistry) {
+        this.keyMaterialCache = keyMaterialCache;
+        this.merchantRegistry = merchantRegistry;
+        this.defaultMerchant = newMerchant(alipayProperties);
+    }
+    
+    @Override
+    public ChannelState getChannelState() {
+        return defaultMerchant.getProvider().getState();
+    }
+    
+    @Override
+    public CompletableFuture<ChannelState> warmUp(Executor executor) {
+        return defaultMerchant.getProvider().warmUp(executor);
+    }
+    
+    @Override
+    public List<String> getSdkGatewayUrls() {
+        String serverUrl = serverUrl(defaultMerchant.getProperties());
+        return serverUrl == null ? List.of() : List.of(serverUrl);
+    }
+    
+    private static String serverUrl(AlipayProperties properties) {
+        return properties.isSandbox() ? SANDBOX_SERVER_URL : properties.getServerUrl();
+    }
+    
+    /**
+     * 当前商户的配置和客户端
+     */
+    private MerchantClient<AlipayProperties, AlipayClient> merchant(String merchantId) {
+        return selectMerchant(merchantId, defaultMerchant, merchantRegistry, id -> newMerchant(
+            MerchantConfigProvider.require(merchantRegistry.getConfigProvider().getAlipayConfig(id), id)));
+    }
+    
+    private MerchantClient<AlipayProperties, AlipayClient> currentMerchant() {
+        return merchant(MerchantContext.current());
+    }
+    
+    private MerchantClient<AlipayProperties, AlipayClient> newMerchant(AlipayProperties properties) {
+        // 支付宝客户端在第一次使用或后台预热时创建，签名和验签使用缓存的密钥
+        LazyProvider<AlipayClient> provider = new LazyProvider<>("ALIPAY_CONFIG_ERROR", "支付宝客户端初始化失败", () -> {
+            AlipayClient client = new KeyCachingAlipayClient(serverUrl(properties), properties, keyMaterialCache);
+            // 预先解析密钥，密钥配置错误时在预热阶段就能发现
+            keyMaterialCache.privateKey(PaymentType.ALIPAY, properties.getAppId(), properties.getPrivateKey());
+            keyMaterialCache.publicKey(PaymentType.ALIPAY, properties.getAppId(), properties.getAlipayPublicKey());
+            return client;
+        }, () -> fingerprint(properties));
+        return new MerchantClient<>(properties, fingerprint(properties), provider,
+            () -> keyMaterialCache.invalidate(PaymentType.ALIPAY, properties.getAppId()));
+    }
+    
+    /**
+     * 影响客户端的配置项，任一项变化都需要重建客户端
+     */
+    private static Object fingerprint(AlipayProperties properties) {
+        return Arrays.asList(properties.getAppId(), properties.getPrivateKey(), properties.getAlipayPublicKey(),
+            properties.getSignType(), properties.getCharset(), properties.getFormat(), properties.getServerUrl(),
+            properties.isSandbox());
+    }
+    
+    @Override
+    public CompletableFuture<Integer> refreshConfig(PaymentPropertiesRebinder rebinder, Executor executor) {
+        MerchantClient<AlipayProperties, AlipayClient> current = defaultMerchant;
+        return refreshMerchants(current, latest(rebinder, current.getProperties()),
+            fresh -> defaultMerchant = fresh, merchantRegistry,
+            id -> merchantRegistry.getConfigProvider().getAlipayConfig(id),
+            AlipayPaymentService::fingerprint, this::newMerchant, executor);
     }
     
     @Override
@@ -65,9 +133,11 @@ public class AlipayPaymentService extends AbstractPaymentService {
     
     @Override
     public PaymentResponse createPayment(PaymentRequest request) {
+        PaymentResponse invalid = checkPaymentRequest(request);
+        if (invalid != null) {
+            return invalid;
+        }
         try {
-            validatePaymentRequest(request);
-            
             // 创建扫码支付
             return createQrCodePayment(request);
             
@@ -81,17 +151,19 @@ public class AlipayPaymentService extends AbstractPaymentService {
      */
     private PaymentResponse createQrCodePayment(PaymentRequest request) {
         try {
+            MerchantClient<AlipayProperties, AlipayClient> merchant = merchant(resolveMerchantId(request));
             AlipayTradePrecreateRequest alipayRequest = new AlipayTradePrecreateRequest();
             
             // 设置回调地址
             alipayRequest.setNotifyUrl(request.getNotifyUrl() != null ? 
-                request.getNotifyUrl() : alipayProperties.getNotifyUrl());
+                request.getNotifyUrl() : merchant.getProperties().getNotifyUrl());
             alipayRequest.setReturnUrl(request.getReturnUrl() != null ? 
-                request.getReturnUrl() : alipayProperties.getReturnUrl());
+                request.getReturnUrl() : merchant.getProperties().getReturnUrl());
             
+            Money money = request.toMoney();
             AlipayTradePrecreateModel model = new AlipayTradePrecreateModel();
             model.setOutTradeNo(request.getOutTradeNo());
-            model.setTotalAmount(request.getAmount().toString());
+            model.setTotalAmount(money.toPlainString());
             model.setSubject(request.getSubject());
             model.setBody(request.getBody());
             
@@ -102,14 +174,15 @@ public class AlipayPaymentService extends AbstractPaymentService {
             
             alipayRequest.setBizModel(model);
             
-            AlipayTradePrecreateResponse alipayResponse = alipayClient.execute(alipayRequest);
+            AlipayTradePrecreateResponse alipayResponse = merchant.getClient().execute(alipayRequest);
             
             if (alipayResponse.isSuccess()) {
                 PaymentResponse response = PaymentResponse.success();
                 response.setOutTradeNo(request.getOutTradeNo());
                 response.setPaymentType(PaymentType.ALIPAY);
                 response.setStatus(PaymentStatus.PENDING);
-                response.setAmount(request.getAmount());
+                response.setCurrency(money.getCurrency().getCurrencyCode());
+                response.setAmountMinor(money.getMinor());
                 response.setPayUrl(alipayResponse.getQrCode());
                 
                 logPayment("createQrCodePayment", request, response);
@@ -132,7 +205,7 @@ public class AlipayPaymentService extends AbstractPaymentService {
             model.setOutTradeNo(outTradeNo);
             request.setBizModel(model);
             
-            AlipayTradeQueryResponse alipayResponse = alipayClient.execute(request);
+            AlipayTradeQueryResponse alipayResponse = currentMerchant().getClient().execute(request);
             
             PaymentResponse response = PaymentResponse.success();
             response.setOutTradeNo(outTradeNo);
@@ -142,7 +215,8 @@ public class AlipayPaymentService extends AbstractPaymentService {
                 String tradeStatus = alipayResponse.getTradeStatus();
                 response.setTradeNo(alipayResponse.getTradeNo());
                 response.setStatus(convertAlipayStatus(tradeStatus));
-                response.setAmount(new BigDecimal(alipayResponse.getTotalAmount()));
+                response.setCurrency(Money.CNY.getCurrencyCode());
+                response.setAmountMinor(Money.parseMinor(alipayResponse.getTotalAmount(), 2));
                 
                 if (alipayResponse.getSendPayDate() != null) {
                     response.setPayTime(LocalDateTime.parse(alipayResponse.getSendPayDate(),
@@ -185,13 +259,13 @@ public class AlipayPaymentService extends AbstractPaymentService {
             AlipayTradeRefundRequest request = new AlipayTradeRefundRequest();
             AlipayTradeRefundModel model = new AlipayTradeRefundModel();
             model.setOutTradeNo(outTradeNo);
-            model.setRefundAmount(refundAmount.toString());
+            model.setRefundAmount(Money.of(refundAmount, Money.CNY).toPlainString());
             model.setRefundReason(refundReason);
             model.setOutRequestNo(generateOrderNo()); // 退款请求号
             
             request.setBizModel(model);
             
-            AlipayTradeRefundResponse alipayResponse = alipayClient.execute(request);
+            AlipayTradeRefundResponse alipayResponse = currentMerchant().getClient().execute(request);
             
             PaymentResponse response = PaymentResponse.success();
             response.setOutTradeNo(outTradeNo);
@@ -199,7 +273,10 @@ public class AlipayPaymentService extends AbstractPaymentService {
             
             if (alipayResponse.isSuccess()) {
                 response.setStatus(PaymentStatus.REFUNDED);
-                response.setPaidAmount(new BigDecimal(alipayResponse.getRefundFee()));
+                Currency currency = alipayResponse.getRefundCurrency() != null
+                    ? Money.currency(alipayResponse.getRefundCurrency()) : Money.CNY;
+                response.setCurrency(currency.getCurrencyCode());
+                response.setPaidAmountMinor(Money.parseMinor(alipayResponse.getRefundFee(), Money.digits(currency)));
                 response.setTradeNo(alipayResponse.getTradeNo());
             } else {
                 response.setSuccess(false);
@@ -233,50 +310,49 @@ public class AlipayPaymentService extends AbstractPaymentService {
     }
     
     @Override
-    public PaymentResponse handleCallback(String callbackData) {
-        try {
-            // 实现支付宝回调处理
-            PaymentResponse response = PaymentResponse.success();
-            response.setPaymentType(PaymentType.ALIPAY);
-            response.setStatus(PaymentStatus.SUCCESS);
-            
-            logPayment("handleCallback", callbackData, response);
-            return response;
-            
-        } catch (Exception e) {
-            return handlePaymentException("handleCallback", e);
-        }
+    protected Charset getCallbackCharset() {
+        return Charset.forName(currentMerchant().getProperties().getCharset());
     }
     
+    /**
+     * 使用缓存的支付宝公钥验证回调签名，待签名内容直接由报文视图按字段名排序拼接
+     */
     @Override
-    public boolean verifyCallback(String callbackData, String signature) {
-        try {
-            // 使用支付宝SDK验证回调签名
-            Map<String, String> params = parseCallbackParams(callbackData);
-            return AlipaySignature.rsaCheckV1(params, alipayProperties.getAlipayPublicKey(), 
-                alipayProperties.getCharset(), alipayProperties.getSignType());
-                
-        } catch (Exception e) {
-            logger.error("支付宝回调验签失败", e);
+    protected boolean verifySignature(CallbackView callback, String signature) {
+        if (signature == null) {
             return false;
         }
+        AlipayProperties properties = currentMerchant().getProperties();
+        String signType = callback.get("sign_type");
+        return keyMaterialCache.verify(PaymentType.ALIPAY, properties.getAppId(), properties.getAlipayPublicKey(),
+            callback.signContent("sign", "sign_type"), signature, callback.getCharset(),
+            signType != null ? signType : properties.getSignType());
+    }
+    
+    @Override
+    protected PaymentResponse mapCallback(CallbackView callback) {
+        PaymentResponse response = PaymentResponse.success();
+        response.setOutTradeNo(callback.get("out_trade_no"));
+        response.setTradeNo(callback.get("trade_no"));
+        response.setPaymentType(PaymentType.ALIPAY);
+        response.setStatus(callback.status("trade_status", ChannelStatusCodec.ALIPAY));
+        response.setCurrency(Money.CNY.getCurrencyCode());
+        response.setAmountMinor(callback.amountMinor("total_amount", 2));
+        response.setPaidAmountMinor(callback.amountMinor("buyer_pay_amount", 2));
+        
+        String gmtPayment = callback.get("gmt_payment");
+        if (gmtPayment != null && !gmtPayment.isEmpty()) {
+            response.setPayTime(LocalDateTime.parse(gmtPayment,
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        }
+        return response;
     }
     
     /**
      * 转换支付宝交易状态为内部状态
      */
     private PaymentStatus convertAlipayStatus(String tradeStatus) {
-        switch (tradeStatus) {
-            case "WAIT_BUYER_PAY":
-                return PaymentStatus.PENDING;
-            case "TRADE_SUCCESS":
-            case "TRADE_FINISHED":
-                return PaymentStatus.SUCCESS;
-            case "TRADE_CLOSED":
-                return PaymentStatus.CANCELLED;
-            default:
-                return PaymentStatus.FAILED;
-        }
+        return ChannelStatusCodec.ALIPAY.decode(tradeStatus);
     }
     
     /**
@@ -287,12 +363,4 @@ public class AlipayPaymentService extends AbstractPaymentService {
         long minutes = java.time.Duration.between(now, expireTime).toMinutes();
         return minutes + "m";
     }
-    
-    /**
-     * 解析回调参数
-     */
-    private Map<String, String> parseCallbackParams(String callbackData) {
-        // 简化实现，实际项目中需要正确解析回调参数
-        return new java.util.HashMap<>();
-    }
 }
\ No newline at end of file
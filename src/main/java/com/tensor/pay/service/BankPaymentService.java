@@ -1,21 +1,36 @@
 package com.tensor.pay.service;
 
+import com.tensor.pay.callback.CallbackParser;
+import com.tensor.pay.callback.CallbackView;
 import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.config.PaymentPropertiesRebinder;
+import com.tensor.pay.enums.ChannelStatusCodec;
 import com.tensor.pay.enums.PaymentStatus;
 import com.tensor.pay.enums.PaymentType;
 import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.merchant.MerchantConfigProvider;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.merchant.MerchantRegistry;
+import com.tensor.pay.model.Money;
 import com.tensor.pay.model.PaymentRequest;
 import com.tensor.pay.model.PaymentResponse;
 import com.tensor.pay.utils.HttpUtils;
 import com.tensor.pay.utils.SignatureUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 银行支付服务实现
@@ -27,16 +42,26 @@ import java.util.Map;
 @ConditionalOnProperty(prefix = "tensor.pay.bank", name = "enabled", havingValue = "true")
 public class BankPaymentService extends AbstractPaymentService {
     
-    private final BankPayProperties bankPayProperties;
+    private volatile BankPayProperties bankPayProperties;
     private final HttpUtils httpUtils;
     private final SignatureUtils signatureUtils;
+    private final MerchantRegistry merchantRegistry;
     
     public BankPaymentService(BankPayProperties bankPayProperties, 
                              HttpUtils httpUtils, 
                              SignatureUtils signatureUtils) {
+        this(bankPayProperties, httpUtils, signatureUtils, null);
+    }
+    
+    @Autowired
+    public BankPaymentService(BankPayProperties bankPayProperties, 
+                             HttpUtils httpUtils, 
+                             SignatureUtils signatureUtils,
+                             MerchantRegistry merchantRegistry) {
         this.bankPayProperties = bankPayProperties;
         this.httpUtils = httpUtils;
         this.signatureUtils = signatureUtils;
+        this.merchantRegistry = merchantRegistry;
     }
     
     @Override
@@ -44,23 +69,54 @@ public class BankPaymentService extends AbstractPaymentService {
         return PaymentType.BANK;
     }
     
+    @Override
+    public List<String> getPooledGatewayUrls() {
+        String gatewayUrl = bankPayProperties.getGatewayUrl();
+        return gatewayUrl == null ? List.of() : List.of(gatewayUrl);
+    }
+    
+    /**
+     * 商户的银行支付配置，银行渠道没有SDK客户端，签名密钥和网关地址都来自配置
+     */
+    private BankPayProperties merchant(String merchantId) {
+        return selectMerchant(merchantId, bankPayProperties, merchantRegistry,
+            id -> MerchantConfigProvider.require(merchantRegistry.getConfigProvider().getBankConfig(id), id));
+    }
+    
+    /**
+     * 默认商户没有客户端需要重建，直接发布最新的配置快照，请求开始时读取一次；子商户重新查询配置，配置对象变化时替换
+     */
+    @Override
+    public CompletableFuture<Integer> refreshConfig(PaymentPropertiesRebinder rebinder, Executor executor) {
+        bankPayProperties = latest(rebinder, bankPayProperties);
+        if (merchantRegistry == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return merchantRegistry.<BankPayProperties>refresh(PaymentType.BANK,
+            (id, current) -> merchantRegistry.getConfigProvider().getBankConfig(id), executor);
+    }
+    
     @Override
     public PaymentResponse createPayment(PaymentRequest request) {
+        PaymentResponse invalid = checkPaymentRequest(request);
+        if (invalid != null) {
+            return invalid;
+        }
         try {
-            validatePaymentRequest(request);
+            BankPayProperties properties = merchant(resolveMerchantId(request));
             
             // 构建银行支付请求参数
-            Map<String, String> params = buildPaymentParams(request);
+            Map<String, String> params = buildPaymentParams(properties, request);
             
             // 生成签名
-            String signature = signatureUtils.generateSignature(params, bankPayProperties.getMerchantKey());
+            String signature = signatureUtils.generateSignature(params, properties.getMerchantKey());
             params.put("sign", signature);
             
             // 发送请求到银行网关
-            String response = httpUtils.post(bankPayProperties.getGatewayUrl(), params);
+            CallbackView response = httpUtils.post(properties.getGatewayUrl(), params, BankPaymentService::readResponse);
             
             // 解析响应
-            return parsePaymentResponse(request, response);
+            return parsePaymentResponse(properties, request, response);
             
         } catch (Exception e) {
             return handlePaymentException("createPayment", e);
@@ -70,15 +126,16 @@ public class BankPaymentService extends AbstractPaymentService {
     @Override
     public PaymentResponse queryPayment(String outTradeNo) {
         try {
+            BankPayProperties properties = merchant(MerchantContext.current());
             Map<String, String> params = new HashMap<>();
-            params.put("merchantId", bankPayProperties.getMerchantId());
+            params.put("merchantId", properties.getMerchantId());
             params.put("outTradeNo", outTradeNo);
             params.put("timestamp", String.valueOf(System.currentTimeMillis()));
             
-            String signature = signatureUtils.generateSignature(params, bankPayProperties.getMerchantKey());
+            String signature = signatureUtils.generateSignature(params, properties.getMerchantKey());
             params.put("sign", signature);
             
-            String response = httpUtils.post(bankPayProperties.getGatewayUrl() + "/query", params);
+            CallbackView response = httpUtils.post(properties.getGatewayUrl() + "/query", params, BankPaymentService::readResponse);
             
             return parseQueryResponse(outTradeNo, response);
             
@@ -90,15 +147,16 @@ public class BankPaymentService extends AbstractPaymentService {
     @Override
     public PaymentResponse cancelPayment(String outTradeNo) {
         try {
+            BankPayProperties properties = merchant(MerchantContext.current());
             Map<String, String> params = new HashMap<>();
-            params.put("merchantId", bankPayProperties.getMerchantId());
+            params.put("merchantId", properties.getMerchantId());
             params.put("outTradeNo", outTradeNo);
             params.put("timestamp", String.valueOf(System.currentTimeMillis()));
             
-            String signature = signatureUtils.generateSignature(params, bankPayProperties.getMerchantKey());
+            String signature = signatureUtils.generateSignature(params, properties.getMerchantKey());
             params.put("sign", signature);
             
-            String response = httpUtils.post(bankPayProperties.getGatewayUrl() + "/cancel", params);
+            CallbackView response = httpUtils.post(properties.getGatewayUrl() + "/cancel", params, BankPaymentService::readResponse);
             
             PaymentResponse paymentResponse = PaymentResponse.success();
             paymentResponse.setOutTradeNo(outTradeNo);
@@ -116,24 +174,27 @@ public class BankPaymentService extends AbstractPaymentService {
     @Override
     public PaymentResponse refund(String outTradeNo, BigDecimal refundAmount, String refundReason) {
         try {
+            BankPayProperties properties = merchant(MerchantContext.current());
             Map<String, String> params = new HashMap<>();
-            params.put("merchantId", bankPayProperties.getMerchantId());
+            params.put("merchantId", properties.getMerchantId());
             params.put("outTradeNo", outTradeNo);
-            params.put("refundAmount", refundAmount.toString());
+            Money refund = Money.of(refundAmount, Money.CNY);
+            params.put("refundAmount", refund.toPlainString());
             params.put("refundReason", refundReason);
             params.put("outRefundNo", generateOrderNo());
             params.put("timestamp", String.valueOf(System.currentTimeMillis()));
             
-            String signature = signatureUtils.generateSignature(params, bankPayProperties.getMerchantKey());
+            String signature = signatureUtils.generateSignature(params, properties.getMerchantKey());
             params.put("sign", signature);
             
-            String response = httpUtils.post(bankPayProperties.getGatewayUrl() + "/refund", params);
+            CallbackView response = httpUtils.post(properties.getGatewayUrl() + "/refund", params, BankPaymentService::readResponse);
             
             PaymentResponse paymentResponse = PaymentResponse.success();
             paymentResponse.setOutTradeNo(outTradeNo);
             paymentResponse.setPaymentType(PaymentType.BANK);
             paymentResponse.setStatus(PaymentStatus.REFUNDED);
-            paymentResponse.setPaidAmount(refundAmount);
+            paymentResponse.setCurrency(refund.getCurrency().getCurrencyCode());
+            paymentResponse.setPaidAmountMinor(refund.getMinor());
             
             logPayment("refund", outTradeNo, paymentResponse);
             return paymentResponse;
@@ -146,16 +207,17 @@ public class BankPaymentService extends AbstractPaymentService {
     @Override
     public PaymentResponse queryRefund(String outTradeNo, String outRefundNo) {
         try {
+            BankPayProperties properties = merchant(MerchantContext.current());
             Map<String, String> params = new HashMap<>();
-            params.put("merchantId", bankPayProperties.getMerchantId());
+            params.put("merchantId", properties.getMerchantId());
             params.put("outTradeNo", outTradeNo);
             params.put("outRefundNo", outRefundNo);
             params.put("timestamp", String.valueOf(System.currentTimeMillis()));
             
-            String signature = signatureUtils.generateSignature(params, bankPayProperties.getMerchantKey());
+            String signature = signatureUtils.generateSignature(params, properties.getMerchantKey());
             params.put("sign", signature);
             
-            String response = httpUtils.post(bankPayProperties.getGatewayUrl() + "/refund/query", params);
+            CallbackView response = httpUtils.post(properties.getGatewayUrl() + "/refund/query", params, BankPaymentService::readResponse);
             
             PaymentResponse paymentResponse = PaymentResponse.success();
             paymentResponse.setOutTradeNo(outTradeNo);
@@ -171,63 +233,37 @@ public class BankPaymentService extends AbstractPaymentService {
     }
     
     @Override
-    public PaymentResponse handleCallback(String callbackData) {
-        try {
-            // 解析银行回调数据
-            Map<String, String> params = parseCallbackParams(callbackData);
-            
-            // 验证签名
-            if (!verifyCallback(callbackData, params.get("sign"))) {
-                throw new PaymentException("INVALID_SIGNATURE", "回调签名验证失败");
-            }
-            
-            PaymentResponse response = PaymentResponse.success();
-            response.setOutTradeNo(params.get("outTradeNo"));
-            response.setTradeNo(params.get("tradeNo"));
-            response.setPaymentType(PaymentType.BANK);
-            response.setStatus(convertBankStatus(params.get("status")));
-            
-            if (params.get("amount") != null) {
-                response.setPaidAmount(new BigDecimal(params.get("amount")));
-            }
-            
-            logPayment("handleCallback", callbackData, response);
-            return response;
-            
-        } catch (Exception e) {
-            return handlePaymentException("handleCallback", e);
-        }
+    protected boolean verifySignature(CallbackView callback, String signature) {
+        BankPayProperties properties = merchant(MerchantContext.current());
+        return signatureUtils.verifySignature(callback, properties.getMerchantKey(), signature);
     }
     
     @Override
-    public boolean verifyCallback(String callbackData, String signature) {
-        try {
-            Map<String, String> params = parseCallbackParams(callbackData);
-            params.remove("sign"); // 移除签名参数
-            
-            String expectedSignature = signatureUtils.generateSignature(params, bankPayProperties.getMerchantKey());
-            return signature != null && signature.equals(expectedSignature);
-            
-        } catch (Exception e) {
-            logger.error("银行支付回调验签失败", e);
-            return false;
-        }
+    protected PaymentResponse mapCallback(CallbackView callback) {
+        PaymentResponse response = PaymentResponse.success();
+        response.setOutTradeNo(callback.get("outTradeNo"));
+        response.setTradeNo(callback.get("tradeNo"));
+        response.setPaymentType(PaymentType.BANK);
+        response.setStatus(callback.status("status", ChannelStatusCodec.BANK));
+        response.setCurrency(Money.CNY.getCurrencyCode());
+        response.setPaidAmountMinor(callback.amountMinor("amount", 2));
+        return response;
     }
     
     /**
      * 构建支付请求参数
      */
-    private Map<String, String> buildPaymentParams(PaymentRequest request) {
+    private Map<String, String> buildPaymentParams(BankPayProperties properties, PaymentRequest request) {
         Map<String, String> params = new HashMap<>();
-        params.put("merchantId", bankPayProperties.getMerchantId());
+        params.put("merchantId", properties.getMerchantId());
         params.put("outTradeNo", request.getOutTradeNo());
-        params.put("amount", request.getAmount().toString());
+        params.put("amount", request.toMoney().toPlainString());
         params.put("subject", request.getSubject());
         params.put("body", request.getBody());
         params.put("notifyUrl", request.getNotifyUrl() != null ? 
-            request.getNotifyUrl() : bankPayProperties.getNotifyUrl());
+            request.getNotifyUrl() : properties.getNotifyUrl());
         params.put("returnUrl", request.getReturnUrl() != null ? 
-            request.getReturnUrl() : bankPayProperties.getReturnUrl());
+            request.getReturnUrl() : properties.getReturnUrl());
         params.put("timestamp", String.valueOf(System.currentTimeMillis()));
         
         if (request.getExpireTime() != null) {
@@ -241,16 +277,19 @@ public class BankPaymentService extends AbstractPaymentService {
     /**
      * 解析支付响应
      */
-    private PaymentResponse parsePaymentResponse(PaymentRequest request, String responseData) {
+    private PaymentResponse parsePaymentResponse(BankPayProperties properties, PaymentRequest request,
+                                                 CallbackView responseData) {
         // 简化实现，实际项目中需要根据银行接口文档解析响应
         PaymentResponse response = PaymentResponse.success();
         response.setOutTradeNo(request.getOutTradeNo());
         response.setPaymentType(PaymentType.BANK);
         response.setStatus(PaymentStatus.PENDING);
-        response.setAmount(request.getAmount());
+        Money money = request.toMoney();
+        response.setCurrency(money.getCurrency().getCurrencyCode());
+        response.setAmountMinor(money.getMinor());
         
         // 假设银行返回支付URL
-        response.setPayUrl(bankPayProperties.getGatewayUrl() + "/pay?orderNo=" + request.getOutTradeNo());
+        response.setPayUrl(properties.getGatewayUrl() + "/pay?orderNo=" + request.getOutTradeNo());
         
         return response;
     }
@@ -258,60 +297,24 @@ public class BankPaymentService extends AbstractPaymentService {
     /**
      * 解析查询响应
      */
-    private PaymentResponse parseQueryResponse(String outTradeNo, String responseData) {
-        // 简化实现
+    private PaymentResponse parseQueryResponse(String outTradeNo, CallbackView responseData) {
+        // 应答中没有交易状态时不能推断订单已支付，按查询失败返回
+        if (responseData.get("status") == null) {
+            return PaymentResponse.failure("BANK_QUERY_ERROR", "银行查询应答缺少交易状态");
+        }
         PaymentResponse response = PaymentResponse.success();
         response.setOutTradeNo(outTradeNo);
+        response.setTradeNo(responseData.get("tradeNo"));
         response.setPaymentType(PaymentType.BANK);
-        response.setStatus(PaymentStatus.SUCCESS);
+        response.setStatus(responseData.status("status", ChannelStatusCodec.BANK));
         
         return response;
     }
     
     /**
-     * 转换银行支付状态
+     * 直接在响应字节上解析银行网关的应答，不经过中间字符串
      */
-    private PaymentStatus convertBankStatus(String bankStatus) {
-        if (bankStatus == null) {
-            return PaymentStatus.PENDING;
-        }
-        
-        switch (bankStatus.toUpperCase()) {
-            case "SUCCESS":
-            case "PAID":
-                return PaymentStatus.SUCCESS;
-            case "FAILED":
-            case "ERROR":
-                return PaymentStatus.FAILED;
-            case "CANCELLED":
-            case "CLOSED":
-                return PaymentStatus.CANCELLED;
-            case "REFUNDED":
-                return PaymentStatus.REFUNDED;
-            default:
-                return PaymentStatus.PENDING;
-        }
-    }
-    
-    /**
-     * 解析回调参数
-     */
-    private Map<String, String> parseCallbackParams(String callbackData) {
-        // 简化实现，实际项目中需要根据回调数据格式解析
-        Map<String, String> params = new HashMap<>();
-        
-        // 假设回调数据是form格式或JSON格式
-        if (callbackData.contains("=") && callbackData.contains("&")) {
-            // Form格式
-            String[] pairs = callbackData.split("&");
-            for (String pair : pairs) {
-                String[] keyValue = pair.split("=", 2);
-                if (keyValue.length == 2) {
-                    params.put(keyValue[0], keyValue[1]);
-                }
-            }
-        }
-        
-        return params;
+    private static CallbackView readResponse(InputStream body, Charset charset) throws IOException {
+        return CallbackParser.parse(body.readAllBytes(), charset);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package com.tensor.pay.service;
+
+import com.tensor.pay.config.PaymentPropertiesRebinder;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渠道配置热更新
+ *
+ * 定期按当前 Environment 把渠道配置重新绑定为新的快照，再让各渠道比较最新快照与创建客户端时的配置，
+ * 变化的客户端在后台线程中基于快照重建，重建成功后原子替换，进行中的请求继续使用旧客户端和旧配置完成；
+ * 重建失败时保留旧客户端并在下次检查时重试。
+ * 请求线程不参与检查和重建。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ChannelConfigRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelConfigRefresher.class);
+
+    private final PaymentServiceFactory paymentServiceFactory;
+    private final PaymentPropertiesRebinder rebinder;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService rebuildExecutor;
+
+    public ChannelConfigRefresher(PaymentServiceFactory paymentServiceFactory, Duration interval, int threads) {
+        this(paymentServiceFactory, null, interval, threads);
+    }
+
+    /**
+     * @param rebinder 检查前重新绑定配置，为null时只比较配置对象的当前值
+     */
+    public ChannelConfigRefresher(PaymentServiceFactory paymentServiceFactory, PaymentPropertiesRebinder rebinder,
+                                  Duration interval, int threads) {
+        this.paymentServiceFactory = paymentServiceFactory;
+        this.rebinder = rebinder;
+        CustomizableThreadFactory schedulerThreadFactory = new CustomizableThreadFactory("tensor-pay-refresh-scheduler-");
+        schedulerThreadFactory.setDaemon(true);
+        CustomizableThreadFactory rebuildThreadFactory = new CustomizableThreadFactory("tensor-pay-refresh-");
+        rebuildThreadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreadFactory);
+        this.rebuildExecutor = Executors.newFixedThreadPool(Math.max(1, threads), rebuildThreadFactory);
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 检查全部渠道的配置并重建变化的客户端
+     *
+     * @return 重建的客户端数量
+     */
+    public int refresh() {
+        if (rebinder != null) {
+            rebinder.rebind();
+        }
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        paymentServiceFactory.getPaymentServices().forEach((type, service) -> futures.add(
+            service.refreshConfig(rebinder, rebuildExecutor).exceptionally(e -> {
+                logger.warn("Failed to refresh {} channel config", type, e);
+                return 0;
+            })));
+        int refreshed = futures.stream().mapToInt(CompletableFuture::join).sum();
+        if (refreshed > 0) {
+            logger.info("Rebuilt {} payment channel clients after config change", refreshed);
+        }
+        return refreshed;
+    }
+
+    /**
+     * 停止定期检查
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Payment channel config refresh failed", e);
+        }
+    }
+}
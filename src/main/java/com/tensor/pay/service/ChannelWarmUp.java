@@ -0,0 +1,73 @@
+package com.tensor.pay.service;
+
+import com.tensor.pay.enums.ChannelState;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 渠道预热
+ *
+ * 应用启动完成后在后台线程中并行创建各渠道的SDK客户端，不阻塞容器启动，
+ * 某个渠道预热失败不影响其他渠道，失败的渠道在第一次使用时重试。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ChannelWarmUp implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelWarmUp.class);
+
+    private final PaymentServiceFactory paymentServiceFactory;
+    private final int threads;
+
+    public ChannelWarmUp(PaymentServiceFactory paymentServiceFactory, int threads) {
+        this.paymentServiceFactory = paymentServiceFactory;
+        this.threads = Math.max(1, threads);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        warmUp();
+    }
+
+    /**
+     * 并行预热全部渠道
+     *
+     * @return 预热完成后各渠道的就绪状态
+     */
+    public CompletableFuture<Map<PaymentType, ChannelState>> warmUp() {
+        Map<PaymentType, PaymentService> services = paymentServiceFactory.getPaymentServices();
+        if (services.isEmpty()) {
+            return CompletableFuture.completedFuture(new EnumMap<>(PaymentType.class));
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("tensor-pay-warmup-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, services.size()), threadFactory);
+
+        long start = System.nanoTime();
+        Map<PaymentType, CompletableFuture<ChannelState>> futures = new EnumMap<>(PaymentType.class);
+        services.forEach((type, service) -> futures.put(type, service.warmUp(executor)
+            .exceptionally(e -> service.getChannelState())));
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+            .handle((ignored, e) -> {
+                executor.shutdown();
+                Map<PaymentType, ChannelState> states = new EnumMap<>(PaymentType.class);
+                futures.forEach((type, future) -> states.put(type, future.join()));
+                logger.info("Payment channels warmed up in {}ms: {}",
+                    (System.nanoTime() - start) / 1_000_000, states);
+                return states;
+            });
+    }
+}
@@ -0,0 +1,107 @@
+package com.tensor.pay.service;
+
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.utils.HttpUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 网关连接预热
+ *
+ * 在应用报告就绪之前执行：为经由连接池访问的网关预先建立长连接，
+ * 对渠道SDK自行连接的网关预先解析域名并完成一次TLS握手。
+ * 各网关并行预热，总耗时不超过配置的超时时间，预热失败只记录日志，不影响启动。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ConnectionWarmUp implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionWarmUp.class);
+
+    private final PaymentServiceFactory paymentServiceFactory;
+    private final HttpUtils httpUtils;
+    private final int connections;
+    private final Duration timeout;
+
+    public ConnectionWarmUp(PaymentServiceFactory paymentServiceFactory, HttpUtils httpUtils, int connections,
+                            Duration timeout) {
+        this.paymentServiceFactory = paymentServiceFactory;
+        this.httpUtils = httpUtils;
+        this.connections = Math.max(1, connections);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    /**
+     * 预热全部渠道的网关连接
+     *
+     * @return 各网关地址预热的连接数，SDK网关握手成功记为1，失败记为0
+     */
+    public Map<String, Integer> warmUp() {
+        Map<String, Boolean> gateways = new LinkedHashMap<>();
+        Map<PaymentType, PaymentService> services = paymentServiceFactory.getPaymentServices();
+        services.values().forEach(service -> {
+            service.getPooledGatewayUrls().forEach(url -> gateways.put(url, true));
+            service.getSdkGatewayUrls().forEach(url -> gateways.putIfAbsent(url, false));
+        });
+        Map<String, Integer> results = new LinkedHashMap<>();
+        if (gateways.isEmpty()) {
+            return results;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("tensor-pay-connection-warmup-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<Integer>> futures = new LinkedHashMap<>();
+        gateways.forEach((url, pooled) -> futures.put(url, CompletableFuture.supplyAsync(
+            () -> pooled ? httpUtils.warmUp(url, connections, timeout, executor) : handshake(url), executor)));
+        List<CompletableFuture<Integer>> all = new ArrayList<>(futures.values());
+        try {
+            CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).get(timeout.toMillis(),
+                TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Gateway connection warm-up did not finish within {}", timeout);
+        } finally {
+            executor.shutdown();
+        }
+        futures.forEach((url, future) -> results.put(url, future.isDone() && !future.isCompletedExceptionally()
+            ? future.join() : 0));
+        logger.info("Gateway connections warmed up in {}ms: {}", (System.nanoTime() - start) / 1_000_000, results);
+        return results;
+    }
+
+    private int handshake(String url) {
+        try {
+            httpUtils.handshake(url, timeout);
+            return 1;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to warm up gateway {}: {}", url, e.toString());
+            return 0;
+        }
+    }
+}
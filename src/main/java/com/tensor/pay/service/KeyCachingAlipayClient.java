@@ -0,0 +1,63 @@
+package com.tensor.pay.service;
+
+import com.alipay.api.AlipayApiException;
+import com.alipay.api.DefaultAlipayClient;
+import com.alipay.api.SignChecker;
+import com.alipay.api.Signer;
+import com.alipay.api.internal.util.AlipaySignature;
+import com.tensor.pay.config.AlipayProperties;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.utils.KeyMaterialCache;
+
+import java.nio.charset.Charset;
+
+/**
+ * 使用 {@link KeyMaterialCache} 签名和验签的支付宝客户端
+ *
+ * SDK默认的签名器每次请求都重新解析私钥和支付宝公钥，这里改为从缓存取密钥。
+ * 签名和验签使用的配置与父类构造时的配置是同一个不再修改的快照，配置变化后整个客户端按新快照重建，
+ * 不会出现新appId配旧私钥的情况。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+class KeyCachingAlipayClient extends DefaultAlipayClient {
+
+    private final Signer signer;
+    private final SignChecker signChecker;
+
+    KeyCachingAlipayClient(String serverUrl, AlipayProperties properties, KeyMaterialCache keyMaterialCache) {
+        super(serverUrl, properties.getAppId(), properties.getPrivateKey(), properties.getFormat(),
+            properties.getCharset(), properties.getAlipayPublicKey(), properties.getSignType());
+        this.signer = (content, signType, charset) -> keyMaterialCache.sign(PaymentType.ALIPAY, properties.getAppId(),
+            properties.getPrivateKey(), content, Charset.forName(charset), signType);
+        this.signChecker = new SignChecker() {
+            @Override
+            public boolean check(String content, String sign, String signType, String charset) {
+                return keyMaterialCache.verify(PaymentType.ALIPAY, properties.getAppId(),
+                    properties.getAlipayPublicKey(), content, sign, Charset.forName(charset), signType);
+            }
+
+            @Override
+            public boolean checkCert(String content, String sign, String signType, String charset,
+                                     String publicKey) {
+                // 证书模式的公钥随证书下发，不做缓存
+                try {
+                    return AlipaySignature.rsaCheck(content, sign, publicKey, charset, signType);
+                } catch (AlipayApiException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Signer getSigner() {
+        return signer;
+    }
+
+    @Override
+    public SignChecker getSignChecker() {
+        return signChecker;
+    }
+}
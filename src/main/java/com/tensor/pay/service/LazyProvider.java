@@ -0,0 +1,180 @@
+package com.tensor.pay.service;
+
+import com.tensor.pay.enums.ChannelState;
+import com.tensor.pay.exception.PaymentException;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 延迟初始化的渠道客户端
+ *
+ * 渠道SDK客户端的创建可能需要下载平台证书、读取私钥文件等耗时操作，
+ * 放在Spring容器启动时执行会拖慢启动，渠道不可达时还会导致整个应用启动失败。
+ * 这里改为第一次使用时或由 {@link #warmUp} 在后台创建，创建失败只影响该渠道，下次使用时重试。
+ * 创建成功后读取只是一次volatile读。
+ * 指定配置指纹时，配置变化后可以由 {@link #reloadIfStale} 在后台创建新实例并原子替换，
+ * 替换前已经取得旧实例的请求继续在旧实例上完成。
+ *
+ * @param <T> 客户端类型
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class LazyProvider<T> {
+
+    private final String errorCode;
+    private final String errorMessage;
+    private final Callable<T> factory;
+    private final Supplier<?> fingerprint;
+    private final Object lock = new Object();
+
+    private volatile T instance;
+    private volatile Object builtFingerprint;
+    private volatile ChannelState state = ChannelState.NOT_STARTED;
+    private volatile Throwable lastError;
+
+    /**
+     * @param errorCode 创建失败时抛出的错误码
+     * @param errorMessage 创建失败时抛出的错误信息
+     * @param factory 客户端创建逻辑
+     */
+    public LazyProvider(String errorCode, String errorMessage, Callable<T> factory) {
+        this(errorCode, errorMessage, factory, null);
+    }
+
+    /**
+     * @param errorCode 创建失败时抛出的错误码
+     * @param errorMessage 创建失败时抛出的错误信息
+     * @param factory 客户端创建逻辑，每次调用都应读取当前配置
+     * @param fingerprint 当前配置的指纹，与创建时的指纹不相等时视为配置已变化，可以为null
+     */
+    public LazyProvider(String errorCode, String errorMessage, Callable<T> factory, Supplier<?> fingerprint) {
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+        this.factory = factory;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * 获取客户端，尚未创建时在当前线程创建
+     *
+     * @return 客户端
+     * @throws PaymentException 创建失败
+     */
+    public T get() {
+        T value = instance;
+        return value != null ? value : initialize();
+    }
+
+    /**
+     * 在指定线程池中后台创建客户端
+     *
+     * @param executor 线程池
+     * @return 创建完成后的状态，创建失败不会使返回的future异常完成
+     */
+    public CompletableFuture<ChannelState> warmUp(Executor executor) {
+        if (instance != null) {
+            return CompletableFuture.completedFuture(ChannelState.READY);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                get();
+            } catch (PaymentException ignored) {
+                // 失败原因记录在lastError中
+            }
+            return state;
+        }, executor);
+    }
+
+    private T initialize() {
+        synchronized (lock) {
+            T value = instance;
+            if (value != null) {
+                return value;
+            }
+            state = ChannelState.INITIALIZING;
+            Object built = currentFingerprint();
+            try {
+                value = factory.call();
+            } catch (PaymentException e) {
+                fail(e);
+                throw e;
+            } catch (Exception e) {
+                fail(e);
+                throw new PaymentException(errorCode, errorMessage, e);
+            }
+            instance = value;
+            builtFingerprint = built;
+            lastError = null;
+            state = ChannelState.READY;
+            return value;
+        }
+    }
+
+    /**
+     * 已创建的实例是否基于旧配置
+     */
+    public boolean isStale() {
+        return instance != null && fingerprint != null && !Objects.equals(builtFingerprint, fingerprint.get());
+    }
+
+    /**
+     * 配置变化后在后台按新配置创建实例并原子替换
+     *
+     * 新实例创建失败时保留旧实例继续服务，失败原因记录在 {@link #getLastError()}。
+     * 尚未创建的实例不需要重建，第一次使用时会直接读取新配置。
+     *
+     * @param executor 执行重建的线程池
+     * @return 是否替换了实例
+     */
+    public CompletableFuture<Boolean> reloadIfStale(Executor executor) {
+        if (!isStale()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(this::reload, executor);
+    }
+
+    private boolean reload() {
+        synchronized (lock) {
+            if (!isStale()) {
+                return false;
+            }
+            Object built = fingerprint.get();
+            T fresh;
+            try {
+                fresh = factory.call();
+            } catch (Exception e) {
+                lastError = e;
+                throw e instanceof PaymentException ? (PaymentException) e
+                    : new PaymentException(errorCode, errorMessage, e);
+            }
+            instance = fresh;
+            builtFingerprint = built;
+            lastError = null;
+            return true;
+        }
+    }
+
+    private Object currentFingerprint() {
+        return fingerprint == null ? null : fingerprint.get();
+    }
+
+    private void fail(Exception e) {
+        lastError = e;
+        state = ChannelState.FAILED;
+    }
+
+    public ChannelState getState() {
+        return state;
+    }
+
+    /**
+     * 最近一次创建失败的原因，成功后清空
+     */
+    public Throwable getLastError() {
+        return lastError;
+    }
+}
@@ -1,8 +1,16 @@
 package com.tensor.pay.service;
 
+import com.tensor.pay.callback.CallbackView;
+import com.tensor.pay.config.PaymentPropertiesRebinder;
+import com.tensor.pay.enums.ChannelState;
 import com.tensor.pay.model.PaymentRequest;
 import com.tensor.pay.model.PaymentResponse;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * 支付服务接口
  * 
@@ -62,6 +70,17 @@ public interface PaymentService {
      */
     PaymentResponse handleCallback(String callbackData);
     
+    /**
+     * 处理原始回调报文
+     * 默认按UTF-8转换为字符串后交给 {@link #handleCallback(String)}，渠道实现可以直接解析原始字节
+     * 
+     * @param body 原始回调报文
+     * @return 处理结果
+     */
+    default PaymentResponse handleCallback(byte[] body) {
+        return handleCallback(new String(body, StandardCharsets.UTF_8));
+    }
+    
     /**
      * 验证回调签名
      * 
@@ -70,4 +89,72 @@ public interface PaymentService {
      * @return 验证结果
      */
     boolean verifyCallback(String callbackData, String signature);
-}
\ No newline at end of file
+    
+    /**
+     * 验证已解析的回调报文签名，签名取自报文中的sign字段
+     * 
+     * @param callback 回调报文视图
+     * @return 验证结果
+     */
+    default boolean verifyCallback(CallbackView callback) {
+        return verifyCallback(new String(callback.getBody(), callback.getCharset()), callback.get("sign"));
+    }
+    
+    /**
+     * 渠道就绪状态，不需要初始化SDK客户端的渠道始终就绪
+     * 
+     * @return 就绪状态
+     */
+    default ChannelState getChannelState() {
+        return ChannelState.READY;
+    }
+    
+    /**
+     * 在后台预热渠道客户端
+     * 
+     * @param executor 执行预热的线程池
+     * @return 预热完成后的就绪状态
+     */
+    default CompletableFuture<ChannelState> warmUp(Executor executor) {
+        return CompletableFuture.completedFuture(getChannelState());
+    }
+    
+    /**
+     * 检查渠道配置对象的当前值是否变化，变化时在后台重建客户端并原子替换
+     * 
+     * @param executor 执行重建的线程池
+     * @return 重建的客户端数量
+     */
+    default CompletableFuture<Integer> refreshConfig(Executor executor) {
+        return refreshConfig(null, executor);
+    }
+    
+    /**
+     * 按重新绑定的配置快照检查渠道配置是否变化，变化时在后台基于快照重建客户端并原子替换
+     * 
+     * @param rebinder 提供最新配置快照，为null时比较配置对象的当前值
+     * @param executor 执行重建的线程池
+     * @return 重建的客户端数量
+     */
+    default CompletableFuture<Integer> refreshConfig(PaymentPropertiesRebinder rebinder, Executor executor) {
+        return CompletableFuture.completedFuture(0);
+    }
+    
+    /**
+     * 经由 {@link com.tensor.pay.utils.HttpUtils} 连接池访问的网关地址，启动时预先建立长连接
+     * 
+     * @return 网关地址
+     */
+    default List<String> getPooledGatewayUrls() {
+        return List.of();
+    }
+    
+    /**
+     * 由渠道SDK自行建立连接的网关地址，启动时只预先解析域名并完成一次TLS握手
+     * 
+     * @return 网关地址
+     */
+    default List<String> getSdkGatewayUrls() {
+        return List.of();
+    }
+}
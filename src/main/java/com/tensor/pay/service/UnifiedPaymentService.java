@@ -1,12 +1,21 @@
 package com.tensor.pay.service;
 
+import com.tensor.pay.enums.PaymentOperation;
+import com.tensor.pay.event.PaymentEventPublisher;
 import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.hedge.RequestHedger;
+import com.tensor.pay.merchant.MerchantContext;
 import com.tensor.pay.model.PaymentRequest;
 import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.ratelimit.PaymentRateLimiter;
+import com.tensor.pay.ratelimit.RateLimitStats;
+import com.tensor.pay.utils.Deadline;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 统一支付服务
@@ -19,10 +28,34 @@ import java.math.BigDecimal;
 public class UnifiedPaymentService {
     
     private final PaymentServiceFactory paymentServiceFactory;
+    private final PaymentEventPublisher eventPublisher;
+    private final PaymentRateLimiter rateLimiter;
+    private final RequestHedger requestHedger;
     
-    @Autowired
     public UnifiedPaymentService(PaymentServiceFactory paymentServiceFactory) {
+        this(paymentServiceFactory, null);
+    }
+    
+    public UnifiedPaymentService(PaymentServiceFactory paymentServiceFactory,
+                                 PaymentEventPublisher eventPublisher) {
+        this(paymentServiceFactory, eventPublisher, null);
+    }
+    
+    public UnifiedPaymentService(PaymentServiceFactory paymentServiceFactory,
+                                 PaymentEventPublisher eventPublisher,
+                                 PaymentRateLimiter rateLimiter) {
+        this(paymentServiceFactory, eventPublisher, rateLimiter, null);
+    }
+    
+    @Autowired
+    public UnifiedPaymentService(PaymentServiceFactory paymentServiceFactory,
+                                 PaymentEventPublisher eventPublisher,
+                                 PaymentRateLimiter rateLimiter,
+                                 RequestHedger requestHedger) {
         this.paymentServiceFactory = paymentServiceFactory;
+        this.eventPublisher = eventPublisher;
+        this.rateLimiter = rateLimiter;
+        this.requestHedger = requestHedger;
     }
     
     /**
@@ -32,8 +65,38 @@ public class UnifiedPaymentService {
      * @return 支付响应
      */
     public PaymentResponse createPayment(PaymentRequest request) {
+        return Deadline.call(request.deadline(), () -> doCreatePayment(request));
+    }
+    
+    /**
+     * 异步创建支付订单
+     * 
+     * 返回的结果最迟在请求截止时间完成，任务开始执行时已经截止的请求不再调用网关。
+     * 
+     * @param request 支付请求
+     * @param executor 执行请求的线程池
+     * @return 支付响应
+     */
+    public CompletableFuture<PaymentResponse> createPaymentAsync(PaymentRequest request, Executor executor) {
+        Deadline deadline = Deadline.call(request.deadline(), Deadline::current);
+        CompletableFuture<PaymentResponse> future = CompletableFuture.supplyAsync(
+            () -> Deadline.call(deadline, () -> doCreatePayment(request)), executor);
+        return deadline == null ? future : deadline.bound(future);
+    }
+    
+    private PaymentResponse doCreatePayment(PaymentRequest request) {
         PaymentService paymentService = paymentServiceFactory.getPaymentService(request.getPaymentType());
-        return paymentService.createPayment(request);
+        String merchantId = request.resolveMerchantId();
+        PaymentResponse rejected = acquire(request.getPaymentType(),
+            merchantId != null ? merchantId : MerchantContext.current(), PaymentOperation.CREATE);
+        if (rejected != null) {
+            return rejected;
+        }
+        PaymentResponse response = paymentService.createPayment(request);
+        if (eventPublisher != null) {
+            eventPublisher.publishCreated(request, response);
+        }
+        return response;
     }
     
     /**
@@ -45,7 +108,25 @@ public class UnifiedPaymentService {
      */
     public PaymentResponse queryPayment(com.tensor.pay.enums.PaymentType paymentType, String outTradeNo) {
         PaymentService paymentService = paymentServiceFactory.getPaymentService(paymentType);
-        return paymentService.queryPayment(outTradeNo);
+        PaymentResponse rejected = acquire(paymentType, MerchantContext.current(), PaymentOperation.QUERY);
+        if (rejected != null) {
+            return rejected;
+        }
+        return publishStatus(hedge(paymentType, PaymentOperation.QUERY,
+            () -> paymentService.queryPayment(outTradeNo)));
+    }
+    
+    /**
+     * 查询子商户的支付状态
+     * 
+     * @param paymentType 支付类型
+     * @param merchantId 子商户号，为空时使用默认商户
+     * @param outTradeNo 商户订单号
+     * @return 支付响应
+     */
+    public PaymentResponse queryPayment(com.tensor.pay.enums.PaymentType paymentType, String merchantId,
+                                        String outTradeNo) {
+        return MerchantContext.call(merchantId, () -> queryPayment(paymentType, outTradeNo));
     }
     
     /**
@@ -57,7 +138,24 @@ public class UnifiedPaymentService {
      */
     public PaymentResponse cancelPayment(com.tensor.pay.enums.PaymentType paymentType, String outTradeNo) {
         PaymentService paymentService = paymentServiceFactory.getPaymentService(paymentType);
-        return paymentService.cancelPayment(outTradeNo);
+        PaymentResponse rejected = acquire(paymentType, MerchantContext.current(), PaymentOperation.CANCEL);
+        if (rejected != null) {
+            return rejected;
+        }
+        return publishStatus(paymentService.cancelPayment(outTradeNo));
+    }
+    
+    /**
+     * 取消子商户的支付
+     * 
+     * @param paymentType 支付类型
+     * @param merchantId 子商户号，为空时使用默认商户
+     * @param outTradeNo 商户订单号
+     * @return 支付响应
+     */
+    public PaymentResponse cancelPayment(com.tensor.pay.enums.PaymentType paymentType, String merchantId,
+                                         String outTradeNo) {
+        return MerchantContext.call(merchantId, () -> cancelPayment(paymentType, outTradeNo));
     }
     
     /**
@@ -74,9 +172,31 @@ public class UnifiedPaymentService {
                                  BigDecimal refundAmount, 
                                  String refundReason) {
         PaymentService paymentService = paymentServiceFactory.getPaymentService(paymentType);
+        PaymentResponse rejected = acquire(paymentType, MerchantContext.current(), PaymentOperation.REFUND);
+        if (rejected != null) {
+            return rejected;
+        }
         return paymentService.refund(outTradeNo, refundAmount, refundReason);
     }
     
+    /**
+     * 子商户申请退款
+     * 
+     * @param paymentType 支付类型
+     * @param merchantId 子商户号，为空时使用默认商户
+     * @param outTradeNo 商户订单号
+     * @param refundAmount 退款金额
+     * @param refundReason 退款原因
+     * @return 支付响应
+     */
+    public PaymentResponse refund(com.tensor.pay.enums.PaymentType paymentType, 
+                                 String merchantId, 
+                                 String outTradeNo, 
+                                 BigDecimal refundAmount, 
+                                 String refundReason) {
+        return MerchantContext.call(merchantId, () -> refund(paymentType, outTradeNo, refundAmount, refundReason));
+    }
+    
     /**
      * 查询退款状态
      * 
@@ -89,7 +209,28 @@ public class UnifiedPaymentService {
                                       String outTradeNo, 
                                       String outRefundNo) {
         PaymentService paymentService = paymentServiceFactory.getPaymentService(paymentType);
-        return paymentService.queryRefund(outTradeNo, outRefundNo);
+        PaymentResponse rejected = acquire(paymentType, MerchantContext.current(), PaymentOperation.QUERY_REFUND);
+        if (rejected != null) {
+            return rejected;
+        }
+        return hedge(paymentType, PaymentOperation.QUERY_REFUND,
+            () -> paymentService.queryRefund(outTradeNo, outRefundNo));
+    }
+    
+    /**
+     * 查询子商户的退款状态
+     * 
+     * @param paymentType 支付类型
+     * @param merchantId 子商户号，为空时使用默认商户
+     * @param outTradeNo 商户订单号
+     * @param outRefundNo 商户退款号
+     * @return 支付响应
+     */
+    public PaymentResponse queryRefund(com.tensor.pay.enums.PaymentType paymentType, 
+                                      String merchantId, 
+                                      String outTradeNo, 
+                                      String outRefundNo) {
+        return MerchantContext.call(merchantId, () -> queryRefund(paymentType, outTradeNo, outRefundNo));
     }
     
     /**
@@ -101,7 +242,32 @@ public class UnifiedPaymentService {
      */
     public PaymentResponse handleCallback(com.tensor.pay.enums.PaymentType paymentType, String callbackData) {
         PaymentService paymentService = paymentServiceFactory.getPaymentService(paymentType);
-        return paymentService.handleCallback(callbackData);
+        return publishStatus(paymentService.handleCallback(callbackData));
+    }
+    
+    /**
+     * 处理原始回调报文，渠道实现直接在请求字节上解析
+     * 
+     * @param paymentType 支付类型
+     * @param body 原始回调报文
+     * @return 支付响应
+     */
+    public PaymentResponse handleCallback(com.tensor.pay.enums.PaymentType paymentType, byte[] body) {
+        PaymentService paymentService = paymentServiceFactory.getPaymentService(paymentType);
+        return publishStatus(paymentService.handleCallback(body));
+    }
+    
+    /**
+     * 处理子商户的原始回调报文，使用该商户的密钥验签
+     * 
+     * @param paymentType 支付类型
+     * @param merchantId 子商户号，为空时使用默认商户
+     * @param body 原始回调报文
+     * @return 支付响应
+     */
+    public PaymentResponse handleCallback(com.tensor.pay.enums.PaymentType paymentType, String merchantId,
+                                          byte[] body) {
+        return MerchantContext.call(merchantId, () -> handleCallback(paymentType, body));
     }
     
     /**
@@ -128,6 +294,28 @@ public class UnifiedPaymentService {
         return paymentServiceFactory.getSupportedPaymentTypes();
     }
     
+    /**
+     * 获取各渠道的就绪状态
+     * 
+     * @return 支付类型到就绪状态的映射
+     */
+    public java.util.Map<com.tensor.pay.enums.PaymentType, com.tensor.pay.enums.ChannelState> getChannelStates() {
+        java.util.Map<com.tensor.pay.enums.PaymentType, com.tensor.pay.enums.ChannelState> states =
+            new java.util.EnumMap<>(com.tensor.pay.enums.PaymentType.class);
+        paymentServiceFactory.getPaymentServices().forEach((type, service) ->
+            states.put(type, service.getChannelState()));
+        return states;
+    }
+    
+    /**
+     * 获取各限流令牌桶的状态
+     * 
+     * @return 令牌桶状态列表，未启用限流时为空
+     */
+    public java.util.List<RateLimitStats> getRateLimitStats() {
+        return rateLimiter == null ? java.util.Collections.emptyList() : rateLimiter.getStats();
+    }
+    
     /**
      * 检查是否支持指定的支付类型
      * 
@@ -137,4 +325,42 @@ public class UnifiedPaymentService {
     public boolean isSupported(com.tensor.pay.enums.PaymentType paymentType) {
         return paymentServiceFactory.isSupported(paymentType);
     }
+    
+    /**
+     * 调用网关前取得限流配额，回调由网关发起，不做限流；排队后已经截止的请求不再调用网关
+     * 
+     * @return 超出限流配额或已经截止时返回失败响应，否则返回null
+     */
+    private PaymentResponse acquire(com.tensor.pay.enums.PaymentType paymentType, String merchantId,
+                                    PaymentOperation operation) {
+        if (rateLimiter != null && !rateLimiter.await(paymentType, merchantId, operation)) {
+            return PaymentResponse.RATE_LIMITED;
+        }
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            return PaymentResponse.DEADLINE_EXCEEDED;
+        }
+        return null;
+    }
+    
+    /**
+     * 幂等查询在启用对冲时交给对冲器执行
+     */
+    private PaymentResponse hedge(com.tensor.pay.enums.PaymentType paymentType, PaymentOperation operation,
+                                  java.util.function.Supplier<PaymentResponse> query) {
+        return requestHedger == null ? query.get() : requestHedger.call(paymentType, operation, query);
+    }
+    
+    /**
+     * 将网关返回的权威状态发布给事件监听器
+     * 
+     * @param response 支付响应
+     * @return 原支付响应
+     */
+    private PaymentResponse publishStatus(PaymentResponse response) {
+        if (eventPublisher != null) {
+            eventPublisher.publishStatusUpdated(response);
+        }
+        return response;
+    }
 }
\ No newline at end of file
@@ -1,11 +1,20 @@
 package com.tensor.pay.service;
 
+import com.tensor.pay.callback.CallbackParser;
+import com.tensor.pay.callback.CallbackView;
+import com.tensor.pay.config.PaymentPropertiesRebinder;
 import com.tensor.pay.config.WechatPayProperties;
+import com.tensor.pay.enums.ChannelState;
 import com.tensor.pay.enums.PaymentStatus;
 import com.tensor.pay.enums.PaymentType;
 import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.merchant.MerchantClient;
+import com.tensor.pay.merchant.MerchantConfigProvider;
+import com.tensor.pay.merchant.MerchantRegistry;
+import com.tensor.pay.model.Money;
 import com.tensor.pay.model.PaymentRequest;
 import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.utils.KeyMaterialCache;
 import com.wechat.pay.java.core.Config;
 import com.wechat.pay.java.core.RSAAutoCertificateConfig;
 import com.wechat.pay.java.service.payments.jsapi.JsapiServiceExtension;
@@ -16,9 +25,17 @@ import com.wechat.pay.java.service.payments.nativepay.model.PrepayResponse;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 微信支付服务实现
@@ -30,28 +47,83 @@ import java.time.format.DateTimeFormatter;
 @ConditionalOnProperty(prefix = "tensor.pay.wechat", name = "enabled", havingValue = "true")
 public class WechatPaymentService extends AbstractPaymentService {
     
-    private final WechatPayProperties wechatPayProperties;
-    private final Config config;
-    private final NativePayService nativePayService;
-    private final JsapiServiceExtension jsapiService;
+    private static final String API_BASE_URL = "https://api.mch.weixin.qq.com";
     
-    public WechatPaymentService(WechatPayProperties wechatPayProperties) {
-        this.wechatPayProperties = wechatPayProperties;
-        try {
-            // 初始化微信支付配置
-            this.config = new RSAAutoCertificateConfig.Builder()
-                    .merchantId(wechatPayProperties.getMchId())
-                    .privateKeyFromPath(wechatPayProperties.getPrivateKeyPath())
-                    .merchantSerialNumber(wechatPayProperties.getMerchantSerialNumber())
-                    .apiV3Key(wechatPayProperties.getApiV3Key())
+    private final KeyMaterialCache keyMaterialCache;
+    private final MerchantRegistry merchantRegistry;
+    private volatile MerchantClient<WechatPayProperties, Clients> defaultMerchant;
+    
+    public WechatPaymentService(WechatPayProperties wechatPayProperties, KeyMaterialCache keyMaterialCache,
+                                MerchantRegistry merchantRegistry) {
+        this.keyMaterialCache = keyMaterialCache;
+        this.merchantRegistry = merchantRegistry;
+        this.defaultMerchant = newMerchant(wechatPayProperties);
+    }
+    
+    @Override
+    public ChannelState getChannelState() {
+        return defaultMerchant.getProvider().getState();
+    }
+    
+    @Override
+    public CompletableFuture<ChannelState> warmUp(Executor executor) {
+        return defaultMerchant.getProvider().warmUp(executor);
+    }
+    
+    @Override
+    public List<String> getSdkGatewayUrls() {
+        return List.of(API_BASE_URL);
+    }
+    
+    /**
+     * 商户的配置和客户端
+     */
+    private MerchantClient<WechatPayProperties, Clients> merchant(String merchantId) {
+        return selectMerchant(merchantId, defaultMerchant, merchantRegistry, id -> newMerchant(
+            MerchantConfigProvider.require(merchantRegistry.getConfigProvider().getWechatConfig(id), id)));
+    }
+    
+    private MerchantClient<WechatPayProperties, Clients> newMerchant(WechatPayProperties properties) {
+        // 自动更新证书的配置会在创建时下载平台证书，延迟到第一次使用或后台预热时创建
+        LazyProvider<Clients> provider = new LazyProvider<>("WECHAT_CONFIG_ERROR", "微信支付配置初始化失败", () -> {
+            // 商户私钥从缓存获取，同一私钥文件只解析一次
+            Config config = new RSAAutoCertificateConfig.Builder()
+                    .merchantId(properties.getMchId())
+                    .privateKey(keyMaterialCache.privateKeyFromPath(PaymentType.WECHAT, properties.getMchId(),
+                        properties.getPrivateKeyPath()))
+                    .merchantSerialNumber(properties.getMerchantSerialNumber())
+                    .apiV3Key(properties.getApiV3Key())
                     .build();
-            
-            this.nativePayService = new NativePayService.Builder().config(config).build();
-            this.jsapiService = new JsapiServiceExtension.Builder().config(config).build();
-            
-        } catch (Exception e) {
-            throw new PaymentException("WECHAT_CONFIG_ERROR", "微信支付配置初始化失败", e);
+            return new Clients(new NativePayService.Builder().config(config).build(),
+                new JsapiServiceExtension.Builder().config(config).build());
+        }, () -> fingerprint(properties));
+        return new MerchantClient<>(properties, fingerprint(properties), provider,
+            () -> keyMaterialCache.invalidate(PaymentType.WECHAT, properties.getMchId()));
+    }
+    
+    /**
+     * 影响客户端的配置项，私钥文件按修改时间判断是否被替换
+     */
+    private static Object fingerprint(WechatPayProperties properties) {
+        long keyModified = -1;
+        if (properties.getPrivateKeyPath() != null) {
+            try {
+                keyModified = Files.getLastModifiedTime(Paths.get(properties.getPrivateKeyPath())).toMillis();
+            } catch (IOException | InvalidPathException e) {
+                // 文件不可读时由创建客户端时报错
+            }
         }
+        return Arrays.asList(properties.getMchId(), properties.getPrivateKeyPath(), keyModified,
+            properties.getMerchantSerialNumber(), properties.getApiV3Key());
+    }
+    
+    @Override
+    public CompletableFuture<Integer> refreshConfig(PaymentPropertiesRebinder rebinder, Executor executor) {
+        MerchantClient<WechatPayProperties, Clients> current = defaultMerchant;
+        return refreshMerchants(current, latest(rebinder, current.getProperties()),
+            fresh -> defaultMerchant = fresh, merchantRegistry,
+            id -> merchantRegistry.getConfigProvider().getWechatConfig(id),
+            WechatPaymentService::fingerprint, this::newMerchant, executor);
     }
     
     @Override
@@ -61,9 +133,11 @@ public class WechatPaymentService extends AbstractPaymentService {
     
     @Override
     public PaymentResponse createPayment(PaymentRequest request) {
+        PaymentResponse invalid = checkPaymentRequest(request);
+        if (invalid != null) {
+            return invalid;
+        }
         try {
-            validatePaymentRequest(request);
-            
             // 根据不同场景选择不同的支付方式
             if (request.getUserId() != null) {
                 // JSAPI支付（公众号、小程序）
@@ -83,18 +157,21 @@ public class WechatPaymentService extends AbstractPaymentService {
      */
     private PaymentResponse createNativePayment(PaymentRequest request) {
         try {
+            MerchantClient<WechatPayProperties, Clients> merchant = merchant(resolveMerchantId(request));
+            WechatPayProperties properties = merchant.getProperties();
             PrepayRequest prepayRequest = new PrepayRequest();
-            prepayRequest.setAppid(wechatPayProperties.getAppId());
-            prepayRequest.setMchid(wechatPayProperties.getMchId());
+            prepayRequest.setAppid(properties.getAppId());
+            prepayRequest.setMchid(properties.getMchId());
             prepayRequest.setDescription(request.getSubject());
             prepayRequest.setOutTradeNo(request.getOutTradeNo());
             prepayRequest.setNotifyUrl(request.getNotifyUrl() != null ? 
-                request.getNotifyUrl() : wechatPayProperties.getNotifyUrl());
+                request.getNotifyUrl() : properties.getNotifyUrl());
             
             // 设置金额（微信支付金额单位为分）
             Amount amount = new Amount();
-            amount.setTotal(request.getAmount().multiply(new BigDecimal("100")).intValue());
-            amount.setCurrency("CNY");
+            Money money = request.toMoney();
+            amount.setTotal(Math.toIntExact(money.getMinor()));
+            amount.setCurrency(money.getCurrency().getCurrencyCode());
             prepayRequest.setAmount(amount);
             
             // 设置过期时间
@@ -103,13 +180,14 @@ public class WechatPaymentService extends AbstractPaymentService {
                     .format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss+08:00")));
             }
             
-            PrepayResponse prepayResponse = nativePayService.prepay(prepayRequest);
+            PrepayResponse prepayResponse = merchant.getClient().nativePayService.prepay(prepayRequest);
             
             PaymentResponse response = PaymentResponse.success();
             response.setOutTradeNo(request.getOutTradeNo());
             response.setPaymentType(PaymentType.WECHAT);
             response.setStatus(PaymentStatus.PENDING);
-            response.setAmount(request.getAmount());
+            response.setCurrency(money.getCurrency().getCurrencyCode());
+            response.setAmountMinor(money.getMinor());
             response.setPayUrl(prepayResponse.getCodeUrl());
             
             logPayment("createNativePayment", request, response);
@@ -125,14 +203,17 @@ public class WechatPaymentService extends AbstractPaymentService {
      */
     private PaymentResponse createJsapiPayment(PaymentRequest request) {
         try {
+            MerchantClient<WechatPayProperties, Clients> merchant = merchant(resolveMerchantId(request));
+            WechatPayProperties properties = merchant.getProperties();
+            JsapiServiceExtension jsapiService = merchant.getClient().jsapiService;
             com.wechat.pay.java.service.payments.jsapi.model.PrepayRequest prepayRequest = 
                 new com.wechat.pay.java.service.payments.jsapi.model.PrepayRequest();
-            prepayRequest.setAppid(wechatPayProperties.getAppId());
-            prepayRequest.setMchid(wechatPayProperties.getMchId());
+            prepayRequest.setAppid(properties.getAppId());
+            prepayRequest.setMchid(properties.getMchId());
             prepayRequest.setDescription(request.getSubject());
             prepayRequest.setOutTradeNo(request.getOutTradeNo());
             prepayRequest.setNotifyUrl(request.getNotifyUrl() != null ? 
-                request.getNotifyUrl() : wechatPayProperties.getNotifyUrl());
+                request.getNotifyUrl() : properties.getNotifyUrl());
             
             // 设置用户标识
             Payer payer = new Payer();
@@ -142,8 +223,9 @@ public class WechatPaymentService extends AbstractPaymentService {
             // 设置金额
             com.wechat.pay.java.service.payments.jsapi.model.Amount amount = 
                 new com.wechat.pay.java.service.payments.jsapi.model.Amount();
-            amount.setTotal(request.getAmount().multiply(new BigDecimal("100")).intValue());
-            amount.setCurrency("CNY");
+            Money money = request.toMoney();
+            amount.setTotal(Math.toIntExact(money.getMinor()));
+            amount.setCurrency(money.getCurrency().getCurrencyCode());
             prepayRequest.setAmount(amount);
             
             // 设置过期时间
@@ -162,7 +244,8 @@ public class WechatPaymentService extends AbstractPaymentService {
             response.setOutTradeNo(request.getOutTradeNo());
             response.setPaymentType(PaymentType.WECHAT);
             response.setStatus(PaymentStatus.PENDING);
-            response.setAmount(request.getAmount());
+            response.setCurrency(money.getCurrency().getCurrencyCode());
+            response.setAmountMinor(money.getMinor());
             response.setPayParams(payParams);
             
             logPayment("createJsapiPayment", request, response);
@@ -243,33 +326,45 @@ public class WechatPaymentService extends AbstractPaymentService {
         }
     }
     
+    /**
+     * 微信支付V3回调为JSON报文，只读取通知类型和加密资源
+     */
     @Override
-    public PaymentResponse handleCallback(String callbackData) {
-        try {
-            // 实现回调处理逻辑
-            // 解析回调数据，验证签名，更新订单状态
-            PaymentResponse response = PaymentResponse.success();
-            response.setPaymentType(PaymentType.WECHAT);
-            response.setStatus(PaymentStatus.SUCCESS);
-            
-            logPayment("handleCallback", callbackData, response);
-            return response;
-            
-        } catch (Exception e) {
-            return handlePaymentException("handleCallback", e);
-        }
+    protected CallbackView parseCallback(byte[] body) {
+        return CallbackParser.parseJson(body, getCallbackCharset(), "id", "event_type", "resource");
     }
     
+    /**
+     * 微信支付V3的签名在 Wechatpay-Signature 等请求头中，需要用平台证书验证原始报文，
+     * 当前回调链路不传递请求头，也未解密 resource，因此一律拒绝，不把未经验证的通知当作支付成功
+     */
     @Override
-    public boolean verifyCallback(String callbackData, String signature) {
-        try {
-            // 实现签名验证逻辑
-            // 使用微信支付的验签方法验证回调数据的真实性
-            return true; // 简化实现
-            
-        } catch (Exception e) {
-            logger.error("微信支付回调验签失败", e);
-            return false;
+    protected boolean verifySignature(CallbackView callback, String signature) {
+        logger.warn("WeChat Pay V3 callback signature verification is not supported, notification {} rejected",
+            callback.get("id"));
+        return false;
+    }
+    
+    @Override
+    protected PaymentResponse mapCallback(CallbackView callback) {
+        // 简化实现，实际项目中需要解密resource得到交易详情
+        PaymentResponse response = PaymentResponse.success();
+        response.setPaymentType(PaymentType.WECHAT);
+        response.setStatus(PaymentStatus.SUCCESS);
+        return response;
+    }
+    
+    /**
+     * 共用同一份商户配置的微信支付客户端
+     */
+    private static final class Clients {
+        
+        private final NativePayService nativePayService;
+        private final JsapiServiceExtension jsapiService;
+        
+        private Clients(NativePayService nativePayService, JsapiServiceExtension jsapiService) {
+            this.nativePayService = nativePayService;
+            this.jsapiService = jsapiService;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.tensor.pay.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分层时间轮
+ *
+ * 第L层每个槽位跨度为 tick * wheelSize^L，调度时根据剩余时长直接落入对应层的槽位，
+ * 上层槽位到达时整体降级到下层，调度和取消均为O(1)，适合海量订单的超时关闭。
+ * 所有槽位只由单个工作线程操作，其他线程通过无锁队列提交任务；
+ * 到期任务交给外部执行器运行，避免阻塞时间推进。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class HierarchicalTimingWheel implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HierarchicalTimingWheel.class);
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final TimerTask.TimerBucket[][] wheels;
+    private final Executor taskExecutor;
+
+    private final Queue<TimerTask> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<TimerTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * 最后一个已处理的tick，仅工作线程写入
+     */
+    private long currentTick;
+
+    /**
+     * @param tickMillis 每个tick的时长（毫秒）
+     * @param wheelSize 每层槽位数，向上取整为2的幂
+     * @param levels 层数
+     * @param taskExecutor 到期任务执行器
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, Executor taskExecutor) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (levels <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("levels and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.bits = Integer.numberOfTrailingZeros(size);
+        if ((long) bits * levels >= 62) {
+            throw new IllegalArgumentException("wheelSize^levels is too large");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.levels = levels;
+        this.taskExecutor = taskExecutor;
+        this.wheels = new TimerTask.TimerBucket[levels][size];
+        for (int level = 0; level < levels; level++) {
+            for (int i = 0; i < size; i++) {
+                wheels[level][i] = new TimerTask.TimerBucket();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::runWorker, "tensor-pay-timing-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 调度任务
+     *
+     * @param task 定时任务
+     * @param delayMillis 延迟时长（毫秒）
+     * @return 定时任务，可用于取消
+     */
+    public TimerTask schedule(TimerTask task, long delayMillis) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel has been stopped");
+        }
+        long elapsed = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        task.deadlineTick = (elapsed + tickNanos - 1) / tickNanos;
+        pendingCount.incrementAndGet();
+        pendingTasks.add(task);
+        return task;
+    }
+
+    /**
+     * 取消任务并尽快释放其槽位
+     *
+     * @param task 定时任务
+     * @return 是否取消成功
+     */
+    public boolean cancel(TimerTask task) {
+        if (task.cancel()) {
+            cancelledTasks.add(task);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 尚未到期的任务数量
+     *
+     * @return 任务数量
+     */
+    public long pendingTasks() {
+        return pendingCount.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void runWorker() {
+        while (running) {
+            long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick < targetTick) {
+                drainQueues();
+                advance(currentTick + 1);
+            }
+            drainQueues();
+            long sleepNanos = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drainQueues() {
+        TimerTask task;
+        while ((task = cancelledTasks.poll()) != null) {
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+                pendingCount.decrementAndGet();
+            }
+        }
+        while ((task = pendingTasks.poll()) != null) {
+            if (task.isCancelled()) {
+                pendingCount.decrementAndGet();
+                continue;
+            }
+            place(task);
+        }
+    }
+
+    /**
+     * 处理新的tick：先将到达的上层槽位降级，再触发第0层槽位
+     */
+    private void advance(long tick) {
+        currentTick = tick;
+        for (int level = levels - 1; level > 0; level--) {
+            int shift = bits * level;
+            if ((tick & ((1L << shift) - 1)) == 0) {
+                TimerTask task = wheels[level][(int) ((tick >>> shift) & mask)].drain();
+                while (task != null) {
+                    TimerTask next = task.next;
+                    task.prev = null;
+                    task.next = null;
+                    if (task.isCancelled()) {
+                        pendingCount.decrementAndGet();
+                    } else {
+                        place(task);
+                    }
+                    task = next;
+                }
+            }
+        }
+        TimerTask task = wheels[0][(int) (tick & mask)].drain();
+        while (task != null) {
+            TimerTask next = task.next;
+            task.prev = null;
+            task.next = null;
+            pendingCount.decrementAndGet();
+            fire(task);
+            task = next;
+        }
+    }
+
+    private void place(TimerTask task) {
+        long deadline = task.deadlineTick;
+        if (deadline <= currentTick) {
+            pendingCount.decrementAndGet();
+            fire(task);
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            int shift = bits * level;
+            long slot = deadline >>> shift;
+            if (slot - (currentTick >>> shift) <= mask) {
+                wheels[level][(int) (slot & mask)].add(task);
+                return;
+            }
+        }
+        // 超出最高层跨度，先放入最高层最远的槽位，降级时重新计算
+        int shift = bits * (levels - 1);
+        long slot = (currentTick >>> shift) + mask;
+        wheels[levels - 1][(int) (slot & mask)].add(task);
+    }
+
+    private void fire(TimerTask task) {
+        if (!task.expire()) {
+            return;
+        }
+        try {
+            taskExecutor.execute(task);
+        } catch (Exception e) {
+            logger.error("Failed to submit expired timer task", e);
+        }
+    }
+}
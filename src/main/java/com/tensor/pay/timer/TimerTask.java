@@ -0,0 +1,113 @@
+package com.tensor.pay.timer;
+
+/**
+ * 时间轮定时任务
+ * 任务节点直接挂在时间轮的槽位链表上，调度与取消均为O(1)
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public abstract class TimerTask implements Runnable {
+
+    static final int STATE_INIT = 0;
+    static final int STATE_CANCELLED = 1;
+    static final int STATE_EXPIRED = 2;
+
+    /**
+     * 到期时刻（以时间轮tick为单位）
+     */
+    long deadlineTick;
+
+    /**
+     * 所在槽位的双向链表指针，仅由时间轮工作线程访问
+     */
+    TimerTask prev;
+    TimerTask next;
+    TimerBucket bucket;
+
+    volatile int state = STATE_INIT;
+
+    /**
+     * 取消任务，已到期的任务无法取消
+     *
+     * @return 是否取消成功
+     */
+    public boolean cancel() {
+        synchronized (this) {
+            if (state != STATE_INIT) {
+                return false;
+            }
+            state = STATE_CANCELLED;
+            return true;
+        }
+    }
+
+    /**
+     * 是否已取消
+     *
+     * @return 是否已取消
+     */
+    public boolean isCancelled() {
+        return state == STATE_CANCELLED;
+    }
+
+    /**
+     * 标记为已到期，与取消互斥
+     */
+    boolean expire() {
+        synchronized (this) {
+            if (state != STATE_INIT) {
+                return false;
+            }
+            state = STATE_EXPIRED;
+            return true;
+        }
+    }
+
+    /**
+     * 时间轮槽位，任务的侵入式双向链表
+     */
+    static final class TimerBucket {
+
+        private TimerTask head;
+
+        void add(TimerTask task) {
+            task.bucket = this;
+            task.prev = null;
+            task.next = head;
+            if (head != null) {
+                head.prev = task;
+            }
+            head = task;
+        }
+
+        void remove(TimerTask task) {
+            if (task.bucket != this) {
+                return;
+            }
+            if (task.prev != null) {
+                task.prev.next = task.next;
+            } else {
+                head = task.next;
+            }
+            if (task.next != null) {
+                task.next.prev = task.prev;
+            }
+            task.prev = null;
+            task.next = null;
+            task.bucket = null;
+        }
+
+        /**
+         * 摘下整条链表并清空槽位
+         */
+        TimerTask drain() {
+            TimerTask first = head;
+            head = null;
+            for (TimerTask t = first; t != null; t = t.next) {
+                t.bucket = null;
+            }
+            return first;
+        }
+    }
+}
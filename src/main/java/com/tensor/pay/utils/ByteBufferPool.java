@@ -0,0 +1,81 @@
+package com.tensor.pay.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 堆内 {@link ByteBuffer} 池
+ *
+ * 用于请求体编码和响应体读取这类用完即还的临时缓冲区，避免每次请求都分配和扩容字节数组。
+ * 池中缓冲区的数量和单个容量都有上限，超出上限的缓冲区归还时直接丢弃。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class ByteBufferPool {
+
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxPooled;
+    private final int maxRetainedCapacity;
+
+    /**
+     * @param bufferSize 新分配缓冲区的默认容量
+     * @param maxPooled 池中最多保留的缓冲区数量
+     * @param maxRetainedCapacity 容量超过该值的缓冲区不放回池中
+     */
+    public ByteBufferPool(int bufferSize, int maxPooled, int maxRetainedCapacity) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * 取一个已清空的缓冲区
+     *
+     * @param minCapacity 最小容量
+     * @return 缓冲区，用完后调用 {@link #release}
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer != null) {
+            pooled.decrementAndGet();
+            if (buffer.capacity() >= minCapacity) {
+                return buffer.clear();
+            }
+        }
+        return ByteBuffer.allocate(Math.max(bufferSize, minCapacity));
+    }
+
+    /**
+     * 扩容：取一个更大的缓冲区，复制已写入的内容后归还原缓冲区
+     *
+     * @param buffer 写满的缓冲区
+     * @param minRemaining 扩容后至少需要的剩余空间
+     * @return 新缓冲区，位置在已写入内容之后
+     */
+    public ByteBuffer grow(ByteBuffer buffer, int minRemaining) {
+        int required = buffer.position() + minRemaining;
+        ByteBuffer larger = acquire(Math.max(required, buffer.capacity() * 2));
+        buffer.flip();
+        larger.put(buffer);
+        release(buffer);
+        return larger;
+    }
+
+    /**
+     * 归还缓冲区，归还后不能再使用
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.hasArray() || buffer.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        if (pooled.incrementAndGet() <= maxPooled) {
+            buffers.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.tensor.pay.utils;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 带过期时间的域名解析缓存
+ *
+ * 解析结果在TTL内直接复用，过期后重新解析；重新解析失败时继续使用上一次的结果，
+ * 避免DNS短暂故障导致网关调用全部失败。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+    public CachingDnsResolver(Duration ttl) {
+        this(SystemDefaultDnsResolver.INSTANCE, ttl);
+    }
+
+    public CachingDnsResolver(DnsResolver delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = System.nanoTime();
+        Entry entry = cache.get(host);
+        if (entry != null && now - entry.resolvedAt < ttlNanos) {
+            return entry.addresses.clone();
+        }
+        try {
+            InetAddress[] addresses = delegate.resolve(host);
+            cache.put(host, new Entry(addresses.clone(), now));
+            return addresses;
+        } catch (UnknownHostException e) {
+            if (entry != null) {
+                return entry.addresses.clone();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return delegate.resolveCanonicalHostname(host);
+    }
+
+    /**
+     * 缓存的域名数量
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private static final class Entry {
+
+        private final InetAddress[] addresses;
+        private final long resolvedAt;
+
+        private Entry(InetAddress[] addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
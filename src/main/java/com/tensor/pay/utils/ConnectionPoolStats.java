@@ -0,0 +1,68 @@
+package com.tensor.pay.utils;
+
+/**
+ * 网关连接池状态快照
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ConnectionPoolStats {
+
+    private final String host;
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+    private final long warmed;
+
+    ConnectionPoolStats(String host, int leased, int available, int pending, int max, long warmed) {
+        this.host = host;
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+        this.warmed = warmed;
+    }
+
+    /**
+     * 网关主机
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * 使用中的连接数
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * 空闲可复用的长连接数
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * 等待连接的请求数
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * 连接数上限
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * 预热时建立的连接数
+     */
+    public long getWarmed() {
+        return warmed;
+    }
+}
@@ -0,0 +1,142 @@
+package com.tensor.pay.utils;
+
+import com.tensor.pay.exception.PaymentException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 请求截止时间
+ *
+ * 调用方在入口绑定截止时间后，限流排队、HTTP连接和读取超时、异步等待都按剩余时间收紧，
+ * 剩余时间耗尽的调用不再发往网关，直接以 DEADLINE_EXCEEDED 失败，不再占用线程和连接。
+ * 嵌套绑定时取较早的截止时间。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class Deadline {
+
+    /**
+     * 截止时间已过的错误码
+     */
+    public static final String DEADLINE_EXCEEDED = "DEADLINE_EXCEEDED";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * 从现在起经过指定时间后截止
+     *
+     * @param timeout 超时时间
+     * @return 截止时间
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * 当前线程绑定的截止时间
+     *
+     * @return 截止时间，未绑定时返回null，表示不限时
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在截止时间内执行操作，执行完成后恢复原来的截止时间
+     *
+     * @param deadline 截止时间，为空时沿用当前的截止时间
+     * @param action 操作
+     * @return 操作结果
+     */
+    public static <T> T call(Deadline deadline, Supplier<T> action) {
+        Deadline previous = CURRENT.get();
+        if (deadline == null || (previous != null && previous.deadlineNanos - deadline.deadlineNanos <= 0)) {
+            return action.get();
+        }
+        CURRENT.set(deadline);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 按当前截止时间收紧超时时间
+     *
+     * @param timeoutMillis 原超时时间（毫秒）
+     * @param operation 操作名称，用于错误信息
+     * @return 不超过剩余时间的超时时间
+     * @throws PaymentException 截止时间已过
+     */
+    public static long capMillis(long timeoutMillis, String operation) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return timeoutMillis;
+        }
+        deadline.check(operation);
+        return Math.max(1, Math.min(timeoutMillis, deadline.remainingMillis()));
+    }
+
+    /**
+     * 剩余时间（纳秒），已截止时为0
+     */
+    public long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * 剩余时间（毫秒），已截止时为0
+     */
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    /**
+     * 是否已经截止
+     */
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 已截止时抛出异常
+     *
+     * @param operation 操作名称，用于错误信息
+     * @throws PaymentException 截止时间已过
+     */
+    public void check(String operation) {
+        if (isExpired()) {
+            throw PaymentException.businessError(DEADLINE_EXCEEDED, "请求已超过截止时间: " + operation);
+        }
+    }
+
+    /**
+     * 让异步结果最迟在截止时间完成，超时后以 {@link java.util.concurrent.TimeoutException} 结束
+     *
+     * @param future 异步结果
+     * @return 同一个异步结果
+     */
+    public <T> CompletableFuture<T> bound(CompletableFuture<T> future) {
+        return future.orTimeout(remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remainingMillis=" + remainingMillis() + '}';
+    }
+}
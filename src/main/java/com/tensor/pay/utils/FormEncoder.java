@@ -0,0 +1,104 @@
+package com.tensor.pay.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * application/x-www-form-urlencoded 编码
+ *
+ * 直接把参数编码进 {@link ByteBuffer}，不经过 NameValuePair 列表和中间字符串。
+ * 编码规则与 UrlEncodedFormEntity 相同：字母、数字和 "-._*" 原样输出，空格编码为 '+'，其余字节编码为 %XX。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public final class FormEncoder {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private FormEncoder() {
+    }
+
+    /**
+     * 编码表单参数，值为null的参数只输出参数名
+     *
+     * @param params 参数
+     * @param charset 编码
+     * @param pool 缓冲区池
+     * @return 已翻转、可读的缓冲区，用完后归还给 pool
+     */
+    public static ByteBuffer encode(Map<String, String> params, Charset charset, ByteBufferPool pool) {
+        ByteBuffer buffer = pool.acquire(256);
+        boolean first = true;
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (!first) {
+                buffer = ensure(buffer, 1, pool);
+                buffer.put((byte) '&');
+            }
+            first = false;
+            buffer = append(buffer, entry.getKey(), charset, pool);
+            if (entry.getValue() != null) {
+                buffer = ensure(buffer, 1, pool);
+                buffer.put((byte) '=');
+                buffer = append(buffer, entry.getValue(), charset, pool);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static ByteBuffer append(ByteBuffer buffer, String value, Charset charset, ByteBufferPool pool) {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            byte[] bytes = value.getBytes(charset);
+            for (byte b : bytes) {
+                buffer = putEncoded(buffer, b, pool);
+            }
+            return buffer;
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer = putEncoded(buffer, (byte) c, pool);
+            } else if (c < 0x800) {
+                buffer = putEncoded(buffer, (byte) (0xC0 | (c >> 6)), pool);
+                buffer = putEncoded(buffer, (byte) (0x80 | (c & 0x3F)), pool);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer = putEncoded(buffer, (byte) (0xF0 | (codePoint >> 18)), pool);
+                buffer = putEncoded(buffer, (byte) (0x80 | ((codePoint >> 12) & 0x3F)), pool);
+                buffer = putEncoded(buffer, (byte) (0x80 | ((codePoint >> 6) & 0x3F)), pool);
+                buffer = putEncoded(buffer, (byte) (0x80 | (codePoint & 0x3F)), pool);
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符按 String#getBytes 的方式替换为 '?'
+                buffer = putEncoded(buffer, (byte) '?', pool);
+            } else {
+                buffer = putEncoded(buffer, (byte) (0xE0 | (c >> 12)), pool);
+                buffer = putEncoded(buffer, (byte) (0x80 | ((c >> 6) & 0x3F)), pool);
+                buffer = putEncoded(buffer, (byte) (0x80 | (c & 0x3F)), pool);
+            }
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer putEncoded(ByteBuffer buffer, byte b, ByteBufferPool pool) {
+        buffer = ensure(buffer, 3, pool);
+        if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '-' || b == '.' || b == '_' || b == '*') {
+            buffer.put(b);
+        } else if (b == ' ') {
+            buffer.put((byte) '+');
+        } else {
+            buffer.put((byte) '%');
+            buffer.put(HEX[(b >> 4) & 0x0F]);
+            buffer.put(HEX[b & 0x0F]);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int required, ByteBufferPool pool) {
+        return buffer.remaining() >= required ? buffer : pool.grow(buffer, required);
+    }
+}
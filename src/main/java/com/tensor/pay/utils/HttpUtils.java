@@ -1,35 +1,133 @@
 package com.tensor.pay.utils;
 
+import com.tensor.pay.config.HttpClientProperties;
+import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.NameValuePair;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.message.BasicNameValuePair;
-import org.springframework.stereotype.Component;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * HTTP工具类
  * 
+ * 每个请求都带有连接和读取超时；当前线程绑定了 {@link Deadline} 时按剩余时间收紧超时，
+ * 已经截止的请求不再发出。
+ * 表单请求体直接编码进池化的缓冲区；响应体以流的形式交给 {@link BodyHandler} 解析，
+ * 账单等大响应可以用 {@link #download} 直接写入文件，不需要整体读成字符串。
+ * 连接池按网关主机保持长连接，所有连接共用一个TLS上下文以复用TLS会话，域名解析结果按TTL缓存；
+ * 启动时可以用 {@link #warmUp} 预先建立连接，避免上线后的第一批请求承担TCP和TLS握手的耗时。
+ * 由自动配置注册为单例，容器关闭时关闭连接池。
+ * 
  * @author Tensor Pay
  * @since 1.0.0
  */
-@Component
-public class HttpUtils {
+public class HttpUtils implements AutoCloseable {
+    
+    private static final ContentType FORM_UTF8 =
+        ContentType.APPLICATION_FORM_URLENCODED.withCharset(StandardCharsets.UTF_8);
     
+    private final long connectTimeoutMillis;
+    private final long responseTimeoutMillis;
+    private final ConnectionConfig defaultConnectionConfig;
+    private final TimeValue idleTimeout;
+    private final SSLContext sslContext;
+    private final CachingDnsResolver dnsResolver;
+    private final PoolingHttpClientConnectionManager connectionManager;
     private final CloseableHttpClient httpClient;
+    private final ByteBufferPool bufferPool = new ByteBufferPool(8 * 1024, 64, 1024 * 1024);
+    private final Map<String, LongAdder> warmedConnections = new ConcurrentHashMap<>();
     
     public HttpUtils() {
-        this.httpClient = HttpClients.createDefault();
+        this(new HttpClientProperties());
+    }
+    
+    public HttpUtils(HttpClientProperties properties) {
+        this.connectTimeoutMillis = properties.getConnectTimeout().toMillis();
+        this.responseTimeoutMillis = properties.getResponseTimeout().toMillis();
+        this.defaultConnectionConfig = ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+            .build();
+        this.idleTimeout = TimeValue.ofMilliseconds(properties.getIdleTimeout().toMillis());
+        this.sslContext = defaultSslContext();
+        this.dnsResolver = new CachingDnsResolver(properties.getDnsTtl());
+        // 同一个SSLContext的客户端会话缓存在所有连接间共享，重连同一主机时走简化握手
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create().setSslContext(sslContext).build())
+            .setDnsResolver(dnsResolver)
+            .setConnectionConfigResolver(route -> connectionConfig())
+            .setMaxConnTotal(properties.getMaxTotal())
+            .setMaxConnPerRoute(properties.getMaxPerRoute())
+            .build();
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .evictIdleConnections(idleTimeout)
+            .build();
+    }
+    
+    /**
+     * 响应体处理器，在连接归还前以流的形式读取响应体
+     * 
+     * @param <T> 解析结果类型
+     */
+    @FunctionalInterface
+    public interface BodyHandler<T> {
+        
+        /**
+         * 解析响应体
+         * 
+         * @param body 响应体，由调用方关闭
+         * @param charset 响应编码，未声明时为UTF-8
+         * @return 解析结果
+         * @throws IOException IO异常
+         */
+        T handle(InputStream body, Charset charset) throws IOException;
     }
     
     /**
@@ -41,10 +139,8 @@ public class HttpUtils {
      */
     public String get(String url) throws IOException {
         HttpGet httpGet = new HttpGet(url);
-        
-        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
-            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-        }
+        httpGet.setConfig(requestConfig(url));
+        return execute(httpGet, this::readString);
     }
     
     /**
@@ -56,18 +152,67 @@ public class HttpUtils {
      * @throws IOException IO异常
      */
     public String post(String url, Map<String, String> params) throws IOException {
+        return post(url, params, this::readString);
+    }
+    
+    /**
+     * 发送表单POST请求，响应体以流的形式交给处理器
+     * 
+     * @param url 请求URL
+     * @param params 请求参数
+     * @param handler 响应体处理器
+     * @return 处理结果
+     * @throws IOException IO异常
+     */
+    public <T> T post(String url, Map<String, String> params, BodyHandler<T> handler) throws IOException {
         HttpPost httpPost = new HttpPost(url);
-        
-        // 构建表单参数
-        List<NameValuePair> formParams = new ArrayList<>();
-        for (Map.Entry<String, String> entry : params.entrySet()) {
-            formParams.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
+        httpPost.setConfig(requestConfig(url));
+        ByteBuffer form = FormEncoder.encode(params, StandardCharsets.UTF_8, bufferPool);
+        try {
+            httpPost.setEntity(new ByteArrayEntity(form.array(), form.arrayOffset(), form.limit(), FORM_UTF8));
+            return execute(httpPost, handler);
+        } finally {
+            bufferPool.release(form);
         }
-        
-        httpPost.setEntity(new UrlEncodedFormEntity(formParams, StandardCharsets.UTF_8));
-        
-        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 发送表单POST请求，响应体读入池化缓冲区后复制一份返回
+     * 
+     * @param url 请求URL
+     * @param params 请求参数
+     * @return 响应体字节
+     * @throws IOException IO异常
+     */
+    public byte[] postForBytes(String url, Map<String, String> params) throws IOException {
+        return post(url, params, (body, charset) -> readBytes(body));
+    }
+    
+    /**
+     * 发送表单POST请求，把响应体直接写入文件，用于下载账单等大文件
+     * 
+     * 先写入同目录的临时文件，完整写入后再替换目标文件，下载中断时不会留下不完整的目标文件。
+     * 
+     * @param url 请求URL
+     * @param params 请求参数
+     * @param target 目标文件
+     * @return 写入的字节数
+     * @throws IOException IO异常
+     */
+    public long download(String url, Map<String, String> params, Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+        try {
+            long size = post(url, params, (body, charset) -> {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    return body.transferTo(out);
+                }
+            });
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return size;
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
     
@@ -81,11 +226,228 @@ public class HttpUtils {
      */
     public String postJson(String url, String jsonData) throws IOException {
         HttpPost httpPost = new HttpPost(url);
-        httpPost.setHeader("Content-Type", "application/json");
-        httpPost.setEntity(new org.apache.hc.core5.http.io.entity.StringEntity(jsonData, StandardCharsets.UTF_8));
-        
-        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        httpPost.setConfig(requestConfig(url));
+        httpPost.setEntity(new ByteArrayEntity(jsonData.getBytes(StandardCharsets.UTF_8),
+            ContentType.APPLICATION_JSON));
+        return execute(httpPost, this::readString);
+    }
+    
+    /**
+     * 预先建立到网关主机的长连接并放回连接池
+     * 
+     * 同时占用指定数量的连接，未建立的连接完成TCP连接和TLS握手后一起归还，
+     * 连接池中已有的空闲连接直接计入。
+     * 
+     * @param url 网关地址
+     * @param connections 连接数
+     * @param timeout 最长等待时间
+     * @param executor 并行建立连接的线程池
+     * @return 成功建立或已存在的连接数
+     */
+    public int warmUp(String url, int connections, Duration timeout, Executor executor) {
+        HttpRoute route = route(url);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<ConnectionEndpoint> endpoints = new ArrayList<>(connections);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                endpoints.add(connectionManager.lease("warmup-" + i, route, remaining(deadline), null)
+                    .get(remaining(deadline)));
+            }
+            for (ConnectionEndpoint endpoint : endpoints) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        if (!endpoint.isConnected()) {
+                            connectionManager.connect(endpoint, TimeValue.ofMilliseconds(connectTimeoutMillis),
+                                HttpClientContext.create());
+                        }
+                        return true;
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .get(remaining(deadline).toNanoseconds(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // 已经建立的连接照常放回连接池
+        }
+        int warmed = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            boolean connected = i < futures.size() && futures.get(i).isDone()
+                && !futures.get(i).isCompletedExceptionally();
+            ConnectionEndpoint endpoint = endpoints.get(i);
+            if (connected && endpoint.isConnected()) {
+                warmed++;
+                connectionManager.release(endpoint, null, idleTimeout);
+            } else if (i >= futures.size() || futures.get(i).isDone()) {
+                connectionManager.release(endpoint, null, TimeValue.ZERO_MILLISECONDS);
+            } else {
+                // 仍在握手的连接完成后再归还
+                futures.get(i).whenComplete((result, e) -> connectionManager.release(endpoint, null,
+                    e == null && endpoint.isConnected() ? idleTimeout : TimeValue.ZERO_MILLISECONDS));
+            }
+        }
+        warmedConnections.computeIfAbsent(route.getTargetHost().toURI(), host -> new LongAdder()).add(warmed);
+        return warmed;
+    }
+    
+    /**
+     * 解析网关域名并完成一次TLS握手，用于连接不经过本连接池的渠道SDK
+     * 
+     * SDK自行维护连接，这里只能提前完成DNS解析和TLS相关类的加载、证书链校验的初始化。
+     * 
+     * @param url 网关地址
+     * @param timeout 连接和握手的超时时间
+     * @throws IOException 解析、连接或握手失败
+     */
+    public void handshake(String url, Duration timeout) throws IOException {
+        HttpHost host = route(url).getTargetHost();
+        InetAddress[] addresses = dnsResolver.resolve(host.getHostName());
+        int timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        try (Socket socket = secure ? sslContext.getSocketFactory().createSocket() : new Socket()) {
+            socket.connect(new InetSocketAddress(addresses[0], host.getPort()), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            if (socket instanceof SSLSocket sslSocket) {
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setServerNames(List.of(new SNIHostName(host.getHostName())));
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.startHandshake();
+            }
+        }
+    }
+    
+    /**
+     * 各网关主机的连接池状态
+     * 
+     * @return 连接池状态
+     */
+    public List<ConnectionPoolStats> getConnectionStats() {
+        List<ConnectionPoolStats> stats = new ArrayList<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            String host = route.getTargetHost().toURI();
+            PoolStats poolStats = connectionManager.getStats(route);
+            LongAdder warmed = warmedConnections.get(host);
+            stats.add(new ConnectionPoolStats(host, poolStats.getLeased(), poolStats.getAvailable(),
+                poolStats.getPending(), poolStats.getMax(), warmed == null ? 0 : warmed.sum()));
+        }
+        return stats;
+    }
+    
+    /**
+     * 关闭连接池
+     */
+    @Override
+    public void close() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+    
+    private static HttpRoute route(String url) {
+        URI uri = URI.create(url);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+        return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
+    }
+    
+    private static Timeout remaining(long deadline) {
+        return Timeout.ofNanoseconds(Math.max(1, deadline - System.nanoTime()));
+    }
+    
+    private static SSLContext defaultSslContext() {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("TLS not available", e);
+        }
+    }
+    
+    private <T> T execute(ClassicHttpRequest request, BodyHandler<T> handler) throws IOException {
+        return httpClient.execute(request, response -> {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return handler.handle(InputStream.nullInputStream(), StandardCharsets.UTF_8);
+            }
+            ContentType contentType = ContentType.parseLenient(entity.getContentType());
+            Charset charset = contentType == null || contentType.getCharset() == null
+                ? StandardCharsets.UTF_8 : contentType.getCharset();
+            try (InputStream body = entity.getContent()) {
+                return handler.handle(body, charset);
+            }
+        });
+    }
+    
+    private String readString(InputStream body, Charset charset) throws IOException {
+        ByteBuffer buffer = readPooled(body);
+        try {
+            return new String(buffer.array(), buffer.arrayOffset(), buffer.position(), charset);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+    
+    private byte[] readBytes(InputStream body) throws IOException {
+        ByteBuffer buffer = readPooled(body);
+        try {
+            int offset = buffer.arrayOffset();
+            return Arrays.copyOfRange(buffer.array(), offset, offset + buffer.position());
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+    
+    /**
+     * 把响应体读入池化缓冲区，调用方用完后归还
+     */
+    private ByteBuffer readPooled(InputStream body) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire(0);
+        try {
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer = bufferPool.grow(buffer, buffer.capacity());
+                }
+                int read = body.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                if (read < 0) {
+                    return buffer;
+                }
+                buffer.position(buffer.position() + read);
+            }
+        } catch (IOException | RuntimeException e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+    }
+    
+    /**
+     * 按当前截止时间计算本次请求的超时，从连接池取连接、等待响应都不超过剩余时间
+     * 
+     * @param url 请求URL，用于错误信息
+     * @return 请求配置
+     */
+    private RequestConfig requestConfig(String url) {
+        long connectTimeout = Deadline.capMillis(connectTimeoutMillis, url);
+        long responseTimeout = Deadline.capMillis(responseTimeoutMillis, url);
+        return RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeout))
+            .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+            .build();
+    }
+    
+    /**
+     * 建立连接的超时，连接在发送请求的线程中建立，同样按当前截止时间收紧
+     * 
+     * @return 连接配置
+     */
+    private ConnectionConfig connectionConfig() {
+        Deadline deadline = Deadline.current();
+        if (deadline == null || deadline.remainingMillis() >= connectTimeoutMillis) {
+            return defaultConnectionConfig;
         }
+        return ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(Math.max(1, deadline.remainingMillis())))
+            .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package com.tensor.pay.utils;
+
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * RSA密钥缓存
+ *
+ * 按渠道和商户缓存由配置中的Base64/PEM文本解析出的 {@link PrivateKey}、{@link PublicKey}，
+ * 每次取用时只比较配置文本是否变化，变化后重新解析，配置刷新后无需重启；
+ * 私钥文件按路径和修改时间判断是否变化。
+ * 微信商户号和支付宝应用ID可能相同，缓存键包含支付渠道。
+ * {@link Signature} 实例按线程复用，签名和验签时只做初始化和摘要运算，不再重复解析密钥或查找算法实现。
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+@Component
+public class KeyMaterialCache {
+
+    /**
+     * RSA2 签名算法
+     */
+    public static final String SIGN_TYPE_RSA2 = "RSA2";
+
+    /**
+     * RSA 签名算法
+     */
+    public static final String SIGN_TYPE_RSA = "RSA";
+
+    private static final ThreadLocal<Signature> SHA256_WITH_RSA =
+        ThreadLocal.withInitial(() -> newSignature("SHA256withRSA"));
+    private static final ThreadLocal<Signature> SHA1_WITH_RSA =
+        ThreadLocal.withInitial(() -> newSignature("SHA1withRSA"));
+
+    private final ConcurrentMap<String, CachedKey<PrivateKey>> privateKeys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CachedKey<PublicKey>> publicKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 获取商户私钥
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户标识
+     * @param encodedKey PKCS#8私钥，Base64文本，可以带PEM头尾
+     * @return 私钥
+     */
+    public PrivateKey privateKey(PaymentType paymentType, String merchantId, String encodedKey) {
+        String cacheKey = cacheKey(paymentType, merchantId);
+        CachedKey<PrivateKey> cached = privateKeys.get(cacheKey);
+        if (cached != null && cached.matches(encodedKey, 0)) {
+            return cached.key;
+        }
+        PrivateKey key = parsePrivateKey(encodedKey);
+        privateKeys.put(cacheKey, new CachedKey<>(encodedKey, 0, key));
+        return key;
+    }
+
+    /**
+     * 从文件获取商户私钥，文件修改后重新读取
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户标识
+     * @param path 私钥文件路径
+     * @return 私钥
+     */
+    public PrivateKey privateKeyFromPath(PaymentType paymentType, String merchantId, String path) {
+        Path file = Paths.get(path);
+        String cacheKey = cacheKey(paymentType, merchantId);
+        try {
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            CachedKey<PrivateKey> cached = privateKeys.get(cacheKey);
+            if (cached != null && cached.matches(path, lastModified)) {
+                return cached.key;
+            }
+            PrivateKey key = parsePrivateKey(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+            privateKeys.put(cacheKey, new CachedKey<>(path, lastModified, key));
+            return key;
+        } catch (IOException e) {
+            throw new PaymentException("INVALID_KEY", "读取私钥文件失败: " + path, e);
+        }
+    }
+
+    /**
+     * 获取商户的渠道公钥
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户标识
+     * @param encodedKey X.509公钥，Base64文本，可以带PEM头尾
+     * @return 公钥
+     */
+    public PublicKey publicKey(PaymentType paymentType, String merchantId, String encodedKey) {
+        String cacheKey = cacheKey(paymentType, merchantId);
+        CachedKey<PublicKey> cached = publicKeys.get(cacheKey);
+        if (cached != null && cached.matches(encodedKey, 0)) {
+            return cached.key;
+        }
+        PublicKey key = parsePublicKey(encodedKey);
+        publicKeys.put(cacheKey, new CachedKey<>(encodedKey, 0, key));
+        return key;
+    }
+
+    /**
+     * 使用商户私钥签名
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户标识
+     * @param encodedKey 私钥文本
+     * @param content 待签名内容
+     * @param charset 内容编码
+     * @param signType 签名类型，RSA2 或 RSA
+     * @return Base64编码的签名
+     */
+    public String sign(PaymentType paymentType, String merchantId, String encodedKey, String content,
+                       Charset charset, String signType) {
+        Signature signature = signature(signType);
+        try {
+            signature.initSign(privateKey(paymentType, merchantId, encodedKey));
+            signature.update(content.getBytes(charset));
+            return Base64.getEncoder().encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new PaymentException("SIGN_ERROR", "RSA签名失败", e);
+        }
+    }
+
+    /**
+     * 使用渠道公钥验证签名
+     *
+     * @param paymentType 支付渠道
+     * @param merchantId 商户标识
+     * @param encodedKey 公钥文本
+     * @param content 待验签内容
+     * @param sign Base64编码的签名
+     * @param charset 内容编码
+     * @param signType 签名类型，RSA2 或 RSA
+     * @return 签名是否有效
+     */
+    public boolean verify(PaymentType paymentType, String merchantId, String encodedKey, String content, String sign,
+                          Charset charset, String signType) {
+        if (sign == null) {
+            return false;
+        }
+        byte[] signBytes;
+        try {
+            signBytes = Base64.getMimeDecoder().decode(sign);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        Signature signature = signature(signType);
+        try {
+            signature.initVerify(publicKey(paymentType, merchantId, encodedKey));
+            signature.update(content.getBytes(charset));
+            return signature.verify(signBytes);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 清除商户的缓存密钥
+     */
+    public void invalidate(PaymentType paymentType, String merchantId) {
+        String cacheKey = cacheKey(paymentType, merchantId);
+        privateKeys.remove(cacheKey);
+        publicKeys.remove(cacheKey);
+    }
+
+    /**
+     * 清除全部缓存密钥
+     */
+    public void clear() {
+        privateKeys.clear();
+        publicKeys.clear();
+    }
+
+    private static String cacheKey(PaymentType paymentType, String merchantId) {
+        return paymentType.name() + ':' + merchantId;
+    }
+
+    private static Signature signature(String signType) {
+        if (signType == null || SIGN_TYPE_RSA2.equalsIgnoreCase(signType)) {
+            return SHA256_WITH_RSA.get();
+        }
+        if (SIGN_TYPE_RSA.equalsIgnoreCase(signType)) {
+            return SHA1_WITH_RSA.get();
+        }
+        throw new PaymentException("UNSUPPORTED_SIGN_TYPE", "不支持的签名类型: " + signType);
+    }
+
+    private static Signature newSignature(String algorithm) {
+        try {
+            return Signature.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " not available", e);
+        }
+    }
+
+    private static PrivateKey parsePrivateKey(String encodedKey) {
+        try {
+            return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(decode(encodedKey)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new PaymentException("INVALID_KEY", "私钥解析失败", e);
+        }
+    }
+
+    private static PublicKey parsePublicKey(String encodedKey) {
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(decode(encodedKey)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new PaymentException("INVALID_KEY", "公钥解析失败", e);
+        }
+    }
+
+    /**
+     * 去掉PEM头尾和空白后做Base64解码
+     */
+    private static byte[] decode(String encodedKey) {
+        if (encodedKey == null || encodedKey.isEmpty()) {
+            throw new IllegalArgumentException("Key is empty");
+        }
+        StringBuilder base64 = new StringBuilder(encodedKey.length());
+        for (String line : encodedKey.split("\\R")) {
+            if (!line.startsWith("-----")) {
+                base64.append(line.strip());
+            }
+        }
+        return Base64.getMimeDecoder().decode(base64.toString());
+    }
+
+    /**
+     * 缓存的密钥及其来源
+     */
+    private static final class CachedKey<K extends Key> {
+
+        private final String source;
+        private final long version;
+        private final K key;
+
+        private CachedKey(String source, long version, K key) {
+            this.source = source;
+            this.version = version;
+            this.key = key;
+        }
+
+        private boolean matches(String source, long version) {
+            return this.version == version && this.source.equals(source);
+        }
+    }
+}
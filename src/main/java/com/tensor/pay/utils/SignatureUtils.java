@@ -1,5 +1,6 @@
 package com.tensor.pay.utils;
 
+import com.tensor.pay.callback.CallbackView;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Mac;
@@ -74,6 +75,75 @@ public class SignatureUtils {
         return expectedSignature.equals(signature);
     }
     
+    /**
+     * 直接在回调报文视图上验证MD5签名
+     * 待签名内容与 {@link #generateMD5Signature} 相同，字段按名称排序后逐段写入摘要，
+     * 不构建TreeMap和签名字符串，摘要与签名值按十六进制忽略大小写比较。
+     * 
+     * @param view 回调报文视图（UTF-8编码）
+     * @param key 签名密钥
+     * @param signature 待验证的签名
+     * @return 验证结果
+     */
+    public boolean verifySignature(CallbackView view, String key, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            boolean first = true;
+            for (int index : view.signFieldOrder("sign")) {
+                if (!first) {
+                    md.update((byte) '&');
+                }
+                view.digestName(index, md);
+                md.update((byte) '=');
+                view.digestValue(index, md);
+                first = false;
+            }
+            md.update(("&key=" + key).getBytes(StandardCharsets.UTF_8));
+            return hexEquals(md.digest(), signature);
+        } catch (Exception e) {
+            throw new RuntimeException("验证MD5签名失败", e);
+        }
+    }
+    
+    /**
+     * 以回调报文中的sign字段验证MD5签名
+     * 
+     * @param view 回调报文视图（UTF-8编码）
+     * @param key 签名密钥
+     * @return 验证结果
+     */
+    public boolean verifySignature(CallbackView view, String key) {
+        return verifySignature(view, key, view.get("sign"));
+    }
+    
+    /**
+     * 常量时间比较摘要和十六进制签名，忽略大小写
+     */
+    private boolean hexEquals(byte[] digest, String signature) {
+        if (signature.length() != digest.length * 2) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < digest.length; i++) {
+            diff |= (digest[i] >> 4 & 0xF) ^ hexValue(signature.charAt(i * 2));
+            diff |= (digest[i] & 0xF) ^ hexValue(signature.charAt(i * 2 + 1));
+        }
+        return diff == 0;
+    }
+    
+    private int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if ((c | 0x20) >= 'a' && (c | 0x20) <= 'f') {
+            return (c | 0x20) - 'a' + 10;
+        }
+        return 0x100;
+    }
+    
     /**
      * 构建签名字符串
      * 
@@ -0,0 +1,75 @@
+package com.tensor.pay.callback;
+
+import com.tensor.pay.config.CallbackProperties;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.UnifiedPaymentService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 支付回调调度器测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class CallbackDispatcherTest {
+
+    @Test
+    public void testRejectsWhenSaturatedAndDropsStaleCallbacks() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UnifiedPaymentService unifiedPaymentService = new UnifiedPaymentService(
+            new PaymentServiceFactory(List.of())) {
+            @Override
+            public PaymentResponse handleCallback(PaymentType paymentType, String merchantId, byte[] body) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return PaymentResponse.success();
+            }
+        };
+        CallbackProperties properties = new CallbackProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        properties.setMaxQueueTime(Duration.ofMillis(50));
+        CallbackDispatcher dispatcher = new CallbackDispatcher(unifiedPaymentService, properties);
+        try {
+            CompletableFuture<PaymentResponse> running = dispatcher.dispatch(PaymentType.BANK, null, "T1".getBytes());
+            CompletableFuture<PaymentResponse> queued = dispatcher.dispatch(PaymentType.BANK, null, "T2".getBytes());
+
+            // 线程和队列都已占满，立即拒绝
+            CompletableFuture<PaymentResponse> rejected = dispatcher.dispatch(PaymentType.BANK, null, "T3".getBytes());
+            assertTrue(rejected.isCompletedExceptionally());
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertTrue(CallbackDispatcher.isBusy(e));
+            assertEquals(1, dispatcher.getRejected());
+            assertEquals(1, dispatcher.getQueued());
+
+            Thread.sleep(100);
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS).isSuccess());
+            // 排队超过最长时间的回调不再处理
+            e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertTrue(CallbackDispatcher.isBusy(e));
+            assertEquals(1, dispatcher.getExpired());
+            assertEquals(1, dispatcher.getProcessed());
+
+            assertTrue(dispatcher.dispatch(PaymentType.BANK, null, "T4".getBytes()).get(5, TimeUnit.SECONDS)
+                .isSuccess());
+            assertFalse(CallbackDispatcher.isBusy(new IllegalStateException()));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tensor.pay.callback;
+
+import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.config.MerchantProperties;
+import com.tensor.pay.config.WechatPayProperties;
+import com.tensor.pay.enums.ChannelStatusCodec;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.merchant.MerchantRegistry;
+import com.tensor.pay.merchant.PropertiesMerchantConfigProvider;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.BankPaymentService;
+import com.tensor.pay.service.WechatPaymentService;
+import com.tensor.pay.utils.KeyMaterialCache;
+import com.tensor.pay.utils.SignatureUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 回调报文解析测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class CallbackParserTest {
+
+    @Test
+    public void testFormCallback() {
+        Map<String, String> params = new HashMap<>();
+        params.put("outTradeNo", "ORDER1");
+        params.put("status", "paid");
+        params.put("amount", "12.30");
+        params.put("subject", "测试 商品&套餐");
+        SignatureUtils signatureUtils = new SignatureUtils();
+        String sign = signatureUtils.generateSignature(params, "secret");
+
+        String body = "outTradeNo=ORDER1&status=paid&amount=12.30&empty="
+            + "&subject=%E6%B5%8B%E8%AF%95+%E5%95%86%E5%93%81%26%E5%A5%97%E9%A4%90&sign=" + sign;
+        CallbackView view = CallbackParser.parseForm(body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+        assertEquals(CallbackView.Format.FORM, view.getFormat());
+        assertEquals(6, view.size());
+        assertEquals("ORDER1", view.get("outTradeNo"));
+        assertEquals("测试 商品&套餐", view.get("subject"));
+        assertEquals("", view.get("empty"));
+        assertNull(view.get("missing"));
+        assertEquals(PaymentStatus.SUCCESS, view.status("status", ChannelStatusCodec.BANK));
+        assertEquals(1230, view.amountMinor("amount", 2));
+        assertEquals(PaymentResponse.NO_AMOUNT, view.amountMinor("missing", 2));
+        assertEquals("amount=12.30&outTradeNo=ORDER1&status=paid&subject=测试 商品&套餐",
+            view.signContent("sign"));
+
+        assertTrue(signatureUtils.verifySignature(view, "secret"));
+        assertTrue(signatureUtils.verifySignature(view, "secret", sign.toLowerCase()));
+        assertFalse(signatureUtils.verifySignature(view, "other"));
+    }
+
+    @Test
+    public void testBankCallbackPipeline() {
+        BankPayProperties properties = new BankPayProperties();
+        properties.setMerchantKey("secret");
+        SignatureUtils signatureUtils = new SignatureUtils();
+        BankPaymentService service = new BankPaymentService(properties, null, signatureUtils);
+
+        Map<String, String> params = new HashMap<>();
+        params.put("outTradeNo", "ORDER2");
+        params.put("tradeNo", "T2");
+        params.put("status", "SUCCESS");
+        params.put("amount", "0.01");
+        String body = "outTradeNo=ORDER2&tradeNo=T2&status=SUCCESS&amount=0.01&sign="
+            + signatureUtils.generateSignature(params, "secret");
+
+        PaymentResponse response = service.handleCallback(body.getBytes(StandardCharsets.UTF_8));
+        assertTrue(response.isSuccess());
+        assertEquals("ORDER2", response.getOutTradeNo());
+        assertEquals(PaymentStatus.SUCCESS, response.getStatus());
+        assertEquals(1, response.getPaidAmountMinor());
+
+        PaymentResponse tampered = service.handleCallback(body.replace("0.01", "100.00"));
+        assertFalse(tampered.isSuccess());
+        assertEquals("INVALID_SIGNATURE", tampered.getErrorCode());
+    }
+
+    @Test
+    public void testJsonCallback() {
+        String body = "{\"id\":\"EV-1\",\"create_time\":\"2024-01-01T10:00:00+08:00\",\"resource\":{\"ciphertext\":\"abc\"},"
+            + "\"amount\":{\"total\":100},\"event_type\":\"TRANSACTION.SUCCESS\",\"summary\":\"支付成功\"}";
+        CallbackView view = CallbackParser.parse(body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8,
+            "event_type", "resource", "summary");
+
+        assertEquals(CallbackView.Format.JSON, view.getFormat());
+        assertEquals(3, view.size());
+        assertEquals("TRANSACTION.SUCCESS", view.get("event_type"));
+        assertEquals("支付成功", view.get("summary"));
+        assertEquals("{\"ciphertext\":\"abc\"}", view.get("resource"));
+        assertNull(view.get("id"));
+    }
+
+    @Test
+    public void testWechatCallbackFailsClosed() {
+        WechatPaymentService service = new WechatPaymentService(new WechatPayProperties(), new KeyMaterialCache(),
+            new MerchantRegistry(new PropertiesMerchantConfigProvider(new MerchantProperties()), 8,
+                Duration.ofMinutes(1)));
+        byte[] body = ("{\"id\":\"EV-1\",\"event_type\":\"TRANSACTION.SUCCESS\","
+            + "\"resource\":{\"ciphertext\":\"abc\"}}").getBytes(StandardCharsets.UTF_8);
+
+        PaymentResponse response = service.handleCallback(body);
+        assertFalse(response.isSuccess());
+        assertEquals("INVALID_SIGNATURE", response.getErrorCode());
+        assertFalse(service.verifyCallback(new String(body, StandardCharsets.UTF_8), "any"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.tensor.pay.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 集群工作归属测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ClusterCoordinatorTest {
+
+    private static final int ORDERS = 20_000;
+
+    @Test
+    public void testRingIsBalancedAndStableAcrossNodes() {
+        List<ClusterMember> members = members(4);
+        ConsistentHashRing ring = new ConsistentHashRing(members, 160);
+        List<ClusterMember> shuffled = new ArrayList<>(members);
+        Collections.reverse(shuffled);
+        ConsistentHashRing sameMembers = new ConsistentHashRing(shuffled, 160);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < ORDERS; i++) {
+            String outTradeNo = "ORDER_" + i;
+            ClusterMember owner = ring.ownerOf(outTradeNo);
+            assertEquals(owner, sameMembers.ownerOf(outTradeNo));
+            counts.merge(owner.getId(), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - ORDERS / 4) < ORDERS / 4 * 0.2, "unbalanced: " + counts);
+        }
+        assertNull(new ConsistentHashRing(List.of(), 160).ownerOf("ORDER_1"));
+    }
+
+    @Test
+    public void testAddingMemberMovesOnlyItsShare() {
+        ConsistentHashRing before = new ConsistentHashRing(members(4), 160);
+        ConsistentHashRing after = new ConsistentHashRing(members(5), 160);
+
+        int moved = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            String outTradeNo = "ORDER_" + i;
+            ClusterMember owner = after.ownerOf(outTradeNo);
+            if (!owner.equals(before.ownerOf(outTradeNo))) {
+                moved++;
+                assertEquals("node-4", owner.getId());
+            }
+        }
+        assertTrue(Math.abs(moved - ORDERS / 5) < ORDERS / 5 * 0.2, "moved " + moved);
+    }
+
+    @Test
+    public void testCoordinatorFollowsMembership() {
+        InMemoryMemberDiscovery discovery = new InMemoryMemberDiscovery();
+        ClusterCoordinator node0 = new ClusterCoordinator("node-0", discovery, 160);
+        ClusterCoordinator node1 = new ClusterCoordinator("node-1", discovery, 160);
+        assertTrue(node0.isOwner("ORDER_1"));
+        assertTrue(node1.isOwner("ORDER_1"));
+
+        discovery.join(new ClusterMember("node-0", "10.0.0.1:8080"));
+        discovery.join(new ClusterMember("node-1", "10.0.0.2:8080"));
+        assertEquals(2, node0.getMembers().size());
+        int owned = 0;
+        for (int i = 0; i < 1000; i++) {
+            String outTradeNo = "ORDER_" + i;
+            assertTrue(node0.isOwner(outTradeNo) ^ node1.isOwner(outTradeNo));
+            if (node0.isOwner(outTradeNo)) {
+                owned++;
+            }
+        }
+        assertTrue(owned > 0 && owned < 1000);
+
+        discovery.leave("node-1");
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(node0.isOwner("ORDER_" + i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ClusterCoordinator("", discovery, 160));
+    }
+
+    private static List<ClusterMember> members(int count) {
+        List<ClusterMember> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new ClusterMember("node-" + i, "10.0.0." + (i + 1) + ":8080"));
+        }
+        return members;
+    }
+}
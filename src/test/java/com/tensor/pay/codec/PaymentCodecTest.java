@@ -0,0 +1,157 @@
+package com.tensor.pay.codec;
+
+import com.alibaba.fastjson2.JSON;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEvent;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二进制编码测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentCodecTest {
+
+    @Test
+    public void testResponseRoundTripIsSmallerThanJson() {
+        PaymentResponse response = PaymentResponse.success();
+        response.setOutTradeNo("T202401010001");
+        response.setTradeNo("4200001234202401011234567890");
+        response.setPaymentType(PaymentType.WECHAT);
+        response.setStatus(PaymentStatus.SUCCESS);
+        response.setAmount(new BigDecimal("12.30"));
+        response.setPaidAmount(new BigDecimal("12.30"));
+        response.setPayTime(LocalDateTime.of(2024, 1, 1, 12, 30, 45, 123_000_000));
+        Map<String, Object> extra = new LinkedHashMap<>();
+        extra.put("bankType", "CMC");
+        extra.put("attempt", 3);
+        extra.put("fee", 1L << 40);
+        extra.put("rate", new BigDecimal("0.0060"));
+        extra.put("ratio", 0.25d);
+        extra.put("refund", Boolean.FALSE);
+        extra.put("nested", Map.of("k", "v"));
+        extra.put("list", List.of("a", 1));
+        extra.put("none", null);
+        response.setExtraData(extra);
+
+        byte[] bytes = PaymentCodec.encode(response);
+        PaymentResponse decoded = PaymentCodec.readResponse(ByteBuffer.wrap(bytes));
+        assertEquals(response.toString(), decoded.toString());
+        assertEquals(1230, decoded.getAmountMinor());
+        assertEquals(extra, decoded.getExtraData());
+        assertTrue(bytes.length * 2 < JSON.toJSONString(response).getBytes().length,
+            bytes.length + " vs " + JSON.toJSONString(response).length());
+
+        PaymentResponse failure = PaymentCodec.readResponse(ByteBuffer.wrap(
+            PaymentCodec.encode(PaymentResponse.failure("RATE_LIMITED", "限流"))));
+        assertFalse(failure.isSuccess());
+        assertEquals(PaymentResponse.NO_AMOUNT, failure.getAmountMinor());
+        assertNull(failure.getPayTime());
+        assertNull(failure.getExtraData());
+    }
+
+    @Test
+    public void testRequestAndEventRoundTrip() {
+        PaymentRequest request = new PaymentRequest("T001", PaymentType.ALIPAY, new BigDecimal("99.90"), "商品");
+        request.setExpireTime(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500_000_000));
+        request.setMerchantId("SUB01");
+        request.setTimeoutMillis(3_000L);
+        request.setExtraParams(Map.of("openid", "o123"));
+        PaymentResponse response = PaymentResponse.success();
+        response.setOutTradeNo("T001");
+
+        // 写入带有其他数据、字节序为小端的缓冲区
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 42);
+        PaymentCodec.write(new PaymentEvent(PaymentEvent.Type.CREATED, 1_700_000_000_000L, request, response),
+            buffer);
+        PaymentCodec.write(PaymentEvent.statusUpdated(response), buffer);
+        buffer.flip().order(ByteOrder.BIG_ENDIAN);
+        assertEquals(42, buffer.get());
+
+        PaymentEvent created = PaymentCodec.readEvent(buffer);
+        assertEquals(PaymentEvent.Type.CREATED, created.getType());
+        assertEquals(1_700_000_000_000L, created.getOccurredAt());
+        assertEquals(request.toString(), created.getRequest().toString());
+        assertEquals(new BigDecimal("99.90"), created.getRequest().getAmount());
+        assertEquals("T001", created.getResponse().getOutTradeNo());
+
+        PaymentEvent updated = PaymentCodec.readEvent(buffer);
+        assertEquals(PaymentEvent.Type.STATUS_UPDATED, updated.getType());
+        assertNull(updated.getRequest());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testNewerVersionTrailingFieldsSkippedAndCorruptionRejected() {
+        PaymentResponse response = PaymentResponse.success();
+        response.setOutTradeNo("T001");
+        byte[] bytes = PaymentCodec.encode(response);
+
+        // 模拟新版本在报文体末尾追加了字段
+        byte[] newer = Arrays.copyOf(bytes, bytes.length + 3);
+        newer[1] = (byte) (PaymentCodec.VERSION + 1);
+        ByteBuffer.wrap(newer).putInt(2, bytes.length - 6 + 3);
+        ByteBuffer in = ByteBuffer.wrap(newer);
+        assertEquals("T001", PaymentCodec.readResponse(in).getOutTradeNo());
+        assertFalse(in.hasRemaining());
+
+        // 同一版本出现多余字节、报文截断、类型不符都视为格式错误
+        byte[] trailing = newer.clone();
+        trailing[1] = (byte) PaymentCodec.VERSION;
+        assertInvalid(() -> PaymentCodec.readResponse(ByteBuffer.wrap(trailing)));
+        assertInvalid(() -> PaymentCodec.readResponse(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1))));
+        assertInvalid(() -> PaymentCodec.readRequest(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testUnknownCurrencyAndIntOverflowRejected() {
+        PaymentRequest request = new PaymentRequest("T001", PaymentType.ALIPAY, new BigDecimal("1.00"), "商品");
+        request.setCurrency("USD");
+        request.setExtraParams(new HashMap<>(Map.of("k", 1L << 40)));
+        byte[] bytes = PaymentCodec.encode(request);
+        assertEquals(1L << 40, PaymentCodec.readRequest(ByteBuffer.wrap(bytes)).getExtraParams().get("k"));
+
+        byte[] currency = bytes.clone();
+        int at = indexOf(currency, "USD".getBytes(StandardCharsets.UTF_8));
+        System.arraycopy("XYZ".getBytes(StandardCharsets.UTF_8), 0, currency, at, 3);
+        assertInvalid(() -> PaymentCodec.readRequest(ByteBuffer.wrap(currency)));
+
+        // 长整数的标记改为int，超出int范围
+        byte[] narrowed = bytes.clone();
+        narrowed[indexOf(narrowed, new byte[] {'k', 3}) + 1] = 2;
+        assertInvalid(() -> PaymentCodec.readRequest(ByteBuffer.wrap(narrowed)));
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        for (int i = 0; i + part.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("not found");
+    }
+
+    private static void assertInvalid(Runnable action) {
+        PaymentException e = assertThrows(PaymentException.class, action::run);
+        assertEquals(PaymentCodec.INVALID_MESSAGE, e.getErrorCode());
+    }
+}
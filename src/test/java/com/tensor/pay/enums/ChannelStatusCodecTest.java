@@ -0,0 +1,51 @@
+package com.tensor.pay.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 渠道状态编解码器测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ChannelStatusCodecTest {
+
+    @Test
+    public void testDecode() {
+        assertEquals(PaymentStatus.SUCCESS, ChannelStatusCodec.ALIPAY.decode("TRADE_SUCCESS"));
+        assertEquals(PaymentStatus.SUCCESS, ChannelStatusCodec.ALIPAY.decode("trade_finished"));
+        assertEquals(PaymentStatus.CANCELLED, ChannelStatusCodec.ALIPAY.decode("TRADE_CLOSED"));
+        assertEquals(PaymentStatus.FAILED, ChannelStatusCodec.ALIPAY.decode("UNKNOWN"));
+        assertEquals(PaymentStatus.FAILED, ChannelStatusCodec.ALIPAY.decode((String) null));
+
+        assertEquals(PaymentStatus.SUCCESS, ChannelStatusCodec.BANK.decode("Paid"));
+        assertEquals(PaymentStatus.PENDING, ChannelStatusCodec.BANK.decode("已支付"));
+        assertEquals(PaymentStatus.PENDING, ChannelStatusCodec.BANK.decode((String) null));
+
+        byte[] body = "status=userpaying&amount=1".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(PaymentStatus.PROCESSING, ChannelStatusCodec.WECHAT.decode(body, 7, 10));
+        assertEquals(PaymentStatus.PENDING, ChannelStatusCodec.WECHAT.decode(body, 7, 9));
+    }
+
+    @Test
+    public void testEveryCodeHasItsOwnSlot() {
+        ChannelStatusCodec.Builder builder = ChannelStatusCodec.builder(null);
+        for (int i = 0; i < 200; i++) {
+            builder.map(PaymentStatus.values()[i % PaymentStatus.values().length], "CODE_" + i);
+        }
+        ChannelStatusCodec codec = builder.map(PaymentStatus.SUCCESS, "success", "SUCCESS").build();
+        for (int i = 0; i < 200; i++) {
+            assertEquals(PaymentStatus.values()[i % PaymentStatus.values().length], codec.decode("code_" + i));
+        }
+        assertEquals(PaymentStatus.SUCCESS, codec.decode("Success"));
+        assertNull(codec.decode("CODE_200"));
+
+        assertEquals(PaymentType.BANK, PaymentType.fromCode("bank"));
+        assertNull(PaymentStatus.fromCodeOrNull("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> PaymentType.fromCode("unknown"));
+    }
+}
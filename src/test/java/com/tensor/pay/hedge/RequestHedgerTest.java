@@ -0,0 +1,128 @@
+package com.tensor.pay.hedge;
+
+import com.tensor.pay.config.HedgeProperties;
+import com.tensor.pay.enums.PaymentOperation;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.model.PaymentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询对冲测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class RequestHedgerTest {
+
+    @Test
+    public void testHistogramPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram(10, 1_000_000);
+        assertEquals(-1, histogram.percentileNanos(0.95));
+        for (int i = 0; i < 95; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        for (int i = 0; i < 5; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(500));
+        }
+        long p95 = histogram.percentileNanos(0.95);
+        assertTrue(p95 >= TimeUnit.MILLISECONDS.toNanos(2) && p95 <= TimeUnit.MICROSECONDS.toNanos(2500),
+            "p95=" + p95);
+        long p99 = histogram.percentileNanos(0.99);
+        assertTrue(p99 >= TimeUnit.MILLISECONDS.toNanos(500) && p99 <= TimeUnit.MILLISECONDS.toNanos(625),
+            "p99=" + p99);
+    }
+
+    @Test
+    public void testSlowQueryIsHedgedWithinBudget() throws Exception {
+        HedgeProperties properties = new HedgeProperties();
+        properties.setEnabled(true);
+        properties.setMinDelay(Duration.ofMillis(10));
+        properties.setBudgetRatio(0);
+        RequestHedger hedger = new RequestHedger(properties, null);
+        AtomicReference<CountDownLatch> blockNext = new AtomicReference<>();
+        AtomicInteger calls = new AtomicInteger();
+        // 被拦住的调用在测试放行前不会返回，结果不依赖实际耗时
+        Supplier<PaymentResponse> query = () -> {
+            calls.incrementAndGet();
+            CountDownLatch release = blockNext.getAndSet(null);
+            if (release != null) {
+                await(release);
+                return PaymentResponse.builder().success(true).outTradeNo("BLOCKED").build();
+            }
+            return PaymentResponse.builder().success(true).outTradeNo("FAST").build();
+        };
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 500; i++) {
+                hedger.call(PaymentType.ALIPAY, PaymentOperation.QUERY, query);
+            }
+            assertEquals(0, hedger.getHedgedCount());
+
+            // 初始额度允许10次对冲，其中一次调用被拦住时由另一次返回
+            for (int i = 0; i < 10; i++) {
+                CountDownLatch release = new CountDownLatch(1);
+                blockNext.set(release);
+                PaymentResponse response = hedger.call(PaymentType.ALIPAY, PaymentOperation.QUERY, query);
+                assertEquals("FAST", response.getOutTradeNo());
+                release.countDown();
+            }
+            assertEquals(10, hedger.getHedgedCount());
+
+            // 额度用完，只等待第一次调用
+            CountDownLatch release = new CountDownLatch(1);
+            blockNext.set(release);
+            int before = calls.get();
+            Future<PaymentResponse> pending = caller.submit(
+                () -> hedger.call(PaymentType.ALIPAY, PaymentOperation.QUERY, query));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (hedger.getBudgetExhaustedCount() == 0) {
+                assertTrue(System.currentTimeMillis() < deadline, "timed out");
+                Thread.sleep(1);
+            }
+            assertFalse(pending.isDone());
+            release.countDown();
+            assertEquals("BLOCKED", pending.get(10, TimeUnit.SECONDS).getOutTradeNo());
+            assertEquals(before + 1, calls.get());
+            assertEquals(10, hedger.getHedgedCount());
+        } finally {
+            caller.shutdownNow();
+            hedger.shutdown();
+        }
+    }
+
+    @Test
+    public void testDisabledHedgerRunsQueryDirectly() {
+        RequestHedger hedger = new RequestHedger(new HedgeProperties(), null);
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> executed = new AtomicReference<>();
+        for (int i = 0; i < 100; i++) {
+            hedger.call(PaymentType.ALIPAY, PaymentOperation.QUERY, () -> {
+                executed.set(Thread.currentThread());
+                return PaymentResponse.success();
+            });
+        }
+        assertSame(caller, executed.get());
+        assertEquals(-1, hedger.getHedgeDelayMillis(PaymentType.ALIPAY, PaymentOperation.QUERY));
+        hedger.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.tensor.pay.json;
+
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 支付JSON编解码测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentJsonCodecTest {
+
+    /**
+     * 与Spring Boot默认配置一致的Jackson
+     */
+    private final ObjectMapper jackson = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Test
+    public void testOutputMatchesJackson() throws Exception {
+        PaymentResponse response = PaymentResponse.success();
+        response.setOutTradeNo("T001");
+        response.setTradeNo("2024010122001");
+        response.setPaymentType(PaymentType.ALIPAY);
+        response.setStatus(PaymentStatus.SUCCESS);
+        response.setAmount(new BigDecimal("12.30"));
+        response.setPayTime(LocalDateTime.of(2024, 1, 1, 12, 30, 0, 500_000_000));
+        response.setPayUrl("https://example.com/pay?a=1&b=\"中文\"");
+        Map<String, Object> extra = new LinkedHashMap<>();
+        extra.put("count", 3);
+        extra.put("big", 12_345_678_901L);
+        extra.put("rate", new BigDecimal("1E+3"));
+        extra.put("ratio", 1.0E20);
+        extra.put("time", LocalDateTime.of(2024, 1, 1, 0, 0));
+        extra.put("list", List.of("a", true));
+        extra.put("nested", Map.of("k", "v"));
+        response.setExtraData(extra);
+        assertEquals(jackson.writeValueAsString(response), write(response));
+        assertEquals(jackson.writeValueAsString(PaymentResponse.failure("E1", "失败")),
+            write(PaymentResponse.failure("E1", "失败")));
+
+        PaymentRequest request = new PaymentRequest("T001", PaymentType.WECHAT, new BigDecimal("0.01"), "商品");
+        request.setExpireTime(LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000));
+        request.setTimeoutMillis(3_000L);
+        request.setExtraParams(Map.of("openid", "o123"));
+        assertEquals(jackson.writeValueAsString(request), write(request));
+        assertEquals(jackson.writeValueAsString(new PaymentRequest()), write(new PaymentRequest()));
+    }
+
+    @Test
+    public void testReadMatchesJackson() throws Exception {
+        String json = "{\"outTradeNo\":\"T001\",\"paymentType\":\"BANK\",\"amount\":\"12.30\",\"currency\":\"CNY\","
+            + "\"subject\":\"商品\",\"expireTime\":\"2024-01-01T12:00:00.5\",\"timeoutMillis\":3000,"
+            + "\"unknown\":{\"x\":[1,2]},\"extraParams\":{\"a\":1.5,\"b\":12345678901,\"c\":1,\"d\":[2.5,\"x\"]}}";
+        PaymentRequest expected = jackson.readValue(json, PaymentRequest.class);
+        PaymentRequest actual = PaymentJsonCodec.readRequest(reader(json));
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.getExtraParams(), actual.getExtraParams());
+        assertEquals(Double.class, actual.getExtraParams().get("a").getClass());
+
+        PaymentResponse response = PaymentResponse.success();
+        response.setStatus(PaymentStatus.REFUNDED);
+        response.setPaidAmount(new BigDecimal("8.00"));
+        response.setPayTime(LocalDateTime.of(2024, 1, 1, 8, 0));
+        String written = write(response);
+        assertEquals(jackson.readValue(written, PaymentResponse.class).toString(),
+            PaymentJsonCodec.readResponse(reader(written)).toString());
+
+        assertNull(PaymentJsonCodec.readRequest(reader("null")));
+        assertThrows(JSONException.class, () -> PaymentJsonCodec.readRequest(reader("{\"paymentType\":\"PAYPAL\"}")));
+        assertThrows(JSONException.class, () -> PaymentJsonCodec.readRequest(reader("{\"expireTime\":\"tomorrow\"}")));
+    }
+
+    @Test
+    public void testConverterRejectsInvalidAmount() throws Exception {
+        PaymentJsonHttpMessageConverter converter = new PaymentJsonHttpMessageConverter();
+        PaymentResponse response = (PaymentResponse) converter.read(PaymentResponse.class,
+            input("{\"success\":true,\"currency\":\"CNY\",\"amount\":\"1.50\"}"));
+        assertEquals(150, response.getAmountMinor());
+
+        // 金额精度超出币种范围时按请求体错误处理，而不是服务端错误
+        assertThrows(HttpMessageNotReadableException.class, () -> converter.read(PaymentResponse.class,
+            input("{\"success\":true,\"currency\":\"CNY\",\"amount\":\"0.001\"}")));
+    }
+
+    private static HttpInputMessage input(String json) {
+        return new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                return headers;
+            }
+        };
+    }
+
+    private static String write(PaymentRequest request) {
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            PaymentJsonCodec.write(writer, request);
+            return writer.toString();
+        }
+    }
+
+    private static String write(PaymentResponse response) {
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            PaymentJsonCodec.write(writer, response);
+            return writer.toString();
+        }
+    }
+
+    private static JSONReader reader(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return JSONReader.of(bytes, 0, bytes.length, StandardCharsets.UTF_8);
+    }
+}
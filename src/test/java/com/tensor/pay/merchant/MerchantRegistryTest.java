@@ -0,0 +1,257 @@
+package com.tensor.pay.merchant;
+
+import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.config.MerchantProperties;
+import com.tensor.pay.config.PaymentPropertiesRebinder;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.BankPaymentService;
+import com.tensor.pay.utils.SignatureUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 子商户注册表测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class MerchantRegistryTest {
+
+    @Test
+    public void testBoundedLeastRecentlyUsedEviction() throws Exception {
+        MerchantRegistry registry = new MerchantRegistry(new MerchantConfigProvider() { }, 2, Duration.ofHours(1),
+            Duration.ZERO);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+
+        Object a = registry.getClient(PaymentType.ALIPAY, "a", id -> new TestClient(created, closed));
+        Thread.sleep(2);
+        registry.getClient(PaymentType.BANK, "b", id -> new TestClient(created, closed));
+        Thread.sleep(2);
+        assertSame(a, registry.getClient(PaymentType.ALIPAY, "a", id -> new TestClient(created, closed)));
+        assertEquals(2, created.get());
+
+        // 超出上限，淘汰最久未使用的 b
+        registry.getClient(PaymentType.WECHAT, "c", id -> new TestClient(created, closed));
+        assertEquals(2, registry.size());
+        assertEquals(1, closed.get());
+        assertSame(a, registry.getClient(PaymentType.ALIPAY, "a", id -> new TestClient(created, closed)));
+        registry.getClient(PaymentType.BANK, "b", id -> new TestClient(created, closed));
+        assertEquals(4, created.get());
+
+        registry.invalidateAll();
+        assertEquals(0, registry.size());
+        assertEquals(4, closed.get());
+    }
+
+    @Test
+    public void testIdleClientsAreEvicted() throws Exception {
+        MerchantRegistry registry = new MerchantRegistry(new MerchantConfigProvider() { }, 100, Duration.ofMillis(20),
+            Duration.ZERO);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            registry.getClient(PaymentType.ALIPAY, "m" + i, id -> new TestClient(created, closed));
+        }
+        Thread.sleep(50);
+        registry.getClient(PaymentType.ALIPAY, "active", id -> new TestClient(created, closed));
+        assertEquals(1, registry.size());
+        assertEquals(10, closed.get());
+
+        assertThrows(PaymentException.class, () -> registry.getClient(PaymentType.BANK, "unknown",
+            id -> MerchantConfigProvider.require(registry.getConfigProvider().getBankConfig(id), id)));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testEvictedClientClosedAfterDelay() throws Exception {
+        MerchantRegistry registry = new MerchantRegistry(new MerchantConfigProvider() { }, 16, Duration.ofHours(1),
+            Duration.ofMillis(50));
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        Object first = registry.getClient(PaymentType.ALIPAY, "m0", id -> new TestClient(created, closed));
+        for (int i = 1; i <= 16; i++) {
+            Thread.sleep(1);
+            registry.getClient(PaymentType.ALIPAY, "m" + i, id -> new TestClient(created, closed));
+        }
+
+        // 一次淘汰到上限的7/8，淘汰的客户端可能仍在使用，暂不关闭
+        assertEquals(14, registry.size());
+        assertEquals(0, closed.get());
+        assertNotSame(first, registry.getClient(PaymentType.ALIPAY, "m0", id -> new TestClient(created, closed)));
+
+        // 延迟过后关闭先前淘汰的3个，刚失效的 m0 仍要等待延迟
+        Thread.sleep(80);
+        registry.invalidate(PaymentType.ALIPAY, "m0");
+        assertEquals(3, closed.get());
+    }
+
+    @Test
+    public void testReplacedAndIdleClientsClosedWithoutAccess() throws Exception {
+        MerchantRegistry registry = new MerchantRegistry(new MerchantConfigProvider() { }, 16, Duration.ofMillis(20),
+            Duration.ZERO);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        try {
+            registry.getClient(PaymentType.ALIPAY, "m0", id -> new TestClient(created, closed));
+            registry.getClient(PaymentType.ALIPAY, "m1", id -> new TestClient(created, closed));
+
+            // 配置变化替换的客户端在刷新结束时关闭
+            assertEquals(Integer.valueOf(2), registry.<TestClient>refresh(PaymentType.ALIPAY,
+                (id, current) -> new TestClient(created, closed), Runnable::run).get(1, TimeUnit.SECONDS));
+            assertEquals(2, closed.get());
+
+            // 之后不再访问，空闲的客户端由后台清理淘汰并关闭
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (closed.get() < 4 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(4, closed.get());
+            assertEquals(0, registry.size());
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallbackVerifiedWithSubMerchantKey() {
+        BankPayProperties defaultMerchant = new BankPayProperties();
+        defaultMerchant.setMerchantKey("default-secret");
+        BankPayProperties subMerchant = new BankPayProperties();
+        subMerchant.setMerchantKey("sub-secret");
+        MerchantConfigProvider provider = new MerchantConfigProvider() {
+            @Override
+            public BankPayProperties getBankConfig(String merchantId) {
+                return "sub".equals(merchantId) ? subMerchant : null;
+            }
+        };
+        SignatureUtils signatureUtils = new SignatureUtils();
+        BankPaymentService service = new BankPaymentService(defaultMerchant, null, signatureUtils,
+            new MerchantRegistry(provider, 16, Duration.ofMinutes(30)));
+
+        Map<String, String> params = new HashMap<>();
+        params.put("outTradeNo", "ORDER3");
+        params.put("status", "SUCCESS");
+        byte[] body = ("outTradeNo=ORDER3&status=SUCCESS&sign=" + signatureUtils.generateSignature(params, "sub-secret"))
+            .getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(service.handleCallback(body).isSuccess());
+        PaymentResponse response = MerchantContext.call("sub", () -> service.handleCallback(body));
+        assertTrue(response.isSuccess());
+        assertEquals("ORDER3", response.getOutTradeNo());
+        assertNull(MerchantContext.current());
+        assertFalse(MerchantContext.call("other", () -> service.handleCallback(body)).isSuccess());
+    }
+
+    @Test
+    public void testRefreshReplacesChangedSubMerchantConfig() throws Exception {
+        Map<String, BankPayProperties> configs = new ConcurrentHashMap<>();
+        configs.put("sub", bankConfig("old-secret"));
+        configs.put("gone", bankConfig("gone-secret"));
+        MerchantConfigProvider provider = new MerchantConfigProvider() {
+            @Override
+            public BankPayProperties getBankConfig(String merchantId) {
+                return configs.get(merchantId);
+            }
+        };
+        MerchantRegistry registry = new MerchantRegistry(provider, 16, Duration.ofMinutes(30));
+        BankPaymentService service = new BankPaymentService(bankConfig("default-secret"), null,
+            new SignatureUtils(), registry);
+        Executor executor = Runnable::run;
+
+        assertTrue(MerchantContext.call("sub", () -> service.handleCallback(callback("old-secret"))).isSuccess());
+        MerchantContext.call("gone", () -> service.handleCallback(callback("gone-secret")));
+        assertEquals(2, registry.size());
+        assertEquals(Integer.valueOf(0), service.refreshConfig(executor).get(1, TimeUnit.SECONDS));
+
+        configs.put("sub", bankConfig("new-secret"));
+        configs.remove("gone");
+        assertEquals(Integer.valueOf(2), service.refreshConfig(executor).get(1, TimeUnit.SECONDS));
+        assertEquals(1, registry.size());
+        assertTrue(MerchantContext.call("sub", () -> service.handleCallback(callback("new-secret"))).isSuccess());
+        assertFalse(MerchantContext.call("sub", () -> service.handleCallback(callback("old-secret"))).isSuccess());
+    }
+
+    @Test
+    public void testRebindPicksUpEnvironmentChanges() throws Exception {
+        Map<String, Object> source = new HashMap<>();
+        source.put("tensor.pay.merchant.merchants.sub.bank.merchant-key", "old-secret");
+        source.put("tensor.pay.bank.merchant-key", "default-secret");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", source));
+        MerchantProperties merchantProperties = new MerchantProperties();
+        BankPayProperties bankProperties = bankConfig("startup-secret");
+        PaymentPropertiesRebinder rebinder = new PaymentPropertiesRebinder(environment,
+            List.of(merchantProperties, bankProperties));
+        rebinder.rebind();
+        MerchantRegistry registry = new MerchantRegistry(
+            new PropertiesMerchantConfigProvider(() -> rebinder.current(merchantProperties)), 16,
+            Duration.ofMinutes(30));
+        BankPaymentService service = new BankPaymentService(bankProperties, null, new SignatureUtils(), registry);
+        assertTrue(MerchantContext.call("sub", () -> service.handleCallback(callback("old-secret"))).isSuccess());
+        assertTrue(service.handleCallback(callback("startup-secret")).isSuccess());
+
+        // 配置中心更新属性源后，重新绑定才能让注册表看到新配置
+        source.put("tensor.pay.merchant.merchants.sub.bank.merchant-key", "new-secret");
+        assertEquals(Integer.valueOf(0), service.refreshConfig(rebinder, Runnable::run).get(1, TimeUnit.SECONDS));
+        rebinder.rebind();
+        assertEquals(Integer.valueOf(1), service.refreshConfig(rebinder, Runnable::run).get(1, TimeUnit.SECONDS));
+        assertTrue(MerchantContext.call("sub", () -> service.handleCallback(callback("new-secret"))).isSuccess());
+        assertTrue(service.handleCallback(callback("default-secret")).isSuccess());
+        assertFalse(service.handleCallback(callback("startup-secret")).isSuccess());
+
+        // 重新绑定发布新的快照，启动时绑定的配置对象和已发布的快照都不会被修改
+        MerchantProperties published = rebinder.current(merchantProperties);
+        source.clear();
+        rebinder.rebind();
+        assertEquals("startup-secret", bankProperties.getMerchantKey());
+        assertTrue(merchantProperties.getMerchants().isEmpty());
+        assertEquals("new-secret", published.getMerchants().get("sub").getBank().getMerchantKey());
+        assertTrue(rebinder.current(merchantProperties).getMerchants().isEmpty());
+        assertEquals(Duration.ofMinutes(30), rebinder.current(merchantProperties).getIdleTimeout());
+    }
+
+    private static BankPayProperties bankConfig(String merchantKey) {
+        BankPayProperties properties = new BankPayProperties();
+        properties.setMerchantKey(merchantKey);
+        return properties;
+    }
+
+    private static byte[] callback(String merchantKey) {
+        Map<String, String> params = new HashMap<>();
+        params.put("outTradeNo", "ORDER4");
+        params.put("status", "SUCCESS");
+        return ("outTradeNo=ORDER4&status=SUCCESS&sign=" + new SignatureUtils().generateSignature(params, merchantKey))
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class TestClient implements AutoCloseable {
+
+        private final AtomicInteger closed;
+
+        private TestClient(AtomicInteger created, AtomicInteger closed) {
+            this.closed = closed;
+            created.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tensor.pay.model;
+
+import com.tensor.pay.exception.PaymentException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 金额测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class MoneyTest {
+
+    @Test
+    public void testExactConversion() {
+        assertEquals(1, Money.toMinor(new BigDecimal("0.01"), 2));
+        assertEquals(1230, Money.toMinor(new BigDecimal("12.300"), 2));
+        assertEquals(10000, Money.toMinor(new BigDecimal("1E+2"), 2));
+        assertThrows(PaymentException.class, () -> Money.toMinor(new BigDecimal("0.015"), 2));
+
+        assertTrue(Money.isExact(new BigDecimal("12.300"), 2));
+        assertTrue(Money.isExact(new BigDecimal("0E+2000000"), 2));
+        assertTrue(Money.isExact(new BigDecimal("92233720368547758.07"), 2));
+        assertFalse(Money.isExact(new BigDecimal("92233720368547758.08"), 2));
+        assertFalse(Money.isExact(new BigDecimal("0.015"), 2));
+        assertFalse(Money.isExact(new BigDecimal("1e2000000"), 2));
+        assertFalse(Money.isExact(new BigDecimal("1e-2000000"), 2));
+
+        assertEquals(1230, Money.parseMinor("12.3", 2));
+        assertEquals(-5, Money.parseMinor("-0.05", 2));
+        assertEquals(100, Money.parseMinor("1.000", 2));
+        assertThrows(PaymentException.class, () -> Money.parseMinor("1.001", 2));
+        assertThrows(PaymentException.class, () -> Money.parseMinor("1.", 2));
+        assertThrows(PaymentException.class, () -> Money.parseMinor("abc", 2));
+        // 4位小数的币种整数部分最多14位，超出时拒绝而不是溢出
+        assertEquals(999_999_999_999_999_999L, Money.parseMinor("99999999999999.9999", 4));
+        assertThrows(PaymentException.class, () -> Money.parseMinor("999999999999999.9999", 4));
+        byte[] overflow = "999999999999999.9999".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(PaymentException.class, () -> Money.parseMinor(overflow, 0, overflow.length, 4));
+        assertEquals(99_999_999_999_999_999L, Money.parseMinor("99999999999999999", 0));
+        PaymentException unsupported = assertThrows(PaymentException.class,
+            () -> Money.digits(Currency.getInstance("XXX")));
+        assertTrue(unsupported.isBusinessError());
+
+        assertEquals("0.01", Money.format(1, 2));
+        assertEquals("12.30", Money.format(1230, 2));
+        assertEquals("-0.05", Money.format(-5, 2));
+        assertEquals("100", Money.format(100, 0));
+        assertEquals("100.00", Money.of(new BigDecimal("1E+2"), Money.CNY).toPlainString());
+    }
+
+    @Test
+    public void testResponseAmounts() {
+        PaymentResponse response = PaymentResponse.success();
+        assertNull(response.getAmount());
+        assertEquals(PaymentResponse.NO_AMOUNT, response.getAmountMinor());
+
+        response.setAmount(new BigDecimal("12.3"));
+        assertEquals(1230, response.getAmountMinor());
+        assertEquals(new BigDecimal("12.30"), response.getAmount());
+
+        PaymentResponse yen = PaymentResponse.success();
+        yen.setCurrency("JPY");
+        yen.setAmount(new BigDecimal("100"));
+        assertEquals(100, yen.getAmountMinor());
+        assertEquals(new BigDecimal("100"), yen.getAmount());
+
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(new BigDecimal("0.019"));
+        assertThrows(PaymentException.class, request::toMoney);
+    }
+}
@@ -0,0 +1,116 @@
+package com.tensor.pay.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 支付响应测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentResponseTest {
+
+    @Test
+    public void testBuiltResponseIsImmutable() throws Exception {
+        Map<String, Object> extra = new HashMap<>();
+        extra.put("channel", "native");
+        PaymentResponse response = PaymentResponse.builder()
+            .success(true)
+            .outTradeNo("T001")
+            .paymentType(PaymentType.WECHAT)
+            .status(PaymentStatus.PENDING)
+            .amount(new BigDecimal("12.30"))
+            .extraData(extra)
+            .extra("scene", "qr")
+            .build();
+        extra.put("channel", "changed");
+
+        assertTrue(response.isImmutable());
+        assertEquals(1230, response.getAmountMinor());
+        assertEquals("native", response.getExtraData().get("channel"));
+        assertEquals("qr", response.getExtraData().get("scene"));
+        assertThrows(UnsupportedOperationException.class, () -> response.setStatus(PaymentStatus.SUCCESS));
+        assertThrows(UnsupportedOperationException.class, () -> response.putExtraData("k", "v"));
+        assertThrows(UnsupportedOperationException.class, () -> response.getExtraData().put("k", "v"));
+
+        PaymentResponse copy = response.toBuilder().status(PaymentStatus.SUCCESS).extra("k", "v").build();
+        assertEquals(PaymentStatus.SUCCESS, copy.getStatus());
+        assertEquals(PaymentStatus.PENDING, response.getStatus());
+        assertFalse(response.getExtraData().containsKey("k"));
+
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        PaymentResponse mutable = PaymentResponse.success();
+        mutable.setOutTradeNo("T001");
+        mutable.setPaymentType(PaymentType.WECHAT);
+        mutable.setStatus(PaymentStatus.PENDING);
+        mutable.setAmount(new BigDecimal("12.30"));
+        mutable.putExtraData("channel", "native");
+        mutable.putExtraData("scene", "qr");
+        assertEquals(mapper.writeValueAsString(mutable), mapper.writeValueAsString(response));
+        assertFalse(mapper.readValue(mapper.writeValueAsString(response), PaymentResponse.class).isImmutable());
+    }
+
+    @Test
+    public void testBuilderIsSingleUse() {
+        PaymentResponse.Builder builder = PaymentResponse.builder().success(true);
+        builder.build();
+        assertThrows(IllegalStateException.class, () -> builder.outTradeNo("T001"));
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    public void testExtraDataAllocatedLazily() {
+        PaymentResponse response = PaymentResponse.success();
+        assertNull(response.getExtraData());
+        response.putExtraData("k", "v");
+        assertEquals("v", response.getExtraData().get("k"));
+        assertNull(PaymentResponse.builder().success(true).build().getExtraData());
+    }
+
+    @Test
+    public void testSharedFailures() throws Exception {
+        PaymentResponse limited = PaymentResponse.sharedFailure("RATE_LIMITED", "超出渠道调用频率限制: ALIPAY/pay");
+        assertSame(limited, PaymentResponse.sharedFailure("RATE_LIMITED", "超出渠道调用频率限制: ALIPAY/pay"));
+        assertNotSame(limited, PaymentResponse.sharedFailure("RATE_LIMITED", "超出渠道调用频率限制: BANK/pay"));
+        assertFalse(limited.isSuccess());
+        assertTrue(limited.isImmutable());
+        assertFalse(limited.isAuthoritative());
+        assertNull(limited.getExtraData());
+        assertNull(limited.getAmount());
+        assertEquals(PaymentResponse.NO_AMOUNT, limited.getAmountMinor());
+        assertThrows(UnsupportedOperationException.class, () -> limited.setErrorCode("OTHER"));
+        assertThrows(UnsupportedOperationException.class, () -> limited.setExtraData(new HashMap<>()));
+        assertThrows(UnsupportedOperationException.class, () -> limited.putExtraData("k", "v"));
+        PaymentResponse copy = limited.toBuilder().outTradeNo("T001").build();
+        assertEquals("RATE_LIMITED", copy.getErrorCode());
+        assertEquals("超出渠道调用频率限制: ALIPAY/pay", copy.getErrorMessage());
+        assertEquals("T001", copy.getOutTradeNo());
+        assertEquals("CNY", copy.getCurrency());
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        assertEquals(mapper.writeValueAsString(PaymentResponse.failure("RATE_LIMITED", "超出渠道调用频率限制: ALIPAY/pay")),
+            mapper.writeValueAsString(limited));
+
+        assertSame(PaymentResponse.INVALID_AMOUNT, PaymentResponse.sharedFailure("INVALID_AMOUNT", "支付金额必须大于0"));
+        assertSame(PaymentResponse.unsupportedPaymentType(PaymentType.BANK),
+            PaymentResponse.sharedFailure("UNSUPPORTED_PAYMENT_TYPE", "不支持的支付类型: BANK"));
+        assertEquals("不支持的支付类型: null", PaymentResponse.unsupportedPaymentType(null).getErrorMessage());
+
+        for (int i = 0; i < 100; i++) {
+            PaymentResponse failure = PaymentResponse.sharedFailure("TEST_BOUNDED", "订单 T" + i + " 不存在");
+            assertEquals("订单 T" + i + " 不存在", failure.getErrorMessage());
+            assertTrue(failure.isImmutable());
+        }
+        assertNotSame(PaymentResponse.sharedFailure("TEST_BOUNDED", "订单 T99 不存在"),
+            PaymentResponse.sharedFailure("TEST_BOUNDED", "订单 T99 不存在"));
+        assertTrue(PaymentResponse.sharedFailure(null, "x").isImmutable());
+    }
+}
@@ -0,0 +1,146 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.cluster.ClusterCoordinator;
+import com.tensor.pay.cluster.ClusterMember;
+import com.tensor.pay.cluster.InMemoryMemberDiscovery;
+import com.tensor.pay.cluster.OrderHandoff;
+import com.tensor.pay.config.CompensationProperties;
+import com.tensor.pay.config.OrderStoreProperties;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEventListener;
+import com.tensor.pay.event.PaymentEventPublisher;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.UnifiedPaymentService;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 集群部署下的补偿查询与超时关闭测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ClusteredOrderWorkTest {
+
+    private static final int ORDERS = 40;
+
+    @Test
+    public void testOrdersHandedOffToOwner() throws Exception {
+        InMemoryMemberDiscovery discovery = discovery();
+        Map<String, Node> nodes = new ConcurrentHashMap<>();
+        OrderHandoff handoff = (owner, request, response) -> nodes.get(owner.getId()).coordinator
+            .receive(request, response);
+        try (Node first = new Node("node-1", discovery, handoff);
+             Node second = new Node("node-2", discovery, handoff)) {
+            nodes.put(first.id, first);
+            nodes.put(second.id, second);
+            for (int i = 0; i < ORDERS; i++) {
+                first.created("ORDER" + i);
+            }
+
+            OrderCompensationSchedulerTest.waitFor(() -> first.store.size() + second.store.size() == 0);
+            // 每个订单恰好由归属节点查询并关闭一次，创建订单的节点不遗漏也不重复处理交出的订单
+            for (int i = 0; i < ORDERS; i++) {
+                String outTradeNo = "ORDER" + i;
+                Node owner = nodes.get(first.coordinator.ownerOf(outTradeNo).getId());
+                Node other = owner == first ? second : first;
+                assertEquals(1, owner.service.count("cancel", outTradeNo), outTradeNo);
+                assertEquals(2, owner.service.count("query", outTradeNo), outTradeNo);
+                assertEquals(0, other.service.count("cancel", outTradeNo) + other.service.count("query", outTradeNo));
+            }
+            assertTrue(first.service.count("cancel") > 0);
+            assertTrue(second.service.count("cancel") > 0);
+        }
+    }
+
+    @Test
+    public void testOrdersHandledLocallyWhenHandoffFails() throws Exception {
+        InMemoryMemberDiscovery discovery = discovery();
+        OrderHandoff handoff = (owner, request, response) -> {
+            throw new IllegalStateException("owner unreachable");
+        };
+        try (Node first = new Node("node-1", discovery, handoff);
+             Node second = new Node("node-2", discovery, handoff)) {
+            for (int i = 0; i < ORDERS; i++) {
+                first.created("ORDER" + i);
+            }
+
+            OrderCompensationSchedulerTest.waitFor(() -> first.store.size() == 0);
+            for (int i = 0; i < ORDERS; i++) {
+                assertEquals(1, first.service.count("cancel", "ORDER" + i));
+                assertEquals(2, first.service.count("query", "ORDER" + i));
+            }
+            assertEquals(0, second.service.calls.size());
+        }
+    }
+
+    private static InMemoryMemberDiscovery discovery() {
+        InMemoryMemberDiscovery discovery = new InMemoryMemberDiscovery();
+        discovery.join(new ClusterMember("node-1", null));
+        discovery.join(new ClusterMember("node-2", null));
+        return discovery;
+    }
+
+    /**
+     * 一个节点上的订单跟踪组件
+     */
+    private static final class Node implements AutoCloseable {
+
+        final String id;
+        final StubPaymentService service = new StubPaymentService();
+        final OrderStateStore store = new OrderStateStore(1_000);
+        final HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 64, 3, Runnable::run);
+        final ClusterCoordinator coordinator;
+        final OrderExpiryManager expiryManager;
+        final OrderCompensationScheduler scheduler;
+
+        Node(String id, InMemoryMemberDiscovery discovery, OrderHandoff handoff) {
+            this.id = id;
+            this.coordinator = new ClusterCoordinator(id, discovery, 160, handoff);
+
+            OrderStoreProperties orderProperties = new OrderStoreProperties();
+            orderProperties.setDefaultExpireTime(Duration.ofMillis(300));
+            PaymentEventPublisher publisher = new PaymentEventPublisher(
+                new StaticListableBeanFactory().getBeanProvider(PaymentEventListener.class));
+            this.expiryManager = new OrderExpiryManager(store, wheel,
+                new PaymentServiceFactory(List.of(service)), publisher, orderProperties, coordinator);
+
+            CompensationProperties compensationProperties = new CompensationProperties();
+            compensationProperties.setJitterRatio(0);
+            compensationProperties.setMaxQueriesPerSecond(1_000);
+            compensationProperties.setBackoff(List.of(Duration.ofMillis(50), Duration.ofHours(1)));
+            this.scheduler = new OrderCompensationScheduler(store, wheel,
+                new UnifiedPaymentService(new PaymentServiceFactory(List.of(service))),
+                compensationProperties, coordinator);
+        }
+
+        void created(String outTradeNo) {
+            PaymentResponse response = PaymentResponse.builder()
+                .success(true)
+                .outTradeNo(outTradeNo)
+                .paymentType(PaymentType.ALIPAY)
+                .status(PaymentStatus.PENDING)
+                .build();
+            // 监听器的调用顺序不影响移交结果
+            scheduler.onPaymentCreated(new PaymentRequest(), response);
+            expiryManager.onPaymentCreated(new PaymentRequest(), response);
+        }
+
+        @Override
+        public void close() {
+            scheduler.close();
+            wheel.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.config.CompensationProperties;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.UnifiedPaymentService;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 漏单补偿查询调度测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderCompensationSchedulerTest {
+
+    @Test
+    public void testQueriesFollowBackoffUntilFinal() throws Exception {
+        StubPaymentService service = new StubPaymentService();
+        OrderStateStore store = new OrderStateStore(100);
+        CompensationProperties properties = properties(100, 100);
+        properties.setBackoff(List.of(Duration.ofMillis(20), Duration.ofMillis(150), Duration.ofMillis(300)));
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 64, 3, Runnable::run);
+             OrderCompensationScheduler scheduler = scheduler(store, wheel, service, properties)) {
+            long start = System.currentTimeMillis();
+            created(scheduler, store, "UNRESOLVED");
+            created(scheduler, store, "PAID_LATER");
+            created(scheduler, store, "CALLBACK_ARRIVED");
+            // 回调先到，本地状态已完结的订单不再查询
+            store.updateStatus("CALLBACK_ARRIVED", PaymentStatus.SUCCESS);
+            service.statuses.put("PAID_LATER", PaymentStatus.SUCCESS);
+
+            waitFor(() -> service.count("query", "UNRESOLVED") == 3);
+            List<StubPaymentService.Call> calls = service.calls.stream()
+                .filter(call -> call.outTradeNo.equals("UNRESOLVED"))
+                .toList();
+            // 阶梯从订单创建时起算，调度只会晚不会早
+            assertTrue(calls.get(0).atMillis - start >= 20);
+            assertTrue(calls.get(1).atMillis - start >= 150);
+            assertTrue(calls.get(2).atMillis - start >= 300);
+
+            assertEquals(1, service.count("query", "PAID_LATER"));
+            assertEquals(0, service.count("query", "CALLBACK_ARRIVED"));
+        }
+    }
+
+    @Test
+    public void testQueryErrorsDoNotEndCompensation() throws Exception {
+        StubPaymentService service = new StubPaymentService();
+        OrderStateStore store = new OrderStateStore(100);
+        CompensationProperties properties = properties(100, 100);
+        properties.setBackoff(List.of(Duration.ZERO, Duration.ofMillis(50), Duration.ofMillis(100)));
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 64, 3, Runnable::run);
+             OrderCompensationScheduler scheduler = scheduler(store, wheel, service, properties)) {
+            service.queryErrors.put("NOT_SCANNED", "ACQ.TRADE_NOT_EXIST");
+            created(scheduler, store, "NOT_SCANNED");
+
+            // 带错误码的查询结果不是订单的最终状态，继续按阶梯查询
+            waitFor(() -> service.count("query", "NOT_SCANNED") == 3);
+            assertEquals(PaymentStatus.PENDING, store.getStatus("NOT_SCANNED"));
+        }
+    }
+
+    @Test
+    public void testQueriesAreRateLimitedPerChannel() throws Exception {
+        StubPaymentService service = new StubPaymentService();
+        OrderStateStore store = new OrderStateStore(100);
+        CompensationProperties properties = properties(1, 100);
+        properties.setBackoff(List.of(Duration.ZERO, Duration.ofHours(1)));
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 64, 3, Runnable::run);
+             OrderCompensationScheduler scheduler = scheduler(store, wheel, service, properties)) {
+            for (int i = 0; i < 10; i++) {
+                created(scheduler, store, "ORDER" + i);
+            }
+            waitFor(() -> service.count("query") == 1);
+            Thread.sleep(300);
+            // 每秒一次的配额在300毫秒内最多再发出一次查询，负载高时只会更少
+            assertTrue(service.count("query") <= 2);
+            assertTrue(scheduler.getQueuedCount(PaymentType.ALIPAY) >= 8);
+            assertEquals(0, scheduler.getQueuedCount(PaymentType.WECHAT));
+        }
+    }
+
+    @Test
+    public void testQueueIsBoundedPerChannel() throws Exception {
+        StubPaymentService service = new StubPaymentService();
+        OrderStateStore store = new OrderStateStore(100);
+        CompensationProperties properties = properties(0.01, 3);
+        properties.setBackoff(List.of(Duration.ZERO, Duration.ofHours(1)));
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 64, 3, Runnable::run);
+             OrderCompensationScheduler scheduler = scheduler(store, wheel, service, properties)) {
+            for (int i = 0; i < 20; i++) {
+                created(scheduler, store, "ORDER" + i);
+            }
+            waitFor(() -> service.count("query") == 1);
+            Thread.sleep(100);
+            // 队列只接收了3个订单，其中一个已查询，其余订单顺延到下一阶梯，不占用队列
+            assertEquals(2, scheduler.getQueuedCount(PaymentType.ALIPAY));
+            assertEquals(1, service.count("query"));
+        }
+    }
+
+    @Test
+    public void testQueriesRunAsOrderMerchant() throws Exception {
+        StubPaymentService service = new StubPaymentService();
+        OrderStateStore store = new OrderStateStore(100);
+        CompensationProperties properties = properties(100, 100);
+        properties.setBackoff(List.of(Duration.ZERO, Duration.ofHours(1)));
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 64, 3, Runnable::run);
+             OrderCompensationScheduler scheduler = scheduler(store, wheel, service, properties)) {
+            PaymentRequest request = new PaymentRequest();
+            request.setMerchantId("sub-1");
+            store.track("SUB_ORDER", PaymentType.ALIPAY, PaymentStatus.PENDING, 0);
+            scheduler.onPaymentCreated(request, PaymentResponse.builder()
+                .success(true)
+                .outTradeNo("SUB_ORDER")
+                .paymentType(PaymentType.ALIPAY)
+                .status(PaymentStatus.PENDING)
+                .build());
+            created(scheduler, store, "DEFAULT_ORDER");
+
+            waitFor(() -> service.count("query") == 2);
+            for (StubPaymentService.Call call : service.calls) {
+                assertEquals(call.outTradeNo.equals("SUB_ORDER") ? "sub-1" : null, call.merchantId);
+            }
+        }
+    }
+
+    private static CompensationProperties properties(double maxQueriesPerSecond, int maxQueued) {
+        CompensationProperties properties = new CompensationProperties();
+        properties.setJitterRatio(0);
+        properties.setMaxQueriesPerSecond(maxQueriesPerSecond);
+        properties.setMaxQueued(maxQueued);
+        properties.setQueryThreads(2);
+        return properties;
+    }
+
+    private static OrderCompensationScheduler scheduler(OrderStateStore store, HierarchicalTimingWheel wheel,
+                                                        StubPaymentService service,
+                                                        CompensationProperties properties) {
+        UnifiedPaymentService unified = new UnifiedPaymentService(new PaymentServiceFactory(List.of(service)));
+        return new OrderCompensationScheduler(store, wheel, unified, properties);
+    }
+
+    private static void created(OrderCompensationScheduler scheduler, OrderStateStore store, String outTradeNo) {
+        store.track(outTradeNo, PaymentType.ALIPAY, PaymentStatus.PENDING, 0);
+        scheduler.onPaymentCreated(new PaymentRequest(), PaymentResponse.builder()
+            .success(true)
+            .outTradeNo(outTradeNo)
+            .paymentType(PaymentType.ALIPAY)
+            .status(PaymentStatus.PENDING)
+            .build());
+    }
+
+    static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+}
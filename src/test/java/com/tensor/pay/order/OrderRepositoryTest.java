@@ -0,0 +1,353 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.config.OrderStoreProperties;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEventListener;
+import com.tensor.pay.event.PaymentEventPublisher;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单记录存储测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderRepositoryTest {
+
+    @Test
+    public void testJdbcUpsertMergesKnownFields() {
+        JdbcOrderRepository repository = new JdbcOrderRepository(dataSource("order_upsert"));
+        repository.createTableIfNotExists();
+        assertNull(repository.findByOutTradeNo("T001"));
+
+        repository.save(created("T001", "12.30"));
+        OrderRecord record = repository.findByOutTradeNo("T001");
+        assertEquals(PaymentType.ALIPAY, record.getPaymentType());
+        assertEquals(PaymentStatus.PENDING, record.getStatus());
+        assertEquals(1230, record.getAmountMinor());
+        assertEquals(PaymentResponse.NO_AMOUNT, record.getPaidAmountMinor());
+        assertEquals("CNY", record.getCurrency());
+        assertEquals("M001", record.getMerchantId());
+        long createdAt = record.getCreatedAt();
+        assertTrue(createdAt > 0);
+
+        repository.saveAll(List.of(updated("T001", PaymentStatus.SUCCESS, "2088001"),
+            updated("T002", PaymentStatus.PROCESSING, null)));
+        record = repository.findByOutTradeNo("T001");
+        assertEquals(PaymentStatus.SUCCESS, record.getStatus());
+        assertEquals("2088001", record.getTradeNo());
+        assertEquals(1230, record.getAmountMinor());
+        assertEquals("M001", record.getMerchantId());
+        assertEquals(createdAt, record.getCreatedAt());
+        assertEquals(PaymentStatus.PROCESSING, repository.findByOutTradeNo("T002").getStatus());
+
+        // 晚到的中间状态不会让已完结的订单回退
+        repository.save(updated("T001", PaymentStatus.PENDING, null));
+        record = repository.findByOutTradeNo("T001");
+        assertEquals(PaymentStatus.SUCCESS, record.getStatus());
+        assertEquals("2088001", record.getTradeNo());
+
+        // 其他完结状态也不能覆盖支付成功，只能转为退款
+        repository.save(updated("T001", PaymentStatus.FAILED, null));
+        assertEquals(PaymentStatus.SUCCESS, repository.findByOutTradeNo("T001").getStatus());
+        repository.save(updated("T001", PaymentStatus.PARTIAL_REFUNDED, null));
+        repository.save(updated("T001", PaymentStatus.SUCCESS, null));
+        assertEquals(PaymentStatus.PARTIAL_REFUNDED, repository.findByOutTradeNo("T001").getStatus());
+        repository.save(updated("T001", PaymentStatus.REFUNDED, null));
+        assertEquals(PaymentStatus.REFUNDED, repository.findByOutTradeNo("T001").getStatus());
+        repository.save(updated("T002", PaymentStatus.CANCELLED, null));
+        repository.save(updated("T002", PaymentStatus.SUCCESS, null));
+        assertEquals(PaymentStatus.CANCELLED, repository.findByOutTradeNo("T002").getStatus());
+
+        OrderRecord paid = updated("T003", PaymentStatus.SUCCESS, null);
+        assertEquals(PaymentStatus.SUCCESS, paid.merge(updated("T003", PaymentStatus.FAILED, null)).getStatus());
+        assertEquals(PaymentStatus.REFUNDED, paid.merge(updated("T003", PaymentStatus.REFUNDED, null)).getStatus());
+        assertEquals(PaymentStatus.SUCCESS, updated("T003", PaymentStatus.PENDING, null)
+            .merge(paid).getStatus());
+        assertThrows(IllegalArgumentException.class,
+            () -> new JdbcOrderRepository(dataSource("order_upsert"), "orders; DROP TABLE x"));
+    }
+
+    @Test
+    public void testWriteBehindCoalescesAndFlushesBySize() throws Exception {
+        RecordingRepository delegate = new RecordingRepository();
+        WriteBehindOrderRepository repository = new WriteBehindOrderRepository(delegate, 3,
+            Duration.ofHours(1), 100);
+        try {
+            repository.save(created("T001", "1.00"));
+            repository.save(updated("T001", PaymentStatus.PROCESSING, null));
+            repository.save(updated("T001", PaymentStatus.SUCCESS, "2088001"));
+            repository.save(created("T002", "2.00"));
+            assertEquals(2, repository.getPending());
+            assertTrue(delegate.batches.isEmpty());
+
+            // 写入前也能读到合并后的最新状态
+            OrderRecord pending = repository.findByOutTradeNo("T001");
+            assertEquals(PaymentStatus.SUCCESS, pending.getStatus());
+            assertEquals(100, pending.getAmountMinor());
+            assertNull(delegate.findByOutTradeNo("T001"));
+
+            repository.save(created("T003", "3.00"));
+            waitFor(() -> repository.getFlushed() == 3);
+            assertEquals(1, delegate.batches.size());
+            assertEquals(3, delegate.batches.get(0).size());
+            assertEquals(3, repository.getFlushed());
+            assertEquals(PaymentStatus.SUCCESS, delegate.findByOutTradeNo("T001").getStatus());
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    public void testWriteBehindFlushesByIntervalToJdbc() throws Exception {
+        JdbcOrderRepository jdbc = new JdbcOrderRepository(dataSource("order_interval"));
+        jdbc.createTableIfNotExists();
+        WriteBehindOrderRepository repository = new WriteBehindOrderRepository(jdbc, 500,
+            Duration.ofMillis(20), 1000);
+        try {
+            repository.save(created("T001", "12.30"));
+            repository.save(updated("T001", PaymentStatus.SUCCESS, "2088001"));
+            waitFor(() -> repository.getFlushed() == 1);
+            assertEquals(PaymentStatus.SUCCESS, jdbc.findByOutTradeNo("T001").getStatus());
+            assertEquals(1230, jdbc.findByOutTradeNo("T001").getAmountMinor());
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    public void testFailedFlushIsRetriedAndBackPressureFlushesOnCaller() throws Exception {
+        RecordingRepository delegate = new RecordingRepository();
+        delegate.failing = true;
+        WriteBehindOrderRepository repository = new WriteBehindOrderRepository(delegate, 2,
+            Duration.ofHours(1), 4);
+        try {
+            repository.save(created("T001", "1.00"));
+            assertEquals(0, repository.flush());
+            repository.save(updated("T001", PaymentStatus.SUCCESS, null));
+            assertEquals(1, repository.getPending());
+            assertEquals(PaymentStatus.SUCCESS, repository.findByOutTradeNo("T001").getStatus());
+            assertEquals(100, repository.findByOutTradeNo("T001").getAmountMinor());
+
+            delegate.failing = false;
+            for (int i = 2; i <= 4; i++) {
+                repository.save(created("T00" + i, "1.00"));
+            }
+            waitFor(() -> repository.getFlushed() == 4);
+            assertEquals(PaymentStatus.SUCCESS, delegate.findByOutTradeNo("T001").getStatus());
+            assertEquals(100, delegate.findByOutTradeNo("T001").getAmountMinor());
+        } finally {
+            repository.close();
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> new WriteBehindOrderRepository(delegate, 10, Duration.ofSeconds(1), 5));
+    }
+
+    @Test
+    public void testWriteBehindRejectsNewOrdersAtLimitWhileDelegateFails() throws Exception {
+        RecordingRepository delegate = new RecordingRepository();
+        delegate.failing = true;
+        WriteBehindOrderRepository repository = new WriteBehindOrderRepository(delegate, 2,
+            Duration.ofHours(1), 4);
+        try {
+            for (int i = 1; i <= 4; i++) {
+                repository.save(created("T00" + i, "1.00"));
+            }
+            assertEquals(0, repository.flush());
+
+            for (int i = 5; i <= 20; i++) {
+                String outTradeNo = "T0" + i;
+                PaymentException e = assertThrows(PaymentException.class,
+                    () -> repository.save(created(outTradeNo, "1.00")));
+                assertEquals("ORDER_REPOSITORY_FULL", e.getErrorCode());
+            }
+            assertEquals(4, repository.getPending());
+            // 已在积压中的订单仍可更新，合并后不占用新的空间
+            repository.save(updated("T001", PaymentStatus.SUCCESS, "2088001"));
+            assertEquals(4, repository.getPending());
+            assertEquals(PaymentStatus.SUCCESS, repository.findByOutTradeNo("T001").getStatus());
+
+            delegate.failing = false;
+            assertEquals(4, repository.flush());
+            repository.save(created("T005", "1.00"));
+            assertEquals(1, repository.getPending());
+            assertEquals(PaymentStatus.SUCCESS, delegate.findByOutTradeNo("T001").getStatus());
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentSavesNeverExceedLimit() throws Exception {
+        RecordingRepository delegate = new RecordingRepository();
+        delegate.failing = true;
+        WriteBehindOrderRepository repository = new WriteBehindOrderRepository(delegate, 5,
+            Duration.ofMillis(1), 10);
+        try {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        try {
+                            repository.save(created("T" + thread + "-" + i, "1.00"));
+                        } catch (PaymentException e) {
+                            assertEquals("ORDER_REPOSITORY_FULL", e.getErrorCode());
+                        }
+                        assertTrue(repository.getPending() <= 10);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(10, repository.getPending());
+            assertEquals(1_600 - 10, repository.getRejected());
+
+            delegate.failing = false;
+            waitFor(() -> repository.getFlushed() == 10);
+            repository.save(created("T-next", "1.00"));
+            assertEquals(1, repository.getPending());
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    public void testRecorderKeepsMerchantOnExpiryPath() throws Exception {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        OrderRecorder recorder = new OrderRecorder(repository);
+        StaticListableBeanFactory listeners = new StaticListableBeanFactory();
+        listeners.addBean("orderRecorder", recorder);
+        PaymentEventPublisher publisher = new PaymentEventPublisher(
+            listeners.getBeanProvider(PaymentEventListener.class));
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 8, 3, Runnable::run)) {
+            OrderStateStore store = new OrderStateStore(100);
+            OrderExpiryManager manager = new OrderExpiryManager(store, wheel,
+                new PaymentServiceFactory(List.of(new StubPaymentService())), publisher, new OrderStoreProperties());
+            PaymentRequest request = request("T001", "5.00");
+            request.setMerchantId("sub-1");
+            request.setExpireTime(LocalDateTime.now());
+            PaymentResponse response = PaymentResponse.builder()
+                .success(true)
+                .outTradeNo("T001")
+                .paymentType(PaymentType.ALIPAY)
+                .status(PaymentStatus.PENDING)
+                .build();
+            recorder.onPaymentCreated(request, response);
+            manager.onPaymentCreated(request, response);
+
+            // 超时关闭以订单所属商户发布状态事件
+            waitFor(() -> repository.findByOutTradeNo("T001").getStatus() == PaymentStatus.CANCELLED);
+            assertEquals("sub-1", repository.findByOutTradeNo("T001").getMerchantId());
+        }
+
+        // 未绑定商户的状态事件不会覆盖已保存的子商户号
+        recorder.onStatusUpdated(PaymentResponse.builder()
+            .success(true)
+            .outTradeNo("T001")
+            .status(PaymentStatus.CANCELLED)
+            .build());
+        assertEquals("sub-1", repository.findByOutTradeNo("T001").getMerchantId());
+    }
+
+    @Test
+    public void testRecorderSavesEvents() {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        OrderRecorder recorder = new OrderRecorder(repository);
+        PaymentRequest request = request("T001", "5.00");
+        PaymentResponse response = PaymentResponse.builder()
+            .success(true)
+            .outTradeNo("T001")
+            .paymentType(PaymentType.ALIPAY)
+            .status(PaymentStatus.PENDING)
+            .build();
+        recorder.onPaymentCreated(request, response);
+        recorder.onStatusUpdated(response.toBuilder().status(PaymentStatus.CANCELLED).build());
+        recorder.onStatusUpdated(PaymentResponse.success());
+
+        assertEquals(1, repository.size());
+        OrderRecord record = repository.findByOutTradeNo("T001");
+        assertEquals(PaymentStatus.CANCELLED, record.getStatus());
+        assertEquals(500, record.getAmountMinor());
+        assertEquals("M001", record.getMerchantId());
+    }
+
+    private static OrderRecord created(String outTradeNo, String amount) {
+        PaymentResponse response = PaymentResponse.builder()
+            .success(true)
+            .outTradeNo(outTradeNo)
+            .paymentType(PaymentType.ALIPAY)
+            .status(PaymentStatus.PENDING)
+            .build();
+        return OrderRecord.created(request(outTradeNo, amount), response, "M001");
+    }
+
+    private static OrderRecord updated(String outTradeNo, PaymentStatus status, String tradeNo) {
+        return OrderRecord.statusUpdated(PaymentResponse.builder()
+            .success(true)
+            .outTradeNo(outTradeNo)
+            .tradeNo(tradeNo)
+            .status(status)
+            .build(), null);
+    }
+
+    private static PaymentRequest request(String outTradeNo, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setPaymentType(PaymentType.ALIPAY);
+        request.setOutTradeNo(outTradeNo);
+        request.setSubject("测试商品");
+        request.setAmount(new BigDecimal(amount));
+        request.setMerchantId("M001");
+        return request;
+    }
+
+    private static JdbcDataSource dataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingRepository extends InMemoryOrderRepository {
+
+        private final List<List<OrderRecord>> batches = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void saveAll(Collection<OrderRecord> records) {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+            batches.add(new ArrayList<>(records));
+            super.saveAll(records);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.config.OrderStoreProperties;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEventListener;
+import com.tensor.pay.event.PaymentEventPublisher;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.timer.HierarchicalTimingWheel;
+import com.tensor.pay.timer.TimerTask;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单状态存储与时间轮测试类
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OrderStateStoreTest {
+    
+    @Test
+    public void testTrackUpdateAndRemove() {
+        OrderStateStore store = new OrderStateStore(10_000);
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(store.track("ORDER" + i, PaymentType.ALIPAY, PaymentStatus.PENDING, i));
+        }
+        assertEquals(5_000, store.size());
+        
+        assertTrue(store.updateStatus("ORDER42", PaymentStatus.PROCESSING));
+        assertEquals(PaymentStatus.PROCESSING, store.getStatus("ORDER42"));
+        assertEquals(PaymentType.ALIPAY, store.getPaymentType("ORDER42"));
+        assertEquals(42L, store.getExpireAt("ORDER42"));
+        
+        for (int i = 0; i < 5_000; i += 2) {
+            assertTrue(store.remove("ORDER" + i));
+        }
+        assertEquals(2_500, store.size());
+        for (int i = 1; i < 5_000; i += 2) {
+            assertEquals(PaymentStatus.PENDING, store.getStatus("ORDER" + i));
+        }
+        assertNull(store.getStatus("ORDER0"));
+        assertFalse(store.updateStatus("ORDER0", PaymentStatus.SUCCESS));
+    }
+    
+    @Test
+    public void testCapacityIsBounded() {
+        OrderStateStore store = new OrderStateStore(16);
+        int accepted = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (store.track("ORDER" + i, PaymentType.BANK, PaymentStatus.PENDING, 0)) {
+                accepted++;
+            }
+        }
+        assertEquals(16, accepted);
+        assertEquals(accepted, store.size());
+        
+        // 上限对所有分段共享，不会因为某个分段先满而提前拒绝
+        OrderStateStore small = new OrderStateStore(20);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(small.track("ORDER" + i, PaymentType.BANK, PaymentStatus.PENDING, 0));
+        }
+        assertFalse(small.track("ORDER20", PaymentType.BANK, PaymentStatus.PENDING, 0));
+        assertTrue(small.remove("ORDER0"));
+        assertTrue(small.track("ORDER20", PaymentType.BANK, PaymentStatus.PENDING, 0));
+    }
+    
+    @Test
+    public void testExpiryTaskCancelledWhenOrderCompletes() throws Exception {
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 8, 3, Runnable::run)) {
+            OrderStateStore store = new OrderStateStore(1_000);
+            OrderExpiryManager manager = new OrderExpiryManager(store, wheel,
+                new PaymentServiceFactory(List.of()), null, new OrderStoreProperties());
+            for (int i = 0; i < 100; i++) {
+                PaymentRequest request = new PaymentRequest();
+                manager.onPaymentCreated(request, PaymentResponse.builder()
+                    .success(true)
+                    .outTradeNo("ORDER" + i)
+                    .paymentType(PaymentType.ALIPAY)
+                    .status(PaymentStatus.PENDING)
+                    .build());
+            }
+            // 重复登记时替换并取消旧任务
+            manager.onPaymentCreated(new PaymentRequest(), PaymentResponse.builder()
+                .success(true)
+                .outTradeNo("ORDER0")
+                .paymentType(PaymentType.ALIPAY)
+                .status(PaymentStatus.PENDING)
+                .build());
+            assertNotNull(store.getExpiryTask("ORDER0"));
+            
+            for (int i = 0; i < 100; i++) {
+                manager.onStatusUpdated(PaymentResponse.builder()
+                    .success(true)
+                    .outTradeNo("ORDER" + i)
+                    .status(PaymentStatus.SUCCESS)
+                    .build());
+            }
+            assertEquals(0, store.size());
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (wheel.pendingTasks() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(0L, wheel.pendingTasks());
+        }
+    }
+    
+    @Test
+    public void testExpiredOrderClosedAsOrderMerchant() throws Exception {
+        StubPaymentService service = new StubPaymentService();
+        PaymentEventPublisher publisher = new PaymentEventPublisher(
+            new StaticListableBeanFactory().getBeanProvider(PaymentEventListener.class));
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 8, 3, Runnable::run)) {
+            OrderStateStore store = new OrderStateStore(100);
+            OrderExpiryManager manager = new OrderExpiryManager(store, wheel,
+                new PaymentServiceFactory(List.of(service)), publisher, new OrderStoreProperties());
+            PaymentRequest request = new PaymentRequest();
+            request.setMerchantId("sub-1");
+            request.setExpireTime(LocalDateTime.now());
+            manager.onPaymentCreated(request, PaymentResponse.builder()
+                .success(true)
+                .outTradeNo("EXPIRING")
+                .paymentType(PaymentType.ALIPAY)
+                .status(PaymentStatus.PENDING)
+                .build());
+            
+            OrderCompensationSchedulerTest.waitFor(() -> store.size() == 0);
+            // 关闭和最后一次查询都以下单时的子商户身份执行
+            assertEquals(2, service.calls.size());
+            for (StubPaymentService.Call call : service.calls) {
+                assertEquals("sub-1", call.merchantId);
+            }
+        }
+    }
+    
+    @Test
+    public void testTimingWheelFiresInOrderAcrossLevels() throws Exception {
+        try (HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 8, 3, Runnable::run)) {
+            int count = 200;
+            CountDownLatch latch = new CountDownLatch(count);
+            AtomicInteger early = new AtomicInteger();
+            for (int i = 0; i < count; i++) {
+                long delay = i * 2L;
+                long scheduledAt = System.nanoTime();
+                wheel.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        if (System.nanoTime() - scheduledAt < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                            early.incrementAndGet();
+                        }
+                        latch.countDown();
+                    }
+                }, delay);
+            }
+            
+            TimerTask cancelled = wheel.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    early.incrementAndGet();
+                }
+            }, 50);
+            assertTrue(wheel.cancel(cancelled));
+            
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(0, early.get());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.tensor.pay.order;
+
+import com.tensor.pay.callback.CallbackView;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.merchant.MerchantContext;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.AbstractPaymentService;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 记录查询和关闭调用的测试用支付服务
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+class StubPaymentService extends AbstractPaymentService {
+
+    /**
+     * 一次渠道调用
+     */
+    static final class Call {
+
+        final String operation;
+        final String outTradeNo;
+        final String merchantId;
+        final long atMillis;
+
+        Call(String operation, String outTradeNo) {
+            this.operation = operation;
+            this.outTradeNo = outTradeNo;
+            this.merchantId = MerchantContext.current();
+            this.atMillis = System.currentTimeMillis();
+        }
+    }
+
+    final List<Call> calls = new CopyOnWriteArrayList<>();
+    final Map<String, PaymentStatus> statuses = new ConcurrentHashMap<>();
+    final Map<String, String> queryErrors = new ConcurrentHashMap<>();
+
+    @Override
+    public PaymentType getSupportedPaymentType() {
+        return PaymentType.ALIPAY;
+    }
+
+    @Override
+    public PaymentResponse queryPayment(String outTradeNo) {
+        calls.add(new Call("query", outTradeNo));
+        String error = queryErrors.get(outTradeNo);
+        if (error != null) {
+            // 与支付宝查询失败时的映射一致：success=true、状态为失败并带错误码
+            return response(outTradeNo, PaymentStatus.FAILED).toBuilder().errorCode(error).build();
+        }
+        return response(outTradeNo, statuses.getOrDefault(outTradeNo, PaymentStatus.PENDING));
+    }
+
+    @Override
+    public PaymentResponse cancelPayment(String outTradeNo) {
+        calls.add(new Call("cancel", outTradeNo));
+        statuses.put(outTradeNo, PaymentStatus.CANCELLED);
+        return response(outTradeNo, PaymentStatus.CANCELLED);
+    }
+
+    @Override
+    public PaymentResponse createPayment(PaymentRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PaymentResponse refund(String outTradeNo, BigDecimal refundAmount, String refundReason) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PaymentResponse queryRefund(String outTradeNo, String outRefundNo) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected boolean verifySignature(CallbackView callback, String signature) {
+        return false;
+    }
+
+    @Override
+    protected PaymentResponse mapCallback(CallbackView callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    long count(String operation, String outTradeNo) {
+        return calls.stream()
+            .filter(call -> call.operation.equals(operation) && call.outTradeNo.equals(outTradeNo))
+            .count();
+    }
+
+    long count(String operation) {
+        return calls.stream().filter(call -> call.operation.equals(operation)).count();
+    }
+
+    private static PaymentResponse response(String outTradeNo, PaymentStatus status) {
+        return PaymentResponse.builder()
+            .success(true)
+            .outTradeNo(outTradeNo)
+            .paymentType(PaymentType.ALIPAY)
+            .status(status)
+            .build();
+    }
+}
@@ -0,0 +1,263 @@
+package com.tensor.pay.outbox;
+
+import com.tensor.pay.config.OutboxProperties;
+import com.tensor.pay.enums.PaymentStatus;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.event.PaymentEvent;
+import com.tensor.pay.model.PaymentResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 发件箱测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class OutboxRelayTest {
+
+    @Test
+    public void testAppendJoinsCallerTransaction() throws Exception {
+        JdbcDataSource dataSource = dataSource("outbox_tx");
+        JdbcOutboxStore store = new JdbcOutboxStore(dataSource);
+        store.createTableIfNotExists();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            store.append(connection, event("T001", PaymentStatus.SUCCESS));
+            connection.rollback();
+            assertEquals(0, store.countPending());
+
+            store.append(connection, event("T001", PaymentStatus.SUCCESS));
+            connection.commit();
+        }
+        assertEquals(1, store.countPending());
+
+        List<OutboxMessage> claimed = store.claim(10, Duration.ofMinutes(1));
+        assertEquals(1, claimed.size());
+        assertEquals("T001", claimed.get(0).getOutTradeNo());
+        assertEquals(PaymentStatus.SUCCESS, claimed.get(0).getEvent().getResponse().getStatus());
+        assertTrue(store.claim(10, Duration.ofMinutes(1)).isEmpty());
+        assertEquals(1, store.countPending());
+
+        store.delivered(claimed);
+        assertEquals(0, store.countPending());
+    }
+
+    @Test
+    public void testRelayDeliversInBatchesKeepingOrderPerOrder() {
+        JdbcDataSource dataSource = dataSource("outbox_relay");
+        JdbcOutboxStore store = new JdbcOutboxStore(dataSource);
+        store.createTableIfNotExists();
+        assertDeliversInOrder(store);
+        assertDeliversInOrder(new InMemoryOutboxStore());
+    }
+
+    @Test
+    public void testFailedLaneIsRetriedWithBackoff() throws Exception {
+        JdbcOutboxStore store = new JdbcOutboxStore(dataSource("outbox_retry"));
+        store.createTableIfNotExists();
+        store.append(event("T001", PaymentStatus.SUCCESS));
+
+        AtomicInteger calls = new AtomicInteger();
+        List<PaymentEvent> received = new ArrayList<>();
+        OutboxRelay relay = new OutboxRelay(store, () -> List.of(events -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+            received.addAll(events);
+        }), properties(10, 2, Duration.ofMillis(50)));
+        try {
+            assertEquals(1, relay.relayOnce());
+            assertEquals(1, relay.getFailed());
+            assertEquals(0, relay.relayOnce());
+            assertEquals(1, relay.getPending());
+
+            Thread.sleep(80);
+            assertEquals(1, relay.relayOnce());
+            assertEquals(1, received.size());
+            assertEquals(0, relay.getPending());
+            assertEquals(1, relay.getDelivered());
+        } finally {
+            relay.shutdown();
+        }
+    }
+
+    @Test
+    public void testRetryKeepsOrderPerOrder() throws Exception {
+        JdbcOutboxStore store = new JdbcOutboxStore(dataSource("outbox_reorder"));
+        store.createTableIfNotExists();
+        assertRetryKeepsOrder(store);
+        assertRetryKeepsOrder(new InMemoryOutboxStore());
+    }
+
+    @Test
+    public void testNodesClaimOnlyOldestEventPerOrder() {
+        JdbcDataSource dataSource = dataSource("outbox_nodes");
+        JdbcOutboxStore first = new JdbcOutboxStore(dataSource);
+        JdbcOutboxStore second = new JdbcOutboxStore(dataSource);
+        first.createTableIfNotExists();
+        first.append(event("T001", PaymentStatus.PENDING));
+        first.append(event("T001", PaymentStatus.PROCESSING));
+        first.append(event("T002", PaymentStatus.PENDING));
+        first.append(event("T001", PaymentStatus.SUCCESS));
+
+        List<OutboxMessage> claimed = first.claim(10, Duration.ofMinutes(1));
+        assertEquals(List.of("T001", "T002"), claimed.stream().map(OutboxMessage::getOutTradeNo).toList());
+        // 另一个节点取不到租约中的事件，也取不到排在它们后面的同一订单事件
+        assertTrue(second.claim(10, Duration.ofMinutes(1)).isEmpty());
+
+        first.retryLater(claimed.subList(0, 1), 0);
+        first.delivered(claimed.subList(1, 2));
+        List<OutboxMessage> retried = second.claim(10, Duration.ofMinutes(1));
+        assertEquals(1, retried.size());
+        assertEquals(PaymentStatus.PENDING, retried.get(0).getEvent().getResponse().getStatus());
+        assertEquals(1, retried.get(0).getAttempts());
+    }
+
+    @Test
+    public void testExhaustedEventsMovedToDeadLetters() throws Exception {
+        JdbcOutboxStore store = new JdbcOutboxStore(dataSource("outbox_dead"));
+        store.createTableIfNotExists();
+        assertDeadLetters(store);
+        assertDeadLetters(new InMemoryOutboxStore());
+    }
+
+    private static void assertRetryKeepsOrder(OutboxStore store) throws Exception {
+        store.append(event("T001", PaymentStatus.PENDING));
+        store.append(event("T002", PaymentStatus.PENDING));
+        store.append(event("T001", PaymentStatus.SUCCESS));
+
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, List<PaymentStatus>> received = new ConcurrentHashMap<>();
+        OutboxRelay relay = new OutboxRelay(store, () -> List.of(events -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+            for (PaymentEvent event : events) {
+                received.computeIfAbsent(event.getResponse().getOutTradeNo(), key -> new ArrayList<>())
+                    .add(event.getResponse().getStatus());
+            }
+        }), properties(10, 1, Duration.ofMillis(50)));
+        try {
+            assertEquals(2, relay.relayOnce());
+            // 失败的事件等待重试期间，同一订单后面的事件不能先投递
+            assertEquals(0, relay.relayOnce());
+            assertTrue(received.isEmpty());
+
+            Thread.sleep(80);
+            while (relay.relayOnce() > 0) {
+                // 每次只取出每个订单最早的一条
+            }
+            assertEquals(List.of(PaymentStatus.PENDING, PaymentStatus.SUCCESS), received.get("T001"));
+            assertEquals(List.of(PaymentStatus.PENDING), received.get("T002"));
+            assertEquals(0, store.countPending());
+        } finally {
+            relay.shutdown();
+        }
+    }
+
+    private static void assertDeadLetters(OutboxStore store) throws Exception {
+        store.append(event("T001", PaymentStatus.PENDING));
+        store.append(event("T001", PaymentStatus.SUCCESS));
+
+        List<PaymentStatus> received = new ArrayList<>();
+        OutboxProperties properties = properties(10, 1, Duration.ofMillis(1));
+        properties.setMaxAttempts(2);
+        OutboxRelay relay = new OutboxRelay(store, () -> List.of(events -> {
+            for (PaymentEvent event : events) {
+                if (event.getResponse().getStatus() == PaymentStatus.PENDING) {
+                    throw new IllegalStateException("rejected by downstream");
+                }
+                received.add(event.getResponse().getStatus());
+            }
+        }), properties);
+        try {
+            assertEquals(1, relay.relayOnce());
+            Thread.sleep(10);
+            assertEquals(1, relay.relayOnce());
+            assertEquals(1, relay.getDeadLettered());
+            assertEquals(1, store.countDeadLetters());
+
+            // 死信不再阻塞同一订单后续的事件
+            assertEquals(1, relay.relayOnce());
+            assertEquals(List.of(PaymentStatus.SUCCESS), received);
+            assertEquals(0, relay.relayOnce());
+            assertEquals(0, relay.getPending());
+            assertEquals(1, store.countDeadLetters());
+        } finally {
+            relay.shutdown();
+        }
+    }
+
+    private static void assertDeliversInOrder(OutboxStore store) {
+        PaymentStatus[] statuses = {PaymentStatus.PENDING, PaymentStatus.PROCESSING, PaymentStatus.SUCCESS};
+        for (PaymentStatus status : statuses) {
+            for (int order = 0; order < 5; order++) {
+                store.append(event("T" + order, status));
+            }
+        }
+
+        Map<String, List<PaymentStatus>> received = new ConcurrentHashMap<>();
+        AtomicInteger batches = new AtomicInteger();
+        OutboxRelay relay = new OutboxRelay(store, () -> List.of(events -> {
+            batches.incrementAndGet();
+            for (PaymentEvent event : events) {
+                received.computeIfAbsent(event.getResponse().getOutTradeNo(), key -> new ArrayList<>())
+                    .add(event.getResponse().getStatus());
+            }
+        }), properties(4, 2, Duration.ofSeconds(1)));
+        try {
+            int relayed = 0;
+            int count;
+            while ((count = relay.relayOnce()) > 0) {
+                assertTrue(count <= 4);
+                relayed += count;
+            }
+            assertEquals(15, relayed);
+            assertEquals(5, received.size());
+            for (List<PaymentStatus> history : received.values()) {
+                assertEquals(List.of(statuses), history);
+            }
+            assertTrue(batches.get() >= 4);
+            assertEquals(15, relay.getDelivered());
+            assertEquals(0, store.countPending());
+        } finally {
+            relay.shutdown();
+        }
+    }
+
+    private static OutboxProperties properties(int batchSize, int parallelism, Duration retryDelay) {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setBatchSize(batchSize);
+        properties.setParallelism(parallelism);
+        properties.setPollInterval(Duration.ofHours(1));
+        properties.setRetryDelay(retryDelay);
+        return properties;
+    }
+
+    private static JdbcDataSource dataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static PaymentEvent event(String outTradeNo, PaymentStatus status) {
+        return PaymentEvent.statusUpdated(PaymentResponse.builder()
+            .success(true)
+            .outTradeNo(outTradeNo)
+            .paymentType(PaymentType.ALIPAY)
+            .status(status)
+            .build());
+    }
+}
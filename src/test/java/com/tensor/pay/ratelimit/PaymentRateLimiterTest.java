@@ -0,0 +1,168 @@
+package com.tensor.pay.ratelimit;
+
+import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.config.RateLimitProperties;
+import com.tensor.pay.enums.PaymentOperation;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.service.BankPaymentService;
+import com.tensor.pay.service.UnifiedPaymentService;
+import com.tensor.pay.utils.SignatureUtils;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 渠道限流测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentRateLimiterTest {
+
+    @Test
+    public void testBurstThenSteadyRate() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+        long now = System.nanoTime();
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+
+        assertEquals(0, bucket.reserve(now));
+        assertEquals(0, bucket.reserve(now));
+        assertEquals(0, bucket.reserve(now));
+        assertEquals(-1, bucket.reserve(now));
+        assertEquals(-1, bucket.reserve(now + interval - 1));
+        assertEquals(0, bucket.reserve(now + interval));
+        assertEquals(-1, bucket.reserve(now + interval));
+    }
+
+    @Test
+    public void testQueueUpToMaxWait() {
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+        TokenBucket bucket = new TokenBucket(10, 1, interval * 2);
+        long now = System.nanoTime();
+
+        assertEquals(0, bucket.reserve(now));
+        assertEquals(interval, bucket.reserve(now));
+        assertEquals(interval * 2, bucket.reserve(now));
+        // 等待时间超过上限时拒绝，不占用配额
+        assertEquals(-1, bucket.reserve(now));
+        assertEquals(interval * 2, bucket.reserve(now + interval));
+    }
+
+    @Test
+    public void testMostSpecificRulePerMerchant() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getRules().add(rule(null, null, 2));
+        properties.getRules().add(rule(null, PaymentOperation.QUERY, 1));
+        properties.getRules().add(rule("vip", null, 1000));
+        PaymentRateLimiter limiter = new PaymentRateLimiter(properties);
+
+        limiter.acquire(PaymentType.ALIPAY, null, PaymentOperation.CREATE);
+        limiter.acquire(PaymentType.ALIPAY, null, PaymentOperation.REFUND);
+        PaymentException e = assertThrows(PaymentException.class,
+            () -> limiter.acquire(PaymentType.ALIPAY, null, PaymentOperation.CREATE));
+        assertEquals("RATE_LIMITED", e.getErrorCode());
+
+        // 查询使用单独的配额，其他商户各自一个令牌桶
+        limiter.acquire(PaymentType.ALIPAY, null, PaymentOperation.QUERY);
+        assertThrows(PaymentException.class, () -> limiter.acquire(PaymentType.ALIPAY, null, PaymentOperation.QUERY));
+        limiter.acquire(PaymentType.ALIPAY, "m2", PaymentOperation.CREATE);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(PaymentType.ALIPAY, "vip", PaymentOperation.QUERY);
+        }
+        // 未配置规则的渠道不限流
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(PaymentType.WECHAT, null, PaymentOperation.CREATE);
+        }
+
+        List<RateLimitStats> stats = limiter.getStats();
+        assertEquals(4, stats.size());
+        RateLimitStats defaultMerchant = stats.stream()
+            .filter(s -> s.getKey().startsWith("ALIPAY:-:*")).findFirst().orElseThrow();
+        assertEquals(2, defaultMerchant.getAcquired());
+        assertEquals(1, defaultMerchant.getRejected());
+        assertEquals(0, defaultMerchant.getAvailable());
+    }
+
+    @Test
+    public void testBucketCountIsBounded() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(4);
+        properties.getRules().add(rule(null, null, 1));
+        PaymentRateLimiter limiter = new PaymentRateLimiter(properties);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(PaymentType.ALIPAY, "m" + i, PaymentOperation.CREATE));
+        }
+        // 令牌桶已满且都未补满，新商户共用一个令牌桶
+        assertTrue(limiter.tryAcquire(PaymentType.ALIPAY, "new1", PaymentOperation.CREATE));
+        assertFalse(limiter.tryAcquire(PaymentType.ALIPAY, "new2", PaymentOperation.CREATE));
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire(PaymentType.ALIPAY, "caller-" + i, PaymentOperation.CREATE);
+        }
+        assertEquals(5, limiter.getStats().size());
+        assertFalse(limiter.tryAcquire(PaymentType.ALIPAY, "m0", PaymentOperation.CREATE));
+    }
+
+    @Test
+    public void testSweptBucketCountsAreKept() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(2);
+        RateLimitProperties.Rule rule = rule(null, null, 1);
+        rule.setPermitsPerSecond(20);
+        properties.getRules().add(rule);
+        PaymentRateLimiter limiter = new PaymentRateLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(PaymentType.ALIPAY, "m0", PaymentOperation.CREATE));
+        assertFalse(limiter.tryAcquire(PaymentType.ALIPAY, "m0", PaymentOperation.CREATE));
+        assertTrue(limiter.tryAcquire(PaymentType.ALIPAY, "m1", PaymentOperation.CREATE));
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        // 两个令牌桶都已补满，新商户触发清理，清理掉的计数累加到规则的汇总项
+        assertTrue(limiter.tryAcquire(PaymentType.ALIPAY, "m2", PaymentOperation.CREATE));
+        List<RateLimitStats> stats = limiter.getStats();
+        RateLimitStats swept = stats.stream().filter(s -> s.getKey().equals("ALIPAY:~swept:*#0"))
+            .findFirst().orElseThrow();
+        assertEquals(2, swept.getAcquired());
+        assertEquals(1, swept.getRejected());
+        assertEquals(3, stats.stream().mapToLong(RateLimitStats::getAcquired).sum());
+        assertEquals(1, stats.stream().mapToLong(RateLimitStats::getRejected).sum());
+    }
+
+    @Test
+    public void testRateLimitedCallReturnsFailureResponse() {
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Rule rule = rule(null, null, 1);
+        rule.setPaymentType(PaymentType.BANK);
+        properties.getRules().add(rule);
+        PaymentRateLimiter limiter = new PaymentRateLimiter(properties);
+        BankPaymentService bank = new BankPaymentService(new BankPayProperties(), null, new SignatureUtils());
+        UnifiedPaymentService service = new UnifiedPaymentService(new PaymentServiceFactory(List.of(bank)), null,
+            limiter);
+
+        assertTrue(limiter.await(PaymentType.BANK, null, PaymentOperation.QUERY));
+        // 超出配额时返回失败响应，不抛出异常，也不调用网关
+        assertSame(PaymentResponse.RATE_LIMITED, service.queryPayment(PaymentType.BANK, "ORDER1"));
+        assertSame(PaymentResponse.RATE_LIMITED,
+            service.refund(PaymentType.BANK, "ORDER1", new BigDecimal("1.00"), "test"));
+        assertEquals("RATE_LIMITED", service.cancelPayment(PaymentType.BANK, "ORDER1").getErrorCode());
+    }
+
+    private static RateLimitProperties.Rule rule(String merchantId, PaymentOperation operation, int burst) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setPaymentType(PaymentType.ALIPAY);
+        rule.setMerchantId(merchantId);
+        rule.setOperation(operation);
+        rule.setPermitsPerSecond(0.01);
+        rule.setBurst(burst);
+        rule.setMaxWait(Duration.ZERO);
+        return rule;
+    }
+}
@@ -0,0 +1,143 @@
+package com.tensor.pay.reconcile;
+
+import com.tensor.pay.enums.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对账引擎测试类
+ * 
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class ReconciliationEngineTest {
+    
+    private static final int ROWS = 5_000;
+    
+    @Test
+    public void testWechatStatement() throws Exception {
+        Path file = writeWechatStatement();
+        try {
+            List<Discrepancy> discrepancies = new ArrayList<>();
+            ReconciliationResult result = new ReconciliationEngine(1024)
+                .reconcile(file, StatementFormat.wechat(), wechatIndex(), discrepancies::add);
+            
+            assertEquals(ROWS + 1, result.getRows());
+            assertEquals(ROWS - 2, result.getMatched());
+            assertEquals(0, result.getMalformedRows());
+            assertEquals(1, result.getAmountMismatches());
+            assertEquals(1, result.getStatusMismatches());
+            assertEquals(1, result.getMissingLocal());
+            assertEquals(1, result.getMissingInStatement());
+            assertEquals(4, discrepancies.size());
+            assertFalse(result.isBalanced());
+            
+            for (Discrepancy discrepancy : discrepancies) {
+                switch (discrepancy.getType()) {
+                    case AMOUNT_MISMATCH -> {
+                        assertEquals("ORDER7", discrepancy.getOutTradeNo());
+                        assertEquals(2, discrepancy.getStatementAmount());
+                    }
+                    case STATUS_MISMATCH -> {
+                        assertEquals("ORDER9", discrepancy.getOutTradeNo());
+                        assertEquals(PaymentStatus.PENDING, discrepancy.getStatementStatus());
+                    }
+                    case MISSING_LOCAL -> assertEquals("UNKNOWN", discrepancy.getOutTradeNo());
+                    case MISSING_IN_STATEMENT -> assertEquals("ORDER_LOCAL_ONLY", discrepancy.getOutTradeNo());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        Path file = writeWechatStatement();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            OrderIndex index = wechatIndex();
+            ReconciliationResult sequential = new ReconciliationEngine(1024)
+                .reconcile(file, StatementFormat.wechat(), index, null);
+            List<Discrepancy> discrepancies = Collections.synchronizedList(new ArrayList<>());
+            ReconciliationResult parallel = new ReconciliationEngine(1024, pool, 1024)
+                .reconcile(file, StatementFormat.wechat(), index, discrepancies::add);
+            
+            assertEquals(sequential.getRows(), parallel.getRows());
+            assertEquals(sequential.getMatched(), parallel.getMatched());
+            assertEquals(sequential.getMalformedRows(), parallel.getMalformedRows());
+            assertEquals(sequential.getAmountMismatches(), parallel.getAmountMismatches());
+            assertEquals(sequential.getStatusMismatches(), parallel.getStatusMismatches());
+            assertEquals(sequential.getMissingLocal(), parallel.getMissingLocal());
+            assertEquals(sequential.getMissingInStatement(), parallel.getMissingInStatement());
+            assertEquals(sequential.getStatementTotalAmount(), parallel.getStatementTotalAmount());
+            assertEquals(4, discrepancies.size());
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    private Path writeWechatStatement() throws Exception {
+        StringBuilder content = new StringBuilder("\uFEFF交易时间,公众账号ID,商户号,特约商户号,设备号,微信订单号,商户订单号,"
+            + "用户标识,交易类型,交易状态,付款银行,货币种类,应结订单金额\r\n");
+        for (int i = 0; i < ROWS; i++) {
+            String amount = i == 7 ? "0.02" : "0.01";
+            String status = i == 9 ? "NOTPAY" : "success";
+            content.append("`2024-01-01 10:00:00,`wx1,`1900000001,`0,`,`4200").append(i)
+                .append(",`ORDER").append(i).append(",`openid,`NATIVE,`").append(status)
+                .append(",`CMB_CREDIT,`CNY,`").append(amount).append("\r\n");
+        }
+        content.append("`2024-01-01 10:00:00,`wx1,`1900000001,`0,`,`4200x,`UNKNOWN,`openid,`NATIVE,`SUCCESS,`CMB,`CNY,`1.00\r\n");
+        content.append("总交易单数,应结订单总金额\r\n`5001,`51.00\r\n");
+        
+        Path file = Files.createTempFile("wechat", ".csv");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+    
+    private OrderIndex wechatIndex() {
+        OrderIndex index = new OrderIndex(16);
+        for (int i = 0; i < ROWS; i++) {
+            index.add("ORDER" + i, 1, PaymentStatus.SUCCESS);
+        }
+        index.add("ORDER_LOCAL_ONLY", 100, PaymentStatus.SUCCESS);
+        index.add("ORDER_PENDING", 100, PaymentStatus.PENDING);
+        return index;
+    }
+    
+    @Test
+    public void testAlipayStatementWithComments() throws Exception {
+        String content = "#支付宝业务明细查询\n#账号：[20880000000000000156]\n"
+            + "支付宝交易号,商户订单号,业务类型,商品名称,创建时间,完成时间,门店编号,门店名称,操作员,终端号,对方账户,订单金额（元）\n"
+            + "2024010122001,ALI1\t,交易,商品,2024-01-01,2024-01-01,,,,,buyer,100.10\n"
+            + "2024010122002,ALI2\t,交易,商品,2024-01-01,2024-01-01,,,,,buyer,0.5\n"
+            + "#-----------------------------------------业务明细列表结束------------------------------------\n";
+        Path file = Files.createTempFile("alipay", ".csv");
+        try {
+            Files.write(file, content.getBytes("GBK"));
+            
+            OrderIndex index = new OrderIndex(2);
+            index.add("ALI1", 10010, PaymentStatus.SUCCESS);
+            index.add("ALI2", 50, PaymentStatus.SUCCESS);
+            
+            ReconciliationResult result = new ReconciliationEngine(1024)
+                .reconcile(file, StatementFormat.alipay(), index, null);
+            
+            assertTrue(result.isBalanced());
+            assertEquals(2, result.getMatched());
+            assertEquals(10060, result.getStatementTotalAmount());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.tensor.pay.service;
+
+import com.tensor.pay.enums.ChannelState;
+import com.tensor.pay.exception.PaymentException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟初始化客户端测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class LazyProviderTest {
+
+    @Test
+    public void testFailedInitializationIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        LazyProvider<String> provider = new LazyProvider<>("CONFIG_ERROR", "初始化失败", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("unreachable");
+            }
+            return "client";
+        });
+        assertEquals(ChannelState.NOT_STARTED, provider.getState());
+
+        PaymentException e = assertThrows(PaymentException.class, provider::get);
+        assertEquals("CONFIG_ERROR", e.getErrorCode());
+        assertEquals(ChannelState.FAILED, provider.getState());
+        assertTrue(provider.getLastError() instanceof IllegalStateException);
+
+        assertEquals("client", provider.get());
+        assertEquals(ChannelState.READY, provider.getState());
+        assertNull(provider.getLastError());
+        assertEquals("client", provider.get());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testWarmUpCreatesOnceInBackground() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        LazyProvider<String> provider = new LazyProvider<>("CONFIG_ERROR", "初始化失败", () -> {
+            attempts.incrementAndGet();
+            Thread.sleep(50);
+            return "client";
+        });
+        LazyProvider<String> failing = new LazyProvider<>("CONFIG_ERROR", "初始化失败", () -> {
+            throw new IllegalStateException("unreachable");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            provider.warmUp(executor);
+            assertEquals(ChannelState.READY, provider.warmUp(executor).get(1, TimeUnit.SECONDS));
+            assertEquals("client", provider.get());
+            assertEquals(1, attempts.get());
+            assertEquals(ChannelState.FAILED, failing.warmUp(executor).get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReloadSwapsInstanceOnlyAfterSuccessfulRebuild() throws Exception {
+        AtomicReference<String> config = new AtomicReference<>("v1");
+        AtomicBoolean broken = new AtomicBoolean();
+        LazyProvider<String> provider = new LazyProvider<>("CONFIG_ERROR", "初始化失败", () -> {
+            if (broken.get()) {
+                throw new IllegalStateException("bad config");
+            }
+            return "client-" + config.get();
+        }, config::get);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 未创建的实例不需要重建
+            config.set("v2");
+            assertFalse(provider.reloadIfStale(executor).get(1, TimeUnit.SECONDS));
+            assertEquals("client-v2", provider.get());
+            assertFalse(provider.isStale());
+
+            config.set("v3");
+            broken.set(true);
+            assertTrue(provider.isStale());
+            assertThrows(ExecutionException.class, () -> provider.reloadIfStale(executor).get(1, TimeUnit.SECONDS));
+            assertEquals("client-v2", provider.get());
+            assertTrue(provider.getLastError() instanceof IllegalStateException);
+
+            broken.set(false);
+            assertTrue(provider.reloadIfStale(executor).get(1, TimeUnit.SECONDS));
+            assertEquals("client-v3", provider.get());
+            assertNull(provider.getLastError());
+            assertFalse(provider.reloadIfStale(executor).get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
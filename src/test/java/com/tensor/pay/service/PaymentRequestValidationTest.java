@@ -0,0 +1,108 @@
+package com.tensor.pay.service;
+
+import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.model.Money;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.utils.HttpUtils;
+import com.tensor.pay.utils.SignatureUtils;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 支付请求校验测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class PaymentRequestValidationTest {
+
+    @Test
+    public void testInvalidRequestsReturnSharedFailures() {
+        HttpUtils httpUtils = new HttpUtils();
+        try {
+            BankPaymentService service = new BankPaymentService(new BankPayProperties(), httpUtils,
+                new SignatureUtils());
+
+            assertSame(PaymentResponse.INVALID_REQUEST, service.createPayment(null));
+            assertSame(PaymentResponse.unsupportedPaymentType(PaymentType.ALIPAY),
+                service.createPayment(request(PaymentType.ALIPAY, "1.00", "CNY")));
+            assertSame(PaymentResponse.INVALID_AMOUNT, service.createPayment(request(PaymentType.BANK, "0", "CNY")));
+            assertSame(PaymentResponse.INVALID_AMOUNT, service.createPayment(request(PaymentType.BANK, "-1", "CNY")));
+
+            PaymentResponse missing = service.createPayment(request(PaymentType.BANK, null, "CNY"));
+            assertEquals("INVALID_AMOUNT", missing.getErrorCode());
+            assertSame(missing, service.createPayment(request(PaymentType.BANK, null, "CNY")));
+
+            PaymentResponse precision = service.createPayment(request(PaymentType.BANK, "0.015", "CNY"));
+            assertEquals("INVALID_AMOUNT", precision.getErrorCode());
+            assertSame(precision, service.createPayment(request(PaymentType.BANK, "0.001", "CNY")));
+            assertSame(precision, service.createPayment(request(PaymentType.BANK, "1e2000000", "CNY")));
+            PaymentResponse currency = service.createPayment(request(PaymentType.BANK, "1", "XYZ"));
+            assertEquals("INVALID_CURRENCY", currency.getErrorCode());
+            assertSame(currency, service.createPayment(request(PaymentType.BANK, "1", "ABC")));
+
+            PaymentRequest noSubject = request(PaymentType.BANK, "1.00", "CNY");
+            noSubject.setSubject(" ");
+            assertEquals("INVALID_SUBJECT", service.createPayment(noSubject).getErrorCode());
+
+            assertNull(service.checkPaymentRequest(request(PaymentType.BANK, "1.00", "CNY")));
+            PaymentException e = assertThrows(PaymentException.class,
+                () -> service.validatePaymentRequest(request(PaymentType.BANK, "0", "CNY")));
+            assertEquals("INVALID_AMOUNT", e.getErrorCode());
+            assertTrue(e.isBusinessError());
+        } finally {
+            httpUtils.close();
+        }
+    }
+
+    @Test
+    public void testBusinessErrorsHaveNoStackTrace() {
+        PaymentException business = PaymentException.businessError("RATE_LIMITED", "限流");
+        assertTrue(business.isBusinessError());
+        assertEquals(0, business.getStackTrace().length);
+
+        PaymentException unexpected = new PaymentException("ALIPAY_API_ERROR", "支付宝API调用失败");
+        assertFalse(unexpected.isBusinessError());
+        assertTrue(unexpected.getStackTrace().length > 0);
+
+        PaymentException parse = assertThrows(PaymentException.class, () -> Money.parseMinor("abc", 2));
+        assertTrue(parse.isBusinessError());
+    }
+
+    @Test
+    public void testExactCheckMatchesConversion() {
+        String[] amounts = {"0", "0.01", "12.300", "0.015", "1E+2", "-0.05", "92233720368547758.07",
+            "92233720368547758.08", "-92233720368547758.08", "-92233720368547758.09"};
+        for (String amount : amounts) {
+            BigDecimal value = new BigDecimal(amount);
+            boolean converts;
+            try {
+                Money.toMinor(value, 2);
+                converts = true;
+            } catch (PaymentException e) {
+                converts = false;
+            }
+            assertEquals(converts, Money.isExact(value, 2), amount);
+        }
+        assertNull(Money.findCurrency("XYZ"));
+        assertSame(Money.CNY, Money.findCurrency(null));
+    }
+
+    private static PaymentRequest request(PaymentType type, String amount, String currency) {
+        PaymentRequest request = new PaymentRequest();
+        request.setPaymentType(type);
+        request.setOutTradeNo("T001");
+        request.setSubject("测试商品");
+        request.setCurrency(currency);
+        if (amount != null) {
+            request.setAmount(new BigDecimal(amount));
+        }
+        return request;
+    }
+}
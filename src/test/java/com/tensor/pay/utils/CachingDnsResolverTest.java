@@ -0,0 +1,55 @@
+package com.tensor.pay.utils;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 域名解析缓存测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class CachingDnsResolverTest {
+
+    @Test
+    public void testCachesWithinTtlAndServesStaleOnFailure() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicBoolean failing = new AtomicBoolean();
+        InetAddress address = InetAddress.getByAddress("gateway.example.com", new byte[] {10, 0, 0, 1});
+        DnsResolver delegate = new DnsResolver() {
+            @Override
+            public InetAddress[] resolve(String host) throws UnknownHostException {
+                lookups.incrementAndGet();
+                if (failing.get()) {
+                    throw new UnknownHostException(host);
+                }
+                return new InetAddress[] {address};
+            }
+
+            @Override
+            public String resolveCanonicalHostname(String host) {
+                return host;
+            }
+        };
+
+        CachingDnsResolver cached = new CachingDnsResolver(delegate, Duration.ofHours(1));
+        assertSame(address, cached.resolve("gateway.example.com")[0]);
+        assertSame(address, cached.resolve("gateway.example.com")[0]);
+        assertEquals(1, lookups.get());
+
+        CachingDnsResolver expiring = new CachingDnsResolver(delegate, Duration.ZERO);
+        expiring.resolve("gateway.example.com");
+        failing.set(true);
+        assertSame(address, expiring.resolve("gateway.example.com")[0]);
+        assertEquals(3, lookups.get());
+        assertThrows(UnknownHostException.class, () -> expiring.resolve("other.example.com"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.tensor.pay.utils;
+
+import com.tensor.pay.config.BankPayProperties;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import com.tensor.pay.factory.PaymentServiceFactory;
+import com.tensor.pay.model.PaymentRequest;
+import com.tensor.pay.model.PaymentResponse;
+import com.tensor.pay.ratelimit.TokenBucket;
+import com.tensor.pay.service.BankPaymentService;
+import com.tensor.pay.service.UnifiedPaymentService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求截止时间测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class DeadlineTest {
+
+    @Test
+    public void testNestedDeadlineKeepsEarlier() {
+        assertNull(Deadline.current());
+        assertEquals(5_000, Deadline.capMillis(5_000, "test"));
+
+        Deadline outer = Deadline.after(Duration.ofSeconds(1));
+        Deadline.call(outer, () -> {
+            assertSame(outer, Deadline.current());
+            assertSame(outer, Deadline.call(Deadline.after(Duration.ofMinutes(1)), Deadline::current));
+            Deadline inner = Deadline.after(Duration.ofMillis(100));
+            assertSame(inner, Deadline.call(inner, Deadline::current));
+            assertTrue(Deadline.capMillis(5_000, "test") <= 1_000);
+            return null;
+        });
+        assertNull(Deadline.current());
+
+        PaymentException e = assertThrows(PaymentException.class, () -> Deadline.call(
+            Deadline.after(Duration.ZERO), () -> Deadline.capMillis(5_000, "test")));
+        assertEquals(Deadline.DEADLINE_EXCEEDED, e.getErrorCode());
+    }
+
+    @Test
+    public void testExpiredRequestIsNotSent() {
+        BankPayProperties properties = new BankPayProperties();
+        properties.setMerchantId("M001");
+        properties.setMerchantKey("secret");
+        // 不可路由的地址：如果请求被发出，会一直等到连接超时
+        properties.setGatewayUrl("http://10.255.255.1/pay");
+        BankPaymentService service = new BankPaymentService(properties, new HttpUtils(), new SignatureUtils());
+        PaymentRequest request = new PaymentRequest("ORDER1", PaymentType.BANK, new BigDecimal("1.00"), "test");
+
+        long start = System.nanoTime();
+        PaymentResponse response = Deadline.call(Deadline.after(Duration.ZERO), () -> service.createPayment(request));
+        assertFalse(response.isSuccess());
+        assertEquals(Deadline.DEADLINE_EXCEEDED, response.getErrorCode());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testExpiredUnifiedCallReturnsFailureResponse() {
+        BankPayProperties properties = new BankPayProperties();
+        properties.setGatewayUrl("http://10.255.255.1/pay");
+        BankPaymentService bank = new BankPaymentService(properties, null, new SignatureUtils());
+        UnifiedPaymentService service = new UnifiedPaymentService(new PaymentServiceFactory(List.of(bank)));
+
+        // 已经截止的调用返回失败响应，不抛出异常
+        Deadline expired = Deadline.after(Duration.ZERO);
+        assertSame(PaymentResponse.DEADLINE_EXCEEDED,
+            Deadline.call(expired, () -> service.queryPayment(PaymentType.BANK, "ORDER1")));
+        assertSame(PaymentResponse.DEADLINE_EXCEEDED,
+            Deadline.call(expired, () -> service.cancelPayment(PaymentType.BANK, "ORDER1")));
+    }
+
+    @Test
+    public void testQueueingAndFuturesBoundedByDeadline() {
+        TokenBucket bucket = new TokenBucket(1, 1, TimeUnit.SECONDS.toNanos(10));
+        assertTrue(bucket.tryAcquire());
+        // 下一个令牌要等一秒，超过剩余时间，立即拒绝
+        assertFalse(bucket.tryAcquire(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertEquals(1, bucket.getRejected());
+
+        CompletableFuture<String> future = Deadline.after(Duration.ofMillis(20)).bound(new CompletableFuture<>());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+}
@@ -0,0 +1,135 @@
+package com.tensor.pay.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HTTP工具类测试
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class HttpUtilsTest {
+
+    @Test
+    public void testFormEncodingMatchesUrlEncoder() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("subject", "测试商品 A&B=C");
+        params.put("emoji", "😀+*-._~/");
+        params.put("long", "x".repeat(20_000));
+        params.put("empty", "");
+        ByteBufferPool pool = new ByteBufferPool(64, 4, 1024 * 1024);
+
+        ByteBuffer encoded = FormEncoder.encode(params, StandardCharsets.UTF_8, pool);
+        StringJoiner expected = new StringJoiner("&");
+        params.forEach((name, value) -> expected.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+            + URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        assertEquals(expected.toString(), StandardCharsets.US_ASCII.decode(encoded).toString());
+        pool.release(encoded);
+        assertTrue(pool.acquire(20_000).capacity() >= 20_000);
+    }
+
+    @Test
+    public void testStreamingPostAndDownload() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=GBK");
+            byte[] response = ("收到:" + new String(body, StandardCharsets.US_ASCII)).getBytes("GBK");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.createContext("/bill", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                byte[] line = "T001,12.30,SUCCESS\n".getBytes(StandardCharsets.UTF_8);
+                for (int i = 0; i < 100_000; i++) {
+                    out.write(line);
+                }
+            }
+        });
+        server.start();
+        Path dir = Files.createTempDirectory("http-utils");
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            HttpUtils httpUtils = new HttpUtils();
+            Map<String, String> params = new LinkedHashMap<>();
+            params.put("orderNo", "T001");
+            params.put("subject", "商品");
+
+            assertEquals("收到:orderNo=T001&subject=%E5%95%86%E5%93%81", httpUtils.post(base + "/echo", params));
+            int length = httpUtils.post(base + "/echo", params, (body, charset) -> {
+                assertEquals("GBK", charset.name());
+                return body.readAllBytes().length;
+            });
+            assertEquals(httpUtils.postForBytes(base + "/echo", params).length, length);
+
+            Path bill = dir.resolve("bill.csv");
+            assertEquals(1_900_000, httpUtils.download(base + "/bill", params, bill));
+            assertEquals(1_900_000, Files.size(bill));
+            try (var files = Files.list(dir)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            server.stop(0);
+            Files.deleteIfExists(dir.resolve("bill.csv"));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testWarmUpKeepsPooledConnectionsAlive() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ping", exchange -> {
+            byte[] response = "pong".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        HttpUtils httpUtils = new HttpUtils();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            assertEquals(3, httpUtils.warmUp(base + "/ping", 3, Duration.ofSeconds(5), executor));
+
+            List<ConnectionPoolStats> stats = httpUtils.getConnectionStats();
+            assertEquals(1, stats.size());
+            assertEquals(base, stats.get(0).getHost());
+            assertEquals(3, stats.get(0).getAvailable());
+            assertEquals(0, stats.get(0).getLeased());
+            assertEquals(3L, stats.get(0).getWarmed());
+
+            // 请求复用预热的连接，不新建连接
+            assertEquals("pong", httpUtils.get(base + "/ping"));
+            assertEquals(3, httpUtils.getConnectionStats().get(0).getAvailable());
+            httpUtils.handshake(base, Duration.ofSeconds(5));
+        } finally {
+            httpUtils.close();
+            executor.shutdown();
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdown();
+        }
+    }
+}
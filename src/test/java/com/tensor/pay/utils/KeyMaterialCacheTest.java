@@ -0,0 +1,91 @@
+package com.tensor.pay.utils;
+
+import com.alipay.api.internal.util.AlipaySignature;
+import com.tensor.pay.enums.PaymentType;
+import com.tensor.pay.exception.PaymentException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 密钥缓存测试类
+ *
+ * @author Tensor Pay
+ * @since 1.0.0
+ */
+public class KeyMaterialCacheTest {
+
+    @Test
+    public void testSignAndVerifyCompatibleWithAlipay() throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        String privateKey = encode(keyPair.getPrivate().getEncoded());
+        String publicKey = encode(keyPair.getPublic().getEncoded());
+        KeyMaterialCache cache = new KeyMaterialCache();
+        String content = "app_id=2021&out_trade_no=T001&total_amount=12.30";
+
+        String sign = cache.sign(PaymentType.ALIPAY, "2021", privateKey, content, StandardCharsets.UTF_8, "RSA2");
+        assertEquals(AlipaySignature.rsaSign(content, privateKey, "UTF-8", "RSA2"), sign);
+        assertTrue(cache.verify(PaymentType.ALIPAY, "2021", publicKey, content, sign, StandardCharsets.UTF_8, "RSA2"));
+        assertFalse(cache.verify(PaymentType.ALIPAY, "2021", publicKey, content + "&x=1", sign,
+            StandardCharsets.UTF_8, "RSA2"));
+        assertFalse(cache.verify(PaymentType.ALIPAY, "2021", publicKey, content, null, StandardCharsets.UTF_8, "RSA2"));
+
+        String rsaSign = AlipaySignature.rsaSign(content, privateKey, "UTF-8", "RSA");
+        assertTrue(cache.verify(PaymentType.ALIPAY, "2021", publicKey, content, rsaSign,
+            StandardCharsets.UTF_8, "RSA"));
+        assertThrows(PaymentException.class,
+            () -> cache.sign(PaymentType.ALIPAY, "2021", privateKey, content, StandardCharsets.UTF_8, "SM2"));
+    }
+
+    @Test
+    public void testKeysParsedOnceAndRefreshedOnChange() throws Exception {
+        KeyPair first = generateKeyPair();
+        KeyPair second = generateKeyPair();
+        KeyMaterialCache cache = new KeyMaterialCache();
+        String firstKey = encode(first.getPublic().getEncoded());
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+            + Base64.getMimeEncoder().encodeToString(second.getPublic().getEncoded())
+            + "\n-----END PUBLIC KEY-----\n";
+
+        assertSame(cache.publicKey(PaymentType.ALIPAY, "m1", firstKey),
+            cache.publicKey(PaymentType.ALIPAY, "m1", firstKey));
+        assertEquals(first.getPublic(), cache.publicKey(PaymentType.ALIPAY, "m1", firstKey));
+        assertEquals(second.getPublic(), cache.publicKey(PaymentType.ALIPAY, "m1", pem));
+        assertEquals(first.getPublic(), cache.publicKey(PaymentType.ALIPAY, "m2", firstKey));
+
+        assertThrows(PaymentException.class, () -> cache.privateKey(PaymentType.ALIPAY, "m1", "not-a-key"));
+    }
+
+    @Test
+    public void testSameMerchantIdCachedPerChannel() throws Exception {
+        KeyPair alipay = generateKeyPair();
+        KeyPair wechat = generateKeyPair();
+        KeyMaterialCache cache = new KeyMaterialCache();
+        String alipayKey = encode(alipay.getPublic().getEncoded());
+        String wechatKey = encode(wechat.getPublic().getEncoded());
+
+        assertEquals(alipay.getPublic(), cache.publicKey(PaymentType.ALIPAY, "1900000001", alipayKey));
+        assertEquals(wechat.getPublic(), cache.publicKey(PaymentType.WECHAT, "1900000001", wechatKey));
+        PublicKey cached = cache.publicKey(PaymentType.ALIPAY, "1900000001", alipayKey);
+        assertSame(cached, cache.publicKey(PaymentType.ALIPAY, "1900000001", alipayKey));
+
+        cache.invalidate(PaymentType.WECHAT, "1900000001");
+        assertSame(cached, cache.publicKey(PaymentType.ALIPAY, "1900000001", alipayKey));
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static String encode(byte[] key) {
+        return Base64.getEncoder().encodeToString(key);
+    }
+}